@@ -0,0 +1,378 @@
+package rogue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*Turns frames of text (rows separated by '\n') into the ANSI escape sequences that change a terminal from showing the
+previous frame to showing the new one. The encoder keeps a grid of what the terminal shows and only writes the cells
+that changed: it jumps the cursor over unchanged cells (or rewrites short gaps when that is fewer bytes), repeats a
+character with REP for runs, and scrolls the rows below the scroll region top when the new frame is the old one moved
+up or down. A step in a room costs tens of bytes instead of the whole room. The bytes go into a buffer that is reused
+for every frame, so encoding does not allocate once the buffer is large enough*/
+public class AnsiFrameEncoder {
+
+    private static final byte ESC = 27;
+    private static final int MAX_SCROLL = 3; /*Largest shift looked for between frames*/
+    private static final int SCROLL_COST = 16; /*About the bytes of the scroll sequences, which redrawing must exceed*/
+    private static final int SEQUENCE_COST = 3; /*Bytes of ESC [ and the final character, besides the count*/
+    private static final int INITIAL_BUFFER = 4096;
+    private static final int ONE_BYTE = 0x80;
+    private static final int TWO_BYTES = 0x800;
+    private static final int SIX_BITS = 6;
+    private static final int TWELVE_BITS = 12;
+    private static final int LOW_BITS = 0x3F;
+    private static final int CONTINUATION = 0x80;
+    private static final int TWO_BYTE_LEAD = 0xC0;
+    private static final int THREE_BYTE_LEAD = 0xE0;
+    private static final int MAX_UTF8_LENGTH = 3; /*Bytes of the longest character putChar writes*/
+    private static final int DECIMAL = 10;
+
+    private final int cols;
+    private final int rows;
+    private char[] shown; /*What the terminal shows, row after row*/
+    private char[] next;
+    private char[] scratch; /*Rows being scrolled*/
+    private int scrollTop = 0;
+    private boolean cleared = false;
+    private int cursorRow = -1; /*-1 when the cursor position is not known*/
+    private int cursorCol = -1;
+    private ByteBuffer out = ByteBuffer.allocate(INITIAL_BUFFER);
+
+    /**
+     * Constructor that takes the size of the client's screen (frames are cut to fit it).
+     * @param screenCols (int) columns of the screen
+     * @param screenRows (int) rows of the screen
+     */
+    public AnsiFrameEncoder(int screenCols, int screenRows) {
+        cols = screenCols;
+        rows = screenRows;
+        shown = new char[cols * rows];
+        next = new char[cols * rows];
+        scratch = new char[cols * rows];
+    }
+
+    /**
+     * Mutator method to set the first row that may scroll (rows above it, such as a message line, never do).
+     * @param top (int) first row of the scroll region
+     */
+    public void setScrollTop(int top) {
+        scrollTop = top;
+    }
+
+    /**
+     * Makes the next frame clear the screen and be written whole (i.e. when other output reached the terminal).
+     */
+    public void reset() {
+        cleared = false;
+    }
+
+    /**
+     * Encodes the changes from the previous frame to a new one.
+     * @param frame (CharSequence) rows of the frame separated by '\n'
+     * @return (ByteBuffer) bytes to send, ready to be read; the buffer is reused by the next call to encode
+     */
+    public ByteBuffer encode(CharSequence frame) {
+        out.clear();
+        fillGrid(frame);
+        if (!cleared) {
+            putEscape('H');
+            putSequence('2', 'J');
+            Arrays.fill(shown, ' ');
+            cursorRow = 0;
+            cursorCol = 0;
+            cleared = true;
+        } else {
+            scrollIfShifted();
+        }
+        for (int row = 0; row < rows; row++) {
+            encodeRow(row);
+        }
+        char[] previous = shown;
+        shown = next;
+        next = previous;
+        out.flip();
+        return out;
+    }
+
+    /**
+     * Lays a frame out on the grid of the screen, padding short rows with spaces.
+     * @param frame (CharSequence) rows of the frame separated by '\n'
+     */
+    private void fillGrid(CharSequence frame) {
+        Arrays.fill(next, ' ');
+        int row = 0;
+        int col = 0;
+        for (int i = 0; i < frame.length() && row < rows; i++) {
+            char c = frame.charAt(i);
+            if (c == '\n') {
+                row++;
+                col = 0;
+            } else if (c != '\r') {
+                if (col < cols) {
+                    next[row * cols + col] = c;
+                }
+                col++;
+            }
+        }
+    }
+
+    /**
+     * Scrolls the rows from the scroll region top down when the new frame matches the shown one moved by a few rows,
+     * and enough rows match that the scroll is cheaper than redrawing them.
+     */
+    private void scrollIfShifted() {
+        int unshifted = countMatchingRows(0);
+        int bestShift = 0;
+        int bestMatches = unshifted;
+        for (int shift = -MAX_SCROLL; shift <= MAX_SCROLL; shift++) {
+            int matches = (shift == 0) ? 0 : countMatchingRows(shift);
+            if (matches > bestMatches) {
+                bestMatches = matches;
+                bestShift = shift;
+            }
+        }
+        if (bestShift == 0 || (bestMatches - unshifted) * cols < SCROLL_COST) {
+            return;
+        }
+        put(ESC);
+        put('[');
+        putNumber(scrollTop + 1);
+        put(';');
+        putNumber(rows);
+        put('r'); /*Scroll region*/
+        put(ESC);
+        put('[');
+        putNumber(Math.abs(bestShift));
+        put((bestShift > 0) ? 'S' : 'T');
+        putEscape('r'); /*Whole screen again, which also moves the cursor home*/
+        cursorRow = 0;
+        cursorCol = 0;
+        int height = rows - scrollTop;
+        System.arraycopy(shown, scrollTop * cols, scratch, 0, height * cols);
+        Arrays.fill(shown, scrollTop * cols, rows * cols, ' ');
+        for (int i = 0; i < height; i++) {
+            int from = i + bestShift;
+            if (from >= 0 && from < height) {
+                System.arraycopy(scratch, from * cols, shown, (scrollTop + i) * cols, cols);
+            }
+        }
+    }
+
+    /**
+     * Counts the rows of the new frame in the scroll region that equal a shown row a number of rows away.
+     * @param shift (int) rows the content moved up (negative for down)
+     * @return (int) number of matching rows
+     */
+    private int countMatchingRows(int shift) {
+        int matches = 0;
+        for (int row = scrollTop; row < rows; row++) {
+            int from = row + shift;
+            if (from >= scrollTop && from < rows && rowsEqual(row, from)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns true if a row of the new frame equals a shown row.
+     * @param row (int) row of the new frame
+     * @param shownRow (int) row of the screen
+     * @return (boolean) true if every cell is the same, false otherwise
+     */
+    private boolean rowsEqual(int row, int shownRow) {
+        int a = row * cols;
+        int b = shownRow * cols;
+        for (int col = 0; col < cols; col++) {
+            if (next[a + col] != shown[b + col]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the changed cells of a row.
+     * @param row (int) row of the screen
+     */
+    private void encodeRow(int row) {
+        int base = row * cols;
+        int col = 0;
+        while (col < cols) {
+            if (next[base + col] == shown[base + col]) {
+                col++;
+                continue;
+            }
+            moveCursor(row, col);
+            char c = next[base + col];
+            int run = 1;
+            int lastChange = 0;
+            while (col + run < cols && next[base + col + run] == c) {
+                if (shown[base + col + run] != c) {
+                    lastChange = run;
+                }
+                run++;
+            }
+            putChar(c);
+            if (lastChange > digits(lastChange) + SEQUENCE_COST) {
+                put(ESC);
+                put('[');
+                putNumber(lastChange);
+                put('b'); /*REP: the character again lastChange times*/
+                col += lastChange + 1;
+            } else {
+                col++;
+            }
+            cursorCol = col;
+            if (col >= cols) {
+                cursorRow = -1; /*Terminals differ on where the cursor is after the last column*/
+            }
+        }
+    }
+
+    /**
+     * Moves the cursor to a cell with the fewest bytes: nothing if it is there, the unchanged cells in between if the
+     * cell is a few cells to the right, a line feed to the start of the next row, or a cursor position otherwise.
+     * @param row (int) row of the cell
+     * @param col (int) column of the cell
+     */
+    private void moveCursor(int row, int col) {
+        if (row == cursorRow && col == cursorCol) {
+            return;
+        }
+        if (row == cursorRow && col > cursorCol) {
+            int base = row * cols;
+            int gapBytes = 0;
+            for (int i = cursorCol; i < col; i++) {
+                gapBytes += utf8Length(shown[base + i]);
+            }
+            if (gapBytes <= digits(col - cursorCol) + SEQUENCE_COST) {
+                for (int i = cursorCol; i < col; i++) {
+                    putChar(shown[base + i]); /*Unchanged cells written again*/
+                }
+            } else {
+                put(ESC);
+                put('[');
+                putNumber(col - cursorCol);
+                put('C');
+            }
+        } else if (row == cursorRow + 1 && cursorRow >= 0 && col == 0) {
+            put('\r');
+            put('\n');
+        } else {
+            put(ESC);
+            put('[');
+            putNumber(row + 1);
+            if (col > 0) {
+                put(';');
+                putNumber(col + 1);
+            }
+            put('H');
+        }
+        cursorRow = row;
+        cursorCol = col;
+    }
+
+    /**
+     * Writes ESC [ and a final character.
+     * @param command (char) final character of the sequence
+     */
+    private void putEscape(char command) {
+        put(ESC);
+        put('[');
+        put(command);
+    }
+
+    /**
+     * Writes ESC [, one parameter character and a final character.
+     * @param parameter (char) parameter of the sequence
+     * @param command (char) final character of the sequence
+     */
+    private void putSequence(char parameter, char command) {
+        put(ESC);
+        put('[');
+        put(parameter);
+        put(command);
+    }
+
+    /**
+     * Writes a character as UTF-8.
+     * @param c (char) character (surrogates are written as '?')
+     */
+    private void putChar(char c) {
+        if (c < ONE_BYTE) {
+            put((byte) c);
+        } else if (c < TWO_BYTES) {
+            put((byte) (TWO_BYTE_LEAD | (c >> SIX_BITS)));
+            put((byte) (CONTINUATION | (c & LOW_BITS)));
+        } else if (Character.isSurrogate(c)) {
+            put((byte) '?');
+        } else {
+            put((byte) (THREE_BYTE_LEAD | (c >> TWELVE_BITS)));
+            put((byte) (CONTINUATION | ((c >> SIX_BITS) & LOW_BITS)));
+            put((byte) (CONTINUATION | (c & LOW_BITS)));
+        }
+    }
+
+    /**
+     * Returns the number of bytes a character takes in UTF-8 (as putChar writes it).
+     * @param c (char) character
+     * @return (int) 1 to 3
+     */
+    private static int utf8Length(char c) {
+        if (c < ONE_BYTE || Character.isSurrogate(c)) {
+            return 1;
+        }
+        return (c < TWO_BYTES) ? 2 : MAX_UTF8_LENGTH;
+    }
+
+    /**
+     * Writes a positive number in decimal without making a String.
+     * @param number (int) number
+     */
+    private void putNumber(int number) {
+        int divisor = 1;
+        while (number / divisor >= DECIMAL) {
+            divisor *= DECIMAL;
+        }
+        while (divisor > 0) {
+            put((byte) ('0' + (number / divisor) % DECIMAL));
+            divisor /= DECIMAL;
+        }
+    }
+
+    /**
+     * Returns the number of decimal digits of a positive number.
+     * @param number (int) number
+     * @return (int) digits
+     */
+    private static int digits(int number) {
+        int count = 1;
+        for (int rest = number; rest >= DECIMAL; rest /= DECIMAL) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Writes one byte, doubling the buffer if it is full.
+     * @param value (byte) byte
+     */
+    private void put(byte value) {
+        if (!out.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(out.capacity() * 2);
+            out.flip();
+            larger.put(out);
+            out = larger;
+        }
+        out.put(value);
+    }
+
+    /**
+     * Writes one ASCII character.
+     * @param value (char) character
+     */
+    private void put(char value) {
+        put((byte) value);
+    }
+}
@@ -0,0 +1,142 @@
+package rogue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/*Plays in a text terminal with ANSI escape sequences, without AWT, Swing or lanterna: keys are read from an input
+stream (arrow keys and "WASD" become moves) and each screen is written as the changes from the one before it (see
+AnsiFrameEncoder). When the input is the program's own terminal it is switched to raw mode, so keys arrive as they
+are typed, and restored on close (or by a shutdown hook, if the program ends without closing it). Raw mode also
+turns the terminal's signals off, so Ctrl-C and Ctrl-D arrive as keys and quit the game (see KeystrokeParser)*/
+public class AnsiTerminalUI implements GameUI {
+
+    public static final int COLS = 80;
+    public static final int ROWS = 24;
+    private static final int ROOM_ROW = 3; /*Rows above the room: a blank row, the message and a blank row*/
+    private static final String RAW_MODE = "stty raw -echo < /dev/tty";
+    private static final String NORMAL_MODE = "stty sane < /dev/tty";
+    private static final byte[] LAST_ROW = ("\u001b[" + ROWS + "H\r\n").getBytes(); /*Leave the prompt below*/
+
+    private final InputStream input;
+    private final OutputStream output;
+    private final KeystrokeParser keys = new KeystrokeParser();
+    private final AnsiFrameEncoder encoder = new AnsiFrameEncoder(COLS, ROWS);
+    private final StringBuilder frame = new StringBuilder();
+    private boolean rawMode = false;
+    private final Thread restoreOnExit = new Thread(() -> runShell(NORMAL_MODE), "rogue-restore-terminal");
+
+    /**
+     * Constructor that takes the streams of the terminal.
+     * @param terminalInput (InputStream) keys typed (i.e. System.in)
+     * @param terminalOutput (OutputStream) screen (i.e. System.out)
+     */
+    public AnsiTerminalUI(InputStream terminalInput, OutputStream terminalOutput) {
+        input = terminalInput;
+        output = terminalOutput;
+        encoder.setScrollTop(ROOM_ROW);
+        if (terminalInput == System.in && System.console() != null) {
+            rawMode = runShell(RAW_MODE);
+        }
+        if (rawMode) {
+            Runtime.getRuntime().addShutdownHook(restoreOnExit);
+        }
+    }
+
+    /**
+     * Redraws the screen with a message above the room.
+     * @param message (String) message to display
+     * @param room (String) room to display (rows separated by '\n')
+     */
+    @Override
+    public void draw(String message, String room) {
+        frame.setLength(0);
+        frame.append('\n').append(message).append("\n\n").append(room);
+        ByteBuffer changes = encoder.encode(frame);
+        try {
+            output.write(changes.array(), changes.position(), changes.remaining());
+            output.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits for the player's next key.
+     * @return (char) key pressed (Rogue.QUIT if the input has ended)
+     */
+    @Override
+    public char getInput() {
+        try {
+            int value = input.read();
+            while (value >= 0) {
+                char keystroke = keys.feed(value);
+                if (keystroke != 0) {
+                    return keystroke;
+                }
+                value = input.read();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return Rogue.QUIT;
+    }
+
+    /**
+     * Accessor method to access the number of columns a room can be displayed in.
+     * @return (int) columns
+     */
+    @Override
+    public int getColumns() {
+        return COLS;
+    }
+
+    /**
+     * Accessor method to access the number of rows a room can be displayed in (below the message).
+     * @return (int) rows
+     */
+    @Override
+    public int getRoomRows() {
+        return ROWS - ROOM_ROW;
+    }
+
+    /**
+     * Moves the cursor below the screen and restores the terminal's settings.
+     */
+    @Override
+    public void close() {
+        try {
+            output.write(LAST_ROW);
+            output.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (rawMode) {
+            runShell(NORMAL_MODE);
+            rawMode = false;
+            try {
+                Runtime.getRuntime().removeShutdownHook(restoreOnExit);
+            } catch (IllegalStateException e) {
+                /*Closed while the program is ending, the hook runs anyway and finds the terminal restored*/
+            }
+        }
+    }
+
+    /**
+     * Runs a shell command on the program's terminal (used to switch it in and out of raw mode).
+     * @param command (String) command to run
+     * @return (boolean) true if the command succeeded, false otherwise
+     */
+    private static boolean runShell(String command) {
+        try {
+            Process process = new ProcessBuilder("sh", "-c", command).inheritIO().start();
+            return process.waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
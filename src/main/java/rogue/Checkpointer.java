@@ -0,0 +1,98 @@
+package rogue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/*Writes save states to disk on a background thread. Only the newest state waiting to be written is kept, so a
+slow disk makes checkpoints less frequent instead of making the input loop wait*/
+public class Checkpointer implements AutoCloseable {
+
+    private final File saveFile;
+    private final File tempFile;
+    private final AtomicReference<SaveState> pending = new AtomicReference<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile IOException lastError;
+
+    /**
+     * Constructor that starts the background writer for a save file.
+     * @param filename (String) name of the save file
+     */
+    public Checkpointer(String filename) {
+        saveFile = new File(filename);
+        tempFile = new File(filename + ".tmp");
+        writer = new Thread(this::writeLoop, "rogue-checkpointer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Hands a state to the background writer (replacing any state it has not written yet). Never blocks.
+     * @param state (SaveState) state to save
+     */
+    public void submit(SaveState state) {
+        pending.set(state);
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Accessor method to access the last error the background writer hit.
+     * @return (IOException) last error, null if every write succeeded
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Writes any state still waiting and stops the background writer.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Body of the background writer: waits for a state and writes it, until closed.
+     */
+    private void writeLoop() {
+        while (running || pending.get() != null) {
+            SaveState state = pending.getAndSet(null);
+            if (state == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            try {
+                write(state);
+            } catch (IOException e) {
+                lastError = e;
+            }
+        }
+    }
+
+    /**
+     * Writes a state to a temporary file and moves it over the save file, so a crash mid-write never leaves a
+     * half written save behind.
+     * @param state (SaveState) state to write
+     * @throws IOException if writing fails
+     */
+    private void write(SaveState state) throws IOException {
+        state.write(tempFile.getPath());
+        try {
+            Files.move(tempFile.toPath(), saveFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), saveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -46,8 +46,9 @@ public class Door {
      * @param nextRoom (Room) roomId of the connected room
      */
     public Door(Room initRoom, int wallPos, Room nextRoom) {
-        setInitialRoom(initialRoom);
-        setWallPosition(wallPosition);
+        setInitialRoom(initRoom);
+        setWallPosition(wallPos);
+        setConnectedId(nextRoom.getId());
         connectRoom(nextRoom);
     }
 
@@ -97,6 +98,9 @@ public class Door {
      */
     public void connectRoom(Room r) {
         connectedRoom = r;
+        if (initialRoom != null) {
+            initialRoom.routesChanged(); /*Routes through the door now lead somewhere else*/
+        }
     }
 
     /**
@@ -0,0 +1,416 @@
+package rogue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/*Load time connectivity check of the door graph (union-find): components, broken doors and the repairs needed. A
+broken door is fixed before the components are worked out: a door to a room that does not exist is removed (unless
+the dungeon is a single room, which has nothing to join and still needs a door), and a one-way door (one without a door
+back on the other room's opposite wall, the wall the player comes in through) gets that door back, or is removed if
+the wall is taken*/
+public class DungeonConnectivity {
+
+    private static final String[] DIRECTIONS = RoomGraph.DIRECTIONS;
+    private static final int MIN_DOOR_WALL = 3; /*A new door cannot be in the corners*/
+
+    private Room[] rooms;
+    private HashMap<Integer, Integer> indexById = new HashMap<>();
+    private int[] parent;
+    private int[] componentOf;
+    private List<int[]> components = new ArrayList<>();
+    private List<DoorLink> danglingDoors = new ArrayList<>();
+    private List<DoorLink> oneWayDoors = new ArrayList<>();
+    private List<DoorLink> returnDoors = new ArrayList<>();
+    private List<DoorLink> removedDoors = new ArrayList<>();
+    private List<DoorLink> repairs = new ArrayList<>();
+    private boolean repairable = true;
+    /*Walls (room index * 4 + direction index) whose door is removed, and free walls a door back is planned on*/
+    private boolean[] removedWalls;
+    private boolean[] claimedWalls;
+
+    /**
+     * Constructor that analyses the doors of the rooms passed in.
+     * @param roomList (List<Room>) all rooms of the dungeon
+     */
+    public DungeonConnectivity(List<Room> roomList) {
+        rooms = roomList.toArray(new Room[0]);
+        parent = new int[rooms.length];
+        removedWalls = new boolean[rooms.length * DIRECTIONS.length];
+        claimedWalls = new boolean[rooms.length * DIRECTIONS.length];
+        for (int i = 0; i < rooms.length; i++) {
+            parent[i] = i;
+            indexById.put(rooms[i].getId(), i);
+        }
+        for (int i = 0; i < rooms.length; i++) {
+            checkDoors(i);
+        }
+        collectComponents();
+        planRepairs();
+    }
+
+    /**
+     * Joins a room with the rooms its doors lead to, recording doors that lead nowhere or only one way and planning
+     * their fixes (a removed door joins nothing).
+     * @param index (int) index of the room
+     */
+    private void checkDoors(int index) {
+        for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+            Door door = rooms[index].getDoor(DIRECTIONS[dir]);
+            if (door == null) {
+                continue;
+            }
+            int target = findTarget(index, door);
+            if (target < 0) {
+                DoorLink dangling = new DoorLink(rooms[index], DIRECTIONS[dir], door.getConnectedId(), null);
+                danglingDoors.add(dangling);
+                if (rooms.length > 1) {
+                    removeDoor(index, dir, dangling);
+                }
+                continue;
+            }
+            if (leadsBack(target, dir, index)) {
+                union(index, target);
+                continue;
+            }
+            DoorLink oneWay = new DoorLink(rooms[index], DIRECTIONS[dir], rooms[target].getId(), rooms[target]);
+            oneWayDoors.add(oneWay);
+            int back = oppositeIndex(dir);
+            if (isFreeWall(target, back)) {
+                claimedWalls[wall(target, back)] = true;
+                returnDoors.add(new DoorLink(rooms[target], DIRECTIONS[back], rooms[index].getId(), rooms[index]));
+                union(index, target);
+            } else {
+                removeDoor(index, dir, oneWay);
+            }
+        }
+    }
+
+    /**
+     * Plans the removal of a broken door, freeing its wall.
+     * @param index (int) index of the room the door is in
+     * @param dir (int) index of the door's direction
+     * @param door (DoorLink) the door
+     */
+    private void removeDoor(int index, int dir, DoorLink door) {
+        removedDoors.add(door);
+        removedWalls[wall(index, dir)] = true;
+    }
+
+    /**
+     * Returns true if a new door can be put on a wall: the wall has no door (or only one being removed), no other
+     * new door is planned on it, and it is long enough for a door that is not in a corner.
+     * @param index (int) index of the room
+     * @param dir (int) index of the wall's direction
+     * @return (boolean) true if the wall is free, false otherwise
+     */
+    private boolean isFreeWall(int index, int dir) {
+        int wall = wall(index, dir);
+        return (rooms[index].getDoor(DIRECTIONS[dir]) == null || removedWalls[wall]) && !claimedWalls[wall]
+                && rooms[index].getWallLength(DIRECTIONS[dir]) >= MIN_DOOR_WALL;
+    }
+
+    /**
+     * Accessor method to access the index of a room's wall in the wall flags.
+     * @param index (int) index of the room
+     * @param dir (int) index of the wall's direction
+     * @return (int) wall index
+     */
+    private static int wall(int index, int dir) {
+        return index * DIRECTIONS.length + dir;
+    }
+
+    /**
+     * Finds the index of the room a door leads to.
+     * @param index (int) index of the room the door is in
+     * @param door (Door) door
+     * @return (int) index of the connected room, -1 if the door leads to a room that does not exist
+     */
+    private int findTarget(int index, Door door) {
+        Room other = door.getOtherRoom(rooms[index]);
+        Integer target = indexById.get((other != null) ? other.getId() : door.getConnectedId());
+        return (target == null) ? -1 : target;
+    }
+
+    /**
+     * Returns true if the door on the wall opposite a door leads back to the door's room, which is the door the player
+     * enters through (Rogue.enterDoor and RoomGraph look for it there, a door back on another wall is not used).
+     * @param target (int) index of the room the door leads to
+     * @param dir (int) index of the door's direction
+     * @param from (int) index of the room the door is in
+     * @return (boolean) true if the opposite wall of the target room has a door to the first room, false otherwise
+     */
+    private boolean leadsBack(int target, int dir, int from) {
+        Door door = rooms[target].getDoor(DIRECTIONS[oppositeIndex(dir)]);
+        return door != null && findTarget(target, door) == from;
+    }
+
+    /**
+     * Finds the representative of a room's set (with path halving).
+     * @param index (int) index of the room
+     * @return (int) index of the set's representative
+     */
+    private int find(int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    /**
+     * Joins the sets of two rooms (the smaller representative index becomes the root, which keeps trees shallow
+     * enough together with path halving and keeps the component order stable).
+     * @param first (int) index of a room
+     * @param second (int) index of another room
+     */
+    private void union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot < secondRoot) {
+            parent[secondRoot] = firstRoot;
+        } else if (secondRoot < firstRoot) {
+            parent[firstRoot] = secondRoot;
+        }
+    }
+
+    /**
+     * Groups the rooms by set, in order of each component's first room.
+     */
+    private void collectComponents() {
+        componentOf = new int[rooms.length];
+        int[] sizes = new int[rooms.length];
+        int count = 0;
+        for (int i = 0; i < rooms.length; i++) {
+            int root = find(i);
+            if (root == i) {
+                componentOf[i] = count++;
+            } else {
+                componentOf[i] = componentOf[root];
+            }
+            sizes[componentOf[i]]++;
+        }
+        int[] filled = new int[count];
+        for (int c = 0; c < count; c++) {
+            components.add(new int[sizes[c]]);
+        }
+        for (int i = 0; i < rooms.length; i++) {
+            int c = componentOf[i];
+            components.get(c)[filled[c]++] = rooms[i].getId();
+        }
+    }
+
+    /**
+     * Plans one new pair of doors joining each component to one of the components before it, which is the fewest
+     * that can join k components. Each pair needs a free wall in one room and a free opposite wall in the other.
+     */
+    private void planRepairs() {
+        if (components.size() < 2) {
+            return;
+        }
+        int[][] used = new int[components.size()][DIRECTIONS.length];
+        List<List<List<Integer>>> candidates = collectFreeWalls();
+        for (int c = 1; c < components.size(); c++) {
+            boolean joined = false;
+            /*Every earlier component is already joined, so any of them will do (the previous one is tried first)*/
+            for (int earlier = c - 1; earlier >= 0 && !joined; earlier--) {
+                joined = planRepair(candidates.get(earlier), candidates.get(c), used[earlier], used[c]);
+            }
+            if (!joined) {
+                repairable = false;
+            }
+        }
+    }
+
+    /**
+     * Lists, per component and per wall direction, the rooms a new door can be put on that wall of.
+     * @return (List<List<List<Integer>>>) room indexes indexed by component then direction
+     */
+    private List<List<List<Integer>>> collectFreeWalls() {
+        List<List<List<Integer>>> candidates = new ArrayList<>();
+        for (int c = 0; c < components.size(); c++) {
+            List<List<Integer>> byDirection = new ArrayList<>();
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                byDirection.add(new ArrayList<Integer>());
+            }
+            candidates.add(byDirection);
+        }
+        for (int i = 0; i < rooms.length; i++) {
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                if (isFreeWall(i, dir)) {
+                    candidates.get(componentOf[i]).get(dir).add(i);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Plans the pair of doors joining two components, using up the free walls it takes.
+     * @param from (List<List<Integer>>) free walls of the first component by direction
+     * @param to (List<List<Integer>>) free walls of the second component by direction
+     * @param fromUsed (int[]) free walls of each direction already used in the first component
+     * @param toUsed (int[]) free walls of each direction already used in the second component
+     * @return (boolean) true if a pair of free walls was found, false otherwise
+     */
+    private boolean planRepair(List<List<Integer>> from, List<List<Integer>> to, int[] fromUsed, int[] toUsed) {
+        for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+            int opposite = oppositeIndex(dir);
+            if (fromUsed[dir] < from.get(dir).size() && toUsed[opposite] < to.get(opposite).size()) {
+                int fromRoom = from.get(dir).get(fromUsed[dir]++);
+                int toRoom = to.get(opposite).get(toUsed[opposite]++);
+                repairs.add(new DoorLink(rooms[fromRoom], DIRECTIONS[dir], rooms[toRoom].getId(), rooms[toRoom]));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Accessor method to access the index of the opposite direction.
+     * @param dir (int) index of a direction in DIRECTIONS
+     * @return (int) index of the opposite direction
+     */
+    private static int oppositeIndex(int dir) {
+        return dir ^ 1; /*DIRECTIONS is ordered N, S, E, W so opposites differ in the lowest bit*/
+    }
+
+    /**
+     * Accessor method to access the number of connected components.
+     * @return (int) number of components (1 if every room can be reached)
+     */
+    public int getComponentCount() {
+        return components.size();
+    }
+
+    /**
+     * Accessor method to access the room ids of each component.
+     * @return (List<int[]>) room ids grouped by component
+     */
+    public List<int[]> getComponents() {
+        return components;
+    }
+
+    /**
+     * Accessor method to access the doors whose connected room id does not exist.
+     * @return (List<DoorLink>) dangling doors (the connected room is null)
+     */
+    public List<DoorLink> getDanglingDoors() {
+        return danglingDoors;
+    }
+
+    /**
+     * Accessor method to access the doors whose connected room has no door leading back on the opposite wall.
+     * @return (List<DoorLink>) one-way doors
+     */
+    public List<DoorLink> getOneWayDoors() {
+        return oneWayDoors;
+    }
+
+    /**
+     * Accessor method to access the doors to add so that one-way doors lead both ways.
+     * @return (List<DoorLink>) one door per one-way door that can be fixed, in the room the one-way door leads to
+     */
+    public List<DoorLink> getReturnDoors() {
+        return returnDoors;
+    }
+
+    /**
+     * Accessor method to access the doors to remove: dangling doors, and one-way doors whose connected room has no
+     * free wall for a door back.
+     * @return (List<DoorLink>) doors to remove
+     */
+    public List<DoorLink> getRemovedDoors() {
+        return removedDoors;
+    }
+
+    /**
+     * Accessor method to access the new doors that join every component (to be made with Rogue's connectRooms).
+     * @return (List<DoorLink>) one door per pair of components, the connected room gets the door on the opposite wall
+     */
+    public List<DoorLink> getRepairs() {
+        return repairs;
+    }
+
+    /**
+     * Returns true if the repairs join every component.
+     * @return (boolean) true if every component can be joined, false if some component has no free wall to use
+     */
+    public boolean isRepairable() {
+        return repairable;
+    }
+
+    /**
+     * Returns a one line summary of the analysis.
+     * @return (String) summary
+     */
+    public String getSummary() {
+        return rooms.length + " rooms, " + components.size() + " components, " + danglingDoors.size()
+                + " dangling doors, " + oneWayDoors.size() + " one-way doors, " + returnDoors.size()
+                + " doors back, " + removedDoors.size() + " doors removed, " + repairs.size() + " repairs";
+    }
+
+    /*A door on a wall of a room and the room it leads (or should lead) to*/
+    public static final class DoorLink {
+
+        private Room room;
+        private String direction;
+        private int connectedId;
+        private Room connectedRoom;
+
+        /**
+         * Constructor that sets up the link.
+         * @param fromRoom (Room) room the door is in
+         * @param wallDirection (String) wall of the door (i.e. "N", "S", "E", or "W")
+         * @param toId (int) id of the room the door leads to
+         * @param toRoom (Room) room the door leads to, null if it does not exist
+         */
+        DoorLink(Room fromRoom, String wallDirection, int toId, Room toRoom) {
+            room = fromRoom;
+            direction = wallDirection;
+            connectedId = toId;
+            connectedRoom = toRoom;
+        }
+
+        /**
+         * Accessor method to access the room the door is in.
+         * @return (Room) room
+         */
+        public Room getRoom() {
+            return room;
+        }
+
+        /**
+         * Accessor method to access the wall of the door.
+         * @return (String) wall direction (i.e. "N", "S", "E", or "W")
+         */
+        public String getDirection() {
+            return direction;
+        }
+
+        /**
+         * Accessor method to access the id of the room the door leads to.
+         * @return (int) connected room id
+         */
+        public int getConnectedId() {
+            return connectedId;
+        }
+
+        /**
+         * Accessor method to access the room the door leads to.
+         * @return (Room) connected room, null if no room has the connected id
+         */
+        public Room getConnectedRoom() {
+            return connectedRoom;
+        }
+
+        /**
+         * Returns a readable description of the link.
+         * @return (String) description (i.e. "room 3 N -> 7")
+         */
+        @Override
+        public String toString() {
+            return "room " + room.getId() + " " + direction + " -> " + connectedId;
+        }
+    }
+}
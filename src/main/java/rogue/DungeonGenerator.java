@@ -0,0 +1,381 @@
+package rogue;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/*Generates dungeons in the rooms file format read by RogueParser (for load tests and benchmarks). Every room is
+derived from the seed and its own index only, so rooms are planned in parallel and the output is the same for a
+seed no matter how many cores are used. Each room is planned once, and the plans are kept while the rooms and then
+their items are written*/
+public class DungeonGenerator {
+
+    private static final int BLOCK_SIZE = 4096;
+    private static final long LAYOUT_SALT = 0x9E3779B97F4A7C15L;
+    private static final long DOOR_SALT = 0xC2B2AE3D27D4EB4FL;
+    private static final long LOOT_SALT = 0x165667B19E3779F9L;
+    private static final long MIX_FIRST = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_SECOND = 0x94D049BB133111EBL;
+    private static final int SHIFT_FIRST = 30;
+    private static final int SHIFT_SECOND = 27;
+    private static final int SHIFT_THIRD = 31;
+    private static final int MIN_SIDE = 4;
+    private static final double DEFAULT_DOOR_DENSITY = 0.5;
+    private static final double DEFAULT_LOOT_DENSITY = 1.0;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final int DEFAULT_MIN_WIDTH = 8;
+    private static final int DEFAULT_MAX_WIDTH = 30;
+    private static final int DEFAULT_MIN_HEIGHT = 6;
+    private static final int DEFAULT_MAX_HEIGHT = 15;
+    private static final int MAX_GOLD = 50;
+    private static final int ARG_ROOMS = 1;
+    private static final int ARG_SEED = 2;
+    private static final int ARG_LOOT = 3;
+    private static final int ARG_DOORS = 4;
+
+    private static final String[] TYPES = {"potion", "scroll", "food", "gold", "armour"};
+    private static final String[][] NAMES = {
+        {"Health Potion", "Potion of Strength", "Potion of Haste"},
+        {"Scroll of Fireball", "Scroll of Teleportation", "Scroll of Mapping"},
+        {"Mango", "Bread", "Apple"},
+        {"gold"},
+        {"Leather Armour", "Chain Mail", "Plate Mail"},
+    };
+    private static final String[] DESCRIPTIONS = {
+        "you feel better", "A mysterious scroll", "my that was a yummy snack!", "you found some gold pieces",
+        "it fits well",
+    };
+
+    private long seed;
+    private int roomCount;
+    private int minWidth = DEFAULT_MIN_WIDTH;
+    private int maxWidth = DEFAULT_MAX_WIDTH;
+    private int minHeight = DEFAULT_MIN_HEIGHT;
+    private int maxHeight = DEFAULT_MAX_HEIGHT;
+    private double doorDensity = DEFAULT_DOOR_DENSITY;
+    private double lootDensity = DEFAULT_LOOT_DENSITY;
+    private int columns;
+
+    /**
+     * Constructor that takes the seed and the number of rooms to generate.
+     * @param generatorSeed (long) seed the whole dungeon is derived from
+     * @param rooms (int) number of rooms
+     */
+    public DungeonGenerator(long generatorSeed, int rooms) {
+        seed = generatorSeed;
+        roomCount = rooms;
+        columns = Math.max(2, (int) Math.sqrt(rooms));
+    }
+
+    /**
+     * Mutator method to set the range of room widths (walls included).
+     * @param min (int) smallest width (at least 4)
+     * @param max (int) largest width
+     */
+    public void setWidthRange(int min, int max) {
+        minWidth = Math.max(MIN_SIDE, min);
+        maxWidth = Math.max(minWidth, max);
+    }
+
+    /**
+     * Mutator method to set the range of room heights (walls included).
+     * @param min (int) smallest height (at least 4)
+     * @param max (int) largest height
+     */
+    public void setHeightRange(int min, int max) {
+        minHeight = Math.max(MIN_SIDE, min);
+        maxHeight = Math.max(minHeight, max);
+    }
+
+    /**
+     * Mutator method to set the door density. Rooms are always chained by east/west doors; this is the chance of a
+     * room also having a south door to the room one row below (which gets the matching north door).
+     * @param density (double) chance between 0 and 1
+     * @throws IllegalArgumentException if the density is not between 0 and 1
+     */
+    public void setDoorDensity(double density) {
+        if (!(density >= 0 && density <= 1)) { /*Also rejects NaN*/
+            throw new IllegalArgumentException("Door density must be between 0 and 1, not " + density);
+        }
+        doorDensity = density;
+    }
+
+    /**
+     * Mutator method to set the loot density.
+     * @param density (double) average number of items per room
+     * @throws IllegalArgumentException if the density is negative, infinite or not a number
+     */
+    public void setLootDensity(double density) {
+        if (!(density >= 0 && density < Double.POSITIVE_INFINITY)) {
+            throw new IllegalArgumentException("Loot density must be a number of items of at least 0, not "
+                    + density);
+        }
+        lootDensity = density;
+    }
+
+    /**
+     * Writes the whole dungeon (rooms then items) as JSON. Rooms are planned in parallel, then their JSON is built
+     * in parallel a block at a time and written in order.
+     * @param out (Writer) destination
+     * @throws IOException if writing fails
+     */
+    public void write(Writer out) throws IOException {
+        RoomPlan[] plans = new RoomPlan[roomCount];
+        IntStream.range(0, roomCount).parallel().forEach(i -> plans[i] = planRoom(i));
+        int[] firstItemId = countItems(plans);
+        out.write("{\n\"room\": [\n");
+        writeBlocks(out, plans, firstItemId, true);
+        out.write("\n],\n\"items\": [\n");
+        writeBlocks(out, plans, firstItemId, false);
+        out.write("\n]\n}\n");
+        out.flush();
+    }
+
+    /**
+     * Writes the dungeon to a file.
+     * @param filename (String) name of the file
+     * @throws IOException if writing fails
+     */
+    public void write(String filename) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename),
+                StandardCharsets.UTF_8))) {
+            write(out);
+        }
+    }
+
+    /**
+     * Works out the id of each room's first item (item ids are numbered through the dungeon in room order).
+     * @param plans (RoomPlan[]) plan of each room
+     * @return (int[]) id of the first item of each room, with one extra entry for the id after the last item
+     */
+    private int[] countItems(RoomPlan[] plans) {
+        int[] firstItemId = new int[roomCount + 1];
+        firstItemId[0] = 1;
+        for (int i = 0; i < roomCount; i++) {
+            firstItemId[i + 1] = firstItemId[i] + plans[i].getItemCount();
+        }
+        return firstItemId;
+    }
+
+    /**
+     * Writes every room's JSON (or every room's item JSON), building the JSON of each block of rooms in parallel.
+     * @param out (Writer) destination
+     * @param plans (RoomPlan[]) plan of each room
+     * @param firstItemId (int[]) id of the first item of each room
+     * @param rooms (boolean) true to write the rooms, false to write the items
+     * @throws IOException if writing fails
+     */
+    private void writeBlocks(Writer out, RoomPlan[] plans, int[] firstItemId, boolean rooms) throws IOException {
+        boolean first = true;
+        for (int start = 0; start < roomCount; start += BLOCK_SIZE) {
+            String[] block = IntStream.range(start, Math.min(roomCount, start + BLOCK_SIZE)).parallel()
+                    .mapToObj(i -> rooms ? plans[i].roomJson(firstItemId[i]) : plans[i].itemsJson(firstItemId[i]))
+                    .toArray(String[]::new);
+            for (String json : block) {
+                if (json.isEmpty()) {
+                    continue;
+                }
+                if (!first) {
+                    out.write(",\n");
+                }
+                out.write(json);
+                first = false;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the room at an index has a south door to the room one row below.
+     * @param index (int) room index
+     * @return (boolean) true if the room has a south door
+     */
+    private boolean hasSouthDoor(int index) {
+        return index + columns < roomCount
+                && new SplittableRandom(mix(seed, index, DOOR_SALT)).nextDouble() < doorDensity;
+    }
+
+    /**
+     * Derives the full plan of a room from the seed and the room's index.
+     * @param index (int) room index
+     * @return (RoomPlan) the room's plan
+     */
+    private RoomPlan planRoom(int index) {
+        SplittableRandom layout = new SplittableRandom(mix(seed, index, LAYOUT_SALT));
+        RoomPlan plan = new RoomPlan(index);
+        plan.width = minWidth + layout.nextInt(maxWidth - minWidth + 1);
+        plan.height = minHeight + layout.nextInt(maxHeight - minHeight + 1);
+        /*Rooms are chained east to west in index order and linked north to south between rows*/
+        plan.eastPos = (index + 1 < roomCount) ? 1 + layout.nextInt(plan.height - 2) : -1;
+        plan.westPos = (index > 0) ? 1 + layout.nextInt(plan.height - 2) : -1;
+        plan.southPos = hasSouthDoor(index) ? 1 + layout.nextInt(plan.width - 2) : -1;
+        plan.northPos = (index >= columns && hasSouthDoor(index - columns)) ? 1 + layout.nextInt(plan.width - 2) : -1;
+
+        SplittableRandom loot = new SplittableRandom(mix(seed, index, LOOT_SALT));
+        int interior = (plan.width - 2) * (plan.height - 2);
+        int count = (int) lootDensity + ((loot.nextDouble() < lootDensity - (int) lootDensity) ? 1 : 0);
+        count = Math.min(count, interior / 2);
+        plan.itemTiles = new int[count];
+        plan.itemKinds = new int[count];
+        for (int k = 0; k < count; k++) {
+            int tile;
+            do {
+                tile = loot.nextInt(interior);
+            } while (contains(plan.itemTiles, k, tile));
+            plan.itemTiles[k] = tile;
+            plan.itemKinds[k] = loot.nextInt(Integer.MAX_VALUE);
+        }
+        return plan;
+    }
+
+    /**
+     * Returns true if one of the first entries of an array holds a value.
+     * @param values (int[]) array
+     * @param length (int) number of entries to check
+     * @param value (int) value looked for
+     * @return (boolean) true if the value was found
+     */
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mixes the seed, a room index and a salt into an independent seed (SplitMix64 finaliser).
+     * @param base (long) dungeon seed
+     * @param index (int) room index
+     * @param salt (long) salt that separates the random streams of one room
+     * @return (long) mixed seed
+     */
+    private static long mix(long base, int index, long salt) {
+        long z = base + salt * (index + 1);
+        z = (z ^ (z >>> SHIFT_FIRST)) * MIX_FIRST;
+        z = (z ^ (z >>> SHIFT_SECOND)) * MIX_SECOND;
+        return z ^ (z >>> SHIFT_THIRD);
+    }
+
+    /*Everything the JSON of one room and its items is built from*/
+    private final class RoomPlan {
+
+        private int index;
+        private int width;
+        private int height;
+        private int northPos;
+        private int southPos;
+        private int eastPos;
+        private int westPos;
+        private int[] itemTiles;
+        private int[] itemKinds;
+
+        /**
+         * Constructor that takes the room's index.
+         * @param roomIndex (int) room index
+         */
+        RoomPlan(int roomIndex) {
+            index = roomIndex;
+        }
+
+        /**
+         * Accessor method to access the number of items in the room.
+         * @return (int) number of items
+         */
+        int getItemCount() {
+            return itemTiles.length;
+        }
+
+        /**
+         * Builds the room's JSON object.
+         * @param firstItemId (int) id of the room's first item
+         * @return (String) JSON of the room
+         */
+        String roomJson(int firstItemId) {
+            StringBuilder json = new StringBuilder();
+            json.append("{\"id\": ").append(index + 1).append(", \"start\": ").append(index == 0)
+                    .append(", \"height\": ").append(height).append(", \"width\": ").append(width)
+                    .append(", \"doors\": [");
+            int doors = 0;
+            doors = appendDoor(json, doors, "N", northPos, index - columns);
+            doors = appendDoor(json, doors, "S", southPos, index + columns);
+            doors = appendDoor(json, doors, "E", eastPos, index + 1);
+            appendDoor(json, doors, "W", westPos, index - 1);
+            json.append("], \"loot\": [");
+            for (int k = 0; k < itemTiles.length; k++) {
+                json.append((k > 0) ? ", " : "").append("{\"id\": ").append(firstItemId + k)
+                        .append(", \"x\": ").append(1 + itemTiles[k] % (width - 2))
+                        .append(", \"y\": ").append(1 + itemTiles[k] / (width - 2)).append('}');
+            }
+            return json.append("]}").toString();
+        }
+
+        /**
+         * Appends a door's JSON object if the room has a door on that wall.
+         * @param json (StringBuilder) buffer
+         * @param doors (int) number of doors already appended
+         * @param dir (String) wall direction
+         * @param wallPos (int) wall position, -1 if there is no door
+         * @param target (int) index of the connected room
+         * @return (int) number of doors appended
+         */
+        private int appendDoor(StringBuilder json, int doors, String dir, int wallPos, int target) {
+            if (wallPos < 0) {
+                return doors;
+            }
+            json.append((doors > 0) ? ", " : "").append("{\"dir\": \"").append(dir).append("\", \"con_room\": ")
+                    .append(target + 1).append(", \"wall_pos\": ").append(wallPos).append('}');
+            return doors + 1;
+        }
+
+        /**
+         * Builds the JSON objects of the room's items (separated by commas).
+         * @param firstItemId (int) id of the room's first item
+         * @return (String) JSON of the items, empty if the room has none
+         */
+        String itemsJson(int firstItemId) {
+            StringBuilder json = new StringBuilder();
+            for (int k = 0; k < itemKinds.length; k++) {
+                int type = itemKinds[k] % TYPES.length;
+                String[] names = NAMES[type];
+                String name = names[(itemKinds[k] / TYPES.length) % names.length];
+                if (TYPES[type].equals("gold")) {
+                    name = (1 + (itemKinds[k] / TYPES.length) % MAX_GOLD) + " gold";
+                }
+                json.append((k > 0) ? ",\n" : "").append("{\"id\": ").append(firstItemId + k)
+                        .append(", \"name\": \"").append(name).append("\", \"type\": \"").append(TYPES[type])
+                        .append("\", \"description\": \"").append(DESCRIPTIONS[type]).append("\"}");
+            }
+            return json.toString();
+        }
+    }
+
+    /**
+     * Writes a generated dungeon file.
+     * @param args output file, number of rooms, and optionally seed, loot density and door density
+     * @throws IOException if writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length <= ARG_ROOMS) {
+            System.out.println("Usage: DungeonGenerator <output file> <rooms> [seed] [loot density] [door density]");
+            return;
+        }
+        long generatorSeed = (args.length > ARG_SEED) ? Long.parseLong(args[ARG_SEED]) : 0L;
+        DungeonGenerator generator = new DungeonGenerator(generatorSeed, Integer.parseInt(args[ARG_ROOMS]));
+        if (args.length > ARG_LOOT) {
+            generator.setLootDensity(Double.parseDouble(args[ARG_LOOT]));
+        }
+        if (args.length > ARG_DOORS) {
+            generator.setDoorDensity(Double.parseDouble(args[ARG_DOORS]));
+        }
+        long start = System.nanoTime();
+        generator.write(args[0]);
+        System.out.println("Wrote " + args[ARG_ROOMS] + " rooms to " + args[0] + " in "
+                + (System.nanoTime() - start) / NANOS_PER_MILLI + " ms");
+    }
+}
@@ -0,0 +1,461 @@
+package rogue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.json.simple.JSONValue;
+
+/*Checks dungeon (rooms) files without playing them, many files at once on a pool of threads. Each file is read with
+RogueParser and checked by the rules the game loads it with (Room.verifyRoom, the item position checks of Room.addItem
+and the door checks of DungeonConnectivity), but nothing is corrected, nothing exits and nothing is printed: every
+problem is reported. Problems the game corrects while loading (i.e. unreachable rooms get new doors, items on
+impossible tiles are moved) are warnings, problems that stop the file from being played are errors. Each file's
+report is one line of JSON*/
+public class DungeonLinter {
+
+    public static final String ERROR = "error";
+    public static final String WARNING = "warning";
+    public static final int NO_ROOM = -1;
+    private static final String DUNGEON_SUFFIX = ".json";
+    private static final int ARG_SYMBOLS = 1;
+    private static final int ARG_THREADS = 2;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private HashMap<String, Character> symbols;
+
+    /**
+     * Constructor that takes the symbols the dungeon files are read with (shared by every file, never changed).
+     * @param symbolMap (HashMap<String, Character>) symbols by name
+     */
+    public DungeonLinter(HashMap<String, Character> symbolMap) {
+        symbols = symbolMap;
+    }
+
+    /**
+     * Checks one dungeon file (safe to call from several threads at once).
+     * @param roomsFile (String) name of the rooms file
+     * @return (Report) problems found in the file
+     */
+    public Report lint(String roomsFile) {
+        Report report = new Report(roomsFile);
+        try {
+            /*What the parser cannot read goes in the report, not on standard output with the reports*/
+            ByteArrayOutputStream parseProblems = new ByteArrayOutputStream();
+            RogueParser parser = new RogueParser(roomsFile, symbols, new PrintStream(parseProblems, true));
+            if (!parser.isParsed()) {
+                report.add(ERROR, "parse", NO_ROOM, "the file cannot be read as a dungeon ("
+                        + parseProblems.toString().trim() + ")");
+                return report;
+            }
+            Rogue dungeon = Rogue.loadRooms(parser);
+            report.roomCount = dungeon.getRooms().size();
+            checkStart(dungeon, report);
+            DungeonConnectivity connectivity = new DungeonConnectivity(dungeon.getRooms());
+            checkDoors(connectivity, report);
+            checkRooms(dungeon, connectivity, report); /*Before the items, like the game verifies them*/
+            checkItems(dungeon, parser, report);
+        } catch (RuntimeException e) {
+            /*Missing keys and values that are not numbers*/
+            report.add(ERROR, "parse", NO_ROOM, "the dungeon is malformed (" + e + ")");
+        }
+        return report;
+    }
+
+    /**
+     * Checks dungeon files on a pool of threads, handing each report on in the order of the files.
+     * @param roomsFiles (List<String>) names of the rooms files
+     * @param threads (int) number of files checked at once
+     * @param out (PrintStream) stream each report is written to as a line of JSON
+     * @return (int) number of files with errors
+     */
+    public int lintAll(List<String> roomsFiles, int threads, PrintStream out) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "rogue-dungeon-linter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Report>> reports = new ArrayList<>();
+            for (String roomsFile : roomsFiles) {
+                reports.add(pool.submit(() -> lint(roomsFile)));
+            }
+            int invalid = 0;
+            for (int i = 0; i < reports.size(); i++) {
+                Report report = waitFor(reports.get(i), roomsFiles.get(i));
+                if (!report.isValid()) {
+                    invalid++;
+                }
+                out.println(report.toJson());
+            }
+            return invalid;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the report of a file being checked.
+     * @param pending (Future<Report>) report being made
+     * @param roomsFile (String) name of the rooms file
+     * @return (Report) the report, or a report of the failure if checking the file failed
+     */
+    private static Report waitFor(Future<Report> pending, String roomsFile) {
+        try {
+            return pending.get();
+        } catch (ExecutionException e) {
+            Report failed = new Report(roomsFile);
+            failed.add(ERROR, "parse", NO_ROOM, "the file could not be checked (" + e.getCause() + ")");
+            return failed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Report interrupted = new Report(roomsFile);
+            interrupted.add(ERROR, "parse", NO_ROOM, "checking was interrupted");
+            return interrupted;
+        }
+    }
+
+    /**
+     * Checks that exactly one room is the player's start.
+     * @param dungeon (Rogue) rooms of the file
+     * @param report (Report) report the problems are added to
+     */
+    private static void checkStart(Rogue dungeon, Report report) {
+        int starts = 0;
+        for (Room currRoom : dungeon.getRooms()) {
+            if (currRoom.getIsPlayerInRoom()) {
+                starts++;
+            }
+        }
+        if (starts == 0) {
+            report.add(ERROR, "start", NO_ROOM, "no room is the player's start");
+        } else if (starts > 1) {
+            report.add(WARNING, "start", NO_ROOM, starts + " rooms are the player's start, the last one is used");
+        }
+    }
+
+    /**
+     * Checks that every door leads to a room with a door back, and that every room can be reached.
+     * @param connectivity (DungeonConnectivity) analysis of the rooms' doors
+     * @param report (Report) report the problems are added to
+     */
+    private static void checkDoors(DungeonConnectivity connectivity, Report report) {
+        for (DungeonConnectivity.DoorLink dangling : connectivity.getDanglingDoors()) {
+            String fix = connectivity.getRemovedDoors().contains(dangling) ? ", the game removes it" : "";
+            report.add(WARNING, "door", dangling.getRoom().getId(), dangling.getDirection() + " door leads to room "
+                    + dangling.getConnectedId() + ", which does not exist" + fix);
+        }
+        for (DungeonConnectivity.DoorLink oneWay : connectivity.getOneWayDoors()) {
+            String fix = connectivity.getRemovedDoors().contains(oneWay) ? "the game removes it"
+                    : "the game adds one";
+            report.add(WARNING, "door", oneWay.getRoom().getId(), oneWay.getDirection() + " door leads to room "
+                    + oneWay.getConnectedId() + ", which has no door back on its "
+                    + RoomGraph.getOppositeDirection(oneWay.getDirection()) + " wall, " + fix);
+        }
+        List<int[]> components = connectivity.getComponents();
+        for (int c = 1; c < components.size(); c++) {
+            int[] roomIds = components.get(c);
+            report.add(WARNING, "connectivity", roomIds[0], "rooms " + Arrays.toString(roomIds)
+                    + " cannot be reached from room " + components.get(0)[0] + ", the game adds a door");
+        }
+        if (!connectivity.isRepairable()) {
+            report.add(ERROR, "connectivity", NO_ROOM, "the " + components.size()
+                    + " groups of rooms cannot all be joined, there are not enough walls without doors");
+        }
+    }
+
+    /**
+     * Checks each room by Room.verifyRoom. A room without doors is an error unless the game gives it one (joining it
+     * to the others, or as the door back of a one-way door).
+     * @param dungeon (Rogue) rooms of the file
+     * @param connectivity (DungeonConnectivity) analysis of the rooms' doors
+     * @param report (Report) report the problems are added to
+     */
+    private static void checkRooms(Rogue dungeon, DungeonConnectivity connectivity, Report report) {
+        HashSet<Room> joined = new HashSet<>();
+        for (DungeonConnectivity.DoorLink repair : connectivity.getRepairs()) {
+            joined.add(repair.getRoom());
+            joined.add(repair.getConnectedRoom());
+        }
+        for (DungeonConnectivity.DoorLink doorBack : connectivity.getReturnDoors()) {
+            joined.add(doorBack.getRoom());
+        }
+        for (Room currRoom : dungeon.getRooms()) {
+            try {
+                if (!currRoom.verifyRoom()) {
+                    report.add(WARNING, "room", currRoom.getId(), "the player starts outside the room");
+                }
+            } catch (NotEnoughDoorsException e) {
+                if (!joined.contains(currRoom)) {
+                    report.add(ERROR, "room", currRoom.getId(), "the room has no doors");
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that every item is placed once, in a room that exists, on a tile it can be placed on (by the checks of
+     * Room.addItem), and that the rooms' loot only lists items that exist.
+     * @param dungeon (Rogue) rooms of the file
+     * @param parser (RogueParser) parser of the file, with its items not yet read
+     * @param report (Report) report the problems are added to
+     */
+    private static void checkItems(Rogue dungeon, RogueParser parser, Report report) {
+        HashMap<Integer, Room> roomsById = new HashMap<>();
+        for (Room currRoom : dungeon.getRooms()) {
+            roomsById.put(currRoom.getId(), currRoom);
+        }
+        EntityStore store = dungeon.getEntities();
+        HashSet<String> itemIds = new HashSet<>();
+        Map<String, String> itemInfo = parser.nextItem();
+        while (itemInfo != null) {
+            itemIds.add(itemInfo.get("id"));
+            checkItem(itemInfo, roomsById, store, report);
+            report.itemCount++;
+            itemInfo = parser.nextItem();
+        }
+        for (Map<String, String> loot : parser.getItemLocationsArray()) {
+            if (!itemIds.contains(loot.get("id"))) {
+                report.add(WARNING, "loot", Integer.parseInt(loot.get("room")), "the loot lists item "
+                        + loot.get("id") + ", which is not one of the items");
+            }
+        }
+    }
+
+    /**
+     * Checks one item's placement.
+     * @param item (Map<String, String>) a map holding the tag (key) and the information (value) of the item
+     * @param roomsById (HashMap<Integer, Room>) rooms of the file by id
+     * @param store (EntityStore) store the checked items are made in
+     * @param report (Report) report the problems are added to
+     */
+    private static void checkItem(Map<String, String> item, HashMap<Integer, Room> roomsById, EntityStore store,
+            Report report) {
+        int itemId = Integer.parseInt(item.get("id"));
+        int roomId = Integer.parseInt(item.get("room"));
+        if (roomId == NO_ROOM) {
+            report.add(WARNING, "item", NO_ROOM, "item " + itemId + " is not in any room's loot");
+            return;
+        }
+        Room currRoom = roomsById.get(roomId);
+        if (currRoom == null) {
+            report.add(WARNING, "item", roomId, "item " + itemId + " is in a room that does not exist, the game "
+                    + "leaves it out");
+            return;
+        }
+        Item currItem = new Item(store);
+        currItem.setLocation(Integer.parseInt(item.get("x")), Integer.parseInt(item.get("y")));
+        currItem.setId(itemId);
+        currItem.setName(item.get("name"));
+        currItem.setType(item.get("type"));
+        try {
+            currRoom.addItem(currItem);
+        } catch (ImpossiblePositionException e) {
+            report.add(WARNING, "item", roomId, "item " + itemId + " at (" + currItem.getX() + ", "
+                    + currItem.getY() + ") is outside the walls or on the player or another item, the game moves it");
+        } catch (NoSuchItemException e) {
+            report.add(WARNING, "item", roomId, "item " + itemId + " is not in any room's loot, the game leaves it "
+                    + "out");
+        }
+    }
+
+    /*Problems found in one dungeon file*/
+    public static final class Report {
+
+        private String file;
+        private int roomCount = 0;
+        private int itemCount = 0;
+        private int errorCount = 0;
+        private List<Problem> problems = new ArrayList<>();
+
+        /**
+         * Constructor that starts an empty report.
+         * @param roomsFile (String) name of the rooms file
+         */
+        Report(String roomsFile) {
+            file = roomsFile;
+        }
+
+        /**
+         * Adds a problem to the report.
+         * @param severity (String) ERROR or WARNING
+         * @param check (String) check that found it (i.e. "door", "item")
+         * @param roomId (int) room it is in, NO_ROOM if it is not in one room
+         * @param message (String) description
+         */
+        private void add(String severity, String check, int roomId, String message) {
+            problems.add(new Problem(severity, check, roomId, message));
+            if (ERROR.equals(severity)) {
+                errorCount++;
+            }
+        }
+
+        /**
+         * Accessor method to access the name of the file checked.
+         * @return (String) rooms file
+         */
+        public String getFile() {
+            return file;
+        }
+
+        /**
+         * Returns true if the game can play the file (it may still correct warnings).
+         * @return (boolean) true if no errors were found, false otherwise
+         */
+        public boolean isValid() {
+            return errorCount == 0;
+        }
+
+        /**
+         * Accessor method to access the problems found.
+         * @return (List<Problem>) problems in the order they were found
+         */
+        public List<Problem> getProblems() {
+            return problems;
+        }
+
+        /**
+         * Returns the report as one line of JSON (file, valid, rooms, items, errors, warnings and problems).
+         * @return (String) JSON object
+         */
+        public String toJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("{\"file\": \"").append(JSONValue.escape(file)).append("\", \"valid\": ").append(isValid())
+                    .append(", \"rooms\": ").append(roomCount).append(", \"items\": ").append(itemCount)
+                    .append(", \"errors\": ").append(errorCount).append(", \"warnings\": ")
+                    .append(problems.size() - errorCount).append(", \"problems\": [");
+            for (int i = 0; i < problems.size(); i++) {
+                if (i > 0) {
+                    json.append(", ");
+                }
+                problems.get(i).appendJson(json);
+            }
+            return json.append("]}").toString();
+        }
+    }
+
+    /*One problem found in a dungeon file*/
+    public static final class Problem {
+
+        private String severity;
+        private String check;
+        private int roomId;
+        private String message;
+
+        /**
+         * Constructor that sets up the problem.
+         * @param problemSeverity (String) ERROR or WARNING
+         * @param problemCheck (String) check that found it
+         * @param problemRoomId (int) room it is in, NO_ROOM if it is not in one room
+         * @param problemMessage (String) description
+         */
+        Problem(String problemSeverity, String problemCheck, int problemRoomId, String problemMessage) {
+            severity = problemSeverity;
+            check = problemCheck;
+            roomId = problemRoomId;
+            message = problemMessage;
+        }
+
+        /**
+         * Accessor method to access the severity.
+         * @return (String) ERROR or WARNING
+         */
+        public String getSeverity() {
+            return severity;
+        }
+
+        /**
+         * Accessor method to access the check that found the problem.
+         * @return (String) check (i.e. "parse", "start", "door", "connectivity", "room", "item" or "loot")
+         */
+        public String getCheck() {
+            return check;
+        }
+
+        /**
+         * Accessor method to access the room the problem is in.
+         * @return (int) room id, NO_ROOM if the problem is not in one room
+         */
+        public int getRoomId() {
+            return roomId;
+        }
+
+        /**
+         * Accessor method to access the description.
+         * @return (String) message
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Appends the problem as a JSON object (without "room" if it is not in one room).
+         * @param json (StringBuilder) buffer the object is appended to
+         */
+        private void appendJson(StringBuilder json) {
+            json.append("{\"severity\": \"").append(severity).append("\", \"check\": \"").append(check).append('"');
+            if (roomId != NO_ROOM) {
+                json.append(", \"room\": ").append(roomId);
+            }
+            json.append(", \"message\": \"").append(JSONValue.escape(message)).append("\"}");
+        }
+    }
+
+    /**
+     * Lists the dungeon files of a directory (its ".json" files), in name order.
+     * @param directory (String) directory name
+     * @param skipped (String) file not to list (i.e. the symbols file), null to list every file
+     * @return (List<String>) file names, null if the directory cannot be read
+     */
+    private static List<String> listDungeons(String directory, String skipped) {
+        File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(DUNGEON_SUFFIX));
+        if (files == null) {
+            return null;
+        }
+        Arrays.sort(files);
+        File skippedFile = (skipped == null) ? null : new File(skipped).getAbsoluteFile();
+        List<String> names = new ArrayList<>();
+        for (File file : files) {
+            if (file.isFile() && !file.getAbsoluteFile().equals(skippedFile)) {
+                names.add(file.getPath());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Checks every dungeon file of a directory, writing one JSON report per file to standard output (and a summary
+     * to standard error). Exits with status 1 if any file has errors.
+     * @param args directory, symbols file, and optionally the number of threads
+     */
+    public static void main(String[] args) {
+        if (args.length <= ARG_SYMBOLS) {
+            System.out.println("Usage: DungeonLinter <directory> <symbols file> [threads]");
+            return;
+        }
+        int threads = (args.length > ARG_THREADS) ? Integer.parseInt(args[ARG_THREADS])
+                : Runtime.getRuntime().availableProcessors();
+        HashMap<String, Character> symbolMap = RogueParser.readSymbols(args[ARG_SYMBOLS]);
+        List<String> roomsFiles = listDungeons(args[0], args[ARG_SYMBOLS]);
+        if (symbolMap == null || roomsFiles == null) {
+            System.out.println("Cannot read " + ((symbolMap == null) ? args[ARG_SYMBOLS] : args[0]));
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        int invalid = new DungeonLinter(symbolMap).lintAll(roomsFiles, threads, System.out);
+        System.out.flush();
+        System.err.println("Checked " + roomsFiles.size() + " dungeon files (" + invalid + " with errors) in "
+                + (System.nanoTime() - start) / NANOS_PER_MILLI + " ms on " + threads + " threads");
+        System.exit((invalid > 0) ? 1 : 0);
+    }
+}
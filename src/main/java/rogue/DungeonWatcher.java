@@ -0,0 +1,233 @@
+package rogue;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*Watches the configuration, symbols and level rooms files on a background thread and hands changes to a running
+world. Only the files that changed are read again; the world applies the changes on its own thread before its next
+input, each reloaded rooms file to the level it belongs to. Problems are shown on the world's message line, as the
+terminal belongs to the game's UI*/
+public class DungeonWatcher implements AutoCloseable {
+
+    private static final long SETTLE_MILLIS = 100; /*Editors often save a file in several writes*/
+
+    private final Path configurationFile;
+    private final World world;
+    private List<Path> levelFiles;
+    private Path symbolsFile;
+    private HashMap<String, Character> symbols;
+    private final WatchService watchService;
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    private final Thread watcher;
+    private volatile boolean running = true;
+
+    /**
+     * Constructor that starts watching the files named in a configuration file (with a "Rooms" file or a "Levels"
+     * list), sending the changes to a world loaded from it.
+     * @param configurationFilename (String) name of the file that contains the file locations for rooms and symbols
+     * @param theWorld (World) world to send the changes to
+     * @throws IOException if the files cannot be read or watched, or the configuration does not name them
+     */
+    public DungeonWatcher(String configurationFilename, World theWorld) throws IOException {
+        configurationFile = toPath(configurationFilename);
+        world = theWorld;
+        levelFiles = readLevelFiles();
+        Map<String, String> locations = RogueParser.readFileLocations(configurationFilename);
+        if (locations == null || locations.get(RogueParser.SYMBOLS_KEY) == null || levelFiles == null) {
+            throw new IOException("Cannot read file locations from " + configurationFilename);
+        }
+        symbolsFile = toPath(locations.get(RogueParser.SYMBOLS_KEY));
+        symbols = RogueParser.readSymbols(symbolsFile.toString());
+        if (symbols == null) {
+            throw new IOException("Cannot read symbols from " + symbolsFile);
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        watchDirectories();
+        watcher = new Thread(this::watchLoop, "rogue-dungeon-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops watching the files.
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        watchService.close();
+        try {
+            watcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Converts a file location to an absolute path (file locations are relative to the working directory, as they are
+     * for RogueParser).
+     * @param location (String) file location
+     * @return (Path) absolute path
+     */
+    private static Path toPath(String location) {
+        return Paths.get(location).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Reads the rooms file of every level from the configuration file.
+     * @return (List<Path>) absolute path of each level's rooms file, null if the configuration cannot be read or a
+     * level has no rooms file
+     */
+    private List<Path> readLevelFiles() {
+        List<String> locations = RogueParser.readLevelLocations(configurationFile.toString());
+        if (locations == null || locations.isEmpty()) {
+            return null;
+        }
+        ArrayList<Path> files = new ArrayList<>();
+        for (String location : locations) {
+            if (location == null) {
+                return null;
+            }
+            files.add(toPath(location));
+        }
+        return files;
+    }
+
+    /**
+     * Registers the directories of the watched files that are not registered yet.
+     * @throws IOException if a directory cannot be watched
+     */
+    private void watchDirectories() throws IOException {
+        ArrayList<Path> files = new ArrayList<>(levelFiles);
+        files.add(configurationFile);
+        files.add(symbolsFile);
+        for (Path file : files) {
+            Path directory = file.getParent();
+            if (watchedDirectories.add(directory)) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+    }
+
+    /**
+     * Body of the background watcher: waits for file events and reloads what changed, until closed.
+     */
+    private void watchLoop() {
+        while (running) {
+            try {
+                Set<Path> changed = new HashSet<>();
+                collectChanges(watchService.take(), changed);
+                Thread.sleep(SETTLE_MILLIS);
+                WatchKey key = watchService.poll();
+                while (key != null) {
+                    collectChanges(key, changed);
+                    key = watchService.poll();
+                }
+                reload(changed);
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                world.postMessage("Dungeon files can no longer be watched: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adds the files named by a key's events to a set and makes the key ready for more events.
+     * @param key (WatchKey) signalled key
+     * @param changed (Set<Path>) absolute paths of the changed files
+     */
+    private void collectChanges(WatchKey key, Set<Path> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path) {
+                changed.add(directory.resolve((Path) event.context()));
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Reads the changed files again and hands the results to the world. A level whose rooms file was changed, or
+     * which the configuration now reads from another file, is reloaded.
+     * @param changed (Set<Path>) absolute paths of the changed files
+     * @throws IOException if a new directory cannot be watched
+     */
+    private void reload(Set<Path> changed) throws IOException {
+        boolean symbolsChanged = changed.contains(symbolsFile);
+        List<Path> oldLevelFiles = levelFiles;
+        if (changed.contains(configurationFile)) {
+            Map<String, String> locations = RogueParser.readFileLocations(configurationFile.toString());
+            List<Path> newLevelFiles = readLevelFiles();
+            if (locations != null && locations.get(RogueParser.SYMBOLS_KEY) != null && newLevelFiles != null) {
+                Path newSymbolsFile = toPath(locations.get(RogueParser.SYMBOLS_KEY));
+                symbolsChanged |= !newSymbolsFile.equals(symbolsFile);
+                symbolsFile = newSymbolsFile;
+                levelFiles = newLevelFiles;
+                watchDirectories();
+                ArrayList<String> worldFiles = new ArrayList<>();
+                for (Path file : newLevelFiles) {
+                    worldFiles.add(file.toString());
+                }
+                world.submitUpdate(() -> world.applyLevelFiles(worldFiles));
+            }
+        }
+        if (symbolsChanged) {
+            reloadSymbols();
+        }
+        for (int level = 0; level < levelFiles.size(); level++) {
+            Path file = levelFiles.get(level);
+            if (changed.contains(file) || level >= oldLevelFiles.size() || !file.equals(oldLevelFiles.get(level))) {
+                reloadLevel(level, file);
+            }
+        }
+    }
+
+    /**
+     * Reads the symbols file and hands the new symbols to the world (a file that cannot be read is skipped, the next
+     * save of it is tried again).
+     */
+    private void reloadSymbols() {
+        HashMap<String, Character> newSymbols = RogueParser.readSymbols(symbolsFile.toString());
+        if (newSymbols == null) {
+            return;
+        }
+        symbols = newSymbols;
+        world.submitUpdate(() -> world.applySymbols(newSymbols));
+    }
+
+    /**
+     * Loads a level's rooms file (with the level's seed, so doors added to join rooms are the ones the world would
+     * make) and hands the reloaded rooms to the world, which applies them to the level if it is loaded.
+     * @param level (int) index of the level
+     * @param file (Path) the level's rooms file
+     */
+    private void reloadLevel(int level, Path file) {
+        RogueParser roomsParser = new RogueParser(file.toString(), symbols);
+        if (!roomsParser.isParsed()) {
+            return; /*Possibly saved half way, the next save is tried again*/
+        }
+        try {
+            Rogue reloaded = Rogue.load(roomsParser, world.getLevelSeed(level));
+            world.submitUpdate(() -> world.applyLevelChanges(level, reloaded));
+        } catch (InvalidDungeonException e) {
+            world.postMessage("Level " + level + " was not reloaded: " + e.getMessage());
+        }
+    }
+}
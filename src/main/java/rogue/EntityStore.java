@@ -0,0 +1,291 @@
+package rogue;
+
+import java.util.Arrays;
+
+/*The items, monsters and player of a level kept as parallel primitive arrays (kind, location, room id, type and
+flags) behind stable int handles, one store per level. Item and Player are thin views over a handle, and RoomMonsters
+keeps the handles of its room's monsters (with their hit points and names), so a level's entities share a few arrays
+instead of each holding a Point and its own fields, and queries over every entity are plain loops over the arrays. The
+player's slot moves to the store of each level they enter. A released handle is only given out again by a later
+create. Background monster updates only write the locations of their own room's monsters, so the store is only grown
+(by create) while no update is running*/
+public final class EntityStore {
+
+    public static final int NO_ENTITY = -1;
+    public static final int NO_ROOM = Integer.MIN_VALUE;
+
+    public static final int KIND_FREE = 0;
+    public static final int KIND_ITEM = 1;
+    public static final int KIND_PLAYER = 2;
+    public static final int KIND_MONSTER = 3;
+
+    public static final int TYPE_OTHER = 0;
+    public static final int TYPE_POTION = 1;
+    public static final int TYPE_SCROLL = 2;
+    public static final int TYPE_ARMOUR = 3;
+    public static final int TYPE_FOOD = 4;
+    public static final int TYPE_GOLD = 5;
+
+    public static final int FLAG_LOCATED = 0x01; /*The entity has been given a location*/
+    public static final int FLAG_CARRIED = 0x02; /*The item is in a player's inventory*/
+
+    /*Item types as written in rooms files, and the symbols they are displayed with, by type code*/
+    private static final String[] TYPE_NAMES = {null, "potion", "scroll", "armour", "food", "gold"};
+    private static final String[] TYPE_SYMBOLS = {null, "POTION", "SCROLL", "ARMOR", "FOOD", "GOLD"};
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private byte[] kinds;
+    private int[] locations;
+    private int[] roomIds;
+    private byte[] types;
+    private byte[] flags;
+    private int size = 0; /*Handles below this have been given out*/
+    private int[] freeHandles = new int[0];
+    private int freeCount = 0;
+
+    /**
+     * Default constructor.
+     */
+    public EntityStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor that sets how many entities fit before the arrays grow.
+     * @param capacity (int) initial capacity
+     */
+    public EntityStore(int capacity) {
+        kinds = new byte[capacity];
+        locations = new int[capacity];
+        roomIds = new int[capacity];
+        types = new byte[capacity];
+        flags = new byte[capacity];
+    }
+
+    /**
+     * Adds an entity, with no location, room, type or flags. Synchronized with release, as the rooms of a
+     * SharedDungeon kill their monsters under different locks.
+     * @param kind (int) KIND_ITEM, KIND_MONSTER or KIND_PLAYER
+     * @return (int) handle of the entity
+     */
+    public synchronized int create(int kind) {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        } else {
+            if (size == kinds.length) {
+                grow();
+            }
+            handle = size++;
+        }
+        kinds[handle] = (byte) kind;
+        locations[handle] = 0;
+        roomIds[handle] = NO_ROOM;
+        types[handle] = TYPE_OTHER;
+        flags[handle] = 0;
+        return handle;
+    }
+
+    /**
+     * Removes an entity (its view must no longer be used).
+     * @param handle (int) handle of the entity
+     */
+    public synchronized void release(int handle) {
+        kinds[handle] = KIND_FREE;
+        roomIds[handle] = NO_ROOM;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, Math.max(DEFAULT_CAPACITY, freeCount * 2));
+        }
+        freeHandles[freeCount++] = handle;
+    }
+
+    /**
+     * Accessor method to access the number of entities in the store.
+     * @return (int) number of entities
+     */
+    public int size() {
+        return size - freeCount;
+    }
+
+    /**
+     * Accessor method to access the kind of an entity.
+     * @param handle (int) handle of the entity
+     * @return (int) KIND_ITEM, KIND_MONSTER, KIND_PLAYER or KIND_FREE
+     */
+    public int getKind(int handle) {
+        return kinds[handle];
+    }
+
+    /**
+     * Accessor method to access the location of an entity.
+     * @param handle (int) handle of the entity
+     * @return (int) location packed with PackedPoint
+     */
+    public int getLocation(int handle) {
+        return locations[handle];
+    }
+
+    /**
+     * Accessor method to access the x-value of an entity.
+     * @param handle (int) handle of the entity
+     * @return (int) x-value
+     */
+    public int getX(int handle) {
+        return PackedPoint.getX(locations[handle]);
+    }
+
+    /**
+     * Accessor method to access the y-value of an entity.
+     * @param handle (int) handle of the entity
+     * @return (int) y-value
+     */
+    public int getY(int handle) {
+        return PackedPoint.getY(locations[handle]);
+    }
+
+    /**
+     * Mutator method to set the location of an entity.
+     * @param handle (int) handle of the entity
+     * @param x (int) x-value
+     * @param y (int) y-value
+     */
+    public void setLocation(int handle, int x, int y) {
+        setLocation(handle, PackedPoint.pack(x, y));
+    }
+
+    /**
+     * Mutator method to set the location of an entity (without unpacking it).
+     * @param handle (int) handle of the entity
+     * @param location (int) location packed with PackedPoint
+     */
+    public void setLocation(int handle, int location) {
+        locations[handle] = location;
+        flags[handle] |= FLAG_LOCATED;
+    }
+
+    /**
+     * Accessor method to access the id of the room an entity is in.
+     * @param handle (int) handle of the entity
+     * @return (int) room id, or NO_ROOM
+     */
+    public int getRoomId(int handle) {
+        return roomIds[handle];
+    }
+
+    /**
+     * Mutator method to set the id of the room an entity is in.
+     * @param handle (int) handle of the entity
+     * @param roomId (int) room id, or NO_ROOM
+     */
+    public void setRoomId(int handle, int roomId) {
+        roomIds[handle] = roomId;
+    }
+
+    /**
+     * Accessor method to access the type code of an entity.
+     * @param handle (int) handle of the entity
+     * @return (int) type code (i.e. TYPE_POTION)
+     */
+    public int getType(int handle) {
+        return types[handle];
+    }
+
+    /**
+     * Mutator method to set the type code of an entity.
+     * @param handle (int) handle of the entity
+     * @param type (int) type code (i.e. TYPE_POTION)
+     */
+    public void setType(int handle, int type) {
+        types[handle] = (byte) type;
+    }
+
+    /**
+     * Returns true if an entity has a flag.
+     * @param handle (int) handle of the entity
+     * @param flag (int) flag (i.e. FLAG_CARRIED)
+     * @return (boolean) true if the flag is set, false otherwise
+     */
+    public boolean hasFlag(int handle, int flag) {
+        return (flags[handle] & flag) != 0;
+    }
+
+    /**
+     * Mutator method to set or clear a flag of an entity.
+     * @param handle (int) handle of the entity
+     * @param flag (int) flag (i.e. FLAG_CARRIED)
+     * @param on (boolean) true to set the flag, false to clear it
+     */
+    public void setFlag(int handle, int flag, boolean on) {
+        flags[handle] = (byte) (on ? flags[handle] | flag : flags[handle] & ~flag);
+    }
+
+    /**
+     * Finds an entity of a kind on a tile of a room. This looks through every entity of the level, so per tile
+     * lookups (i.e. while drawing) should go through the room's own items and monsters instead.
+     * @param kind (int) KIND_ITEM, KIND_MONSTER or KIND_PLAYER
+     * @param roomId (int) room id
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @return (int) handle of the first such entity, or NO_ENTITY if there is none
+     */
+    public int findAt(int kind, int roomId, int x, int y) {
+        int location = PackedPoint.pack(x, y);
+        for (int handle = 0; handle < size; handle++) {
+            if (roomIds[handle] == roomId && locations[handle] == location && kinds[handle] == kind) {
+                return handle;
+            }
+        }
+        return NO_ENTITY;
+    }
+
+    /**
+     * Counts the entities of a kind in a room (looking through every entity of the level).
+     * @param kind (int) KIND_ITEM, KIND_MONSTER or KIND_PLAYER
+     * @param roomId (int) room id
+     * @return (int) number of entities
+     */
+    public int countInRoom(int kind, int roomId) {
+        int count = 0;
+        for (int handle = 0; handle < size; handle++) {
+            if (roomIds[handle] == roomId && kinds[handle] == kind) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Accessor method to access the type code of an item type.
+     * @param typeName (String) item type as written in rooms files (i.e. "potion")
+     * @return (int) type code, TYPE_OTHER if the type is not known
+     */
+    public static int getTypeCode(String typeName) {
+        for (int type = 1; type < TYPE_NAMES.length; type++) {
+            if (TYPE_NAMES[type].equals(typeName)) {
+                return type;
+            }
+        }
+        return TYPE_OTHER;
+    }
+
+    /**
+     * Accessor method to access the name of the symbol items of a type are displayed with.
+     * @param type (int) type code
+     * @return (String) symbol name (i.e. "POTION"), null for TYPE_OTHER
+     */
+    public static String getTypeSymbolName(int type) {
+        return TYPE_SYMBOLS[type];
+    }
+
+    /**
+     * Doubles the capacity of the arrays.
+     */
+    private void grow() {
+        int capacity = Math.max(DEFAULT_CAPACITY, kinds.length * 2);
+        kinds = Arrays.copyOf(kinds, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        roomIds = Arrays.copyOf(roomIds, capacity);
+        types = Arrays.copyOf(types, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+}
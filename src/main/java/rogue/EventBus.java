@@ -0,0 +1,239 @@
+package rogue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*Hands a game's events to consumers on their own threads (logging, metrics, achievements, spectators). Events are
+written into a ring of preallocated GameEvent slots by a single producer, the thread playing the game, and each
+consumer follows the ring at its own pace, handling every event published since its last look in one batch. Nothing
+is locked: the producer publishes by advancing a sequence, and each consumer reports how far it has read. Publishing
+never waits, if the slowest consumer is a whole ring behind the event is dropped (and counted) instead*/
+public final class EventBus implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int SPIN_ROUNDS = 100;
+    private static final int YIELD_ROUNDS = 200;
+    private static final long PARK_NANOS = 1000000L;
+
+    /*Handles the events of the bus, on the consumer's own thread*/
+    public interface Handler {
+        /**
+         * Handles an event. The event is only valid until the handler returns.
+         * @param event (GameEvent) event
+         * @param endOfBatch (boolean) true for the last event available, a good time to flush buffered work
+         */
+        void onEvent(GameEvent event, boolean endOfBatch);
+    }
+
+    /*How a consumer waits when it has read every published event*/
+    public interface WaitStrategy {
+        /**
+         * Waits a little before the consumer looks for events again.
+         * @param idleRounds (int) number of times the consumer has waited since its last event
+         */
+        void idle(int idleRounds);
+    }
+
+    /*Spins without giving up the processor: the lowest latency, for a consumer with a processor to itself*/
+    public static final WaitStrategy BUSY_SPIN = idleRounds -> { };
+    /*Lets other threads run between looks*/
+    public static final WaitStrategy YIELDING = idleRounds -> Thread.yield();
+    /*Spins, then yields, then sleeps a millisecond at a time: for consumers that are not in a hurry*/
+    public static final WaitStrategy PARKING = idleRounds -> {
+        if (idleRounds >= YIELD_ROUNDS) {
+            LockSupport.parkNanos(PARK_NANOS);
+        } else if (idleRounds >= SPIN_ROUNDS) {
+            Thread.yield();
+        }
+    };
+
+    private final GameEvent[] ring;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(-1); /*Sequence of the last published event*/
+    private volatile Consumer[] consumers = new Consumer[0]; /*Replaced as a whole when a consumer is added*/
+    private volatile boolean running = true;
+    private volatile long dropped = 0; /*Only changed by the producer*/
+    private volatile RuntimeException lastError;
+
+    /*Only used by the producer*/
+    private long nextSequence = 0;
+    private long gate = -1; /*Last sequence every consumer has read, as of the last look*/
+
+    /**
+     * Constructor that makes the ring of events.
+     * @param capacity (int) number of events the slowest consumer can be behind (rounded up to a power of two)
+     */
+    public EventBus(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Event bus capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        ring = new GameEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new GameEvent();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Publishes an event to every consumer (called only by the thread playing the game). Never blocks and does not
+     * allocate.
+     * @param type (int) type of the event (i.e. GameEvent.PICKED_UP)
+     * @param turn (long) turn the event happened on
+     * @param roomId (int) id of the room the player is in
+     * @param x (int) x-value of the player
+     * @param y (int) y-value of the player
+     * @param value (int) what the event is about, depending on its type
+     * @param message (String) message narrating the event
+     * @return (boolean) true if the event was published, false if it was dropped because a consumer is too far behind
+     */
+    public boolean publish(int type, long turn, int roomId, int x, int y, int value, String message) {
+        long sequence = nextSequence;
+        long wrapPoint = sequence - ring.length; /*Sequence last held by the slot about to be written*/
+        if (wrapPoint > gate) {
+            gate = slowestSequence();
+            if (wrapPoint > gate) {
+                dropped++;
+                return false;
+            }
+        }
+        ring[(int) (sequence & mask)].set(type, turn, roomId, x, y, value, message);
+        nextSequence = sequence + 1;
+        cursor.lazySet(sequence); /*Ordered after the writes to the slot*/
+        return true;
+    }
+
+    /**
+     * Starts a consumer on a thread of its own. It receives the events published from now on.
+     * @param handler (Handler) what is done with each event
+     * @param waitStrategy (WaitStrategy) how the consumer waits for events (i.e. PARKING)
+     * @param name (String) name of the consumer's thread
+     */
+    public synchronized void subscribe(Handler handler, WaitStrategy waitStrategy, String name) {
+        if (!running) {
+            throw new IllegalStateException("Event bus is closed");
+        }
+        Consumer consumer = new Consumer(handler, waitStrategy, cursor.get());
+        Consumer[] added = Arrays.copyOf(consumers, consumers.length + 1);
+        added[added.length - 1] = consumer;
+        consumers = added;
+        /*Read again once the producer can see the consumer, so no slot it is about to read was already passed over*/
+        consumer.sequence.set(cursor.get());
+        Thread thread = new Thread(consumer, name);
+        thread.setDaemon(true);
+        consumer.thread = thread;
+        thread.start();
+    }
+
+    /**
+     * Accessor method to access the number of events dropped because a consumer was too far behind.
+     * @return (long) number of dropped events
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Accessor method to access the last exception a handler threw (the consumer goes on with the next event).
+     * @return (RuntimeException) last error, null if every event was handled
+     */
+    public RuntimeException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Lets every consumer handle the events already published, then stops them.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+        }
+        for (Consumer consumer : consumers) {
+            try {
+                consumer.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the last sequence every consumer has read (the last published one if there are no consumers).
+     * @return (long) sequence
+     */
+    private long slowestSequence() {
+        long slowest = cursor.get();
+        Consumer[] current = consumers;
+        for (int i = 0; i < current.length; i++) {
+            slowest = Math.min(slowest, current[i].sequence.get());
+        }
+        return slowest;
+    }
+
+    /*A consumer following the ring on its own thread*/
+    private final class Consumer implements Runnable {
+
+        private final Handler handler;
+        private final WaitStrategy waitStrategy;
+        private final AtomicLong sequence; /*Last sequence handled, read by the producer*/
+        private Thread thread;
+
+        /**
+         * Constructor that takes what the consumer does and where it starts.
+         * @param eventHandler (Handler) what is done with each event
+         * @param strategy (WaitStrategy) how the consumer waits for events
+         * @param start (long) sequence of the last event it does not receive
+         */
+        Consumer(Handler eventHandler, WaitStrategy strategy, long start) {
+            handler = eventHandler;
+            waitStrategy = strategy;
+            sequence = new AtomicLong(start);
+        }
+
+        /**
+         * Body of the consumer: handles each batch of published events, until the bus is closed and drained.
+         */
+        @Override
+        public void run() {
+            int idleRounds = 0;
+            while (true) {
+                long next = sequence.get() + 1;
+                long available = cursor.get();
+                if (available >= next) {
+                    for (long s = next; s <= available; s++) {
+                        handle(ring[(int) (s & mask)], s == available);
+                    }
+                    sequence.lazySet(available); /*The slots can be written again*/
+                    idleRounds = 0;
+                } else if (!running) {
+                    if (cursor.get() < next) { /*Read after the flag, so events published before closing are seen*/
+                        return;
+                    }
+                } else {
+                    waitStrategy.idle(idleRounds);
+                    idleRounds = (idleRounds == Integer.MAX_VALUE) ? idleRounds : idleRounds + 1;
+                }
+            }
+        }
+
+        /**
+         * Hands one event to the handler, keeping the consumer going if it throws.
+         * @param event (GameEvent) event
+         * @param endOfBatch (boolean) true for the last event of the batch
+         */
+        private void handle(GameEvent event, boolean endOfBatch) {
+            try {
+                handler.onEvent(event, endOfBatch);
+            } catch (RuntimeException e) {
+                lastError = e;
+            }
+        }
+    }
+}
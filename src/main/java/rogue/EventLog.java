@@ -0,0 +1,71 @@
+package rogue;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/*Writes a game's events to a text file, one line each ("turn TYPE room x y value message"), on an EventBus consumer
+thread. Lines are buffered and written out at the end of each batch, so a burst of events costs one write*/
+public class EventLog implements EventBus.Handler, AutoCloseable {
+
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder();
+    private long eventCount = 0;
+    private volatile IOException lastError;
+
+    /**
+     * Constructor that starts a new log file (replacing any old one).
+     * @param filename (String) name of the log file
+     * @throws IOException if the file cannot be created
+     */
+    public EventLog(String filename) throws IOException {
+        writer = new BufferedWriter(new FileWriter(filename));
+    }
+
+    /**
+     * Writes an event's line, flushing the file at the end of a batch.
+     * @param event (GameEvent) event
+     * @param endOfBatch (boolean) true for the last event available
+     */
+    @Override
+    public void onEvent(GameEvent event, boolean endOfBatch) {
+        line.setLength(0);
+        line.append(event.getTurn()).append(' ').append(GameEvent.getName(event.getType())).append(' ')
+                .append(event.getRoomId()).append(' ').append(event.getX()).append(' ').append(event.getY())
+                .append(' ').append(event.getValue()).append(' ').append(event.getMessage()).append('\n');
+        eventCount++;
+        try {
+            writer.append(line);
+            if (endOfBatch) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            lastError = e;
+        }
+    }
+
+    /**
+     * Accessor method to access the number of events written (read once the bus is closed).
+     * @return (long) number of events
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Accessor method to access the last error writing the log hit.
+     * @return (IOException) last error, null if every write succeeded
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Closes the file (after the bus is closed, so no more events arrive).
+     * @throws IOException if writing or closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,225 @@
+package rogue;
+
+import java.util.Arrays;
+
+/*Field of view of a room by recursive shadowcasting over its tiles (walls and OPAQUE tiles block sight). The tiles
+seen from a player tile only change when opaque tiles change, so results are cached per player tile and the cache
+is dropped when the tile store reports a change in opacity. A cache hit costs one lookup, which keeps the cost of a
+move negligible even in large rooms*/
+public class FieldOfView {
+
+    private static final int CACHE_CAPACITY = 512; /*Power of two, the cache is cleared when it is half full*/
+    private static final int HASH_MULTIPLIER = 0x9E3779B1;
+    private static final int INITIAL_SCRATCH = 64;
+    private static final double HALF_TILE = 0.5;
+    /*Transforms that map the first octant onto each of the eight octants*/
+    private static final Octant[] OCTANTS = {new Octant(1, 0, 0, 1), new Octant(0, 1, 1, 0), new Octant(0, -1, 1, 0),
+        new Octant(-1, 0, 0, 1), new Octant(-1, 0, 0, -1), new Octant(0, -1, -1, 0), new Octant(0, 1, -1, 0),
+        new Octant(1, 0, 0, -1)};
+
+    private int[] cacheKeys = new int[CACHE_CAPACITY];
+    private int[][] cacheValues = new int[CACHE_CAPACITY][];
+    private int cacheSize = 0;
+    private TileStore cachedStore;
+    private long cachedVersion;
+    private int cachedRadius;
+    private boolean lastCached = false;
+
+    private int[] scratch = new int[INITIAL_SCRATCH];
+    private int scratchSize;
+    /*Viewer and radius of the view being worked out*/
+    private int viewerX;
+    private int viewerY;
+    private int castRadius;
+
+    /**
+     * Returns the tiles seen from a tile, from the cache when possible.
+     * @param tiles (TileStore) tiles of the room
+     * @param x (int) x-value of the viewer
+     * @param y (int) y-value of the viewer
+     * @param radius (int) how far the viewer can see
+     * @return (int[]) seen tiles as indexes (y * width + x), possibly with repeats; must not be changed
+     */
+    public int[] compute(TileStore tiles, int x, int y, int radius) {
+        if (tiles != cachedStore || tiles.getOpacityVersion() != cachedVersion || radius != cachedRadius) {
+            clearCache();
+            cachedStore = tiles;
+            cachedVersion = tiles.getOpacityVersion();
+            cachedRadius = radius;
+        }
+        int key = y * tiles.getWidth() + x;
+        int slot = findSlot(key);
+        lastCached = cacheValues[slot] != null;
+        if (lastCached) {
+            return cacheValues[slot];
+        }
+        int[] seen = castAll(tiles, x, y, radius);
+        if (cacheSize >= CACHE_CAPACITY / 2) {
+            clearCache();
+            slot = findSlot(key);
+        }
+        cacheKeys[slot] = key;
+        cacheValues[slot] = seen;
+        cacheSize++;
+        return seen;
+    }
+
+    /**
+     * Returns true if the last compute was answered from the cache (the tiles it returned were seen before).
+     * @return (boolean) true for a cache hit, false if the view was worked out
+     */
+    public boolean wasCached() {
+        return lastCached;
+    }
+
+    /**
+     * Finds the slot of a key in the cache (open addressing with linear probing).
+     * @param key (int) tile index
+     * @return (int) slot holding the key, or the empty slot where it belongs
+     */
+    private int findSlot(int key) {
+        int slot = (key * HASH_MULTIPLIER) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(CACHE_CAPACITY));
+        while (cacheValues[slot] != null && cacheKeys[slot] != key) {
+            slot = (slot + 1) & (CACHE_CAPACITY - 1);
+        }
+        return slot;
+    }
+
+    /**
+     * Empties the cache.
+     */
+    private void clearCache() {
+        Arrays.fill(cacheValues, null);
+        cacheSize = 0;
+    }
+
+    /**
+     * Works out the tiles seen from a tile in all eight octants.
+     * @param tiles (TileStore) tiles of the room
+     * @param x (int) x-value of the viewer
+     * @param y (int) y-value of the viewer
+     * @param radius (int) how far the viewer can see
+     * @return (int[]) seen tiles as indexes
+     */
+    private int[] castAll(TileStore tiles, int x, int y, int radius) {
+        scratchSize = 0;
+        viewerX = x;
+        viewerY = y;
+        castRadius = radius;
+        addSeen(tiles, x, y);
+        for (Octant octant : OCTANTS) {
+            castLight(tiles, 1, 1.0, 0.0, octant);
+        }
+        return Arrays.copyOf(scratch, scratchSize);
+    }
+
+    /**
+     * Scans one octant row by row from the viewer outwards, recursing past each run of opaque tiles with the part of
+     * the view the run does not block (the viewer and radius are those castAll was given).
+     * @param tiles (TileStore) tiles of the room
+     * @param row (int) first row to scan
+     * @param startSlope (double) slope where the visible part of the octant starts
+     * @param endSlope (double) slope where the visible part of the octant ends
+     * @param octant (Octant) transform of the octant being scanned
+     */
+    private void castLight(TileStore tiles, int row, double startSlope, double endSlope, Octant octant) {
+        if (startSlope < endSlope) {
+            return;
+        }
+        double start = startSlope;
+        int radius = castRadius;
+        int radiusSquared = radius * radius;
+        for (int j = row; j <= radius; j++) {
+            boolean blocked = false;
+            double newStart = 0;
+            int dy = -j;
+            for (int dx = -j; dx <= 0; dx++) {
+                int tileX = viewerX + octant.getX(dx, dy);
+                int tileY = viewerY + octant.getY(dx, dy);
+                double leftSlope = (dx - HALF_TILE) / (dy + HALF_TILE);
+                double rightSlope = (dx + HALF_TILE) / (dy - HALF_TILE);
+                if (start < rightSlope) {
+                    continue;
+                } else if (endSlope > leftSlope) {
+                    break;
+                }
+                boolean inside = tiles.contains(tileX, tileY);
+                if (inside && dx * dx + dy * dy <= radiusSquared) {
+                    addSeen(tiles, tileX, tileY);
+                }
+                boolean opaque = !inside || tiles.isOpaque(tileX, tileY);
+                if (blocked) {
+                    if (opaque) {
+                        newStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = newStart;
+                    }
+                } else if (opaque && j < radius) {
+                    blocked = true;
+                    castLight(tiles, j + 1, start, leftSlope, octant);
+                    newStart = rightSlope;
+                }
+            }
+            if (blocked) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Records a seen tile.
+     * @param tiles (TileStore) tiles of the room
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     */
+    private void addSeen(TileStore tiles, int x, int y) {
+        if (scratchSize == scratch.length) {
+            scratch = Arrays.copyOf(scratch, scratch.length * 2);
+        }
+        scratch[scratchSize++] = y * tiles.getWidth() + x;
+    }
+
+    /*Maps a tile of the first octant, as offsets from the viewer, onto an octant*/
+    private static final class Octant {
+
+        private final int xx;
+        private final int xy;
+        private final int yx;
+        private final int yy;
+
+        /**
+         * Constructor that sets the transform.
+         * @param xFromX (int) how much the x offset adds to the x-value
+         * @param xFromY (int) how much the y offset adds to the x-value
+         * @param yFromX (int) how much the x offset adds to the y-value
+         * @param yFromY (int) how much the y offset adds to the y-value
+         */
+        Octant(int xFromX, int xFromY, int yFromX, int yFromY) {
+            xx = xFromX;
+            xy = xFromY;
+            yx = yFromX;
+            yy = yFromY;
+        }
+
+        /**
+         * Returns the x offset of a first octant tile in this octant.
+         * @param dx (int) x offset in the first octant
+         * @param dy (int) y offset in the first octant
+         * @return (int) x offset from the viewer
+         */
+        int getX(int dx, int dy) {
+            return dx * xx + dy * xy;
+        }
+
+        /**
+         * Returns the y offset of a first octant tile in this octant.
+         * @param dx (int) x offset in the first octant
+         * @param dy (int) y offset in the first octant
+         * @return (int) y offset from the viewer
+         */
+        int getY(int dx, int dy) {
+            return dx * yx + dy * yy;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package rogue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/*Plays a game through any GameUI: loads the world, resumes or journals the session, checkpoints every move and
+watches the dungeon files on request. The Swing window starts it with itself as the UI; run on its own it plays in
+the text terminal, so headless machines never load AWT. The world is loaded on another thread while the UI is made,
+the two are the slowest parts of starting up and do not depend on each other*/
+public final class Game {
+
+    public static final String CONFIGURATION_FILE = "fileLocations.json";
+    private static final String SAVE_FILE = "rogue.sav";
+    private static final String RESUME_ARGUMENT = "--resume";
+    private static final String JOURNAL_FILE = "rogue.journal";
+    private static final long JOURNAL_FLUSH_MILLIS = 1000; /*Most play a crash can lose from the journal*/
+    private static final String WATCH_ARGUMENT = "--watch";
+    private static final String STARTUP_TIME_ARGUMENT = "--startup-time";
+    private static final String EVENT_LOG_ARGUMENT = "--event-log";
+    private static final String EVENT_LOG_FILE = "rogue.events";
+    private static final int SIGHT_RADIUS = 10;
+
+    /**
+     * Private constructor, this class only plays games.
+     */
+    private Game() {
+    }
+
+    /**
+     * Starts loading the world named by the configuration file on another thread. With a single processor there is
+     * nothing to overlap the loading with, so it is loaded right away.
+     * @return (CompletableFuture<World>) the world once loaded (completed exceptionally if it cannot be played)
+     */
+    public static CompletableFuture<World> loadInBackground() {
+        return loadInBackground(CONFIGURATION_FILE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Starts loading the world named by a configuration file, on another thread if there is a processor to spare.
+     * @param configurationFileLocation (String) name of the file that contains the file locations
+     * @param processors (int) processors available
+     * @return (CompletableFuture<World>) the world once loaded, or completed exceptionally (with a
+     * CompletionException holding the InvalidDungeonException) if it cannot be played
+     */
+    static CompletableFuture<World> loadInBackground(String configurationFileLocation, int processors) {
+        if (processors < 2) {
+            try {
+                return CompletableFuture.completedFuture(loadWorld(configurationFileLocation));
+            } catch (CompletionException e) {
+                CompletableFuture<World> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                return failed;
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> loadWorld(configurationFileLocation));
+    }
+
+    /**
+     * Plays a game until the player quits.
+     * @param theGameUI (GameUI) what the game is played through
+     * @param args (String[]) command line parameters ("--resume", "--watch", "--startup-time" and "--event-log")
+     */
+    public static void play(GameUI theGameUI, String[] args) {
+        play(theGameUI, loadInBackground(), args);
+    }
+
+    /**
+     * Plays a game until the player quits, once the world being loaded is ready. If the world cannot be played, the
+     * UI is closed, the reason is reported and the program ends with an error status.
+     * @param theGameUI (GameUI) what the game is played through
+     * @param loading (CompletableFuture<World>) world being loaded (see loadInBackground)
+     * @param args (String[]) command line parameters ("--resume", "--watch", "--startup-time" and "--event-log")
+     */
+    public static void play(GameUI theGameUI, CompletableFuture<World> loading, String[] args) {
+        /*Wait for the json files to be parsed and the first level of the world to be loaded*/
+        World theWorld;
+        try {
+            theWorld = loading.join();
+        } catch (CompletionException e) {
+            theGameUI.close(); /*Give the screen back before saying why*/
+            System.err.println(e.getCause().getMessage());
+            System.exit(1);
+            return;
+        }
+
+        /*Set up the initial game display*/
+        Player thePlayer = new Player("Samantha");
+        theWorld.setPlayer(thePlayer);
+        /*Rooms larger than the screen scroll with the player*/
+        theWorld.setViewport(new Viewport(theGameUI.getColumns(), theGameUI.getRoomRows()));
+        theWorld.setSightRadius(SIGHT_RADIUS);
+
+        String message = "Welcome to my Rogue game";
+        MoveJournal journal = null;
+        if (hasArgument(args, RESUME_ARGUMENT)) {
+            message = resumeGame(theWorld);
+        } else {
+            journal = openJournal(theWorld); /*Only a session started from the dungeon file can be replayed*/
+        }
+        DungeonWatcher watcher = null;
+        if (hasArgument(args, WATCH_ARGUMENT)) {
+            watcher = startWatcher(CONFIGURATION_FILE, theWorld);
+        }
+        EventLog eventLog = hasArgument(args, EVENT_LOG_ARGUMENT) ? openEventLog() : null;
+        EventBus events = startEventBus(theWorld, eventLog);
+        theGameUI.draw(message, theWorld.getNextDisplay());
+        /*Time since the JVM started, which includes loading the classes (see the appCds task in build.gradle)*/
+        boolean reportStartup = hasArgument(args, STARTUP_TIME_ARGUMENT);
+        long firstFrameMillis = reportStartup ? ManagementFactory.getRuntimeMXBean().getUptime() : 0;
+
+        playUntilQuit(theGameUI, theWorld, journal);
+        closeJournal(journal);
+        stopWatcher(watcher);
+        closeEventLog(events, eventLog);
+        theWorld.close();
+        message = theWorld.getCurrentLevel().gameOutro();
+        theGameUI.draw(message, theWorld.getNextDisplay());
+        theGameUI.close();
+        if (reportStartup) {
+            /*Reported at the end, so the terminal UI's screen is not written over*/
+            System.err.println("First frame after " + firstFrameMillis + " ms");
+        }
+    }
+
+    /**
+     * Plays the user's input until they quit, checkpointing the game as it changes. Checkpoints are written in the
+     * background so the input loop never waits on the disk. A checkpoint is only taken after input that changed the
+     * game, and once the monsters moving in the background are done, so taking it never waits either (until then the
+     * game stays unsaved and the next input tries again). A save that failed is reported once the game ends.
+     * @param theGameUI (GameUI) what the game is played through
+     * @param theWorld (World) world being played
+     * @param journal (MoveJournal) journal the input is recorded in, or null if there is none
+     */
+    private static void playUntilQuit(GameUI theGameUI, World theWorld, MoveJournal journal) {
+        Checkpointer checkpointer = new Checkpointer(SAVE_FILE);
+        boolean unsaved = false;
+        char userInput = 'h'; /*Arbitrary start input*/
+        while (userInput != Rogue.QUIT) {
+            /*Get input from the user*/
+            userInput = theGameUI.getInput();
+            unsaved |= MoveResult.changesGame(updateGame(theGameUI, theWorld, userInput));
+            if (unsaved && theWorld.isSaveReady()) {
+                checkpointer.submit(theWorld.getSaveState());
+                unsaved = false;
+            }
+            journalInput(journal, userInput);
+        }
+        if (unsaved) {
+            checkpointer.submit(theWorld.getSaveState());
+        }
+        checkpointer.close();
+        if (checkpointer.getLastError() != null) {
+            checkpointer.getLastError().printStackTrace();
+        }
+    }
+
+    /**
+     * Updates the next instance of the screen.
+     * The update can either be a new message or a new message with a new instance of the room
+     * @param theGameUI (GameUI) what the game is played through
+     * @param theWorld (World) world being played
+     * @param userInput (char) to determine the next output/instance of the game
+     * @return (int) MoveResult code of the input
+     */
+    public static int updateGame(GameUI theGameUI, World theWorld, char userInput) {
+        /*Ask the game if the user can move there (a blocked move is reported by the result code, and the message
+        explains it, so there is no exception to handle here)*/
+        int result = theWorld.tryMove(userInput);
+        theGameUI.draw(theWorld.getMessage(), theWorld.getNextDisplay());
+        return result;
+    }
+
+    /**
+     * Restores the game saved by the last session's checkpoints.
+     * @param theWorld (World) freshly loaded world to restore into
+     * @return (String) the welcome message to display
+     */
+    private static String resumeGame(World theWorld) {
+        try {
+            theWorld.restore(SaveState.read(SAVE_FILE));
+            return "Welcome back to my Rogue game";
+        } catch (IOException | InvalidDungeonException e) {
+            return "Could not resume the saved game, starting a new one";
+        }
+    }
+
+    /**
+     * Starts the journal of this session's inputs.
+     * @param theWorld (World) world whose seed is recorded
+     * @return (MoveJournal) the journal, or null if it cannot be written
+     */
+    private static MoveJournal openJournal(World theWorld) {
+        try {
+            return new MoveJournal(JOURNAL_FILE, theWorld.getSeed(), JOURNAL_FLUSH_MILLIS);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Records an input in the journal. It is written out by the journal within JOURNAL_FLUSH_MILLIS (or sooner, when
+     * its buffer fills up), so the session can be replayed after a crash.
+     * @param journal (MoveJournal) journal, or null if there is none
+     * @param userInput (char) input to record
+     */
+    private static void journalInput(MoveJournal journal, char userInput) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(userInput);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Closes the journal.
+     * @param journal (MoveJournal) journal, or null if there is none
+     */
+    private static void closeJournal(MoveJournal journal) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (journal.getLastError() != null) {
+            journal.getLastError().printStackTrace();
+        }
+    }
+
+    /**
+     * Starts the log of this session's events.
+     * @return (EventLog) the log, or null if it cannot be written
+     */
+    private static EventLog openEventLog() {
+        try {
+            return new EventLog(EVENT_LOG_FILE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Hands the world's events to the event log on a bus, so the log is written on its own thread and the moves only
+     * hand their events over.
+     * @param theWorld (World) world being played
+     * @param eventLog (EventLog) log, or null if there is none
+     * @return (EventBus) bus the world publishes to, or null if there is no log
+     */
+    private static EventBus startEventBus(World theWorld, EventLog eventLog) {
+        if (eventLog == null) {
+            return null;
+        }
+        EventBus events = new EventBus(EventBus.DEFAULT_CAPACITY);
+        events.subscribe(eventLog, EventBus.PARKING, "rogue-event-log");
+        theWorld.setEventBus(events);
+        return events;
+    }
+
+    /**
+     * Lets the event log write the events already published, then closes the bus and the log.
+     * @param events (EventBus) bus, or null if there is none
+     * @param eventLog (EventLog) log, or null if there is none
+     */
+    private static void closeEventLog(EventBus events, EventLog eventLog) {
+        if (events != null) {
+            events.close();
+        }
+        if (eventLog == null) {
+            return;
+        }
+        try {
+            eventLog.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the world named by the configuration file.
+     * @param configurationFileLocation (String) name of the file that contains the file locations
+     * @return (World) the world
+     * @throws CompletionException holding the InvalidDungeonException if the world cannot be played (so the future
+     * loading it completes exceptionally)
+     */
+    private static World loadWorld(String configurationFileLocation) {
+        try {
+            return new World(configurationFileLocation, new Random().nextLong());
+        } catch (InvalidDungeonException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Returns true if a command line argument was given.
+     * @param args (String[]) command line parameters
+     * @param argument (String) argument to look for
+     * @return (boolean) true if the argument is one of the parameters, false otherwise
+     */
+    private static boolean hasArgument(String[] args, String argument) {
+        for (String arg : args) {
+            if (arg.equals(argument)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts watching the configuration, symbol and level files, so changes to them reach the game without a restart
+     * (the changes are applied before the next input is handled).
+     * @param configurationFileLocation (String) name of the file that contains the file locations
+     * @param theWorld (World) world to send the changes to
+     * @return (DungeonWatcher) the watcher, or null if the files cannot be watched
+     */
+    private static DungeonWatcher startWatcher(String configurationFileLocation, World theWorld) {
+        try {
+            return new DungeonWatcher(configurationFileLocation, theWorld);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Stops watching the dungeon and symbol files.
+     * @param watcher (DungeonWatcher) watcher, or null if there is none
+     */
+    private static void stopWatcher(DungeonWatcher watcher) {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Plays a game in the text terminal the program was started from.
+     * @param args (String[]) command line parameters ("--resume", "--watch", "--startup-time" and "--event-log")
+     */
+    public static void main(String[] args) {
+        CompletableFuture<World> loading = loadInBackground(); /*Loads while the terminal is set up*/
+        play(new AnsiTerminalUI(System.in, System.out), loading, args);
+    }
+}
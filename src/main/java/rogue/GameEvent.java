@@ -0,0 +1,115 @@
+package rogue;
+
+/*Something that happened in a game (a move, a pickup, a room or level change, an attack), as published on an
+EventBus. Events are slots of the bus's ring that are filled in again for every lap of the ring, so a consumer must
+copy out anything it keeps after its handler returns*/
+public final class GameEvent {
+
+    public static final int MOVED = 0;
+    public static final int BLOCKED = 1;
+    public static final int PICKED_UP = 2; /*Value: id of the item picked up*/
+    public static final int ROOM_ENTERED = 3; /*Value: id of the room the player left*/
+    public static final int LEVEL_CHANGED = 4; /*Value: index of the level the stairs lead to*/
+    public static final int MONSTER_HIT = 5; /*Value: id of the monster*/
+    public static final int MONSTER_KILLED = 6; /*Value: id of the monster*/
+
+    private static final String[] NAMES = {"MOVED", "BLOCKED", "PICKED_UP", "ROOM_ENTERED", "LEVEL_CHANGED",
+        "MONSTER_HIT", "MONSTER_KILLED"};
+
+    private int type;
+    private long turn;
+    private int roomId;
+    private int x;
+    private int y;
+    private int value;
+    private String message;
+
+    /**
+     * Fills in the event (only the bus's producer does this, before the event is published).
+     * @param eventType (int) type of the event (i.e. PICKED_UP)
+     * @param eventTurn (long) turn the event happened on
+     * @param eventRoomId (int) id of the room the player is in
+     * @param playerX (int) x-value of the player
+     * @param playerY (int) y-value of the player
+     * @param eventValue (int) what the event is about, depending on its type (i.e. the item's id)
+     * @param eventMessage (String) message narrating the event
+     */
+    void set(int eventType, long eventTurn, int eventRoomId, int playerX, int playerY, int eventValue,
+            String eventMessage) {
+        type = eventType;
+        turn = eventTurn;
+        roomId = eventRoomId;
+        x = playerX;
+        y = playerY;
+        value = eventValue;
+        message = eventMessage;
+    }
+
+    /**
+     * Accessor method to access the event's type.
+     * @return (int) type (i.e. PICKED_UP)
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * Accessor method to access the turn the event happened on.
+     * @return (long) turn
+     */
+    public long getTurn() {
+        return turn;
+    }
+
+    /**
+     * Accessor method to access the room the player was in after the event.
+     * @return (int) room id
+     */
+    public int getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * Accessor method to access the player's x-value after the event.
+     * @return (int) x-value
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Accessor method to access the player's y-value after the event.
+     * @return (int) y-value
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Accessor method to access what the event is about (see the type constants).
+     * @return (int) value, 0 if the type has none
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * Accessor method to access the message the game showed for the event.
+     * @return (String) message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Accessor method to access a readable name for an event type.
+     * @param eventType (int) type of an event
+     * @return (String) name of the type (i.e. "PICKED_UP")
+     */
+    public static String getName(int eventType) {
+        if (eventType < 0 || eventType >= NAMES.length) {
+            return "UNKNOWN";
+        }
+        return NAMES[eventType];
+    }
+}
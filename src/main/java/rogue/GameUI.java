@@ -0,0 +1,36 @@
+package rogue;
+
+/*What a game is played through: it shows the message and the room, and reads the player's keys. The Swing window
+and the text terminal are both backends of it, so the engine itself needs neither AWT nor Swing*/
+public interface GameUI {
+
+    /**
+     * Redraws the screen with a message above the room.
+     * @param message (String) message to display
+     * @param room (String) room to display (rows separated by '\n')
+     */
+    void draw(String message, String room);
+
+    /**
+     * Waits for the player's next key. Arrow keys and "WASD" are returned as Rogue's moves.
+     * @return (char) key pressed (Rogue.QUIT if the input has ended)
+     */
+    char getInput();
+
+    /**
+     * Accessor method to access the number of columns a room can be displayed in.
+     * @return (int) columns
+     */
+    int getColumns();
+
+    /**
+     * Accessor method to access the number of rows a room can be displayed in (below the message).
+     * @return (int) rows
+     */
+    int getRoomRows();
+
+    /**
+     * Gives the screen back once the game is over (i.e. restores the terminal's settings).
+     */
+    void close();
+}
@@ -0,0 +1,104 @@
+package rogue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+/*Measures the heap a loaded dungeon keeps per room and per item. Two generated dungeons with the same rooms are loaded,
+one without loot and one with LOOT_PER_ROOM items in each room: the first gives the bytes per room, the difference
+gives the bytes per item. Each is measured as the heap in use after garbage collection with the game loaded, minus
+the heap in use before it was loaded, so the parser and anything else dropped after loading is not counted*/
+public final class HeapFootprint {
+
+    private static final int DEFAULT_ROOMS = 100000;
+    static final double LOOT_PER_ROOM = 2.0;
+    private static final long SEED = 42L;
+    private static final int GC_ROUNDS = 4;
+    private static final long GC_PAUSE_MILLIS = 50L;
+
+    /**
+     * Private constructor, this class only measures.
+     */
+    private HeapFootprint() {
+    }
+
+    /**
+     * Loads a dungeon file and measures the heap the game keeps.
+     * @param roomsFile (String) name of the rooms file
+     * @param counts (int[]) set to the number of rooms and of items placed in rooms
+     * @return (long) bytes kept by the loaded game
+     * @throws InvalidDungeonException if the dungeon cannot be loaded
+     */
+    public static long measure(String roomsFile, int[] counts) throws InvalidDungeonException {
+        long before = usedHeap();
+        RogueParser parser = new RogueParser(roomsFile, new HashMap<String, Character>());
+        if (!parser.isParsed()) {
+            throw new InvalidDungeonException("Cannot read " + roomsFile);
+        }
+        Rogue game = Rogue.load(parser, SEED);
+        parser = null; /*Only what the game keeps is measured*/
+        long after = usedHeap();
+        counts[0] = game.getRooms().size();
+        counts[1] = 0;
+        for (Room currRoom : game.getRooms()) {
+            counts[1] += currRoom.getRoomItems().size();
+        }
+        return after - before;
+    }
+
+    /**
+     * Returns the heap in use after collecting garbage.
+     * @return (long) bytes in use
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+            try {
+                Thread.sleep(GC_PAUSE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Writes a generated dungeon to a temporary file.
+     * @param rooms (int) number of rooms
+     * @param loot (double) items per room
+     * @return (File) the dungeon file (deleted when the program ends)
+     * @throws IOException if the file cannot be written
+     */
+    static File generate(int rooms, double loot) throws IOException {
+        File roomsFile = File.createTempFile("footprint", ".json");
+        roomsFile.deleteOnExit();
+        DungeonGenerator generator = new DungeonGenerator(SEED, rooms);
+        generator.setLootDensity(loot);
+        generator.write(roomsFile.getPath());
+        return roomsFile;
+    }
+
+    /**
+     * Prints the bytes kept per room and per item (run with a fixed heap, i.e. -Xms2g -Xmx2g, for steady numbers).
+     * @param args optionally the number of rooms
+     * @throws IOException if the generated dungeons cannot be written
+     * @throws InvalidDungeonException if the generated dungeons cannot be loaded
+     */
+    public static void main(String[] args) throws IOException, InvalidDungeonException {
+        int rooms = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_ROOMS;
+        File bare = generate(rooms, 0.0);
+        File furnished = generate(rooms, LOOT_PER_ROOM);
+
+        int[] bareCounts = new int[2];
+        long bareBytes = measure(bare.getPath(), bareCounts);
+        int[] furnishedCounts = new int[2];
+        long furnishedBytes = measure(furnished.getPath(), furnishedCounts);
+
+        long roomBytes = bareBytes / bareCounts[0];
+        int items = furnishedCounts[1] - bareCounts[1];
+        long itemBytes = (items > 0) ? (furnishedBytes - bareBytes) / items : 0;
+        System.out.println(bareCounts[0] + " rooms: " + roomBytes + " bytes per room");
+        System.out.println(items + " items: " + itemBytes + " bytes per item");
+    }
+}
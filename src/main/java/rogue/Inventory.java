@@ -0,0 +1,280 @@
+package rogue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*A player's inventory - items in pick up order, indexed by level and id, counted by type, with a running summary of
+names and pages of names that are kept up to date as items are added and removed*/
+public class Inventory {
+
+    private static final String SEPARATOR = ", ";
+
+    private ArrayList<Item> items = new ArrayList<>();
+    private List<Item> itemsView = Collections.unmodifiableList(items);
+    /*Item ids are only unique within a level, so items are indexed by the store of their level first*/
+    private HashMap<EntityStore, HashMap<Integer, Item>> itemsByLevel = new HashMap<>();
+    private TreeMap<String, Integer> typeCounts = new TreeMap<>(); /*Sorted, so the type summary keeps its order*/
+    private String typeSummary = "";
+    private StringBuilder summary = new StringBuilder();
+    private String summaryString = "";
+    private boolean summaryOutdated = false;
+
+    /*Pages of names for the last width asked for: index of the first item of each page, and the characters taken up
+    on the last page so far*/
+    private int pageWidth = -1;
+    private int[] pageStarts = new int[1];
+    private int pageCount = 0;
+    private int lastPageUsed = 0;
+
+    /**
+     * Adds an item to the inventory, appending its name to the summary and to the last page.
+     * @param toAdd (Item) item to add
+     */
+    public void add(Item toAdd) {
+        toAdd.setCarried(true);
+        items.add(toAdd);
+        HashMap<Integer, Item> levelItems = itemsByLevel.get(toAdd.getStore());
+        if (levelItems == null) {
+            levelItems = new HashMap<>();
+            itemsByLevel.put(toAdd.getStore(), levelItems);
+        }
+        levelItems.put(toAdd.getId(), toAdd);
+        Integer count = typeCounts.get(toAdd.getType());
+        typeCounts.put(toAdd.getType(), (count == null) ? 1 : count + 1);
+        typeSummary = null;
+        if (summary.length() > 0) {
+            summary.append(SEPARATOR);
+        }
+        summary.append(toAdd.getName());
+        summaryOutdated = true;
+        if (pageWidth >= 0) {
+            placeOnPage(items.size() - 1);
+        }
+    }
+
+    /**
+     * Removes the item with the given id, found on the given level, from the inventory (the summary is rebuilt and
+     * the pages are laid out again from the page before the item's, so this is O(n)).
+     * @param level (EntityStore) store of the level the item was found on
+     * @param id (int) id of the item to remove
+     * @return (Item) the removed item, or null if no item of that level has that id
+     */
+    public Item remove(EntityStore level, int id) {
+        HashMap<Integer, Item> levelItems = itemsByLevel.get(level);
+        Item toRemove = (levelItems == null) ? null : levelItems.remove(id);
+        if (toRemove == null) {
+            return null;
+        }
+        if (levelItems.isEmpty()) {
+            itemsByLevel.remove(level);
+        }
+        int index = items.indexOf(toRemove);
+        items.remove(index);
+        toRemove.setCarried(false);
+        Integer count = typeCounts.get(toRemove.getType());
+        if (count != null && count > 1) {
+            typeCounts.put(toRemove.getType(), count - 1);
+        } else {
+            typeCounts.remove(toRemove.getType());
+        }
+        typeSummary = null;
+        summary.setLength(0);
+        appendNames(summary, 0, items.size());
+        summaryOutdated = true;
+        if (pageWidth >= 0) {
+            /*The page before the item's may now take the first name of the item's page*/
+            int page = Arrays.binarySearch(pageStarts, 0, pageCount, index);
+            page = (page >= 0) ? page : -page - 2;
+            layOutPages(Math.max(0, page - 1));
+        }
+        return toRemove;
+    }
+
+    /**
+     * Accessor method to access an item by the level it was found on and its id.
+     * @param level (EntityStore) store of the level the item was found on
+     * @param id (int) item's id
+     * @return (Item) the item, or null if it is not in the inventory
+     */
+    public Item getItem(EntityStore level, int id) {
+        HashMap<Integer, Item> levelItems = itemsByLevel.get(level);
+        return (levelItems == null) ? null : levelItems.get(id);
+    }
+
+    /**
+     * Returns true if an item with the given id, found on the given level, is in the inventory.
+     * @param level (EntityStore) store of the level the item was found on
+     * @param id (int) item's id
+     * @return (boolean) true if the item is in the inventory, false otherwise
+     */
+    public boolean contains(EntityStore level, int id) {
+        return getItem(level, id) != null;
+    }
+
+    /**
+     * Accessor method to access the number of items held of a type.
+     * @param type (String) item type (i.e. "potion")
+     * @return (int) number of items of that type
+     */
+    public int getTypeCount(String type) {
+        Integer count = typeCounts.get(type);
+        return (count == null) ? 0 : count;
+    }
+
+    /**
+     * Accessor method to access the number of items in the inventory.
+     * @return (int) number of items
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Accessor method to access the items in the order they were picked up.
+     * @return (List<Item>) read-only view of the items in the inventory (add and remove items through the inventory)
+     */
+    public List<Item> getItems() {
+        return itemsView;
+    }
+
+    /**
+     * Accessor method to access the comma separated names of every item in the inventory.
+     * @return (String) summary of the inventory
+     */
+    public String getSummary() {
+        if (summaryOutdated) {
+            summaryString = summary.toString();
+            summaryOutdated = false;
+        }
+        return summaryString;
+    }
+
+    /**
+     * Accessor method to access the number of items held of each type, in the order of the types' names. The summary
+     * is only built again after the counts change.
+     * @return (String) type counts (i.e. "1 food, 3 potion")
+     */
+    public String getTypeSummary() {
+        if (typeSummary == null) {
+            StringBuilder types = new StringBuilder();
+            for (Map.Entry<String, Integer> entry : typeCounts.entrySet()) {
+                if (types.length() > 0) {
+                    types.append(SEPARATOR);
+                }
+                types.append(entry.getValue()).append(' ').append(entry.getKey());
+            }
+            typeSummary = types.toString();
+        }
+        return typeSummary;
+    }
+
+    /**
+     * Splits the inventory into pages whose comma separated names fit in a line. A name too long for the line gets a
+     * page of its own. The pages are kept and updated as items are added and removed, so they are only laid out from
+     * the start when the width changes.
+     * @param width (int) number of characters the names of a page may take up
+     * @return (int) number of pages (a single page if the inventory is empty)
+     */
+    public int getPageCount(int width) {
+        if (width != pageWidth) {
+            pageWidth = width;
+            layOutPages(0);
+        }
+        return Math.max(1, pageCount);
+    }
+
+    /**
+     * Accessor method to access the index of the first item of a page, as laid out by the last getPageCount.
+     * @param page (int) index of the page
+     * @return (int) index of the page's first item
+     */
+    public int getPageStart(int page) {
+        return (page < pageCount) ? pageStarts[page] : items.size();
+    }
+
+    /**
+     * Accessor method to access the index after the last item of a page, as laid out by the last getPageCount.
+     * @param page (int) index of the page
+     * @return (int) index of the first item of the next page, the number of items for the last page
+     */
+    public int getPageEnd(int page) {
+        return (page + 1 < pageCount) ? pageStarts[page + 1] : items.size();
+    }
+
+    /**
+     * Lays the pages out again from a page on (the pages before it stay as they are, and the names after them are
+     * placed from what the page before takes up, not from what the old last page took up).
+     * @param firstPage (int) index of the first page to lay out
+     */
+    private void layOutPages(int firstPage) {
+        int firstItem = (firstPage < pageCount) ? pageStarts[firstPage] : 0;
+        pageCount = Math.min(firstPage, pageCount);
+        lastPageUsed = (pageCount == 0) ? 0 : namesLength(pageStarts[pageCount - 1], firstItem);
+        for (int i = firstItem; i < items.size(); i++) {
+            placeOnPage(i);
+        }
+    }
+
+    /**
+     * Counts the characters the comma separated names of a range of items take up.
+     * @param start (int) index of the first item (inclusive)
+     * @param end (int) index of the last item (exclusive)
+     * @return (int) number of characters
+     */
+    private int namesLength(int start, int end) {
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            length += ((i > start) ? SEPARATOR.length() : 0) + items.get(i).getName().length();
+        }
+        return length;
+    }
+
+    /**
+     * Puts the name of an item after the last page's names, or on a page of its own if it does not fit.
+     * @param index (int) index of the item (every item before it has been placed)
+     */
+    private void placeOnPage(int index) {
+        int length = items.get(index).getName().length();
+        if (pageCount == 0 || lastPageUsed + SEPARATOR.length() + length > pageWidth) {
+            if (pageCount == pageStarts.length) {
+                pageStarts = Arrays.copyOf(pageStarts, pageCount * 2);
+            }
+            pageStarts[pageCount++] = index;
+            lastPageUsed = length;
+        } else {
+            lastPageUsed += SEPARATOR.length() + length;
+        }
+    }
+
+    /**
+     * Accessor method to access the comma separated names of a range of items (i.e. one page of the inventory).
+     * @param start (int) index of the first item (inclusive)
+     * @param end (int) index of the last item (exclusive)
+     * @return (String) names of the items
+     */
+    public String getNames(int start, int end) {
+        StringBuilder names = new StringBuilder();
+        appendNames(names, Math.min(items.size(), start), Math.min(items.size(), end));
+        return names.toString();
+    }
+
+    /**
+     * Appends the comma separated names of a range of items.
+     * @param names (StringBuilder) buffer the names are appended to
+     * @param start (int) index of the first item (inclusive)
+     * @param end (int) index of the last item (exclusive)
+     */
+    private void appendNames(StringBuilder names, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (i > start) {
+                names.append(SEPARATOR);
+            }
+            names.append(items.get(i).getName());
+        }
+    }
+}
@@ -1,32 +1,45 @@
 package rogue;
 
-import java.awt.Point;
-import java.util.ArrayList;
-import java.util.Map;
 
-/*A basic Item class; basic functionality for both consumables and equipment*/
+/*A basic Item class; basic functionality for both consumables and equipment. The item's location, room, type and
+flags live in the EntityStore of its level, the item is a view over its handle there. Its name, type and description
+are an ItemDefinition shared with every item like it*/
 public class Item {
 
-    private String itemName;
-    private String itemType;
-    private String description;
+    private ItemDefinition definition = ItemDefinition.NONE;
     private int itemId;
-    private Point itemXyLocation;
-    private ArrayList<Map<String, String>> items = new ArrayList<>();
+    private final EntityStore store;
+    private final int handle;
 
     private Room room;
     private Character displayCharacter;
 
     /**
-     * Default constructor.
+     * Constructor that adds the item to a store shared with other entities.
+     * @param entities (EntityStore) store of the game the item belongs to
      */
-    public Item() {
-        itemName = "";
-        itemType = "";
-        description = "";
+    public Item(EntityStore entities) {
+        store = entities;
+        handle = store.create(EntityStore.KIND_ITEM);
         itemId = 0;
     }
 
+    /**
+     * Accessor method to access the store the item lives in.
+     * @return (EntityStore) store
+     */
+    public EntityStore getStore() {
+        return store;
+    }
+
+    /**
+     * Accessor method to access the item's handle in its store.
+     * @return (int) handle
+     */
+    public int getHandle() {
+        return handle;
+    }
+
     /**
      * Accessor method to access the item's id.
      * @return (int) item's id
@@ -48,15 +61,15 @@ public class Item {
      * @return (String) item's name
      */
     public String getName() {
-        return itemName;
+        return definition.getName();
     }
 
     /**
-     * Mutator method to set the item's name.
+     * Mutator method to set the item's name (the item gets a definition of its own, see setDefinition).
      * @param name (String) item's name
      */
     public void setName(String name) {
-        itemName = name;
+        definition = definition.withName(name);
     }
 
     /**
@@ -64,15 +77,40 @@ public class Item {
      * @return (String) item's type
      */
     public String getType() {
-        return itemType;
+        return definition.getType();
     }
 
     /**
-     * Mutator method to set the item's type.
+     * Mutator method to set the item's type (the item gets a definition of its own, see setDefinition).
      * @param type (String) item's type
      */
     public void setType(String type) {
-        itemType = type;
+        setDefinition(definition.withType(type));
+    }
+
+    /**
+     * Accessor method to access the item's definition (name, type and description).
+     * @return (ItemDefinition) definition
+     */
+    public ItemDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Mutator method to set the item's definition, usually one shared through an ItemCatalog.
+     * @param newDefinition (ItemDefinition) definition
+     */
+    public void setDefinition(ItemDefinition newDefinition) {
+        definition = newDefinition;
+        store.setType(handle, EntityStore.getTypeCode(definition.getType()));
+    }
+
+    /**
+     * Accessor method to access the item's type code (from EntityStore).
+     * @return (int) type code (i.e. EntityStore.TYPE_POTION)
+     */
+    public int getTypeCode() {
+        return store.getType(handle);
     }
 
     /**
@@ -96,23 +134,27 @@ public class Item {
      * @return (String) item's description
      */
     public String getDescription() {
-        return description;
+        return definition.getDescription();
     }
 
     /**
-     * Mutator method to set the item's description.
+     * Mutator method to set the item's description, kept in the catalog of the item's definition (the item gets a
+     * definition of its own, see setDefinition).
      * @param newDescription (String) item's description
      */
     public void setDescription(String newDescription) {
-        description = newDescription;
+        definition = definition.withDescription(newDescription);
     }
 
     /**
      * Accessor method to access the item's point (x, y) location.
-     * @return (Point) item's point (x, y) location
+     * @return (Point) a copy of the item's point (x, y) location, null if it has none
      */
     public Point getXyLocation() {
-        return itemXyLocation;
+        if (!store.hasFlag(handle, EntityStore.FLAG_LOCATED)) {
+            return null;
+        }
+        return new Point(getX(), getY());
     }
 
     /**
@@ -120,7 +162,48 @@ public class Item {
      * @param newXyLocation (Point) item's point (x, y) location
      */
     public void setXyLocation(Point newXyLocation) {
-        itemXyLocation = newXyLocation;
+        setLocation(newXyLocation.getX(), newXyLocation.getY());
+    }
+
+    /**
+     * Accessor method to access the item's x-value (without making a Point).
+     * @return (int) x-value
+     */
+    public int getX() {
+        return store.getX(handle);
+    }
+
+    /**
+     * Accessor method to access the item's y-value (without making a Point).
+     * @return (int) y-value
+     */
+    public int getY() {
+        return store.getY(handle);
+    }
+
+    /**
+     * Mutator method to set the item's (x, y) location.
+     * @param x (int) x-value
+     * @param y (int) y-value
+     */
+    public void setLocation(int x, int y) {
+        store.setLocation(handle, x, y);
+    }
+
+    /**
+     * Returns true if the item is in a player's inventory.
+     * @return (boolean) true if carried, false otherwise
+     */
+    public boolean isCarried() {
+        return store.hasFlag(handle, EntityStore.FLAG_CARRIED);
+    }
+
+    /**
+     * Mutator method to mark the item as carried by a player (or not).
+     * @param carried (boolean) true if the item is in a player's inventory
+     */
+    public void setCarried(boolean carried) {
+        store.setFlag(handle, EntityStore.FLAG_CARRIED, carried);
     }
 
     /**
@@ -137,5 +220,6 @@ public class Item {
      */
     public void setCurrentRoom(Room newCurrentRoom) {
         room = newCurrentRoom;
+        store.setRoomId(handle, (room == null) ? EntityStore.NO_ROOM : room.getId());
     }
 }
@@ -0,0 +1,161 @@
+package rogue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*The item definitions of a game: every item with the same name, type and description shares one ItemDefinition, so
+a dungeon of thousands of potions keeps their name and type once. Descriptions are kept UTF-8 encoded one after the
+other in a single byte array (each distinct description once, found again through a table of their hashes) and are
+only decoded into a String when one is asked for, so a large catalogue costs about a byte per character*/
+public final class ItemCatalog {
+
+    public static final int NO_DESCRIPTION = -1;
+    private static final int INITIAL_TEXT = 256;
+    private static final int INITIAL_DESCRIPTIONS = 16;
+    private static final int HASH_MULTIPLIER = 31;
+
+    private HashMap<ItemDefinition, ItemDefinition> definitions = new HashMap<>();
+
+    /*Description i is text[starts[i]] to text[starts[i + 1]] (exclusive)*/
+    private byte[] text = new byte[0];
+    private int[] starts = new int[1];
+    private int descriptionCount = 0;
+    /*Open addressing table of description index + 1 (0 is an empty slot), at most half full*/
+    private int[] slots = new int[0];
+
+    /**
+     * Returns the definition shared by items with a name, type and description, making it the first time.
+     * @param name (String) items' name
+     * @param type (String) items' type (i.e. "potion")
+     * @param description (String) items' description, null or "" if there is none
+     * @return (ItemDefinition) shared definition
+     */
+    public ItemDefinition define(String name, String type, String description) {
+        int index = (description == null || description.isEmpty()) ? NO_DESCRIPTION : addDescription(description);
+        ItemDefinition definition = new ItemDefinition(name, type, this, index);
+        ItemDefinition shared = definitions.putIfAbsent(definition, definition);
+        return (shared == null) ? definition : shared;
+    }
+
+    /**
+     * Accessor method to access the number of distinct definitions.
+     * @return (int) number of definitions
+     */
+    public int size() {
+        return definitions.size();
+    }
+
+    /**
+     * Accessor method to access the number of distinct descriptions.
+     * @return (int) number of descriptions
+     */
+    public int getDescriptionCount() {
+        return descriptionCount;
+    }
+
+    /**
+     * Decodes a description.
+     * @param index (int) index of the description
+     * @return (String) description
+     */
+    String describe(int index) {
+        if (index < 0 || index >= descriptionCount) {
+            throw new IndexOutOfBoundsException("No item description " + index);
+        }
+        return new String(text, starts[index], starts[index + 1] - starts[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds a description, unless the same one was added before.
+     * @param description (String) description
+     * @return (int) index of the description
+     */
+    int addDescription(String description) {
+        byte[] encoded = description.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(encoded, 0, encoded.length);
+        if (slots.length > 0) {
+            int mask = slots.length - 1;
+            for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                if (matches(slots[slot] - 1, encoded)) {
+                    return slots[slot] - 1;
+                }
+            }
+        }
+        if (descriptionCount + 1 >= starts.length) {
+            starts = Arrays.copyOf(starts, Math.max(INITIAL_DESCRIPTIONS, starts.length * 2));
+        }
+        int end = starts[descriptionCount];
+        if (end + encoded.length > text.length) {
+            text = Arrays.copyOf(text, Math.max(Math.max(INITIAL_TEXT, text.length * 2), end + encoded.length));
+        }
+        System.arraycopy(encoded, 0, text, end, encoded.length);
+        starts[descriptionCount + 1] = end + encoded.length;
+        descriptionCount++;
+        if (descriptionCount * 2 > slots.length) {
+            rehash(Math.max(INITIAL_DESCRIPTIONS, slots.length * 2));
+        } else {
+            insert(descriptionCount - 1, hash);
+        }
+        return descriptionCount - 1;
+    }
+
+    /**
+     * Makes the table of description hashes again with another size.
+     * @param capacity (int) number of slots (a power of two)
+     */
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int i = 0; i < descriptionCount; i++) {
+            insert(i, hash(text, starts[i], starts[i + 1]));
+        }
+    }
+
+    /**
+     * Puts a description in the first free slot for its hash.
+     * @param index (int) index of the description
+     * @param hash (int) hash of its encoded bytes
+     */
+    private void insert(int index, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    /**
+     * Returns true if a stored description has the same encoded bytes.
+     * @param index (int) index of the stored description
+     * @param encoded (byte[]) encoded description
+     * @return (boolean) true if the bytes are the same, false otherwise
+     */
+    private boolean matches(int index, byte[] encoded) {
+        int start = starts[index];
+        if (starts[index + 1] - start != encoded.length) {
+            return false;
+        }
+        for (int i = 0; i < encoded.length; i++) {
+            if (text[start + i] != encoded[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes a range of bytes.
+     * @param bytes (byte[]) bytes
+     * @param from (int) first byte
+     * @param to (int) end of the range (exclusive)
+     * @return (int) hash
+     */
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = hash * HASH_MULTIPLIER + bytes[i];
+        }
+        return hash ^ (hash >>> (Integer.SIZE / 2)); /*Spread the high bits into the slot index*/
+    }
+}
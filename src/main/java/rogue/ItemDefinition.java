@@ -0,0 +1,108 @@
+package rogue;
+
+/*What every item with the same name, type and description shares (a flyweight made by an ItemCatalog); an item only
+keeps its own id, location and room. The description stays encoded in the catalog until it is asked for*/
+public final class ItemDefinition {
+
+    public static final ItemDefinition NONE = new ItemDefinition("", "", null, ItemCatalog.NO_DESCRIPTION);
+    private static final int HASH_MULTIPLIER = 31;
+
+    private final String name;
+    private final String type;
+    private final ItemCatalog catalog;
+    private final int descriptionIndex;
+
+    /**
+     * Constructor that takes the shared information of the items (definitions are made by ItemCatalog.define).
+     * @param itemName (String) items' name
+     * @param itemType (String) items' type
+     * @param descriptions (ItemCatalog) catalog that made the definition, null for NONE
+     * @param index (int) index of the description in the catalog, or ItemCatalog.NO_DESCRIPTION
+     */
+    ItemDefinition(String itemName, String itemType, ItemCatalog descriptions, int index) {
+        name = itemName;
+        type = itemType;
+        catalog = descriptions;
+        descriptionIndex = index;
+    }
+
+    /**
+     * Accessor method to access the items' name.
+     * @return (String) name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Accessor method to access the items' type.
+     * @return (String) type (i.e. "potion")
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Accessor method to access the items' description, decoded from the catalog each time it is asked for.
+     * @return (String) description, "" if there is none
+     */
+    public String getDescription() {
+        return (descriptionIndex == ItemCatalog.NO_DESCRIPTION) ? "" : catalog.describe(descriptionIndex);
+    }
+
+    /**
+     * Returns a definition like this one with another name (not shared through the catalog).
+     * @param newName (String) name
+     * @return (ItemDefinition) definition with the name
+     */
+    public ItemDefinition withName(String newName) {
+        return new ItemDefinition(newName, type, catalog, descriptionIndex);
+    }
+
+    /**
+     * Returns a definition like this one with another type (not shared through the catalog).
+     * @param newType (String) type
+     * @return (ItemDefinition) definition with the type
+     */
+    public ItemDefinition withType(String newType) {
+        return new ItemDefinition(name, newType, catalog, descriptionIndex);
+    }
+
+    /**
+     * Returns a definition like this one with another description, kept in the same catalog (not shared through the
+     * catalog). A definition made outside any catalog (NONE) gets a catalog of its own for the description.
+     * @param newDescription (String) description, null or "" for none
+     * @return (ItemDefinition) definition with the description
+     */
+    public ItemDefinition withDescription(String newDescription) {
+        if (newDescription == null || newDescription.isEmpty()) {
+            return new ItemDefinition(name, type, catalog, ItemCatalog.NO_DESCRIPTION);
+        }
+        ItemCatalog descriptions = (catalog == null) ? new ItemCatalog() : catalog;
+        return new ItemDefinition(name, type, descriptions, descriptions.addDescription(newDescription));
+    }
+
+    /**
+     * Returns true if the other object is a definition with the same name, type and description in the same catalog.
+     * @param other (Object) object to compare with
+     * @return (boolean) true if the definitions are the same, false otherwise
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ItemDefinition)) {
+            return false;
+        }
+        ItemDefinition definition = (ItemDefinition) other;
+        return name.equals(definition.name) && type.equals(definition.type) && catalog == definition.catalog
+                && descriptionIndex == definition.descriptionIndex;
+    }
+
+    /**
+     * Returns a hash code consistent with equals.
+     * @return (int) hash code
+     */
+    @Override
+    public int hashCode() {
+        return (name.hashCode() * HASH_MULTIPLIER + type.hashCode()) * HASH_MULTIPLIER + descriptionIndex;
+    }
+}
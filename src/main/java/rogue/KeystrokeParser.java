@@ -0,0 +1,115 @@
+package rogue;
+
+/*Turns the bytes a terminal sends into Rogue's keystrokes: telnet commands (RFC 854) are skipped, ANSI arrow key
+sequences become moves, "WASD" are moves like in the window, and Ctrl-C and Ctrl-D quit (a terminal in raw mode
+sends them as bytes instead of signals). Used for remote clients and the local terminal*/
+public final class KeystrokeParser {
+
+    /*Telnet commands*/
+    public static final int IAC = 255;
+    public static final int WILL = 251;
+    private static final int DONT = 254;
+    private static final int SB = 250;
+    private static final int SE = 240;
+    private static final int ESC = 27;
+    private static final int END_OF_TEXT = 3; /*Ctrl-C*/
+    private static final int END_OF_TRANSMISSION = 4; /*Ctrl-D*/
+
+    /*States of the parser*/
+    private static final int DATA = 0;
+    private static final int COMMAND = 1;
+    private static final int OPTION = 2;
+    private static final int SUBNEGOTIATION = 3;
+    private static final int SUBNEGOTIATION_COMMAND = 4;
+    private static final int ESCAPE = 5;
+    private static final int CONTROL_SEQUENCE = 6;
+
+    private int state = DATA;
+
+    /**
+     * Feeds one byte to the parser.
+     * @param value (int) byte received (0 to 255)
+     * @return (char) keystroke, or 0 if the byte does not finish one
+     */
+    public char feed(int value) {
+        switch (state) {
+            case COMMAND:
+                if (value >= WILL && value <= DONT) {
+                    state = OPTION;
+                } else {
+                    state = (value == SB) ? SUBNEGOTIATION : DATA;
+                }
+                return 0;
+            case OPTION:
+                state = DATA;
+                return 0;
+            case SUBNEGOTIATION:
+                state = (value == IAC) ? SUBNEGOTIATION_COMMAND : SUBNEGOTIATION;
+                return 0;
+            case SUBNEGOTIATION_COMMAND:
+                state = (value == SE) ? DATA : SUBNEGOTIATION;
+                return 0;
+            case ESCAPE:
+                state = (value == '[' || value == 'O') ? CONTROL_SEQUENCE : DATA;
+                return 0;
+            case CONTROL_SEQUENCE:
+                if (Character.isDigit(value) || value == ';') {
+                    return 0; /*Parameters of the sequence*/
+                }
+                state = DATA;
+                return arrowKey(value);
+            default:
+                if (value == IAC) {
+                    state = COMMAND;
+                    return 0;
+                } else if (value == ESC) {
+                    state = ESCAPE;
+                    return 0;
+                }
+                return letterKey(value);
+        }
+    }
+
+    /**
+     * Returns the move for the last byte of an arrow key sequence.
+     * @param value (int) last byte of the sequence
+     * @return (char) move, or 0 if the sequence is not an arrow key
+     */
+    private static char arrowKey(int value) {
+        switch (value) {
+            case 'A':
+                return Rogue.UP;
+            case 'B':
+                return Rogue.DOWN;
+            case 'C':
+                return Rogue.RIGHT;
+            case 'D':
+                return Rogue.LEFT;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Returns the keystroke for a typed character ("WASD" are moves like in the window, Ctrl-C and Ctrl-D quit).
+     * @param value (int) byte received
+     * @return (char) keystroke, or 0 for line endings and other control characters
+     */
+    private static char letterKey(int value) {
+        switch (value) {
+            case 'w':
+                return Rogue.UP;
+            case 'a':
+                return Rogue.LEFT;
+            case 's':
+                return Rogue.DOWN;
+            case 'd':
+                return Rogue.RIGHT;
+            case END_OF_TEXT:
+            case END_OF_TRANSMISSION:
+                return Rogue.QUIT;
+            default:
+                return (value < ' ') ? 0 : (char) value;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package rogue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*Plays the monsters' turns in batches of rooms. The monsters of the player's room move every turn, on the thread
+playing the game. Every other room's monsters move once every DISTANT_PERIOD turns, in one batch split across a shared
+pool of background threads, so thousands of far away monsters cost the input loop almost nothing. A batch only touches
+rooms the player is not in, and it is finished before the player enters another room or the game is saved*/
+public class MonsterUpdater {
+
+    public static final int DISTANT_PERIOD = 4;
+    private static final int PARALLEL_THRESHOLD = 1024; /*Fewer distant monsters than this are moved without the pool*/
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS, task -> {
+        Thread thread = new Thread(task, "rogue-monster-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ArrayList<Room> rooms;
+    private long turn = 0;
+    private List<Future<?>> batch = new ArrayList<>();
+    private ArrayList<Room> distant = new ArrayList<>(); /*Reused, the batch using it is finished before it changes*/
+
+    /**
+     * Constructor that takes the rooms of a dungeon (rooms added to the list later are included).
+     * @param allRooms (ArrayList<Room>) rooms of the dungeon
+     */
+    public MonsterUpdater(ArrayList<Room> allRooms) {
+        rooms = allRooms;
+    }
+
+    /**
+     * Accessor method to access the number of turns played.
+     * @return (long) turn count
+     */
+    public long getTurn() {
+        return turn;
+    }
+
+    /**
+     * Mutator method to set the number of turns played (i.e. from a saved game).
+     * @param newTurn (long) turn count
+     */
+    public void setTurn(long newTurn) {
+        finishBatch();
+        turn = newTurn;
+    }
+
+    /**
+     * Plays one turn of the monsters.
+     * @param playerRoom (Room) room the player is in
+     * @param playerTile (int) player's location packed with PackedPoint
+     * @param seed (long) seed of the session's random numbers
+     * @return (boolean) true if a monster in the player's room moved, false otherwise
+     */
+    public boolean advance(Room playerRoom, int playerTile, long seed) {
+        turn++;
+        boolean moved = false;
+        if (playerRoom.hasMonsters()) {
+            moved = playerRoom.getMonsters().update(playerRoom.getTiles(), playerTile, seed, turn);
+        }
+        if (turn % DISTANT_PERIOD == 0) {
+            finishBatch();
+            startBatch(playerRoom, seed, turn);
+        }
+        return moved;
+    }
+
+    /**
+     * Returns true if no rooms are being updated in the background, without waiting for them.
+     * @return (boolean) true if finishBatch would not wait, false otherwise
+     */
+    public boolean isBatchFinished() {
+        for (int i = 0; i < batch.size(); i++) {
+            if (!batch.get(i).isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits for the rooms being updated in the background (needed before reading or changing their monsters).
+     */
+    public void finishBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            for (Future<?> part : batch) {
+                part.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Monster update failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Starts moving the monsters of every room except the player's, split across the pool when there are many.
+     * @param playerRoom (Room) room the player is in (left out)
+     * @param seed (long) seed of the session's random numbers
+     * @param batchTurn (long) turn the batch is played on
+     */
+    private void startBatch(Room playerRoom, long seed, long batchTurn) {
+        distant.clear();
+        int monsters = 0;
+        for (int i = 0; i < rooms.size(); i++) { /*Indexed, so a turn without monsters does not allocate*/
+            Room currRoom = rooms.get(i);
+            if (currRoom != playerRoom && currRoom.hasMonsters()) {
+                currRoom.getTiles(); /*Built here so background threads only read the tiles*/
+                distant.add(currRoom);
+                monsters += currRoom.getMonsters().size();
+            }
+        }
+        if (distant.isEmpty()) {
+            return;
+        }
+        if (monsters < PARALLEL_THRESHOLD) {
+            updateRooms(distant, 0, distant.size(), seed, batchTurn);
+            return;
+        }
+        int parts = Math.min(THREADS, distant.size());
+        for (int part = 0; part < parts; part++) {
+            int from = distant.size() * part / parts;
+            int to = distant.size() * (part + 1) / parts;
+            batch.add(POOL.submit(() -> updateRooms(distant, from, to, seed, batchTurn)));
+        }
+    }
+
+    /**
+     * Moves the monsters of a range of rooms (the player is in none of them).
+     * @param batchRooms (List<Room>) rooms to update
+     * @param from (int) first index (inclusive)
+     * @param to (int) last index (exclusive)
+     * @param seed (long) seed of the session's random numbers
+     * @param batchTurn (long) turn the batch is played on
+     */
+    private static void updateRooms(List<Room> batchRooms, int from, int to, long seed, long batchTurn) {
+        for (int i = from; i < to; i++) {
+            Room currRoom = batchRooms.get(i);
+            currRoom.getMonsters().update(currRoom.getTiles(), Room.NO_TILE, seed, batchTurn);
+        }
+    }
+}
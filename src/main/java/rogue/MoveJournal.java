@@ -0,0 +1,147 @@
+package rogue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*Append-only record of a session: a header with the session's seed followed by one byte per input. Inputs are
+collected in a direct buffer and written to the file channel when it fills up, when flushed, and (if the journal has a
+flush interval) by a background thread at that interval, so an input costs a byte in memory and a crash loses at most
+one interval of inputs*/
+public class MoveJournal implements AutoCloseable {
+
+    public static final int MAGIC = 0x52474A4E; /*"RGJN"*/
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long inputCount = 0;
+    private final Thread flusher;
+    private volatile boolean open = true;
+    private volatile IOException lastError;
+
+    /**
+     * Constructor that starts a new journal file (replacing any old one) for a session. Inputs are only written when
+     * the buffer fills up, when flushed and when closed.
+     * @param filename (String) name of the journal file
+     * @param seed (long) seed of the session's random numbers (Rogue.getSeed)
+     * @throws IOException if the file cannot be created
+     */
+    public MoveJournal(String filename, long seed) throws IOException {
+        this(filename, seed, 0);
+    }
+
+    /**
+     * Constructor that starts a new journal file (replacing any old one) for a session, with a background thread
+     * writing the buffered inputs out at an interval.
+     * @param filename (String) name of the journal file
+     * @param seed (long) seed of the session's random numbers (Rogue.getSeed)
+     * @param flushMillis (long) longest time an input waits in the buffer, 0 for no background flushes
+     * @throws IOException if the file cannot be created
+     */
+    public MoveJournal(String filename, long seed, long flushMillis) throws IOException {
+        channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(seed);
+        flush();
+        if (flushMillis > 0) {
+            flusher = new Thread(() -> flushEvery(TimeUnit.MILLISECONDS.toNanos(flushMillis)),
+                    "rogue-journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Appends an input to the journal (written to the file once the buffer fills up or flush is called).
+     * @param input (char) player's input
+     * @throws IOException if writing a full buffer fails
+     */
+    public synchronized void append(char input) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) input);
+        inputCount++;
+    }
+
+    /**
+     * Writes every buffered input to the file.
+     * @throws IOException if writing fails
+     */
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Accessor method to access the number of inputs appended this session.
+     * @return (long) number of inputs
+     */
+    public synchronized long getInputCount() {
+        return inputCount;
+    }
+
+    /**
+     * Accessor method to access the last error a background flush hit.
+     * @return (IOException) last error, null if every background flush succeeded
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Flushes the buffered inputs and closes the file.
+     * @throws IOException if writing or closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        open = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Body of the background flusher: writes out any buffered inputs once per interval, until closed.
+     * @param intervalNanos (long) flush interval
+     */
+    private void flushEvery(long intervalNanos) {
+        while (open) {
+            LockSupport.parkNanos(this, intervalNanos);
+            synchronized (this) {
+                if (!open || buffer.position() == 0) {
+                    continue;
+                }
+                try {
+                    flush();
+                } catch (IOException e) {
+                    lastError = e;
+                }
+            }
+        }
+    }
+}
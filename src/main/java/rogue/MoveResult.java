@@ -0,0 +1,53 @@
+package rogue;
+
+/*Result codes returned by Rogue.tryMove (expected outcomes of a move are reported here instead of by exceptions)*/
+public final class MoveResult {
+
+    public static final int MOVED = 0;
+    public static final int BLOCKED = 1;
+    public static final int PICKED_UP = 2;
+    public static final int CHANGED_ROOM = 3;
+    public static final int INFO = 4;
+    public static final int CHANGED_LEVEL = 5;
+    public static final int ATTACKED = 6;
+    public static final int NO_OP = 7; /*Input that is neither a move nor a request for information (i.e. QUIT)*/
+
+    private static final String[] NAMES = {"MOVED", "BLOCKED", "PICKED_UP", "CHANGED_ROOM", "INFO", "CHANGED_LEVEL",
+        "ATTACKED", "NO_OP"};
+
+    /**
+     * Private constructor, this class only holds result codes.
+     */
+    private MoveResult() {
+    }
+
+    /**
+     * Returns true if the result code means the player's position changed.
+     * @param result (int) result code from Rogue.tryMove
+     * @return (boolean) true if the player moved, picked something up, changed room or took stairs, false otherwise
+     */
+    public static boolean isMove(int result) {
+        return result == MOVED || result == PICKED_UP || result == CHANGED_ROOM || result == CHANGED_LEVEL;
+    }
+
+    /**
+     * Returns true if the result code means the game changed, so a save taken now would differ from the last one.
+     * @param result (int) result code from Rogue.tryMove
+     * @return (boolean) false for BLOCKED, INFO and NO_OP, true otherwise
+     */
+    public static boolean changesGame(int result) {
+        return result != BLOCKED && result != INFO && result != NO_OP;
+    }
+
+    /**
+     * Accessor method to access a readable name for a result code.
+     * @param result (int) result code from Rogue.tryMove
+     * @return (String) name of the result code (i.e. "BLOCKED")
+     */
+    public static String getName(int result) {
+        if (result < 0 || result >= NAMES.length) {
+            return "UNKNOWN";
+        }
+        return NAMES[result];
+    }
+}
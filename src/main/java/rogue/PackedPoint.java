@@ -0,0 +1,42 @@
+package rogue;
+
+/*Helpers for (x, y) tile coordinates packed into a single int (x in the high 16 bits, y in the low 16 bits)*/
+public final class PackedPoint {
+
+    private static final int SHIFT = 16;
+    private static final int LOW_MASK = 0xFFFF;
+
+    /**
+     * Private constructor, this class only holds static helpers.
+     */
+    private PackedPoint() {
+    }
+
+    /**
+     * Packs an (x, y) location into a single int.
+     * @param x (int) x-value of the location (must fit in a signed 16 bit value)
+     * @param y (int) y-value of the location (must fit in a signed 16 bit value)
+     * @return (int) packed location
+     */
+    public static int pack(int x, int y) {
+        return (x << SHIFT) | (y & LOW_MASK);
+    }
+
+    /**
+     * Accessor method to access the x-value of a packed location.
+     * @param packed (int) packed location
+     * @return (int) x-value of the location
+     */
+    public static int getX(int packed) {
+        return packed >> SHIFT;
+    }
+
+    /**
+     * Accessor method to access the y-value of a packed location.
+     * @param packed (int) packed location
+     * @return (int) y-value of the location
+     */
+    public static int getY(int packed) {
+        return (short) packed;
+    }
+}
@@ -0,0 +1,513 @@
+package rogue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*Answers "how do I get there" questions for travel and bots: room routes over a RoomGraph, tile routes by A*. A
+pathfinder answers one query at a time (it is used by the thread playing the game)*/
+public class Pathfinder {
+
+    private static final int MAX_CACHED_DESTINATIONS = 32;
+    private static final int NONE = -1;
+    private static final int INITIAL_CACHE_CAPACITY = 16;
+    private static final float CACHE_LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_QUEUE_CAPACITY = 64;
+    private static final int[] STEP_X = {0, 0, 1, -1};
+    private static final int[] STEP_Y = {-1, 1, 0, 0};
+
+    private List<Room> rooms;
+    private RoomGraph graph;
+    /*Distance rows (doors to go from every room) keyed by destination index, least recently used dropped first*/
+    private LinkedHashMap<Integer, int[]> distanceCache = new LinkedHashMap<Integer, int[]>(INITIAL_CACHE_CAPACITY,
+            CACHE_LOAD_FACTOR, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+            return size() > MAX_CACHED_DESTINATIONS;
+        }
+    };
+    /*Scratch space of the tile searches, grown to the largest room searched and reused by every search. A tile's cost
+    and cameFrom are only valid while its stamp is the current search's, so nothing is cleared between searches*/
+    private int[] stamps = new int[0];
+    private int[] cost = new int[0];
+    private int[] cameFrom = new int[0];
+    private int search = 0;
+    private final TileQueue open = new TileQueue(INITIAL_QUEUE_CAPACITY);
+
+    /**
+     * Constructor that takes the rooms of the dungeon (the graph is built on the first query).
+     * @param dungeonRooms (List<Room>) all rooms of the dungeon
+     */
+    public Pathfinder(List<Room> dungeonRooms) {
+        rooms = dungeonRooms;
+    }
+
+    /**
+     * Drops the room graph and every cached distance. Rooms in the graph call this when their doors change.
+     */
+    public void invalidate() {
+        graph = null;
+        distanceCache.clear();
+    }
+
+    /**
+     * Accessor method to access the room graph, building it if the doors or rooms changed since it was last built.
+     * The rooms of a new graph are told to invalidate this pathfinder when their doors change.
+     * @return (RoomGraph) room graph
+     */
+    public RoomGraph getGraph() {
+        if (graph != null && graph.getRoomCount() != rooms.size()) {
+            invalidate(); /*Rooms were added*/
+        }
+        if (graph == null) {
+            graph = new RoomGraph(rooms);
+            for (Room graphRoom : rooms) {
+                graphRoom.setPathfinder(this);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Accessor method to access the number of doors on the shortest route between two rooms.
+     * @param fromId (int) id of the starting room
+     * @param toId (int) id of the destination room
+     * @return (int) number of doors to go through, -1 if the destination cannot be reached
+     */
+    public int getDistance(int fromId, int toId) {
+        int from = getGraph().getIndex(fromId);
+        int to = getGraph().getIndex(toId);
+        if (from < 0 || to < 0) {
+            return NONE;
+        }
+        return distancesTo(to)[from];
+    }
+
+    /**
+     * Finds the shortest route (fewest doors) between two rooms.
+     * @param fromId (int) id of the starting room
+     * @param toId (int) id of the destination room
+     * @return (int[]) ids of the rooms along the route (both ends included), or null if there is no route
+     */
+    public int[] findRoomPath(int fromId, int toId) {
+        int[] path = findRoomIndexPath(getGraph().getIndex(fromId), getGraph().getIndex(toId));
+        if (path == null) {
+            return null;
+        }
+        for (int i = 0; i < path.length; i++) {
+            path[i] = graph.getRoom(path[i]).getId();
+        }
+        return path;
+    }
+
+    /**
+     * Finds the route between two room indexes by walking down the cached distance row of the destination.
+     * @param from (int) index of the starting room
+     * @param to (int) index of the destination room
+     * @return (int[]) indexes of the rooms along the route, or null if there is no route
+     */
+    private int[] findRoomIndexPath(int from, int to) {
+        if (from < 0 || to < 0) {
+            return null;
+        }
+        int[] distance = distancesTo(to);
+        if (distance[from] < 0) {
+            return null;
+        }
+        int[] path = new int[distance[from] + 1];
+        path[0] = from;
+        for (int step = 1; step < path.length; step++) {
+            path[step] = nextRoomIndex(path[step - 1], distance);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the first neighbour of a room that is one door closer to the destination.
+     * @param current (int) index of the current room
+     * @param distance (int[]) distance row of the destination
+     * @return (int) index of the next room
+     */
+    private int nextRoomIndex(int current, int[] distance) {
+        return graph.getEdgeTarget(nextEdge(current, distance));
+    }
+
+    /**
+     * Returns the first edge leaving a room towards a room that is one door closer to the destination.
+     * @param current (int) index of the current room
+     * @param distance (int[]) distance row of the destination
+     * @return (int) edge index
+     */
+    private int nextEdge(int current, int[] distance) {
+        for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+            if (distance[graph.getEdgeTarget(edge)] == distance[current] - 1) {
+                return edge;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Accessor method to access the distance row of a destination, computing and caching it if needed.
+     * @param to (int) index of the destination room
+     * @return (int[]) distance from every room to the destination
+     */
+    private int[] distancesTo(int to) {
+        int[] distance = distanceCache.get(to);
+        if (distance == null) {
+            distance = getGraph().distancesTo(to);
+            distanceCache.put(to, distance);
+        }
+        return distance;
+    }
+
+    /**
+     * Finds the room closest (fewest doors) to a room that is not in a set of rooms, i.e. the nearest room the player
+     * has not entered yet.
+     * @param fromId (int) id of the starting room
+     * @param excludedIds (Set<Integer>) ids of the rooms that do not count
+     * @return (int) id of the closest room not in the set (ties go to the room found first), -1 if none can be reached
+     */
+    public int findNearestRoom(int fromId, Set<Integer> excludedIds) {
+        int from = getGraph().getIndex(fromId);
+        if (from < 0) {
+            return NONE;
+        }
+        boolean[] queued = new boolean[graph.getRoomCount()];
+        int[] queue = new int[graph.getRoomCount()];
+        int head = 0;
+        int tail = 0;
+        queued[from] = true;
+        queue[tail++] = from;
+        while (head < tail) {
+            int current = queue[head++];
+            int id = graph.getRoom(current).getId();
+            if (current != from && !excludedIds.contains(id)) {
+                return id;
+            }
+            for (int edge = graph.getEdgeStart(current); edge < graph.getEdgeEnd(current); edge++) {
+                int target = graph.getEdgeTarget(edge);
+                if (!queued[target]) {
+                    queued[target] = true;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Finds the moves (Rogue.UP, DOWN, LEFT, RIGHT) that take the player from a tile to a room: through each door on
+     * the shortest room route, stopping as soon as the destination room is entered.
+     * @param fromRoom (Room) room the player is in
+     * @param fromX (int) player's x-value
+     * @param fromY (int) player's y-value
+     * @param toRoomId (int) id of the destination room
+     * @return (char[]) moves to make, or null if there is no route
+     */
+    public char[] findMovesToRoom(Room fromRoom, int fromX, int fromY, int toRoomId) {
+        int from = getGraph().getIndex(fromRoom.getId());
+        int to = graph.getIndex(toRoomId);
+        if (from < 0 || to < 0 || distancesTo(to)[from] < 0) {
+            return null;
+        }
+        int[] distance = distancesTo(to);
+        StringBuilder moves = new StringBuilder();
+        int current = from;
+        int position = PackedPoint.pack(fromX, fromY);
+        while (current != to) {
+            int edge = nextEdge(current, distance);
+            Room room = graph.getRoom(current);
+            String direction = graph.getEdgeDirection(edge);
+            int doorTile = room.getDoorTile(direction);
+            if (!appendTileMoves(moves, room, position, doorTile)) {
+                return null;
+            }
+            current = graph.getEdgeTarget(edge);
+            position = graph.getRoom(current).getEntryTile(RoomGraph.getOppositeDirection(direction));
+        }
+        return moves.toString().toCharArray();
+    }
+
+    /**
+     * Finds the moves that take the player between two tiles of the same room, without stepping on any door on the
+     * way (a door may only be the destination).
+     * @param room (Room) room to search in
+     * @param fromX (int) starting x-value
+     * @param fromY (int) starting y-value
+     * @param toX (int) destination x-value
+     * @param toY (int) destination y-value
+     * @return (char[]) moves to make, or null if there is no route
+     */
+    public char[] findMoves(Room room, int fromX, int fromY, int toX, int toY) {
+        StringBuilder moves = new StringBuilder();
+        if (!appendTileMoves(moves, room, PackedPoint.pack(fromX, fromY), PackedPoint.pack(toX, toY))) {
+            return null;
+        }
+        return moves.toString().toCharArray();
+    }
+
+    /**
+     * Appends the moves of the tile route between two locations in a room.
+     * @param moves (StringBuilder) buffer the moves are appended to
+     * @param room (Room) room to search in
+     * @param from (int) starting location packed with PackedPoint
+     * @param to (int) destination packed with PackedPoint
+     * @return (boolean) true if a route was found, false otherwise
+     */
+    private boolean appendTileMoves(StringBuilder moves, Room room, int from, int to) {
+        int[] tiles = findTilePath(room, from, to);
+        if (tiles == null) {
+            return false;
+        }
+        for (int i = 1; i < tiles.length; i++) {
+            moves.append(toMove(tiles[i - 1], tiles[i]));
+        }
+        return true;
+    }
+
+    /**
+     * Converts a step between two neighbouring tiles into the input that makes it.
+     * @param from (int) tile stepped from, packed with PackedPoint
+     * @param to (int) tile stepped to, packed with PackedPoint
+     * @return (char) Rogue.UP, DOWN, LEFT or RIGHT
+     */
+    private static char toMove(int from, int to) {
+        if (PackedPoint.getX(to) > PackedPoint.getX(from)) {
+            return Rogue.RIGHT;
+        } else if (PackedPoint.getX(to) < PackedPoint.getX(from)) {
+            return Rogue.LEFT;
+        } else if (PackedPoint.getY(to) > PackedPoint.getY(from)) {
+            return Rogue.DOWN;
+        }
+        return Rogue.UP;
+    }
+
+    /**
+     * Finds the shortest tile route between two locations of a room using A* with a Manhattan distance heuristic.
+     * Only the route returned is allocated, the search itself runs in the pathfinder's scratch space.
+     * @param room (Room) room to search in
+     * @param from (int) starting location packed with PackedPoint
+     * @param to (int) destination packed with PackedPoint
+     * @return (int[]) locations along the route (both ends included), or null if there is no route
+     */
+    public int[] findTilePath(Room room, int from, int to) {
+        int width = room.getWidth();
+        int start = toIndex(from, width);
+        int goal = toIndex(to, width);
+        if (!inRoom(room, from) || !inRoom(room, to)) {
+            return null;
+        }
+        startSearch(width * room.getHeight());
+        reach(start, 0, NONE);
+        open.push(start, heuristic(start, goal, width));
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            if (current == goal) {
+                return buildTilePath(goal, width);
+            }
+            expand(room, current, goal);
+        }
+        return null;
+    }
+
+    /**
+     * Readies the scratch space for a search of a room, growing it if the room is the largest searched so far.
+     * @param size (int) number of tiles in the room
+     */
+    private void startSearch(int size) {
+        if (stamps.length < size) {
+            stamps = new int[size];
+            cost = new int[size];
+            cameFrom = new int[size];
+            search = 0;
+        } else if (search == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0); /*Stamps are about to be reused, so none may look current*/
+            search = 0;
+        }
+        search++;
+        open.clear();
+    }
+
+    /**
+     * Records the cheapest known way to reach a tile in the current search.
+     * @param tile (int) tile index
+     * @param tileCost (int) number of steps to the tile
+     * @param previous (int) tile index it is reached from, NONE for the start
+     */
+    private void reach(int tile, int tileCost, int previous) {
+        stamps[tile] = search;
+        cost[tile] = tileCost;
+        cameFrom[tile] = previous;
+    }
+
+    /**
+     * Accessor method to access the cheapest known cost of a tile in the current search.
+     * @param tile (int) tile index
+     * @return (int) number of steps, Integer.MAX_VALUE if the tile has not been reached
+     */
+    private int costOf(int tile) {
+        return (stamps[tile] == search) ? cost[tile] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Pushes the neighbours of a tile that are reached more cheaply through it.
+     * @param room (Room) room being searched
+     * @param current (int) tile index being expanded
+     * @param goal (int) tile index of the destination
+     */
+    private void expand(Room room, int current, int goal) {
+        int width = room.getWidth();
+        int x = current % width;
+        int y = current / width;
+        for (int step = 0; step < STEP_X.length; step++) {
+            int nextX = x + STEP_X[step];
+            int nextY = y + STEP_Y[step];
+            if (nextX < 0 || nextY < 0 || nextX >= width || nextY >= room.getHeight()) {
+                continue;
+            }
+            int next = nextY * width + nextX;
+            if (next != goal && !room.isWalkable(nextX, nextY)) {
+                continue;
+            }
+            int nextCost = cost[current] + 1;
+            if (nextCost < costOf(next)) {
+                reach(next, nextCost, current);
+                open.push(next, nextCost + heuristic(next, goal, width));
+            }
+        }
+    }
+
+    /**
+     * Returns true if a packed location is within the room's bounds.
+     * @param room (Room) room
+     * @param tile (int) location packed with PackedPoint
+     * @return (boolean) true if the location is inside the room's bounds, false otherwise
+     */
+    private static boolean inRoom(Room room, int tile) {
+        int x = PackedPoint.getX(tile);
+        int y = PackedPoint.getY(tile);
+        return x >= 0 && y >= 0 && x < room.getWidth() && y < room.getHeight();
+    }
+
+    /**
+     * Converts a packed location into a row major tile index.
+     * @param tile (int) location packed with PackedPoint
+     * @param width (int) room's width
+     * @return (int) tile index
+     */
+    private static int toIndex(int tile, int width) {
+        return PackedPoint.getY(tile) * width + PackedPoint.getX(tile);
+    }
+
+    /**
+     * Manhattan distance between two tile indexes.
+     * @param from (int) tile index
+     * @param to (int) tile index
+     * @param width (int) room's width
+     * @return (int) distance in steps ignoring walls
+     */
+    private static int heuristic(int from, int to, int width) {
+        return Math.abs(from % width - to % width) + Math.abs(from / width - to / width);
+    }
+
+    /**
+     * Follows cameFrom back from the destination to rebuild the route.
+     * @param goal (int) tile index of the destination
+     * @param width (int) room's width
+     * @return (int[]) packed locations from start to destination
+     */
+    private int[] buildTilePath(int goal, int width) {
+        int length = 0;
+        for (int tile = goal; tile != NONE; tile = cameFrom[tile]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int i = length - 1;
+        for (int tile = goal; tile != NONE; tile = cameFrom[tile]) {
+            path[i--] = PackedPoint.pack(tile % width, tile / width);
+        }
+        return path;
+    }
+
+    /*Binary min-heap of tile indexes ordered by their estimated route cost*/
+    private static final class TileQueue {
+
+        private int[] tiles;
+        private int[] priorities;
+        private int size = 0;
+
+        /**
+         * Constructor that sizes the heap (it grows when a search pushes more tiles).
+         * @param capacity (int) initial capacity
+         */
+        TileQueue(int capacity) {
+            tiles = new int[Math.max(1, capacity)];
+            priorities = new int[tiles.length];
+        }
+
+        /**
+         * Removes every tile (the space is kept for the next search).
+         */
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Returns true if there are no tiles left.
+         * @return (boolean) true if empty, false otherwise
+         */
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Adds a tile (a tile may be pushed again with a lower priority, the stale entry is popped later).
+         * @param tile (int) tile index
+         * @param priority (int) estimated route cost
+         */
+        void push(int tile, int priority) {
+            if (size == tiles.length) {
+                tiles = Arrays.copyOf(tiles, size * 2);
+                priorities = Arrays.copyOf(priorities, size * 2);
+            }
+            int i = size++;
+            while (i > 0 && priorities[(i - 1) / 2] > priority) {
+                tiles[i] = tiles[(i - 1) / 2];
+                priorities[i] = priorities[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            tiles[i] = tile;
+            priorities[i] = priority;
+        }
+
+        /**
+         * Removes the tile with the lowest priority.
+         * @return (int) tile index
+         */
+        int pop() {
+            int top = tiles[0];
+            size--;
+            int tile = tiles[size];
+            int priority = priorities[size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                    child++;
+                }
+                if (priorities[child] >= priority) {
+                    break;
+                }
+                tiles[i] = tiles[child];
+                priorities[i] = priorities[child];
+                i = child;
+            }
+            tiles[i] = tile;
+            priorities[i] = priority;
+            return top;
+        }
+    }
+}
@@ -1,21 +1,24 @@
 package rogue;
 
-import java.awt.Point;
-import java.util.ArrayList;
+import java.util.List;
 
+/*The player. Their location and room live in the EntityStore of the level they are on, the player is a view over
+their handle there. Their slot is moved to a level's store when they are put on the level, and until then (or in a
+shared dungeon, which several players move through at once) the location is kept here*/
 public class Player {
 
-    private Point xyLocation;
     private String playerName;
-    private ArrayList<Item> inventory = new ArrayList<>();
+    private Inventory inventory = new Inventory();
     private Room room;
+    private EntityStore store; /*Store of the level the player is on, null until they are put on one*/
+    private int handle = EntityStore.NO_ENTITY;
+    private int location; /*Packed location while the player is on no level*/
 
     /**
      * Default constructor.
      */
     public Player() {
-        xyLocation = new Point(1, 1);
-        setXyLocation(xyLocation);
+        setLocation(1, 1);
     }
 
     /**
@@ -24,8 +27,7 @@ public class Player {
      */
     public Player(String name) {
         playerName = name;
-        xyLocation = new Point(1, 1);
-        setXyLocation(xyLocation);
+        setLocation(1, 1);
     }
 
     /**
@@ -46,10 +48,10 @@ public class Player {
 
     /**
      * Accessor method to access the player's point (x, y) location.
-     * @return (Point) player's point (x, y) location
+     * @return (Point) a copy of the player's point (x, y) location (use setXyLocation or setLocation to move them)
      */
     public Point getXyLocation() {
-        return xyLocation;
+        return new Point(getX(), getY());
     }
 
     /**
@@ -57,7 +59,63 @@ public class Player {
      * @param newXyLocation (Point) player's point (x, y) location
      */
     public void setXyLocation(Point newXyLocation) {
-        xyLocation = newXyLocation;
+        setLocation(newXyLocation.getX(), newXyLocation.getY());
+    }
+
+    /**
+     * Accessor method to access the player's x-value (without making a Point).
+     * @return (int) x-value
+     */
+    public int getX() {
+        return PackedPoint.getX(getLocation());
+    }
+
+    /**
+     * Accessor method to access the player's y-value (without making a Point).
+     * @return (int) y-value
+     */
+    public int getY() {
+        return PackedPoint.getY(getLocation());
+    }
+
+    /**
+     * Accessor method to access the player's location packed with PackedPoint.
+     * @return (int) packed location
+     */
+    public int getLocation() {
+        return (store == null) ? location : store.getLocation(handle);
+    }
+
+    /**
+     * Mutator method to set the player's (x, y) location.
+     * @param x (int) x-value
+     * @param y (int) y-value
+     */
+    public void setLocation(int x, int y) {
+        if (store == null) {
+            location = PackedPoint.pack(x, y);
+        } else {
+            store.setLocation(handle, x, y);
+        }
+    }
+
+    /**
+     * Mutator method to move the player's slot to the store of the level they are put on (their slot in the store
+     * of the level they were on is released).
+     * @param levelStore (EntityStore) store of the level
+     */
+    public void setStore(EntityStore levelStore) {
+        if (levelStore == store) {
+            return;
+        }
+        int newHandle = levelStore.create(EntityStore.KIND_PLAYER);
+        levelStore.setLocation(newHandle, getLocation());
+        levelStore.setRoomId(newHandle, (room == null) ? EntityStore.NO_ROOM : room.getId());
+        if (store != null) {
+            store.release(handle);
+        }
+        store = levelStore;
+        handle = newHandle;
     }
 
     /**
@@ -74,13 +132,24 @@ public class Player {
      */
     public void setCurrentRoom(Room newRoom) {
         room = newRoom;
+        if (store != null) {
+            store.setRoomId(handle, (room == null) ? EntityStore.NO_ROOM : room.getId());
+        }
     }
 
     /**
      * Accessor method to access the player's inventory.
-     * @return (ArrayList<Item>) player's inventory
+     * @return (List<Item>) read-only view of the player's inventory (use addToInventory to add to it)
+     */
+    public List<Item> getInventory() {
+        return inventory.getItems();
+    }
+
+    /**
+     * Accessor method to access the player's inventory with its id index, type counts and summary.
+     * @return (Inventory) player's inventory
      */
-    public ArrayList<Item> getInventory() {
+    public Inventory getIndexedInventory() {
         return inventory;
     }
 
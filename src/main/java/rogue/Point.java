@@ -0,0 +1,67 @@
+package rogue;
+
+/*An (x, y) location on a room's tiles. The engine keeps locations packed in ints (see PackedPoint) and only makes
+Points for callers that ask for one, so this stands in for java.awt.Point without the engine loading AWT*/
+public final class Point {
+
+    private final int x;
+    private final int y;
+
+    /**
+     * Constructor that takes the x and y values.
+     * @param newX (int) x-value
+     * @param newY (int) y-value
+     */
+    public Point(int newX, int newY) {
+        x = newX;
+        y = newY;
+    }
+
+    /**
+     * Accessor method to access the x-value.
+     * @return (int) x-value
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Accessor method to access the y-value.
+     * @return (int) y-value
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Returns true if another object is a Point with the same x and y values.
+     * @param other (Object) object to compare with
+     * @return (boolean) true if the locations are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Point)) {
+            return false;
+        }
+        Point point = (Point) other;
+        return x == point.x && y == point.y;
+    }
+
+    /**
+     * Returns a hash code of the location.
+     * @return (int) hash code
+     */
+    @Override
+    public int hashCode() {
+        return PackedPoint.pack(x, y);
+    }
+
+    /**
+     * Returns the location as text.
+     * @return (String) location (i.e. "(3, 4)")
+     */
+    @Override
+    public String toString() {
+        return "(" + x + ", " + y + ")";
+    }
+}
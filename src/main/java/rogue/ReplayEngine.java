@@ -0,0 +1,81 @@
+package rogue;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*Rebuilds a session from its MoveJournal by applying every input to a fresh world with the journal's seed. Nothing
+is rendered (Rogue only builds its display when asked), so replay runs at the speed of tryMove itself*/
+public class ReplayEngine {
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final int BYTE_MASK = 0xFF;
+
+    private long movesReplayed = 0;
+    private long replayNanos = 0;
+
+    /**
+     * Replays a journal against the dungeon named by a configuration file.
+     * @param configurationFile (String) file naming the rooms and symbols files (as for RogueParser)
+     * @param journalFile (String) journal written by MoveJournal
+     * @return (World) the world as it was after the last journalled input
+     * @throws IOException if the journal cannot be read, is not a journal, or the world cannot be loaded
+     */
+    public World replay(String configurationFile, String journalFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(journalFile), StandardOpenOption.READ)) {
+            MappedByteBuffer journal = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (journal.remaining() < MoveJournal.HEADER_SIZE || journal.getInt() != MoveJournal.MAGIC
+                    || journal.getInt() != MoveJournal.VERSION) {
+                throw new IOException("Not a Rogue journal: " + journalFile);
+            }
+            World game;
+            try {
+                game = new World(configurationFile, journal.getLong());
+            } catch (InvalidDungeonException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            long start = System.nanoTime();
+            while (journal.hasRemaining()) {
+                game.tryMove((char) (journal.get() & BYTE_MASK));
+            }
+            replayNanos = System.nanoTime() - start;
+            movesReplayed = channel.size() - MoveJournal.HEADER_SIZE;
+            return game;
+        }
+    }
+
+    /**
+     * Accessor method to access the number of inputs applied by the last replay.
+     * @return (long) number of inputs
+     */
+    public long getMovesReplayed() {
+        return movesReplayed;
+    }
+
+    /**
+     * Accessor method to access the replay speed of the last replay (excluding loading the dungeon).
+     * @return (double) inputs applied per second
+     */
+    public double getMovesPerSecond() {
+        return (replayNanos == 0) ? 0 : movesReplayed * (double) NANOS_PER_SECOND / replayNanos;
+    }
+
+    /**
+     * Replays a journal and prints the final room display and the replay speed.
+     * @param args configuration file and journal file
+     * @throws IOException if the journal cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: ReplayEngine <configuration file> <journal file>");
+            return;
+        }
+        ReplayEngine engine = new ReplayEngine();
+        World game = engine.replay(args[0], args[1]);
+        System.out.println(game.getNextDisplay());
+        System.out.println("Replayed " + engine.getMovesReplayed() + " inputs at "
+                + (long) engine.getMovesPerSecond() + " inputs/second");
+    }
+}
@@ -1,11 +1,14 @@
 package rogue;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.awt.Point;
 import java.util.Random;
-import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class Rogue {
 
@@ -16,18 +19,49 @@ public class Rogue {
 
     public static final char INVENTORY = 'i';
     public static final char ROOMID = 'r';
+    public static final char QUIT = 'q';
+    public static final char EXPLORE = 'x';
 
-    private int maxDoors;
+    public static final String BLOCKED_MESSAGE = "You cannot make that move";
+    public static final int PLAYER_DAMAGE = 1; /*Hit points a monster loses to each of the player's attacks*/
+    private static final int MESSAGE_COLUMNS = 80; /*Width of the message line on the game's screens*/
+    private static final int DEFAULT_MONSTER_HP = 3;
+    private static final int MONSTER_FIELDS = 4; /*id, x, y and hit points of each saved monster*/
 
     private ArrayList<Room> allRooms = new ArrayList<Room>();
     private ArrayList<Item> allItems = new ArrayList<Item>();
+    private HashMap<Integer, Room> roomsById = new HashMap<>();
+    private HashMap<Integer, Item> itemsById = new HashMap<>();
+    private ArrayList<Integer> removedItemIds = new ArrayList<>();
     private HashMap<String, Character> symbols = new HashMap<>();
     private int totalRooms = 0;
     private String displayAllRooms = "";
     private String nextDisplay = "";
+    private StringBuilder displayBuffer = new StringBuilder();
+    private boolean displayOutdated = false;
+    private int inventoryPage = 0;
     private String message = "";
     private Player player;
     private RogueParser parser;
+    private Pathfinder pathfinder = new Pathfinder(allRooms);
+    private DungeonConnectivity connectivity;
+    private long seed;
+    private Random random;
+    private ConcurrentLinkedQueue<Runnable> pendingUpdates = new ConcurrentLinkedQueue<>();
+    private HashMap<Integer, Room> deferredRooms = new HashMap<>();
+    private int stairLevel = Room.NO_STAIRS;
+    private Viewport viewport;
+    private int sightRadius = 0;
+    private LinkedHashSet<Room> exploredRooms = new LinkedHashSet<>();
+    private HashSet<Integer> enteredRoomIds = new HashSet<>(); /*Rooms the player has been in, for EXPLORE*/
+    private MonsterUpdater monsterUpdater = new MonsterUpdater(allRooms);
+    private HashMap<Integer, String> monsterNames = new HashMap<>();
+    private LinkedHashSet<Room> monsterRooms = new LinkedHashSet<>();
+    private EntityStore entities = new EntityStore();
+    private TurnScheduler scheduler = new TurnScheduler();
+    private ItemCatalog itemCatalog = new ItemCatalog();
+    private EventBus events; /*Where the moves' events are published, null if nothing listens*/
+    private HashMap<Integer, Integer> monsterHitPoints = new HashMap<>(); /*Hit points each monster was loaded with*/
 
     private Room room;
     private Door door;
@@ -36,6 +70,8 @@ public class Rogue {
      * Default constructor.
      */
     public Rogue() {
+        seed = new Random().nextLong();
+        random = new Random(seed);
         player = new Player();
     }
 
@@ -44,83 +80,184 @@ public class Rogue {
      * @param theDungeonInfo (RogueParser) parser from RogueParser
      */
     public Rogue(RogueParser theDungeonInfo) {
+        this(theDungeonInfo, new Random().nextLong());
+    }
+
+    /**
+     * Constructor that takes a RogueParser and the seed of the session's random numbers (item placement fixes and
+     * generated doors), so the same dungeon, seed and inputs always give the same game.
+     * @param theDungeonInfo (RogueParser) parser from RogueParser
+     * @param sessionSeed (long) seed of the session's random numbers
+     */
+    public Rogue(RogueParser theDungeonInfo, long sessionSeed) {
+        seed = sessionSeed;
+        random = new Random(sessionSeed);
         parser = theDungeonInfo;
         player = new Player();
-        Map roomInfo = parser.nextRoom();
-        while (roomInfo != null) {
-            addRoom(roomInfo);
-            roomInfo = parser.nextRoom();
-            totalRooms++;
-        }
-        setDoorConnections();
         try {
-            verifyRooms();
-            //setDoorConnections();
+            loadDungeon();
         } catch (InvalidDungeonException e) {
             System.out.println(e.getMessage());
             System.exit(0);
         }
-        Map itemInfo = parser.nextItem();
+    }
+
+    /**
+     * Loads a game like the constructor does, but reports a dungeon that cannot be used with an exception instead of
+     * exiting (for dungeons loaded while other games are running, such as a reloaded rooms file).
+     * @param theDungeonInfo (RogueParser) parser from RogueParser
+     * @param sessionSeed (long) seed of the session's random numbers
+     * @return (Rogue) the loaded game
+     * @throws InvalidDungeonException if rooms are invalid and cannot be corrected
+     */
+    public static Rogue load(RogueParser theDungeonInfo, long sessionSeed) throws InvalidDungeonException {
+        Rogue game = new Rogue();
+        game.seed = sessionSeed;
+        game.random = new Random(sessionSeed);
+        game.parser = theDungeonInfo;
+        game.loadDungeon();
+        return game;
+    }
+
+    /**
+     * Adds only the rooms from the parser and joins their doors, without verifying or correcting them (for checking
+     * a dungeon file as it was written, see DungeonLinter). The parser's items are left to be read.
+     * @param theDungeonInfo (RogueParser) parser from RogueParser
+     * @return (Rogue) game holding the rooms
+     */
+    public static Rogue loadRooms(RogueParser theDungeonInfo) {
+        Rogue game = new Rogue();
+        game.parser = theDungeonInfo;
+        game.addRooms();
+        return game;
+    }
+
+    /**
+     * Adds the rooms and items from the parser, joining and verifying the rooms in between.
+     * @throws InvalidDungeonException if rooms are invalid and cannot be corrected
+     */
+    private void loadDungeon() throws InvalidDungeonException {
+        addRooms();
+        verifyRooms();
+        Map<String, String> itemInfo = parser.nextItem();
         while (itemInfo != null) {
             addItem(itemInfo);
             itemInfo = parser.nextItem();
         }
-        nextDisplay = room.displayRoom();
+        Map<String, String> stairInfo = parser.nextStair();
+        while (stairInfo != null) {
+            addStair(stairInfo);
+            stairInfo = parser.nextStair();
+        }
+        Map<String, String> monsterInfo = parser.nextMonster();
+        while (monsterInfo != null) {
+            addMonster(monsterInfo);
+            monsterInfo = parser.nextMonster();
+        }
+        releaseParser();
+        displayOutdated = true;
     }
 
     /**
-     * Verifies the given json file by evaluating each room for specific exception cases.
-     * @throws InvalidDungeonException if rooms are invalid and cannot be corrected
+     * Drops the game's and the rooms' references to the parser once everything is read from it, so the parsed json
+     * file (its maps of strings are many times the size of the rooms) is not kept for the whole game.
+     */
+    private void releaseParser() {
+        parser = null;
+        for (Room currRoom : allRooms) {
+            currRoom.releaseParser();
+        }
+    }
+
+    /**
+     * Adds every room from the parser and joins their doors.
+     */
+    private void addRooms() {
+        symbols = parser.getSymbolHashMap(); /*The same symbols the rooms are given*/
+        Map roomInfo = parser.nextRoom();
+        while (roomInfo != null) {
+            addRoom(roomInfo);
+            roomInfo = parser.nextRoom();
+            totalRooms++;
+        }
+        setDoorConnections();
+    }
+
+    /**
+     * Verifies the given json file by evaluating each room for specific exception cases. Broken doors are corrected
+     * first: doors to rooms that do not exist are removed, and one-way doors get a door back (or are removed if the
+     * other room's wall is taken). Rooms that cannot be reached (including rooms without doors) are then joined to the
+     * rest of the dungeon with new doors.
+     * @throws InvalidDungeonException if rooms are invalid and cannot be corrected, or some rooms cannot be reached
+     * and have no free wall to join them by
      */
     public void verifyRooms() throws InvalidDungeonException {
-        Room currentRoom = null;
+        connectivity = new DungeonConnectivity(allRooms);
+        if (!connectivity.isRepairable()) {
+            throw new InvalidDungeonException("Dungeon file cannot be used (some rooms cannot be reached and cannot be "
+                    + "joined to the rest: " + connectivity.getSummary() + ")");
+        }
+        for (DungeonConnectivity.DoorLink removed : connectivity.getRemovedDoors()) {
+            removed.getRoom().setDoor(removed.getDirection(), null);
+        }
+        for (DungeonConnectivity.DoorLink doorBack : connectivity.getReturnDoors()) {
+            addDoor(doorBack.getRoom(), doorBack.getDirection(), doorBack.getConnectedRoom());
+        }
+        for (DungeonConnectivity.DoorLink repair : connectivity.getRepairs()) {
+            connectRooms(repair.getRoom(), repair.getConnectedRoom(), repair.getDirection()); /*Correct this error*/
+        }
         try {
             for (Room currRoom : allRooms) {
-                currentRoom = currRoom;
                 currRoom.verifyRoom();
             }
         } catch (NotEnoughDoorsException e) {
-            for (Room currRoom : allRooms) {
-                /*There can only be one door on each side of the room (4 rooms total)*/
-                if (currRoom.getDoors().size() != maxDoors) {
-                    connectRooms(currentRoom, currRoom); /*Correct this error*/
-                    verifyRooms(); /*Recursively call verifyRooms() until there is enough doors*/
-                    return;
-                }
-            }
             /*Game cannot be played with file provided*/
             throw new InvalidDungeonException("Dungeon file cannot be used (incorrect or insufficient information).");
         }
     }
 
+    /**
+     * Accessor method to access the connectivity analysis made when the rooms were verified (components, dangling and
+     * one-way doors, and the repairs that were made).
+     * @return (DungeonConnectivity) connectivity analysis, null before verifyRooms is called
+     */
+    public DungeonConnectivity getConnectivity() {
+        return connectivity;
+    }
+
     /**
      * Creates two doors that connect two rooms (initial room and connected room).
      * @param initialRoom (Room) initial room
      * @param connectedRoom (Room) connected room
+     * @param direction (String) wall of the initial room the door is put on, the connected room gets the door on the
+     * opposite wall (i.e. "N", "S", "E", or "W")
+     * @throws InvalidDungeonException if either wall is too short for a door
      */
-    private void connectRooms(Room initialRoom, Room connectedRoom) {
-        int initialWallPosition = 0;
-        int connectedWallPosition = 0;
-        String direction = connectedRoom.findFreeDoorDirection();
-        Random rand = new Random();
-
-        while (initialWallPosition == 0 && connectedWallPosition == 0) { /*A newly generated door cannot be in the
-            corners*/
-            if (direction == "N" || direction == "S") {
-                initialWallPosition = rand.nextInt(initialRoom.getWidth() - 2);
-                connectedWallPosition = rand.nextInt(connectedRoom.getWidth() - 2);
-            } else if (direction == "E" || direction == "W") {
-                initialWallPosition = rand.nextInt(initialRoom.getHeight() - 2);
-                connectedWallPosition = rand.nextInt(connectedRoom.getHeight() - 2);
-            }
+    private void connectRooms(Room initialRoom, Room connectedRoom, String direction) throws InvalidDungeonException {
+        String otherDirection = getOtherDirection(direction);
+        if (otherDirection == null) {
+            return;
         }
+        addDoor(initialRoom, direction, connectedRoom);
+        addDoor(connectedRoom, otherDirection, initialRoom);
+    }
 
-        if (getOtherDirection(direction) != null) {
-            Door initialDoor = new Door(initialRoom, initialWallPosition, connectedRoom);
-            initialRoom.setDoor(getOtherDirection(direction), initialDoor);
-            Door connectedDoor = new Door(initialRoom, connectedWallPosition, connectedRoom);
-            connectedRoom.setDoor(getOtherDirection(direction), connectedDoor);
+    /**
+     * Creates a door at a random position of a room's wall.
+     * @param currRoom (Room) room the door is put in
+     * @param direction (String) wall the door is put on (i.e. "N", "S", "E", or "W")
+     * @param connectedRoom (Room) room the door leads to
+     * @throws InvalidDungeonException if the wall is too short for a door (a door cannot be in the corners)
+     */
+    private void addDoor(Room currRoom, String direction, Room connectedRoom) throws InvalidDungeonException {
+        int wallLength = currRoom.getWallLength(direction);
+        if (wallLength <= 2) {
+            throw new InvalidDungeonException("Room " + currRoom.getId() + " has no space for a door on its "
+                    + direction + " wall (length " + wallLength + ")");
         }
+        /*A newly generated door cannot be in the corners*/
+        int wallPosition = 1 + random.nextInt(wallLength - 2);
+        currRoom.setDoor(direction, new Door(currRoom, wallPosition, connectedRoom));
     }
 
     /**
@@ -129,31 +266,26 @@ public class Rogue {
      * @return (String) other direction (pairs with "N", "S", "E", or "W")
      */
     private String getOtherDirection(String initialDirection) {
-        if (initialDirection == "N") {
-            return "S";
-        } else if (initialDirection == "S") {
-            return "N";
-        } else if (initialDirection == "E") {
-            return "W";
-        } else if (initialDirection == "W") {
-            return "E";
-        }
-        return null;
+        return RoomGraph.getOppositeDirection(initialDirection);
     }
 
     /**
      * Mutator method which finds the connectedId in order to connect two rooms.
      */
     public void setDoorConnections() {
-        int findMe;
+        HashMap<Integer, Room> roomsById = new HashMap<>();
+        for (Room currRoom : allRooms) {
+            roomsById.put(currRoom.getId(), currRoom);
+        }
         for (Room currRoom : allRooms) {
-            HashMap<String, Door> doors = currRoom.getDoors();
-            for (Door currDoor : doors.values()) {
-                findMe = currDoor.getConnectedId();
-                for (Room search : allRooms) {
-                    if (findMe == search.getId()) {
-                        currDoor.connectRoom(search);
-                    }
+            for (String dir : RoomGraph.DIRECTIONS) {
+                Door currDoor = currRoom.getDoor(dir);
+                if (currDoor == null) {
+                    continue;
+                }
+                Room search = roomsById.get(currDoor.getConnectedId());
+                if (search != null) {
+                    currDoor.connectRoom(search);
                 }
             }
         }
@@ -177,6 +309,7 @@ public class Rogue {
         createRoomDoors(currRoom, toAdd);
 
         allRooms.add(currRoom);
+        roomsById.put(roomID, currRoom);
     }
 
     /**
@@ -188,7 +321,9 @@ public class Rogue {
      * @param roomStart (String) boolean information on player's whether the player is starting in the room
      */
     private void setUpRoom(Room currRoom, int roomWidth, int roomHeight, int roomID, String roomStart) {
+        currRoom.setEntities(entities);
         currRoom.setPlayer(player);
+        currRoom.setScheduler(scheduler);
         currRoom.setWidth(roomWidth);
         currRoom.setHeight(roomHeight);
         currRoom.setId(roomID);
@@ -196,6 +331,7 @@ public class Rogue {
         if (currRoom.getIsPlayerInRoom()) {
             room = currRoom; /*The player will only ever be in one room initially (and at a time), this is the "start
             room"*/
+            enteredRoomIds.add(roomID);
         }
     }
 
@@ -241,14 +377,12 @@ public class Rogue {
      * @param currItem (Item) item being initialized
      * @param itemLocation (int) item's point (x, y) location
      * @param itemID (int) item's id
-     * @param itemName (String) item's name
-     * @param itemType (String) item's type
+     * @param itemDefinition (ItemDefinition) item's name, type and description (shared through the game's catalog)
      */
-    private void setUpItem(Item currItem, Point itemLocation, int itemID, String itemName, String itemType) {
+    private void setUpItem(Item currItem, Point itemLocation, int itemID, ItemDefinition itemDefinition) {
         currItem.setXyLocation(itemLocation);
         currItem.setId(itemID);
-        currItem.setName(itemName);
-        currItem.setType(itemType);
+        currItem.setDefinition(itemDefinition);
     }
 
 
@@ -259,47 +393,109 @@ public class Rogue {
      * item of information
      */
     public void addItem(Map<String, String> toAdd) {
-        boolean exception;
-        Item currItem = new Item();
+        Item currItem = new Item(entities);
 
         int itemID = Integer.parseInt(toAdd.get("id").toString());
-        String itemName = toAdd.get("name");
-        String itemType = toAdd.get("type");
         int itemRoomID = Integer.parseInt(toAdd.get("room").toString());
         if (itemRoomID != -1) {
             int itemXLocation = Integer.parseInt(toAdd.get("x").toString());
             int itemYLocation = Integer.parseInt(toAdd.get("y").toString());
             Point itemLocation = new Point(itemXLocation, itemYLocation);
-            setUpItem(currItem, itemLocation, itemID, itemName, itemType);
+            /*Items like others already loaded share their definition, so the parsed strings are not kept*/
+            setUpItem(currItem, itemLocation, itemID,
+                    itemCatalog.define(toAdd.get("name"), toAdd.get("type"), toAdd.get("description")));
             allItems.add(currItem);
+            itemsById.put(itemID, currItem);
 
-            for (Room currRoom : allRooms) { /*Adding item to the room it belongs to*/
-                if (currRoom.getId() == itemRoomID) {
-                    exception = true;
-                    while (exception) {
-                        try {
-                            currRoom.addItem(currItem);
-                            exception = false;
-                        } catch (ImpossiblePositionException e) { /*This (try/catch) could be implemented recursively
-                            if there is a posibility that the room could contain no empty tiles*/
-                            currItem.setXyLocation(currRoom.getEmptyTile()); /*Get an empty/safe (x, y) location and set
-                            that as currItem's new (x, y) location*/
-                            continue; /*Loop again and try to add item with new location*/
-                        } catch (NoSuchItemException e) {
-                            int i = 0;
-                            for (Item item : allItems) {
-                                if (item.getId() == currItem.getId()) {
-                                    allItems.remove(i);
-                                }
-                                i++;
-                            }
-                        }
-                    }
-                }
+            Room currRoom = roomsById.get(itemRoomID); /*Adding item to the room it belongs to*/
+            if (currRoom != null) {
+                placeItem(currRoom, currItem);
+            }
+        }
+    }
+
+    /**
+     * Adds stairs to another level to the room they belong to. Stairs outside a room's walls are left out.
+     * @param toAdd (Map<String, String>) a map holding the tag (key) and the information (value) of stairs
+     */
+    public void addStair(Map<String, String> toAdd) {
+        Room currRoom = roomsById.get(Integer.parseInt(toAdd.get("room")));
+        int stairX = Integer.parseInt(toAdd.get("x"));
+        int stairY = Integer.parseInt(toAdd.get("y"));
+        if (currRoom != null && currRoom.isWalkable(stairX, stairY)) {
+            currRoom.addStair(stairX, stairY, Integer.parseInt(toAdd.get("level")));
+        }
+    }
+
+    /**
+     * Adds a monster to the room it belongs to. Monsters are given ids in the order they are added; monsters outside
+     * a room's walls or on a tile already taken (by the player or another monster) are left out.
+     * @param toAdd (Map<String, String>) a map holding the tag (key) and the information (value) of a monster
+     */
+    public void addMonster(Map<String, String> toAdd) {
+        int monsterId = monsterNames.size();
+        String monsterName = toAdd.get("name");
+        monsterNames.put(monsterId, monsterName);
+        Room currRoom = roomsById.get(Integer.parseInt(toAdd.get("room")));
+        int monsterX = Integer.parseInt(toAdd.get("x"));
+        int monsterY = Integer.parseInt(toAdd.get("y"));
+        int hp = (toAdd.get("hp") == null) ? DEFAULT_MONSTER_HP : Integer.parseInt(toAdd.get("hp"));
+        monsterHitPoints.put(monsterId, hp);
+        if (currRoom == null || !currRoom.isWalkable(monsterX, monsterY)
+                || currRoom.getMonsters().isOccupied(monsterX, monsterY)) {
+            return;
+        }
+        if (currRoom == room && player.getX() == monsterX && player.getY() == monsterY) {
+            return;
+        }
+        currRoom.getMonsters().add(monsterId, monsterX, monsterY, monsterName, hp);
+        monsterRooms.add(currRoom);
+    }
+
+    /**
+     * Adds an item to its room, moving it to an empty tile if its position is impossible.
+     * @param currRoom (Room) room the item belongs to
+     * @param currItem (Item) item being placed
+     */
+    private void placeItem(Room currRoom, Item currItem) {
+        boolean exception = true;
+        while (exception) {
+            try {
+                currRoom.addItem(currItem);
+                currItem.setCurrentRoom(currRoom);
+                exception = false;
+            } catch (ImpossiblePositionException e) { /*This (try/catch) could be implemented recursively if there is a
+                posibility that the room could contain no empty tiles*/
+                /*Get an empty/safe (x, y) location and set that as currItem's new (x, y) location*/
+                currItem.setXyLocation(currRoom.getEmptyTile(random));
+            } catch (NoSuchItemException e) {
+                allItems.remove(currItem); /*The item does not exist, so it is not placed anywhere*/
+                itemsById.remove(currItem.getId());
+                exception = false;
             }
         }
     }
 
+    /**
+     * Mutator method to set the bus the game publishes the events of each move to (see GameEvent).
+     * @param eventBus (EventBus) bus, or null to publish nothing
+     */
+    public void setEventBus(EventBus eventBus) {
+        events = eventBus;
+    }
+
+    /**
+     * Publishes an event of the move being played with the player's room, location and message. Publishing never
+     * waits for the bus's consumers.
+     * @param type (int) type of the event (i.e. GameEvent.PICKED_UP)
+     * @param value (int) what the event is about, depending on its type
+     */
+    private void publish(int type, int value) {
+        if (events != null) {
+            events.publish(type, scheduler.getTurn(), room.getId(), player.getX(), player.getY(), value, message);
+        }
+    }
+
     /**
      * Evaluates the requested position given by the player's input and calculates the outcome of that move if valid.
      * If the input is requesting information, it will display the requested information (i.e. inventory or room number)
@@ -308,53 +504,242 @@ public class Rogue {
      * @throws InvalidMoveException if the player requests a position that is illegal (such as moving into a wall)
      */
     public String makeMove(char input) throws InvalidMoveException {
+        if (tryMove(input) == MoveResult.BLOCKED) {
+            throw new InvalidMoveException();
+        }
+        return message;
+    }
+
+    /**
+     * Evaluates the player's input like makeMove, but reports the outcome as a MoveResult code instead of throwing
+     * when the move is blocked. The narration for the move is available from getMessage(). Every move that takes a
+     * turn (except taking stairs off the level) then fires the timed events due on the turn and gives the monsters
+     * their turn.
+     * @param input (char) player's input
+     * @return (int) MoveResult code (MOVED, BLOCKED, PICKED_UP, CHANGED_ROOM, CHANGED_LEVEL, ATTACKED, INFO or NO_OP)
+     */
+    public int tryMove(char input) {
+        if (input == EXPLORE) {
+            return explore();
+        }
+        int result = playTurn(input);
+        if (result != MoveResult.BLOCKED && result != MoveResult.INFO && result != MoveResult.CHANGED_LEVEL
+                && result != MoveResult.NO_OP) {
+            if (scheduler.hasEventsDue()) {
+                monsterUpdater.finishBatch(); /*Events may change monsters of any room*/
+            }
+            if (scheduler.advance() > 0) {
+                displayOutdated = true;
+            }
+            if (monsterUpdater.advance(room, player.getLocation(), seed)) {
+                displayOutdated = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Travels to the nearest room the player has not been in, taking one turn per step. The travel stops early when
+     * a step does anything but move the player (a pickup, an attack, a blocked step, stairs).
+     * @return (int) MoveResult code of the last step, INFO if there is nowhere left to explore
+     */
+    private int explore() {
+        applyPendingUpdates(); /*Door changes waiting to be applied change the routes*/
+        int target = pathfinder.findNearestRoom(room.getId(), enteredRoomIds);
+        char[] moves = (target < 0) ? null : getTravelMoves(target);
+        if (moves == null || moves.length == 0) {
+            message = "There is nowhere left to explore";
+            return MoveResult.INFO;
+        }
+        int result = MoveResult.NO_OP;
+        for (char move : moves) {
+            result = tryMove(move);
+            if (result != MoveResult.MOVED) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Plays the player's part of a turn.
+     * @param input (char) player's input
+     * @return (int) MoveResult code
+     */
+    private int playTurn(char input) {
+        applyPendingUpdates();
         message = ""; /*Clear message*/
+        if (input != INVENTORY) {
+            inventoryPage = 0; /*Any other input starts the inventory from its first page again*/
+        }
         if (input == INVENTORY || input == ROOMID) { /*Player is requesting information, not to make a move*/
-            return getInfo(input);
+            message = getInfo(input);
+            return MoveResult.INFO;
+        }
+        if (!isDirection(input)) {
+            return MoveResult.NO_OP; /*Quitting or an unknown key takes no turn*/
         }
 
-        /*Player's requested position*/
-        Point tempPlayerPos = getPlayerReqPos(input);
-        int tempXPos = (int) tempPlayerPos.getX();
-        int tempYPos = (int) tempPlayerPos.getY();
-
-        if (isMoveValid(tempXPos, tempYPos)) {
-            if (room.itemCheck(tempYPos, tempXPos)) {
-                String itemName = pickUpItem(tempPlayerPos, tempXPos, tempYPos);
-                return "You picked up " + itemName + "!";
-            } else if (room.doorCheck(tempYPos, tempXPos)) {
-                String oppositeDir = null;
-
-                if (oppositeDirWEDoorSet(tempXPos) != null) {
-                    oppositeDir = oppositeDirWEDoorSet(tempXPos);
-                } else if (oppositeDirNSDoorSet(tempYPos) != null) {
-                    oppositeDir = oppositeDirNSDoorSet(tempYPos);
-                }
+        /*Player's requested position (packed so a plain floor step does not allocate)*/
+        int tempPlayerPos = getPlayerReqPos(input);
+        int tempXPos = PackedPoint.getX(tempPlayerPos);
+        int tempYPos = PackedPoint.getY(tempPlayerPos);
 
-                ArrayList<Room> connectedRooms = door.getConnectedRooms();
-                if (connectedRooms.size() == 2) { /*If connectedRooms ArrayList is of size 2, that means the ArrayList
-                    contains the initial and it's connected room, therefore the door has a connection*/
-                    room.setIsPlayerInRoom(false); /*Player is no longer in initial room after requested position*/
-
-                    if (door.getOtherRoom(room) != null) { /*room = next room (could equal null if no connection)*/
-                        room = door.getOtherRoom(room);
-                        room.setIsPlayerInRoom(true); /*Player is in next room (which is now the current room)*/
-                        newPlayerPos(posNextRoom(tempPlayerPos, oppositeDir, tempXPos, tempYPos));
-                        return "You have entered room " + room.getId();
-                    } else {
-                        throw new InvalidMoveException(); /*No connection to another room*/
-                    }
-                }
-            } else {
-                /*Update player's point position (tempPlayerPos)*/
-                tempPlayerPos.setLocation(tempXPos, tempYPos);
-                newPlayerPos(tempPlayerPos);
-                return message;
+        if (!isMoveValid(tempXPos, tempYPos)) {
+            return blockedMove();
+        }
+        int monster = room.getMonsters().find(tempXPos, tempYPos);
+        if (monster >= 0) {
+            return attack(monster);
+        }
+        if (room.itemCheck(tempYPos, tempXPos)) {
+            int firstTaken = removedItemIds.size();
+            String itemName = pickUpItem(tempXPos, tempYPos);
+            message = "You picked up " + itemName + "!";
+            for (int i = firstTaken; i < removedItemIds.size(); i++) {
+                publish(GameEvent.PICKED_UP, removedItemIds.get(i));
             }
+            return MoveResult.PICKED_UP;
+        }
+        if (room.doorCheck(tempYPos, tempXPos)) {
+            return enterDoor(tempXPos, tempYPos);
+        }
+        /*Update player's point position in place*/
+        newPlayerPos(tempPlayerPos);
+        int stairs = room.getStairLevel(tempXPos, tempYPos);
+        if (stairs != Room.NO_STAIRS) {
+            stairLevel = stairs; /*The world the game belongs to moves the player to that level*/
+            message = "You take the stairs to level " + stairs;
+            publish(GameEvent.LEVEL_CHANGED, stairs);
+            return MoveResult.CHANGED_LEVEL;
+        }
+        publish(GameEvent.MOVED, 0);
+        return MoveResult.MOVED;
+    }
+
+    /**
+     * Attacks the monster on the tile the player tried to move onto (the player stays where they are).
+     * @param monster (int) index of the monster in the room's monsters
+     * @return (int) MoveResult.ATTACKED
+     */
+    private int attack(int monster) {
+        String monsterName = room.getMonsters().getName(monster);
+        int monsterId = room.getMonsters().getId(monster);
+        if (room.damageMonster(monster, PLAYER_DAMAGE)) {
+            message = "You defeat the " + monsterName + "!";
+            publish(GameEvent.MONSTER_KILLED, monsterId);
         } else {
-            throw new InvalidMoveException();
+            message = "You hit the " + monsterName;
+            publish(GameEvent.MONSTER_HIT, monsterId);
+        }
+        displayOutdated = true;
+        return MoveResult.ATTACKED;
+    }
+
+    /**
+     * Accessor method to access the level the stairs the player last stepped on lead to.
+     * @return (int) index of the level, Room.NO_STAIRS if the player has not taken any stairs
+     */
+    public int getStairLevel() {
+        return stairLevel;
+    }
+
+    /**
+     * Accessor method to access the level of stairs near the player.
+     * @param distance (int) largest number of steps to the stairs
+     * @return (int) index of the level the nearest stairs lead to, Room.NO_STAIRS if there are none that close
+     */
+    public int getNearbyStairLevel(int distance) {
+        return room.findStairsNear(player.getX(), player.getY(), distance);
+    }
+
+    /**
+     * Places the player in this game after taking stairs from another level: on the stairs that lead back, or on an
+     * empty tile of the starting room if no stairs lead back.
+     * @param fromLevel (int) index of the level the player came from
+     */
+    public void enterFromLevel(int fromLevel) {
+        for (Room currRoom : allRooms) {
+            int stairTile = currRoom.findStairsTo(fromLevel);
+            if (stairTile != Room.NO_TILE) {
+                movePlayerTo(currRoom, stairTile);
+                return;
+            }
+        }
+        Point emptyTile = room.getEmptyTile(random);
+        movePlayerTo(room, PackedPoint.pack(emptyTile.getX(), emptyTile.getY()));
+    }
+
+    /**
+     * Moves the player to a tile of a room.
+     * @param nextRoom (Room) room the player is moved to
+     * @param tile (int) tile the player is moved to, packed with PackedPoint
+     */
+    private void movePlayerTo(Room nextRoom, int tile) {
+        monsterUpdater.finishBatch(); /*The room may be moving its monsters in the background*/
+        room.setIsPlayerInRoom(false);
+        room = nextRoom;
+        room.setIsPlayerInRoom(true);
+        player.setCurrentRoom(room);
+        enteredRoomIds.add(room.getId());
+        newPlayerPos(tile);
+    }
+
+    /**
+     * Accessor method to access the message narrating the last move (or the information requested).
+     * @return (String) message for the last move
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Sets the message for a blocked move.
+     * @return (int) MoveResult.BLOCKED
+     */
+    private int blockedMove() {
+        message = BLOCKED_MESSAGE;
+        publish(GameEvent.BLOCKED, 0);
+        return MoveResult.BLOCKED;
+    }
+
+    /**
+     * Moves the player through the door at the requested position into the connected room. Nothing changes if the
+     * door has no connection or the connected room has no door to enter through.
+     * @param tempXPos (int) player's requested location (x-value)
+     * @param tempYPos (int) player's requested location (y-value)
+     * @return (int) MoveResult.CHANGED_ROOM if the player entered the connected room, MoveResult.BLOCKED otherwise
+     */
+    private int enterDoor(int tempXPos, int tempYPos) {
+        String oppositeDir = oppositeDirWEDoorSet(tempXPos);
+        if (oppositeDir == null) {
+            oppositeDir = oppositeDirNSDoorSet(tempYPos);
+        }
+        Room nextRoom = null;
+        if (oppositeDir != null && door != null) {
+            nextRoom = door.getOtherRoom(room); /*Could equal null if the door has no connection*/
+        }
+        if (nextRoom == null) {
+            return blockedMove(); /*No connection to another room*/
         }
-        return "You pressed " + input;
+        int nextPos = nextRoom.getEntryTile(oppositeDir);
+        if (nextPos == Room.NO_TILE) {
+            return blockedMove(); /*No door in the connected room to enter through*/
+        }
+        monsterUpdater.finishBatch(); /*The connected room may be moving its monsters in the background*/
+        if (nextRoom.getMonsters().isOccupied(PackedPoint.getX(nextPos), PackedPoint.getY(nextPos))) {
+            return blockedMove(); /*A monster stands in the way*/
+        }
+        Room previousRoom = room;
+        room.setIsPlayerInRoom(false); /*Player is no longer in initial room after requested position*/
+        room = nextRoom;
+        room.setIsPlayerInRoom(true); /*Player is in next room (which is now the current room)*/
+        enteredRoomIds.add(room.getId());
+        newPlayerPos(nextPos);
+        applyDeferredRoom(previousRoom);
+        message = "You have entered room " + room.getId();
+        publish(GameEvent.ROOM_ENTERED, previousRoom.getId());
+        return MoveResult.CHANGED_ROOM;
     }
 
     /**
@@ -364,16 +749,7 @@ public class Rogue {
      */
     private String getInfo(char input) {
         if (input == INVENTORY) {
-            ArrayList<Item> playerItems = player.getInventory();
-            if (playerItems.size() == 0) {
-                message = "You do not have anything in your inventory";
-            } else {
-                for (int i = 0; i < (playerItems.size() - 1); i++) {
-                    message += playerItems.get(i).getName() + ", ";
-                }
-                message += playerItems.get(playerItems.size() - 1).getName();
-                return "Inventory: " + message;
-            }
+            return getInventoryInfo();
         } else if (input == ROOMID) {
             return "You are in Room " + room.getId() + " (total rooms: " + totalRooms + ")";
         }
@@ -381,14 +757,50 @@ public class Rogue {
     }
 
     /**
-     * Return's player's requested point (x, y) location.
+     * Builds the inventory message, headed by the number of items of each type. Inventories too long for the message
+     * line are shown a page at a time, each page as many names as fit, with each repeated INVENTORY input showing the
+     * next page.
+     * @return (String) the inventory message
+     */
+    private String getInventoryInfo() {
+        Inventory inventory = player.getIndexedInventory();
+        if (inventory.size() == 0) {
+            return "You do not have anything in your inventory";
+        }
+        String header = "Inventory (" + inventory.getTypeSummary() + "): ";
+        if (header.length() + inventory.getSummary().length() <= MESSAGE_COLUMNS) {
+            return header + inventory.getSummary();
+        }
+        /*Leave room for the widest page number, there are never more pages than items*/
+        String widestPage = " (" + inventory.size() + "/" + inventory.size() + ")";
+        int pages = inventory.getPageCount(MESSAGE_COLUMNS - header.length() - widestPage.length());
+        if (inventoryPage >= pages) {
+            inventoryPage = 0;
+        }
+        String page = header + inventory.getNames(inventory.getPageStart(inventoryPage),
+                inventory.getPageEnd(inventoryPage)) + " (" + (inventoryPage + 1) + "/" + pages + ")";
+        inventoryPage++;
+        return page;
+    }
+
+    /**
+     * Returns true if the input is one of the four moves.
+     * @param input (char) player's input
+     * @return (boolean) true for UP, DOWN, LEFT or RIGHT, false otherwise
+     */
+    private static boolean isDirection(char input) {
+        return input == UP || input == DOWN || input == LEFT || input == RIGHT;
+    }
+
+    /**
+     * Return's player's requested (x, y) location, packed with PackedPoint.
      * @param input (char) player's input
-     * @return (Point) player's requested point (x, y) location
+     * @return (int) player's requested (x, y) location
      */
-    private Point getPlayerReqPos(char input) {
+    private int getPlayerReqPos(char input) {
         /*Player's initial position*/
-        int xPos = (int) player.getXyLocation().getX();
-        int yPos = (int) player.getXyLocation().getY();
+        int xPos = player.getX();
+        int yPos = player.getY();
 
         if (input == UP) {
             yPos--;
@@ -405,8 +817,7 @@ public class Rogue {
         }
 
         /*Player's requested position*/
-        Point tempPlayerPos = new Point(xPos, yPos);
-        return tempPlayerPos;
+        return PackedPoint.pack(xPos, yPos);
     }
 
     /**
@@ -444,89 +855,34 @@ public class Rogue {
     }
 
     /**
-     * Sets the player's new point (x, y) location and updates next display string.
-     * @param tempPlayerPos (Point) player's requested point (x, y) location
+     * Sets the player's new point (x, y) location and marks the next display as out of date.
+     * @param tempPlayerPos (int) player's requested (x, y) location, packed with PackedPoint
      */
-    private void newPlayerPos(Point tempPlayerPos) {
-        player.setXyLocation(tempPlayerPos);
+    private void newPlayerPos(int tempPlayerPos) {
+        /*Written into the player's entity store, so a plain step does not allocate a new Point*/
+        player.setLocation(PackedPoint.getX(tempPlayerPos), PackedPoint.getY(tempPlayerPos));
         room.setPlayer(player);
-        nextDisplay = room.displayRoom();
+        if (sightRadius > 0) {
+            room.updateView(PackedPoint.getX(tempPlayerPos), PackedPoint.getY(tempPlayerPos));
+            exploredRooms.add(room);
+        }
+        displayOutdated = true;
     }
 
     /**
      * Removes item player is about to step on and adds the item to the player's inventory.
-     * @param tempPlayerPos (Point) player's requested point (x, y) location
      * @param tempXPos (int) player's requested location (x-value)
      * @param tempYPos (int) player's requested location (y-value)
      * @return (String) item's name that was removed from the ArrayList of all items
      */
-    private String pickUpItem(Point tempPlayerPos, int tempXPos, int tempYPos) {
-        /*Loop through item positions in room, remove from roomLoot and add to player's inventory*/
-        ArrayList<Item> roomItems = room.getRoomItems();
-        String itemName = "";
-        int i = 0;
-        Iterator<Item> roomItem = roomItems.iterator();
-        while (roomItem.hasNext()) {
-            Item currItem = roomItem.next();
-            if (currItem.getXyLocation().equals(tempPlayerPos)) {
-                player.addToInventory(currItem);
-                itemName = currItem.getName();
-                roomItem.remove();
-            }
-        }
-        tempPlayerPos.setLocation(tempXPos, tempYPos);
-        newPlayerPos(tempPlayerPos);
+    private String pickUpItem(int tempXPos, int tempYPos) {
+        /*The room moves the items into the player's inventory (the same step SharedDungeon takes under the room's
+        lock, so an item is only ever picked up once)*/
+        String itemName = room.takeItemsAt(tempXPos, tempYPos, player, removedItemIds);
+        newPlayerPos(PackedPoint.pack(tempXPos, tempYPos));
         return itemName;
     }
 
-    /**
-     * Returns the player's point (x, y) location once the player steps through the door.
-     * @param playerPos (Point) player's requested point (x, y) location
-     * @param oppositeDir (int) the opposing direction (pair direction) to the door being entered
-     * @param xPos (int) player's requested location (x-value)
-     * @param yPos (int) player's requested location (y-value)
-     * @return (Point) player's point (x, y) location in the connected room
-     * @throws InvalidMoveException if there is no door in the connecting room to allow this move
-     */
-    private Point posNextRoom(Point playerPos, String oppositeDir, int xPos, int yPos) throws InvalidMoveException {
-        if (oppositeDir.equals("E") || oppositeDir.equals("W")) { /*Player's x position changes to opposing side (y
-            position is determined by the door's wallPosition)*/
-            if (oppositeDir.equals("E")) { /*Player exits a room with west door and enters the next room through an
-                east door*/
-                /*From x = (initialRoom.getWidth())-1 to x = 0 (nextRoom)*/
-                xPos = 1;
-            } else if (oppositeDir.equals("W")) { /*Player exits a room with an east door and enters the next room
-                through a west door*/
-                /*From x = 0 (initialRoom) to x = (nextRoom.getWidth())-1*/
-                xPos = ((room.getWidth()) - 1) - 1;
-            }
-            if (room.getDoor(oppositeDir) != null) {
-                yPos = room.getDoor(oppositeDir).getWallPosition();
-            } else {
-                throw new InvalidMoveException();
-            }
-        } else if (oppositeDir.equals("N") || oppositeDir.equals("S")) { /*Player's y position changes to opposing
-            side (x position is determined by the door's wallPosition)*/
-            if (oppositeDir.equals("N")) { /*Player exits a room with south door and enters the next room through a
-                north door*/
-                /*From y = (initialRoom.getHeight())-1 to y = 0 (nextRoom)*/
-                yPos = 1;
-            } else if (oppositeDir.equals("S")) { /*Player exits a room with north door and enters the next room
-                through a south door*/
-                /*From y = 0 (initialRoom) to y = (nextRoom.getHeight())-1*/
-                yPos = ((room.getHeight()) - 1) - 1;
-            }
-            if (room.getDoor(oppositeDir) != null) {
-                xPos = room.getDoor(oppositeDir).getWallPosition();
-            } else {
-                throw new InvalidMoveException();
-            }
-        }
-        /*Update player's point position (tempPlayerPos)*/
-        playerPos.setLocation(xPos, yPos);
-        return playerPos;
-    }
-
     /**
      * Checks if the player's requested position is valid (not walking into walls).
      * @param tempXPos (int) player's requested location (x-value)
@@ -534,22 +890,8 @@ public class Rogue {
      * @return (boolean) true if the requested position is valid, false otherwise
      */
     private boolean isMoveValid(int tempXPos, int tempYPos) {
-        /*Door check*/
-        if (room.doorCheck(tempYPos, tempXPos)) {
-            /*If that wall contains a door at the position the player wants to be at*/
-            return true;
-        }
-
-        /*Wall check (if the position request is not a door, the only other invalid tile is a wall)*/
-        if (tempXPos == 0 || tempXPos == (room.getWidth() - 1)) {
-            /*Player is trying to move into a wall (east or west wall)*/
-            return false;
-        }
-        if (tempYPos == 0 || tempYPos == (room.getHeight() - 1)) {
-            /*Player is trying to move into a wall (north or south wall)*/
-            return false;
-        }
-        return true; /*If the tile is not a door or a wall, it's an item or the floor (both valid)*/
+        /*Doors, stairs and floor without an obstacle can be stepped onto, walls (and anything outside them) cannot*/
+        return room.getTiles().isPassable(tempXPos, tempYPos);
     }
 
     /**
@@ -557,9 +899,42 @@ public class Rogue {
      * @return (String) updated room instance
      */
     public String getNextDisplay() {
+        if (displayOutdated) { /*Only rebuilt when asked for, into a reused buffer*/
+            displayBuffer.setLength(0);
+            if (viewport != null) {
+                viewport.follow(room, player.getX(), player.getY());
+                viewport.render(room, displayBuffer);
+            } else {
+                room.displayRoom(displayBuffer);
+            }
+            nextDisplay = displayBuffer.toString();
+            displayOutdated = false;
+        }
         return nextDisplay;
     }
 
+    /**
+     * Mutator method to set the window of the room that is displayed (the whole room is displayed without one).
+     * @param newViewport (Viewport) viewport that follows the player, or null to display whole rooms
+     */
+    public void setViewport(Viewport newViewport) {
+        viewport = newViewport;
+        displayOutdated = true;
+    }
+
+    /**
+     * Mutator method to set how far the player can see (field of view). Tiles out of sight are shown only if they
+     * were explored, without items.
+     * @param radius (int) sight radius in tiles, 0 to show whole rooms
+     */
+    public void setSightRadius(int radius) {
+        sightRadius = radius;
+        for (Room currRoom : allRooms) {
+            currRoom.setSightRadius(radius);
+        }
+        newPlayerPos(player.getLocation());
+    }
+
     /**
      * Accessor method to access the outro message for the game.
      * @return (String) outro message
@@ -582,6 +957,12 @@ public class Rogue {
      */
     public void setPlayer(Player thePlayer) {
         player = thePlayer;
+        player.setStore(entities); /*The player's slot moves to this level's store*/
+        player.setCurrentRoom(room);
+        for (Room currRoom : allRooms) { /*Rooms keep their own reference to the player for display*/
+            currRoom.setPlayer(player);
+        }
+        displayOutdated = true;
     }
 
     /**
@@ -592,6 +973,370 @@ public class Rogue {
         return player;
     }
 
+    /**
+     * Returns true if getSaveState can capture the game without waiting for monsters moving in the background.
+     * @return (boolean) true if a save can be taken at once, false otherwise
+     */
+    public boolean isSaveReady() {
+        return monsterUpdater.isBatchFinished();
+    }
+
+    /**
+     * Captures what has changed since the dungeon was loaded (player position and room, items taken from rooms, and
+     * the player's inventory). Waits for monsters moving in the background, unless isSaveReady.
+     * @return (SaveState) state of the game
+     */
+    public SaveState getSaveState() {
+        int[] removed = new int[removedItemIds.size()];
+        for (int i = 0; i < removed.length; i++) {
+            removed[i] = removedItemIds.get(i);
+        }
+        List<Item> playerItems = player.getInventory();
+        int[] inventory = new int[playerItems.size()];
+        for (int i = 0; i < inventory.length; i++) {
+            inventory[i] = playerItems.get(i).getId();
+        }
+        int xPos = player.getX();
+        int yPos = player.getY();
+        int[] exploredIds = new int[exploredRooms.size()];
+        BitSet[] exploredTiles = new BitSet[exploredIds.length];
+        int i = 0;
+        for (Room currRoom : exploredRooms) {
+            exploredIds[i] = currRoom.getId();
+            exploredTiles[i++] = currRoom.getSavedExplored(); /*Only copied again if more tiles were explored*/
+        }
+        return new SaveState(room.getId(), xPos, yPos, removed, inventory).withExplored(exploredIds, exploredTiles)
+                .withMonsters(monsterUpdater.getTurn(), getMonsterRoomIds(), getMonsterData());
+    }
+
+    /**
+     * Accessor method to access the ids of the rooms monsters were put in (their monsters are saved).
+     * @return (int[]) room ids
+     */
+    private int[] getMonsterRoomIds() {
+        int[] ids = new int[monsterRooms.size()];
+        int i = 0;
+        for (Room currRoom : monsterRooms) {
+            ids[i++] = currRoom.getId();
+        }
+        return ids;
+    }
+
+    /**
+     * Captures the monsters of the rooms in getMonsterRoomIds (in the same order).
+     * @return (int[][]) id, x, y and hit points of each monster, one after another
+     */
+    private int[][] getMonsterData() {
+        monsterUpdater.finishBatch();
+        int[][] data = new int[monsterRooms.size()][];
+        int i = 0;
+        for (Room currRoom : monsterRooms) {
+            RoomMonsters roomMonsters = currRoom.getMonsters();
+            int[] values = new int[roomMonsters.size() * MONSTER_FIELDS];
+            int k = 0;
+            for (int j = 0; j < roomMonsters.size(); j++) {
+                values[k++] = roomMonsters.getId(j);
+                values[k++] = roomMonsters.getX(j);
+                values[k++] = roomMonsters.getY(j);
+                values[k++] = roomMonsters.getHitPoints(j);
+            }
+            data[i++] = values;
+        }
+        return data;
+    }
+
+    /**
+     * Applies a saved state to a freshly loaded game of the same dungeon.
+     * @param state (SaveState) state from getSaveState
+     * @throws InvalidDungeonException if the saved room does not exist in this dungeon
+     */
+    public void restore(SaveState state) throws InvalidDungeonException {
+        ArrayList<Item> carried = new ArrayList<>();
+        for (int id : state.getInventoryIds()) {
+            if (itemsById.get(id) != null) {
+                carried.add(itemsById.get(id));
+            }
+        }
+        restore(state, carried);
+    }
+
+    /**
+     * Applies a saved state to the freshly loaded level the player is on, giving the player items already found on
+     * other levels (a world resolves the carried items, since item ids are only unique within a level).
+     * @param state (SaveState) state from getSaveState
+     * @param carried (List<Item>) items the player carries, in pick up order
+     * @throws InvalidDungeonException if the saved room does not exist in this dungeon
+     */
+    public void restore(SaveState state, List<Item> carried) throws InvalidDungeonException {
+        Room savedRoom = roomsById.get(state.getRoomId());
+        if (savedRoom == null) {
+            throw new InvalidDungeonException("Saved game does not match the dungeon (no room " + state.getRoomId()
+                    + ")");
+        }
+        restoreLevel(state);
+        for (Item carriedItem : carried) {
+            player.addToInventory(carriedItem);
+        }
+        movePlayerTo(savedRoom, PackedPoint.pack(state.getX(), state.getY()));
+    }
+
+    /**
+     * Applies the level part of a saved state (items taken, explored tiles and monsters) to a freshly loaded level,
+     * without moving the player or touching what they carry.
+     * @param state (SaveState) state from getSaveState
+     */
+    public void restoreLevel(SaveState state) {
+        removeItems(state.getRemovedItemIds());
+        for (int i = 0; i < state.getExploredRoomIds().length; i++) {
+            Room exploredRoom = roomsById.get(state.getExploredRoomIds()[i]);
+            if (exploredRoom != null) {
+                exploredRoom.setExplored(state.getExploredTiles()[i]);
+                exploredRooms.add(exploredRoom);
+            }
+        }
+        restoreMonsters(state);
+    }
+
+    /**
+     * Puts the monsters of a saved state back where they were (saves from before monsters leave them as loaded).
+     * @param state (SaveState) state from getSaveState
+     */
+    private void restoreMonsters(SaveState state) {
+        monsterUpdater.setTurn(state.getTurn());
+        scheduler.reset(state.getTurn()); /*Pending events are not saved, regeneration is scheduled again below*/
+        for (int i = 0; i < state.getMonsterRoomIds().length; i++) {
+            Room monsterRoom = roomsById.get(state.getMonsterRoomIds()[i]);
+            if (monsterRoom == null) {
+                continue;
+            }
+            RoomMonsters roomMonsters = monsterRoom.getMonsters();
+            roomMonsters.clear();
+            int[] values = state.getMonsters()[i];
+            for (int j = 0; j + MONSTER_FIELDS <= values.length; j += MONSTER_FIELDS) {
+                String monsterName = monsterNames.get(values[j]);
+                if (monsterName != null) {
+                    int hp = values[j + MONSTER_FIELDS - 1];
+                    roomMonsters.add(values[j], values[j + 1], values[j + 2], monsterName, hp,
+                            Math.max(hp, monsterHitPoints.get(values[j])));
+                }
+            }
+            monsterRoom.regenerateWounded();
+            monsterRooms.add(monsterRoom);
+        }
+    }
+
+    /**
+     * Takes items out of the rooms of a freshly loaded game (items picked up before the game was last unloaded).
+     * @param ids (int[]) ids of the items no longer in their rooms
+     */
+    public void removeItems(int[] ids) {
+        for (int id : ids) {
+            Item removed = itemsById.get(id);
+            if (removed != null && removed.getCurrentRoom() != null) {
+                removed.getCurrentRoom().getRoomItems().remove(removed);
+                removed.setCurrentRoom(null);
+                removedItemIds.add(id);
+            }
+        }
+        displayOutdated = true;
+    }
+
+    /**
+     * Queues a change to the game (such as reloaded rooms or symbols) to be applied before the next input is handled.
+     * Can be called from any thread, the change itself always runs on the thread playing the game.
+     * @param update (Runnable) change to apply
+     */
+    public void submitUpdate(Runnable update) {
+        pendingUpdates.add(update);
+    }
+
+    /**
+     * Applies the queued changes (tryMove does this before each input).
+     * @return (boolean) true if any change was applied, false otherwise
+     */
+    public boolean applyPendingUpdates() {
+        boolean applied = false;
+        Runnable update = pendingUpdates.poll();
+        while (update != null) {
+            update.run();
+            applied = true;
+            update = pendingUpdates.poll();
+        }
+        return applied;
+    }
+
+    /**
+     * Replaces the symbols of the game and of every room.
+     * @param newSymbols (HashMap<String, Character>) symbols (not changed after being passed in)
+     */
+    public void applySymbols(HashMap<String, Character> newSymbols) {
+        symbols = newSymbols;
+        for (Room currRoom : allRooms) {
+            currRoom.setSymbols(newSymbols);
+        }
+        displayOutdated = true;
+    }
+
+    /**
+     * Applies the rooms of a reloaded dungeon to this game: rooms change size, doors and loot, and new rooms are added.
+     * The room the player is standing in is changed once the player leaves it. Items the player has picked up are not
+     * put back, and monsters keep playing where they are (monsters outside changed walls are gone).
+     * @param reloaded (Rogue) game loaded from the changed rooms file
+     */
+    public void applyRoomChanges(Rogue reloaded) {
+        monsterUpdater.finishBatch(); /*Rooms are changed below*/
+        for (Room reloadedRoom : reloaded.getRooms()) {
+            Room currRoom = roomsById.get(reloadedRoom.getId());
+            if (currRoom == null) {
+                currRoom = new Room();
+                currRoom.setId(reloadedRoom.getId());
+                currRoom.setEntities(entities);
+                currRoom.setPlayer(player);
+                currRoom.setScheduler(scheduler);
+                currRoom.setSymbols(symbols);
+                currRoom.setSightRadius(sightRadius);
+                allRooms.add(currRoom);
+                roomsById.put(currRoom.getId(), currRoom);
+            }
+            if (currRoom == room) {
+                deferredRooms.put(currRoom.getId(), reloadedRoom);
+            } else {
+                copyRoom(reloadedRoom, currRoom);
+            }
+        }
+        totalRooms = allRooms.size();
+        setDoorConnections();
+        connectivity = new DungeonConnectivity(allRooms);
+        displayOutdated = true;
+    }
+
+    /**
+     * Applies a reloaded version of a room that was waiting for the player to leave it.
+     * @param leftRoom (Room) room the player just left
+     */
+    private void applyDeferredRoom(Room leftRoom) {
+        if (deferredRooms.isEmpty()) {
+            return;
+        }
+        Room reloadedRoom = deferredRooms.remove(leftRoom.getId());
+        if (reloadedRoom != null) {
+            copyRoom(reloadedRoom, leftRoom);
+            setDoorConnections();
+        }
+    }
+
+    /**
+     * Copies the size, doors and loot of a reloaded room into a room of this game. Doors are made again for the room
+     * (and linked by connected room id afterwards) since the reloaded doors belong to the reloaded rooms.
+     * @param from (Room) reloaded room
+     * @param to (Room) room of this game
+     */
+    private void copyRoom(Room from, Room to) {
+        to.setWidth(from.getWidth());
+        to.setHeight(from.getHeight());
+        to.clearDoors();
+        for (String dir : RoomGraph.DIRECTIONS) {
+            Door reloadedDoor = from.getDoor(dir);
+            if (reloadedDoor != null) {
+                to.setDoor(dir, new Door(to, reloadedDoor.getWallPosition(), reloadedDoor.getConnectedId()));
+            }
+        }
+        for (Item oldItem : to.getRoomItems()) {
+            allItems.remove(oldItem);
+            itemsById.remove(oldItem.getId());
+            if (oldItem.getStore() == entities) {
+                entities.release(oldItem.getHandle());
+            }
+        }
+        ArrayList<Item> roomItems = new ArrayList<>();
+        for (Item reloadedItem : from.getRoomItems()) {
+            if (removedItemIds.contains(reloadedItem.getId())) {
+                continue; /*Already picked up in this game*/
+            }
+            Item currItem = copyItem(reloadedItem); /*Moved into this game's entity store*/
+            currItem.setCurrentRoom(to);
+            roomItems.add(currItem);
+            allItems.add(currItem);
+            itemsById.put(currItem.getId(), currItem);
+        }
+        to.setRoomItems(roomItems);
+    }
+
+    /**
+     * Makes a copy of an item of another game in this game's entity store.
+     * @param from (Item) item to copy
+     * @return (Item) copy, not in any room yet
+     */
+    private Item copyItem(Item from) {
+        Item copy = new Item(entities);
+        /*Defined again in this game's catalog, so the other game's catalog is not kept*/
+        setUpItem(copy, from.getXyLocation(), from.getId(),
+                itemCatalog.define(from.getName(), from.getType(), from.getDescription()));
+        copy.setDisplayCharacter(from.getDisplayCharacter());
+        return copy;
+    }
+
+    /**
+     * Accessor method to access an item of this dungeon by its id (ids are only unique within a dungeon).
+     * @param id (int) id of the item
+     * @return (Item) the item, null if the dungeon has no item with that id
+     */
+    public Item getItem(int id) {
+        return itemsById.get(id);
+    }
+
+    /**
+     * Accessor method to access the store the entities of this dungeon live in.
+     * @return (EntityStore) store
+     */
+    public EntityStore getEntities() {
+        return entities;
+    }
+
+    /**
+     * Accessor method to access the seed of the session's random numbers.
+     * @return (long) seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Accessor method to access the room the player is in (the starting room before the first move).
+     * @return (Room) current room
+     */
+    public Room getCurrentRoom() {
+        return room;
+    }
+
+    /**
+     * Accessor method to access the scheduler of the game's timed events (advanced once per turn).
+     * @return (TurnScheduler) scheduler
+     */
+    public TurnScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Accessor method to access the pathfinder over this dungeon's rooms.
+     * @return (Pathfinder) pathfinder
+     */
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+
+    /**
+     * Returns the moves that take the player from where they stand to the room with the given id (a travel command
+     * feeds these to tryMove one at a time).
+     * @param roomId (int) id of the destination room
+     * @return (char[]) moves to make (empty if the player is already there), or null if the room cannot be reached
+     */
+    public char[] getTravelMoves(int roomId) {
+        int xPos = player.getX();
+        int yPos = player.getY();
+        return pathfinder.findMovesToRoom(room, xPos, yPos, roomId);
+    }
+
     /**
      * Accessor method to access the ArrayList of (all) rooms.
      * @return (ArrayList<Room>) all rooms
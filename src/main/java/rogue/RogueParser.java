@@ -4,10 +4,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintStream;
 
 
 import org.json.simple.JSONArray;
@@ -17,17 +20,30 @@ import org.json.simple.parser.ParseException;
 
 public class RogueParser {
 
+    public static final String ROOMS_KEY = "Rooms";
+    public static final String SYMBOLS_KEY = "Symbols";
+    public static final String LEVELS_KEY = "Levels";
+
     private ArrayList<Map<String, String>> rooms = new ArrayList<>();
     private ArrayList<Map<String, String>> items = new ArrayList<>();
     private ArrayList<Map<String, String>> itemLocations = new ArrayList<>();
+    private ArrayList<Map<String, String>> stairs = new ArrayList<>();
+    private ArrayList<Map<String, String>> monsters = new ArrayList<>();
+    private HashMap<String, Map<String, String>> firstLocationById = new HashMap<>();
     private HashMap<String, Character> symbols = new HashMap<>();
 
     private Iterator<Map<String, String>> roomIterator;
     private Iterator<Map<String, String>> itemIterator;
+    private Iterator<Map<String, String>> stairIterator;
+    private Iterator<Map<String, String>> monsterIterator;
 
     private int numOfRooms = -1;
     private int numOfItems = -1;
 
+    private String roomsFileLocation;
+    private boolean parsed = false;
+    private PrintStream problems = System.out; /*Where a rooms file that cannot be read is reported*/
+
     /**
      * Default constructor.
      */
@@ -44,6 +60,40 @@ public class RogueParser {
         parse(filename);
     }
 
+    /**
+     * Constructor that reads only a rooms file, using symbols that have already been read (used to reload a rooms
+     * file that changed without reading the symbols again).
+     * @param roomsFilename (String) name of the rooms file
+     * @param symbolMap (HashMap<String, Character>) symbols for the rooms
+     */
+    public RogueParser(String roomsFilename, HashMap<String, Character> symbolMap) {
+        parseRooms(roomsFilename, CompletableFuture.completedFuture(symbolMap));
+    }
+
+    /**
+     * Constructor that reads only a rooms file, using symbols that have already been read, and reports a file that
+     * cannot be read to a given stream instead of standard output (used by tools whose standard output is their
+     * report).
+     * @param roomsFilename (String) name of the rooms file
+     * @param symbolMap (HashMap<String, Character>) symbols for the rooms
+     * @param problemStream (PrintStream) stream the problems reading the file are written to
+     */
+    public RogueParser(String roomsFilename, HashMap<String, Character> symbolMap, PrintStream problemStream) {
+        problems = problemStream;
+        parseRooms(roomsFilename, CompletableFuture.completedFuture(symbolMap));
+    }
+
+    /**
+     * Constructor that reads only a rooms file while its symbols are still being read on another thread (the rooms
+     * file is parsed before waiting for them).
+     * @param roomsFilename (String) name of the rooms file
+     * @param symbolMap (CompletableFuture<HashMap<String, Character>>) symbols for the rooms, null if they cannot be
+     * read
+     */
+    public RogueParser(String roomsFilename, CompletableFuture<HashMap<String, Character>> symbolMap) {
+        parseRooms(roomsFilename, symbolMap);
+    }
+
     /**
      * Return the next room.
      * @return (Map) Information about a room
@@ -58,9 +108,9 @@ public class RogueParser {
 
     /**
      * Returns the next item.
-     * @return (Map) Information about an item
+     * @return (Map<String, String>) Information about an item
      */
-    public Map nextItem() {
+    public Map<String, String> nextItem() {
         if (itemIterator.hasNext()) {
             return itemIterator.next();
         } else {
@@ -68,6 +118,30 @@ public class RogueParser {
         }
     }
 
+    /**
+     * Returns the next stairs.
+     * @return (Map<String, String>) Information about stairs (room, x, y and the level they lead to)
+     */
+    public Map<String, String> nextStair() {
+        if (stairIterator.hasNext()) {
+            return stairIterator.next();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the next monster.
+     * @return (Map<String, String>) Information about a monster (room, x, y, name and, if given, hp)
+     */
+    public Map<String, String> nextMonster() {
+        if (monsterIterator.hasNext()) {
+            return monsterIterator.next();
+        } else {
+            return null;
+        }
+    }
+
     /**
      * Get the character for a symbol.
      * @param symbolName (String) Symbol Name
@@ -97,6 +171,15 @@ public class RogueParser {
         return itemLocations;
     }
 
+    /**
+     * Check if an item id is placed in any room.
+     * @param id (int) Item id
+     * @return (boolean) true if a room's loot places an item with that id, false otherwise
+     */
+    public boolean hasItemLocation(int id) {
+        return firstLocationById.containsKey(String.valueOf(id));
+    }
+
     /**
      * Get the number of items.
      * @return (int) Number of items
@@ -105,6 +188,34 @@ public class RogueParser {
         return numOfItems;
     }
 
+    /**
+     * Starts the room and item iterators from the beginning again, so one parser can load several games.
+     */
+    public void rewind() {
+        if (parsed) {
+            roomIterator = rooms.iterator();
+            itemIterator = items.iterator();
+            stairIterator = stairs.iterator();
+            monsterIterator = monsters.iterator();
+        }
+    }
+
+    /**
+     * Accessor method to access the location of the rooms file that was read.
+     * @return (String) rooms file location, null if no rooms file was read
+     */
+    public String getRoomsFileLocation() {
+        return roomsFileLocation;
+    }
+
+    /**
+     * Returns true if the files were read without errors.
+     * @return (boolean) true if rooms, items and symbols are available, false otherwise
+     */
+    public boolean isParsed() {
+        return parsed;
+    }
+
     /**
      * Get the number of rooms.
      * @return (int) Number of rooms
@@ -118,34 +229,117 @@ public class RogueParser {
      * @param filename (String) Name of the file
      */
     private void parse(String filename) {
+        Map<String, String> locations = readFileLocations(filename);
+        if (locations == null) {
+            return;
+        }
+        /*The two files do not depend on each other, so the symbols are read while this thread reads the rooms*/
+        parseRooms(locations.get(ROOMS_KEY), readSymbolsConcurrently(locations.get(SYMBOLS_KEY)));
+    }
 
-        JSONParser parser = new JSONParser();
-        JSONObject roomsJSON;
-        JSONObject symbolsJSON;
+    /**
+     * Read the rooms file (and its items) with symbols that are read on another thread.
+     * @param roomsFilename (String) Name of the rooms file
+     * @param symbolMap (CompletableFuture<HashMap<String, Character>>) Symbols for the rooms, null if they cannot be
+     * read
+     */
+    private void parseRooms(String roomsFilename, CompletableFuture<HashMap<String, Character>> symbolMap) {
+        try (FileReader roomsReader = new FileReader(roomsFilename)) {
+            JSONObject roomsJSON = (JSONObject) new JSONParser().parse(roomsReader);
+            HashMap<String, Character> readSymbols = symbolMap.join();
+            if (readSymbols == null) {
+                return;
+            }
 
-        try {
-            Object obj = parser.parse(new FileReader(filename));
-            JSONObject configurationJSON = (JSONObject) obj;
+            extractRoomInfo(roomsJSON);
+            extractItemInfo(roomsJSON);
+            symbols = readSymbols;
 
-            /*Extract the Rooms value from the file to get the file location for rooms*/
-            String roomsFileLocation = (String) configurationJSON.get("Rooms");
+            roomIterator = rooms.iterator();
+            itemIterator = items.iterator();
+            stairIterator = stairs.iterator();
+            monsterIterator = monsters.iterator();
+            roomsFileLocation = roomsFilename;
+            parsed = true;
 
+        } catch (FileNotFoundException e) {
+            problems.println("Cannot find file named: " + roomsFilename);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (ParseException e) {
+            problems.println("Error parsing JSON file");
+        }
+    }
+
+    /**
+     * Read the file locations for rooms and symbols from the configuration file.
+     * @param filename (String) Name of the configuration file
+     * @return (Map<String, String>) file locations under ROOMS_KEY and SYMBOLS_KEY, null if the file cannot be read
+     */
+    public static Map<String, String> readFileLocations(String filename) {
+        try (FileReader configurationReader = new FileReader(filename)) {
+            JSONObject configurationJSON = (JSONObject) new JSONParser().parse(configurationReader);
+
+            HashMap<String, String> locations = new HashMap<>();
+            /*Extract the Rooms value from the file to get the file location for rooms*/
+            locations.put(ROOMS_KEY, (String) configurationJSON.get(ROOMS_KEY));
             /*Extract the Symbols value from the file to get the file location for symbols-map*/
-            String symbolsFileLocation = (String) configurationJSON.get("Symbols");
+            locations.put(SYMBOLS_KEY, (String) configurationJSON.get(SYMBOLS_KEY));
+            return locations;
 
-            Object roomsObj = parser.parse(new FileReader(roomsFileLocation));
-            roomsJSON = (JSONObject) roomsObj;
+        } catch (FileNotFoundException e) {
+            System.out.println("Cannot find file named: " + filename);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (ParseException e) {
+            System.out.println("Error parsing JSON file");
+        }
+        return null;
+    }
 
-            Object symbolsObj = parser.parse(new FileReader(symbolsFileLocation));
-            symbolsJSON = (JSONObject) symbolsObj;
+    /**
+     * Read the rooms files of every level from the configuration file. Each level is a rooms file of its own, listed
+     * under LEVELS_KEY, a configuration without levels has a single level (its rooms file).
+     * @param filename (String) Name of the configuration file
+     * @return (List<String>) rooms file location of each level, null if the file cannot be read
+     */
+    public static List<String> readLevelLocations(String filename) {
+        try (FileReader configurationReader = new FileReader(filename)) {
+            JSONObject configurationJSON = (JSONObject) new JSONParser().parse(configurationReader);
+
+            ArrayList<String> levels = new ArrayList<>();
+            JSONArray levelsJSONArray = (JSONArray) configurationJSON.get(LEVELS_KEY);
+            if (levelsJSONArray == null) {
+                levels.add((String) configurationJSON.get(ROOMS_KEY));
+            } else {
+                for (int i = 0; i < levelsJSONArray.size(); i++) {
+                    levels.add(levelsJSONArray.get(i).toString());
+                }
+            }
+            return levels;
 
+        } catch (FileNotFoundException e) {
+            System.out.println("Cannot find file named: " + filename);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (ParseException e) {
+            System.out.println("Error parsing JSON file");
+        }
+        return null;
+    }
 
-            extractRoomInfo(roomsJSON);
-            extractItemInfo(roomsJSON);
-            extractSymbolInfo(symbolsJSON);
+    /**
+     * Read the symbols file on its own (a symbols change does not need the rooms read again).
+     * @param filename (String) Name of the symbols file
+     * @return (HashMap<String, Character>) symbols by name, null if the file cannot be read
+     */
+    public static HashMap<String, Character> readSymbols(String filename) {
+        try (FileReader symbolsReader = new FileReader(filename)) {
+            JSONObject symbolsJSON = (JSONObject) new JSONParser().parse(symbolsReader);
 
-            roomIterator = rooms.iterator();
-            itemIterator = items.iterator();
+            HashMap<String, Character> symbolMap = new HashMap<>();
+            extractSymbolInfo(symbolsJSON, symbolMap);
+            return symbolMap;
 
         } catch (FileNotFoundException e) {
             System.out.println("Cannot find file named: " + filename);
@@ -154,20 +348,31 @@ public class RogueParser {
         } catch (ParseException e) {
             System.out.println("Error parsing JSON file");
         }
+        return null;
+    }
 
+    /**
+     * Starts reading the symbols file on another thread.
+     * @param filename (String) Name of the symbols file
+     * @return (CompletableFuture<HashMap<String, Character>>) symbols by name once read, null if the file cannot be
+     * read
+     */
+    public static CompletableFuture<HashMap<String, Character>> readSymbolsConcurrently(String filename) {
+        return CompletableFuture.supplyAsync(() -> readSymbols(filename));
     }
 
     /**
      * Get the symbol information.
      * @param symbolsJSON  (JSONObject) Contains information about the symbols
+     * @param symbolMap (HashMap<String, Character>) map the symbols are added to
      */
-    private void extractSymbolInfo(JSONObject symbolsJSON) {
+    private static void extractSymbolInfo(JSONObject symbolsJSON, HashMap<String, Character> symbolMap) {
         JSONArray symbolsJSONArray = (JSONArray) symbolsJSON.get("symbols");
 
         /*Make an array list of room information as maps*/
         for (int i = 0; i < symbolsJSONArray.size(); i++) {
             JSONObject symbolObj = (JSONObject) symbolsJSONArray.get(i);
-            symbols.put(symbolObj.get("name").toString(), String.valueOf(symbolObj.get("symbol")).charAt(0));
+            symbolMap.put(symbolObj.get("name").toString(), String.valueOf(symbolObj.get("symbol")).charAt(0));
         }
     }
 
@@ -217,12 +422,64 @@ public class RogueParser {
         JSONArray lootArray = (JSONArray) roomJSON.get("loot");
         /*Loop through each item and update the hashmap*/
         for (int j = 0; j < lootArray.size(); j++) {
-            itemLocations.add(itemPosition((JSONObject) lootArray.get(j), roomJSON.get("id").toString()));
+            Map<String, String> itemLocation = itemPosition((JSONObject) lootArray.get(j),
+                    roomJSON.get("id").toString());
+            itemLocations.add(itemLocation);
+            firstLocationById.putIfAbsent(itemLocation.get("id"), itemLocation);
+        }
+
+        JSONArray stairArray = (JSONArray) roomJSON.get("stairs");
+        /*Stairs are optional, only rooms of a world with several levels have them*/
+        for (int j = 0; stairArray != null && j < stairArray.size(); j++) {
+            stairs.add(stairPosition((JSONObject) stairArray.get(j), roomJSON.get("id").toString()));
+        }
+
+        JSONArray monsterArray = (JSONArray) roomJSON.get("monsters");
+        /*Monsters are optional as well*/
+        for (int j = 0; monsterArray != null && j < monsterArray.size(); j++) {
+            monsters.add(monsterPosition((JSONObject) monsterArray.get(j), roomJSON.get("id").toString()));
         }
 
         return room;
     }
 
+    /**
+     * Create a map for information about stairs in a room.
+     * @param stairJSON (JSONObject) Stairs key from the rooms file
+     * @param roomID (String) Room id value
+     * @return (Map<String, String>) Contains where the stairs are, in what room, and the level they lead to
+     */
+    private Map<String, String> stairPosition(JSONObject stairJSON, String roomID) {
+        HashMap<String, String> stair = new HashMap<>();
+
+        stair.put("room", roomID);
+        stair.put("x", stairJSON.get("x").toString());
+        stair.put("y", stairJSON.get("y").toString());
+        stair.put("level", stairJSON.get("level").toString());
+
+        return stair;
+    }
+
+    /**
+     * Create a map for information about a monster in a room.
+     * @param monsterJSON (JSONObject) Monsters key from the rooms file
+     * @param roomID (String) Room id value
+     * @return (Map<String, String>) Contains the monster's name, where it is, what room and, if given, its hp
+     */
+    private Map<String, String> monsterPosition(JSONObject monsterJSON, String roomID) {
+        HashMap<String, String> monster = new HashMap<>();
+
+        monster.put("room", roomID);
+        monster.put("x", monsterJSON.get("x").toString());
+        monster.put("y", monsterJSON.get("y").toString());
+        monster.put("name", monsterJSON.get("name").toString());
+        if (monsterJSON.get("hp") != null) {
+            monster.put("hp", monsterJSON.get("hp").toString());
+        }
+
+        return monster;
+    }
+
     /**
      * Create a map for information about an item in a room.
      * @param lootJSON (JSONObject) Loot key from the rooms file
@@ -264,18 +521,16 @@ public class RogueParser {
         item.put("id", itemsJSON.get("id").toString());
         item.put("name", itemsJSON.get("name").toString());
         item.put("type", itemsJSON.get("type").toString());
-
-        boolean didBreak = false; /*to check if item was added to map*/
-        for (Map<String, String> itemLocation : itemLocations) {
-            if (itemLocation.get("id").toString().equals(item.get("id").toString())) {
-                item.put("room", itemLocation.get("room"));
-                item.put("x", itemLocation.get("x"));
-                item.put("y", itemLocation.get("y"));
-                didBreak = true;
-                break;
-            }
-        }
-        if (!didBreak) {
+        Object description = itemsJSON.get("description");
+        item.put("description", (description == null) ? "" : description.toString()); /*Descriptions are optional*/
+
+        /*Looked up by id rather than by scanning every location, so large dungeons load in linear time*/
+        Map<String, String> itemLocation = firstLocationById.get(item.get("id"));
+        if (itemLocation != null) {
+            item.put("room", itemLocation.get("room"));
+            item.put("x", itemLocation.get("x"));
+            item.put("y", itemLocation.get("y"));
+        } else {
             item.put("room", "-1"); /*If item was not added, it doesn't belong to a room*/
         }
 
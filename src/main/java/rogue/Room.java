@@ -1,30 +1,60 @@
 package rogue;
 
 import java.util.ArrayList;
-import java.awt.Point;
 import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
 import java.util.Arrays;
+import java.util.BitSet;
 
 /*A room within the dungeon - contains monsters, treasure, doors out, etc.*/
 public class Room {
 
+   public static final int NO_TILE = Integer.MIN_VALUE;
+   public static final int NO_STAIRS = -1;
+   public static final int REGENERATION_TURNS = 20; /*Turns for a wounded monster to get back one hit point*/
+   private static final int[] NO_TILES = new int[0]; /*Shared by every room without stairs or a view (never changed)*/
+   private static final int NO_HANDLER = -1;
+
    private int width;
    private int height;
    private int roomID;
-   private String displayRoom = "";
 
-   private HashMap<String, Character> symbols;
+   private volatile HashMap<String, Character> symbols;
    private ArrayList<Item> items = new ArrayList<>();
-   private HashMap<String, Door> doors = new HashMap<>();
-   private ArrayList<String> directions = new ArrayList<String>(Arrays.asList(new String[] {"N", "S", "E", "W"}));
+   /*A door per wall, in the order of RoomGraph.DIRECTIONS (null if the wall has no door)*/
+   private Door[] doors = new Door[RoomGraph.DIRECTIONS.length];
 
    private Player player;
-   private Point playerXyLocation;
    private boolean playerInRoom = false;
+   private EntityStore entities; /*Store of the level the room's items and monsters live in*/
+   /*Players of a SharedDungeon in the room (changed and read only while holding the room's lock there), made when
+   the first one enters*/
+   private ArrayList<Player> visitors;
+
+   /*Stairs are few per room, so they are kept in small parallel arrays (looking one up does not allocate)*/
+   private int[] stairTiles = NO_TILES;
+   private int[] stairLevels = NO_TILES;
+
+   /*Most rooms of a large dungeon are never entered, so what only matters once the player is around (monsters, the
+   scheduler's handler and the field of view) is made when first needed*/
+   private TileStore tiles;
+   private boolean tilesOutdated = true;
+   private RoomMonsters monsters;
+   private TurnScheduler scheduler;
+   private int regenerateKind = NO_HANDLER;
+   private Pathfinder pathfinder; /*Pathfinder whose cached routes go through the room's doors*/
 
-   private RogueParser parser;
+   /*Field of view: tiles are bits at index y * width + x. Explored tiles are also flagged in the tile store so
+   rendering reads them with the terrain*/
+   private int sightRadius = 0;
+   private FieldOfView fieldOfView;
+   private int[] visibleTiles = NO_TILES;
+   private int[] shownTiles = NO_TILES;
+   private BitSet visible;
+   private BitSet explored;
+   private BitSet savedExplored; /*Copy handed to saves, dropped when more tiles are explored*/
+
+   private RogueParser parser; /*Only while the dungeon is loaded, see releaseParser*/
 
    /**
     * Default constructor.
@@ -51,9 +81,9 @@ public class Room {
     * @return (String) direction (i.e. "N", "S", "E", or "W")
     */
    public String findFreeDoorDirection() {
-      for (String dir : directions) {
-         if (doors.get(dir) == null) {
-            return dir;
+      for (int dir = 0; dir < doors.length; dir++) {
+         if (doors[dir] == null) {
+            return RoomGraph.DIRECTIONS[dir];
          }
       }
       return null;
@@ -74,15 +104,15 @@ public class Room {
          return false;
       }
       if (playerInRoom) {
-         int xPos = (int) player.getXyLocation().getX();
-         int yPos = (int) player.getXyLocation().getY();
+         int xPos = player.getX();
+         int yPos = player.getY();
          if ((xPos < 0) || (yPos < 0)) {
             return false;
          } else if ((xPos > getWidth() - 1) || (yPos > getHeight() - 1)) {
             return false;
          }
       }
-      if (doors.size() == 0) {
+      if (countDoors() == 0) {
          throw new NotEnoughDoorsException();
       }
       return true;
@@ -113,6 +143,9 @@ public class Room {
    public void addItem(Item toAdd) throws ImpossiblePositionException, NoSuchItemException {
       checkItemLocation(toAdd);
       checkItemId(toAdd);
+      if (entities == null) { /*A room outside a game looks its items up in their own level's store*/
+         entities = toAdd.getStore();
+      }
       items.add(toAdd);
    }
 
@@ -122,8 +155,8 @@ public class Room {
     * @throws ImpossiblePositionException if item is located outside the walls of the room
     */
    private void checkItemLocation(Item itemToCheck) throws ImpossiblePositionException {
-      int xItem = (int) itemToCheck.getXyLocation().getX();
-      int yItem = (int) itemToCheck.getXyLocation().getY();
+      int xItem = itemToCheck.getX();
+      int yItem = itemToCheck.getY();
       if ((xItem > getHeight() || xItem < 0 || yItem > getWidth() || yItem < 0)) {
          throw new ImpossiblePositionException();
       }
@@ -143,13 +176,75 @@ public class Room {
     */
    private boolean onPlayer(int x, int y) {
       if (playerInRoom) {
-         if ((x == (int) player.getXyLocation().getX()) && (y == (int) player.getXyLocation().getY())) {
+         if ((x == player.getX()) && (y == player.getY())) {
+            return true;
+         }
+      }
+      return hasVisitorAt(x, y);
+   }
+
+   /**
+    * Adds a player of a shared dungeon to the room.
+    * @param visitor (Player) player entering the room
+    */
+   public void addVisitor(Player visitor) {
+      if (visitors == null) {
+         visitors = new ArrayList<>();
+      }
+      visitors.add(visitor);
+   }
+
+   /**
+    * Removes a player of a shared dungeon from the room.
+    * @param visitor (Player) player leaving the room
+    */
+   public void removeVisitor(Player visitor) {
+      if (visitors != null) {
+         visitors.remove(visitor);
+      }
+   }
+
+   /**
+    * Checks if a player of a shared dungeon is on the (x, y) location.
+    * @param x (int) x-value of the location
+    * @param y (int) y-value of the location
+    * @return (boolean) true if a visiting player is on the tile, false otherwise
+    */
+   public boolean hasVisitorAt(int x, int y) {
+      for (int i = 0; visitors != null && i < visitors.size(); i++) {
+         if (visitors.get(i).getX() == x && visitors.get(i).getY() == y) {
             return true;
          }
       }
       return false;
    }
 
+   /**
+    * Moves the items on the (x, y) location into a player's inventory. Several players can only share a room while
+    * holding its lock (see SharedDungeon), so each item is taken by exactly one of them.
+    * @param x (int) x-value of the location
+    * @param y (int) y-value of the location
+    * @param taker (Player) player picking the items up
+    * @param takenIds (ArrayList<Integer>) ids of the items taken are added here (can be null)
+    * @return (String) name of the last item taken, "" if there was none
+    */
+   public String takeItemsAt(int x, int y, Player taker, ArrayList<Integer> takenIds) {
+      String itemName = "";
+      for (int i = items.size() - 1; i >= 0; i--) {
+         Item currItem = items.get(i);
+         if (currItem.getX() == x && currItem.getY() == y) {
+            taker.addToInventory(currItem);
+            itemName = currItem.getName();
+            items.remove(i);
+            currItem.setCurrentRoom(null);
+            if (takenIds != null) {
+               takenIds.add(currItem.getId());
+            }
+         }
+      }
+      return itemName;
+   }
+
    /**
     * Checks if the x and y values passed in are occupied by an item's position.
     * @param x (int) x-value of an tile being inspected
@@ -157,25 +252,21 @@ public class Room {
     * @return (boolean) true if the item is occupying the tile, otherwise false
     */
    private boolean onItem(int x, int y) {
-      for (Item checkItem : items) {
-         if ((x == (int) checkItem.getXyLocation().getX()) && (y == (int) checkItem.getXyLocation().getY())) {
-            return true;
-         }
-      }
-      return false;
+      return itemAt(x, y) != null;
    }
 
    /**
-    * Accessor method to access a randomly generated floor (empty) tile.
+    * Accessor method to access a floor (empty) tile picked with the given random numbers (pass a seeded Random to
+    * get the same tile every time).
+    * @param rand (Random) source of random numbers
     * @return (Point) point (x, y) location of the randomly generated empty tile
     */
-   public Point getEmptyTile() {
-      Random rand = new Random();
+   public Point getEmptyTile(Random rand) {
       int randomX;
       int randomY;
-      do {
-         randomX = rand.nextInt(getWidth() - 1);
-         randomY = rand.nextInt(getHeight() - 1);
+      do { /*Only tiles inside the walls are floor tiles*/
+         randomX = 1 + rand.nextInt(getWidth() - 2);
+         randomY = 1 + rand.nextInt(getHeight() - 2);
       } while (onItem(randomX, randomY) || onPlayer(randomX, randomY));
       Point emptyTile = new Point(randomX, randomY);
       return emptyTile;
@@ -187,18 +278,23 @@ public class Room {
     * @throws NoSuchItemException if item's id does not match any possible item id listed in json file
     */
    private void checkItemId(Item itemToCheck) throws NoSuchItemException {
-      ArrayList<Map<String, String>> itemLocations = parser.getItemLocationsArray();
-         for (Map<String, String> itemLocation : itemLocations) {
-            if ((Integer.parseInt(itemLocation.get("id"))) == (itemToCheck.getId())) {
-               return;
-            }
-         }
-         /*If it goes through for loop without matching id, then throw NoSuchItemException*/
+      if (parser != null && !parser.hasItemLocation(itemToCheck.getId())) {
+         /*No room's loot lists the item's id*/
          throw new NoSuchItemException();
+      }
+   }
+
+   /**
+    * Drops the room's reference to the parser once the dungeon is loaded (item ids are only checked against the json
+    * file while loading), so the parsed file can be collected.
+    */
+   public void releaseParser() {
+      parser = null;
    }
 
    /**
-    * Mutator method to set the symbols for the game.
+    * Mutator method to set the symbols for the game. The map is swapped as a whole (and never changed afterwards), so
+    * a display being built sees either all of the old symbols or all of the new ones.
     * @param newSymbols (HashMap) symbols
     */
    public void setSymbols(HashMap newSymbols) {
@@ -219,6 +315,7 @@ public class Room {
     */
    public void setWidth(int newWidth) {
       width = newWidth;
+      tilesOutdated = true;
    }
 
    /**
@@ -235,6 +332,19 @@ public class Room {
     */
    public void setHeight(int newHeight) {
       height = newHeight;
+      tilesOutdated = true;
+   }
+
+   /**
+    * Accessor method to access the length of one of the room's walls.
+    * @param direction (String) wall direction (i.e. "N", "S", "E", or "W")
+    * @return (int) width for north and south walls, height for east and west walls
+    */
+   public int getWallLength(String direction) {
+      if (direction.equals("N") || direction.equals("S")) {
+         return getWidth();
+      }
+      return getHeight();
    }
 
    /**
@@ -291,28 +401,94 @@ public class Room {
     * @return (Door) corresponding door given the key (direction)
     */
    public Door getDoor(String direction) {
-      if (doors.containsKey(direction)) {
-         return doors.get(direction);
-      } else {
-         return null; // throw exception??
-      }
+      int dir = wallIndex(direction);
+      return (dir < 0) ? null : doors[dir];
    }
 
    /**
-    * Accessor method to access the hashmap of doors in the room.
+    * Accessor method to access the doors in the room, by wall direction (a new map, the room keeps its doors in an
+    * array).
     * @return (HashMap<String, Door>) doors belonging to the room
     */
    public HashMap<String, Door> getDoors() {
-      return doors;
+      HashMap<String, Door> doorsByDirection = new HashMap<>();
+      for (int dir = 0; dir < doors.length; dir++) {
+         if (doors[dir] != null) {
+            doorsByDirection.put(RoomGraph.DIRECTIONS[dir], doors[dir]);
+         }
+      }
+      return doorsByDirection;
+   }
+
+   /**
+    * Returns the number of doors in the room.
+    * @return (int) number of walls with a door
+    */
+   public int countDoors() {
+      int count = 0;
+      for (Door wallDoor : doors) {
+         if (wallDoor != null) {
+            count++;
+         }
+      }
+      return count;
    }
 
    /**
     * Mutator method to set door in room.
     * @param direction (String) wall direction of door (i.e. "N", "S", "E", or "W")
-    * @param door (Door) value of the door hashmap
+    * @param door (Door) door on that wall, or null to remove it
     */
    public void setDoor(String direction, Door door) {
-      doors.put(direction, door);
+      int dir = wallIndex(direction);
+      if (dir < 0) {
+         throw new IllegalArgumentException("No wall in direction " + direction);
+      }
+      doors[dir] = door;
+      tilesOutdated = true;
+      routesChanged();
+   }
+
+   /**
+    * Removes every door of the room.
+    */
+   public void clearDoors() {
+      Arrays.fill(doors, null);
+      tilesOutdated = true;
+      routesChanged();
+   }
+
+   /**
+    * Mutator method to set the pathfinder whose cached routes go through the room (set by the pathfinder when it
+    * builds its room graph).
+    * @param roomPathfinder (Pathfinder) pathfinder to tell when the room's doors change
+    */
+   public void setPathfinder(Pathfinder roomPathfinder) {
+      pathfinder = roomPathfinder;
+   }
+
+   /**
+    * Drops the cached routes of the pathfinder (if any) after a door of the room was added, removed or connected to
+    * another room.
+    */
+   public void routesChanged() {
+      if (pathfinder != null) {
+         pathfinder.invalidate();
+      }
+   }
+
+   /**
+    * Finds the index of a wall direction in RoomGraph.DIRECTIONS.
+    * @param direction (String) wall direction (i.e. "N", "S", "E", or "W")
+    * @return (int) index of the wall, -1 if it is not a direction
+    */
+   private static int wallIndex(String direction) {
+      for (int dir = 0; dir < RoomGraph.DIRECTIONS.length; dir++) {
+         if (RoomGraph.DIRECTIONS[dir].equals(direction)) {
+            return dir;
+         }
+      }
+      return -1;
    }
 
    /**
@@ -331,21 +507,411 @@ public class Room {
     */
    public boolean doorCheck(int i, int j) { /*Public as makeMove (and subsequent helper methods) utilize this
       functionality*/
-      if (((getDoor("N") != null) && (i == 0 && j == getDoor("N").getWallPosition()))) {
-         return true;
+      TileStore roomTiles = getTiles();
+      return roomTiles.contains(j, i) && roomTiles.getTerrain(j, i) == TileStore.DOOR;
+   }
+
+   /**
+    * Checks if the (x, y) location is a floor tile the player can stand on (inside the walls, without an obstacle).
+    * @param x (int) x-value of the location
+    * @param y (int) y-value of the location
+    * @return (boolean) true if the location is inside the walls and free, false otherwise
+    */
+   public boolean isWalkable(int x, int y) {
+      if (!(x > 0 && y > 0 && x < getWidth() - 1 && y < getHeight() - 1)) {
+         return false;
       }
-      if (((getDoor("S") != null) && (i == (getHeight() - 1) && j == getDoor("S").getWallPosition()))) {
-         return true;
+      /*Only tiles that were built can hold an obstacle, so rooms nobody looked at are not built here*/
+      return tiles == null || !tiles.contains(x, y) || !tiles.hasFlag(x, y, TileStore.OBSTACLE);
+   }
+
+   /**
+    * Accessor method to access the tiles of the room (terrain and flags such as explored or obstacle). The tiles are
+    * built when first asked for and again after the room's size, doors or stairs change, keeping the flags of tiles
+    * when the size stays the same.
+    * @return (TileStore) tiles of the room
+    */
+   public TileStore getTiles() {
+      if (tilesOutdated) {
+         buildTiles();
       }
-      if (((getDoor("W") != null) && (j == 0 && i == getDoor("W").getWallPosition()))) {
-         return true;
+      return tiles;
+   }
+
+   /**
+    * Mutator method to set the store the room's tiles are kept in (i.e. one mapped onto a file, for very large rooms
+    * or flags that outlive the game). The store's terrain is rebuilt from the room, its flags are kept.
+    * @param store (TileStore) store with the room's width and height
+    */
+   public void setTileStore(TileStore store) {
+      if (store.getWidth() != getWidth() || store.getHeight() != getHeight()) {
+         throw new IllegalArgumentException("Tile store does not match the size of room " + getId());
+      }
+      tiles = store;
+      tilesOutdated = true;
+   }
+
+   /**
+    * Writes the terrain of every tile (floor, walls, doors and stairs) into the tile store, making a new store only
+    * if the room's size changed.
+    */
+   private void buildTiles() {
+      if (tiles == null) {
+         tiles = TileStore.allocate(getWidth(), getHeight());
+         markExplored();
+      } else if (tiles.getWidth() != getWidth() || tiles.getHeight() != getHeight()) {
+         tiles = TileStore.allocate(getWidth(), getHeight());
+         explored = null; /*Tile indexes changed with the size*/
+         savedExplored = null;
+         visible = null;
+         visibleTiles = NO_TILES;
+         shownTiles = visibleTiles;
       }
-      if (((getDoor("E") != null) && (j == (getWidth() - 1) && i == getDoor("E").getWallPosition()))) {
+      for (int y = 0; y < getHeight(); y++) {
+         for (int x = 0; x < getWidth(); x++) {
+            if (y == 0 || y == getHeight() - 1) {
+               tiles.setTerrain(x, y, TileStore.NS_WALL);
+            } else if (x == 0 || x == getWidth() - 1) {
+               tiles.setTerrain(x, y, TileStore.EW_WALL);
+            } else {
+               tiles.setTerrain(x, y, TileStore.FLOOR);
+            }
+         }
+      }
+      for (String dir : RoomGraph.DIRECTIONS) {
+         int doorTile = getDoorTile(dir);
+         if (doorTile != NO_TILE && tiles.contains(PackedPoint.getX(doorTile), PackedPoint.getY(doorTile))) {
+            tiles.setTerrain(PackedPoint.getX(doorTile), PackedPoint.getY(doorTile), TileStore.DOOR);
+         }
+      }
+      for (int stairTile : stairTiles) {
+         if (isWalkable(PackedPoint.getX(stairTile), PackedPoint.getY(stairTile))) {
+            tiles.setTerrain(PackedPoint.getX(stairTile), PackedPoint.getY(stairTile), TileStore.STAIRS);
+         }
+      }
+      if (monsters != null) {
+         monsters.fitTo(getWidth(), getHeight()); /*Monsters outside changed walls are dropped*/
+      }
+      tilesOutdated = false;
+   }
+
+   /**
+    * Returns true if any monsters are in the room (without building its tiles).
+    * @return (boolean) true if the room has monsters, false otherwise
+    */
+   public boolean hasMonsters() {
+      return monsters != null && monsters.size() > 0;
+   }
+
+   /**
+    * Accessor method to access the monsters of the room, fitted to its current size.
+    * @return (RoomMonsters) monsters in the room
+    */
+   public RoomMonsters getMonsters() {
+      if (tilesOutdated) {
+         buildTiles();
+      }
+      if (monsters == null) {
+         if (entities == null) { /*A room outside a game is a level of its own*/
+            entities = new EntityStore();
+         }
+         monsters = new RoomMonsters(entities, getId());
+         monsters.fitTo(getWidth(), getHeight());
+      }
+      return monsters;
+   }
+
+   /**
+    * Mutator method to set the store of the level the room's items and monsters live in (before monsters are added).
+    * @param levelEntities (EntityStore) store of the level
+    */
+   public void setEntities(EntityStore levelEntities) {
+      entities = levelEntities;
+   }
+
+   /**
+    * Mutator method to set the scheduler of the game's timed events (the room schedules its monsters' regeneration).
+    * @param turnScheduler (TurnScheduler) scheduler of the game
+    */
+   public void setScheduler(TurnScheduler turnScheduler) {
+      scheduler = turnScheduler;
+      regenerateKind = NO_HANDLER;
+   }
+
+   /**
+    * Accessor method to access the kind of the room's regeneration events, adding the room's handler to the
+    * scheduler the first time one is scheduled.
+    * @return (int) kind from TurnScheduler.addHandler
+    */
+   private int getRegenerateKind() {
+      if (regenerateKind == NO_HANDLER) {
+         regenerateKind = scheduler.addHandler((monsterId, unused, alsoUnused) -> regenerateMonster(monsterId));
+      }
+      return regenerateKind;
+   }
+
+   /**
+    * Takes hit points from a monster, removing it if none are left. A monster wounded from full health starts
+    * regenerating.
+    * @param index (int) index of the monster in getMonsters()
+    * @param amount (int) hit points taken
+    * @return (boolean) true if the monster was killed, false otherwise
+    */
+   public boolean damageMonster(int index, int amount) {
+      RoomMonsters roomMonsters = getMonsters();
+      boolean unhurt = roomMonsters.getHitPoints(index) >= roomMonsters.getMaxHitPoints(index);
+      int monsterId = roomMonsters.getId(index);
+      if (roomMonsters.damage(index, amount)) {
          return true;
       }
+      if (unhurt && scheduler != null) { /*Wounded monsters already have a regeneration event waiting*/
+         scheduler.schedule(REGENERATION_TURNS, getRegenerateKind(), monsterId, 0, 0);
+      }
       return false;
    }
 
+   /**
+    * Schedules regeneration for every wounded monster (i.e. after a saved game is restored, which drops pending
+    * events).
+    */
+   public void regenerateWounded() {
+      RoomMonsters roomMonsters = getMonsters();
+      for (int i = 0; scheduler != null && i < roomMonsters.size(); i++) {
+         if (roomMonsters.getHitPoints(i) < roomMonsters.getMaxHitPoints(i)) {
+            scheduler.schedule(REGENERATION_TURNS, getRegenerateKind(), roomMonsters.getId(i), 0, 0);
+         }
+      }
+   }
+
+   /**
+    * Gives a wounded monster back a hit point, scheduling the next one until it is at full health.
+    * @param monsterId (int) id of the monster (it may have been killed since)
+    */
+   private void regenerateMonster(int monsterId) {
+      RoomMonsters roomMonsters = getMonsters();
+      int index = roomMonsters.findById(monsterId);
+      if (index < 0) {
+         return;
+      }
+      roomMonsters.heal(index, 1);
+      if (roomMonsters.getHitPoints(index) < roomMonsters.getMaxHitPoints(index)) {
+         scheduler.schedule(REGENERATION_TURNS, getRegenerateKind(), monsterId, 0, 0);
+      }
+   }
+
+   /**
+    * Mutator method to set how far the player can see in the room (0 shows the whole room).
+    * @param radius (int) sight radius in tiles
+    */
+   public void setSightRadius(int radius) {
+      sightRadius = radius;
+   }
+
+   /**
+    * Works out what the player sees from a tile and adds it to the explored tiles. The result for each tile is cached
+    * until a tile of the room starts or stops blocking sight, so this costs a lookup for most moves.
+    * @param x (int) x-value of the player
+    * @param y (int) y-value of the player
+    */
+   public void updateView(int x, int y) {
+      if (sightRadius <= 0) {
+         return;
+      }
+      TileStore roomTiles = getTiles();
+      if (fieldOfView == null) {
+         fieldOfView = new FieldOfView();
+      }
+      visibleTiles = fieldOfView.compute(roomTiles, x, y, sightRadius);
+      if (fieldOfView.wasCached()) {
+         return; /*Its tiles were explored when it was worked out*/
+      }
+      if (explored == null) {
+         explored = new BitSet();
+      }
+      for (int index : visibleTiles) {
+         if (!explored.get(index)) {
+            explored.set(index);
+            savedExplored = null;
+            roomTiles.setFlag(index % getWidth(), index / getWidth(), TileStore.EXPLORED);
+         }
+      }
+   }
+
+   /**
+    * Brings the visible tile bits up to date with the last view (done when the room is displayed rather than on
+    * every move).
+    */
+   private void showVisibleTiles() {
+      if (visible == null) {
+         visible = new BitSet();
+         shownTiles = NO_TILES; /*No bits are set yet*/
+      } else if (shownTiles == visibleTiles) {
+         return;
+      }
+      for (int index : shownTiles) {
+         visible.clear(index);
+      }
+      for (int index : visibleTiles) {
+         visible.set(index);
+      }
+      shownTiles = visibleTiles;
+   }
+
+   /**
+    * Accessor method to access the explored tiles of the room.
+    * @return (BitSet) explored tiles (bit y * width + x); must not be changed
+    */
+   public BitSet getExplored() {
+      if (explored == null) {
+         explored = new BitSet();
+      }
+      return explored;
+   }
+
+   /**
+    * Accessor method to access a copy of the explored tiles for a save. The copy is kept until more tiles are
+    * explored, so saving a room that has not changed since the last save copies nothing.
+    * @return (BitSet) copy of the explored tiles (bit y * width + x); must not be changed
+    */
+   public BitSet getSavedExplored() {
+      if (savedExplored == null) {
+         savedExplored = (BitSet) getExplored().clone();
+      }
+      return savedExplored;
+   }
+
+   /**
+    * Mutator method to set the explored tiles of the room (i.e. from a saved game).
+    * @param newExplored (BitSet) explored tiles (bit y * width + x)
+    */
+   public void setExplored(BitSet newExplored) {
+      explored = (BitSet) newExplored.clone();
+      savedExplored = null;
+      fieldOfView = null; /*Cached views no longer match the explored tiles*/
+      if (tiles != null) {
+         markExplored();
+      }
+   }
+
+   /**
+    * Flags the explored tiles in the tile store.
+    */
+   private void markExplored() {
+      if (explored == null) {
+         return;
+      }
+      int storeWidth = tiles.getWidth();
+      int area = storeWidth * tiles.getHeight();
+      for (int index = explored.nextSetBit(0); index >= 0 && index < area; index = explored.nextSetBit(index + 1)) {
+         tiles.setFlag(index % storeWidth, index / storeWidth, TileStore.EXPLORED);
+      }
+   }
+
+   /**
+    * Accessor method to access the (x, y) location of the door on a wall.
+    * @param direction (String) wall direction of the door (i.e. "N", "S", "E", or "W")
+    * @return (int) location of the door packed with PackedPoint, or NO_TILE if there is no door on that wall
+    */
+   public int getDoorTile(String direction) {
+      Door wallDoor = getDoor(direction);
+      if (wallDoor == null) {
+         return NO_TILE;
+      }
+      int wallPos = wallDoor.getWallPosition();
+      if (direction.equals("N")) {
+         return PackedPoint.pack(wallPos, 0);
+      } else if (direction.equals("S")) {
+         return PackedPoint.pack(wallPos, getHeight() - 1);
+      } else if (direction.equals("W")) {
+         return PackedPoint.pack(0, wallPos);
+      }
+      return PackedPoint.pack(getWidth() - 1, wallPos);
+   }
+
+   /**
+    * Accessor method to access where the player is placed when entering this room through the door on a wall.
+    * @param direction (String) wall direction of the door being entered through (i.e. "N", "S", "E", or "W")
+    * @return (int) location packed with PackedPoint, or NO_TILE if there is no door on that wall
+    */
+   public int getEntryTile(String direction) {
+      Door entrance = getDoor(direction);
+      if (entrance == null) {
+         return NO_TILE;
+      }
+      if (direction.equals("E")) { /*Entering through an east door from a west door places the player at x = 1*/
+         return PackedPoint.pack(1, entrance.getWallPosition());
+      } else if (direction.equals("W")) {
+         return PackedPoint.pack(getWidth() - 2, entrance.getWallPosition());
+      } else if (direction.equals("N")) { /*Entering through a north door from a south door places the player at y = 1*/
+         return PackedPoint.pack(entrance.getWallPosition(), 1);
+      }
+      return PackedPoint.pack(entrance.getWallPosition(), getHeight() - 2);
+   }
+
+   /**
+    * Adds stairs to another level on a tile inside the walls.
+    * @param x (int) x-value of the stairs
+    * @param y (int) y-value of the stairs
+    * @param level (int) index of the level the stairs lead to
+    */
+   public void addStair(int x, int y, int level) {
+      stairTiles = Arrays.copyOf(stairTiles, stairTiles.length + 1);
+      stairLevels = Arrays.copyOf(stairLevels, stairLevels.length + 1);
+      stairTiles[stairTiles.length - 1] = PackedPoint.pack(x, y);
+      stairLevels[stairLevels.length - 1] = level;
+      tilesOutdated = true;
+   }
+
+   /**
+    * Accessor method to access the level the stairs on a tile lead to.
+    * @param x (int) x-value of the tile
+    * @param y (int) y-value of the tile
+    * @return (int) index of the level, or NO_STAIRS if there are no stairs on the tile
+    */
+   public int getStairLevel(int x, int y) {
+      int tile = PackedPoint.pack(x, y);
+      for (int i = 0; i < stairTiles.length; i++) {
+         if (stairTiles[i] == tile) {
+            return stairLevels[i];
+         }
+      }
+      return NO_STAIRS;
+   }
+
+   /**
+    * Accessor method to access the tile of the stairs leading to a level.
+    * @param level (int) index of the level
+    * @return (int) location of the stairs packed with PackedPoint, or NO_TILE if no stairs in the room lead there
+    */
+   public int findStairsTo(int level) {
+      for (int i = 0; i < stairLevels.length; i++) {
+         if (stairLevels[i] == level) {
+            return stairTiles[i];
+         }
+      }
+      return NO_TILE;
+   }
+
+   /**
+    * Accessor method to access the level of the stairs near a tile.
+    * @param x (int) x-value of the tile
+    * @param y (int) y-value of the tile
+    * @param distance (int) largest number of steps (along x plus along y) to the stairs
+    * @return (int) index of the level the nearest such stairs lead to, or NO_STAIRS if there are none
+    */
+   public int findStairsNear(int x, int y, int distance) {
+      int nearest = NO_STAIRS;
+      int nearestDistance = distance + 1;
+      for (int i = 0; i < stairTiles.length; i++) {
+         int steps = Math.abs(PackedPoint.getX(stairTiles[i]) - x) + Math.abs(PackedPoint.getY(stairTiles[i]) - y);
+         if (steps < nearestDistance) {
+            nearest = stairLevels[i];
+            nearestDistance = steps;
+         }
+      }
+      return nearest;
+   }
+
    /**
     * Checks if item is occupying the (x, y) location passed in (j, i).
     * @param i (int) y-value of the location
@@ -354,52 +920,53 @@ public class Room {
     */
    public boolean itemCheck(int i, int j) { /*Public as makeMove (and subsequent helper methods) utilize this
       functionality*/
-      double xItem = 0;
-      double yItem = 0;
-
-      for (int k = 0; k < items.size(); k++) {
-         xItem = (items.get(k).getXyLocation()).getX();
-         yItem = (items.get(k).getXyLocation()).getY();
-         /*since i represents height (y-value) and j represents width (x-value), compare i to yItem and j to xItem*/
-         if (j == xItem && i == yItem) {
-            return true;
+      /*since i represents height (y-value) and j represents width (x-value), look the item up at (j, i)*/
+      return itemAt(j, i) != null;
+   }
+
+   /**
+    * Finds the first of the room's items on a tile (only the room's own items are looked at, not the whole level).
+    * @param x (int) x-value of the tile
+    * @param y (int) y-value of the tile
+    * @return (Item) item on the tile, null if there is none
+    */
+   private Item itemAt(int x, int y) {
+      for (int i = 0; i < items.size(); i++) { /*Indexed, so a move does not allocate an iterator*/
+         Item checkItem = items.get(i);
+         if ((x == checkItem.getX()) && (y == checkItem.getY())) {
+            return checkItem;
          }
       }
-      return false;
+      return null;
    }
 
    /**
-    * Returns the item type of the item at (j, i).
-    * @param i (int) y-value of the location
-    * @param j (int) x-value of the location
-    * @return (String) item type of item located at (j, i)
-    */
-   private String itemType(int i, int j) {
-      double xItem = 0;
-      double yItem = 0;
-      String type;
-
-      if (itemCheck(i, j)) {
-         for (int k = 0; k < items.size(); k++) {
-            xItem = (items.get(k).getXyLocation()).getX();
-            yItem = (items.get(k).getXyLocation()).getY();
-            if (j == xItem && i == yItem) {
-               type = items.get(k).getType();
-               if (type.equals("potion")) {
-                  return "POTION";
-               } else if (type.equals("scroll")) {
-                  return "SCROLL";
-               } else if (type.equals("armour")) {
-                  return "ARMOR";
-               } else if (type.equals("food")) {
-                  return "FOOD";
-               } else if (type.equals("gold")) {
-                  return "GOLD";
-               }
-            }
+    * Marks the tiles of a window that hold one of the room's items with the item's type code, so a frame looks each
+    * item up once instead of once per tile.
+    * @param left (int) x-value of the window's first column
+    * @param top (int) y-value of the window's first row
+    * @param cols (int) width of the window
+    * @param rows (int) height of the window
+    * @return (int[]) type code plus one of the first item on each tile of the window (row by row, 0 where there is no
+    * item), null if no item is in the window
+    */
+   private int[] itemTypesIn(int left, int top, int cols, int rows) {
+      int[] itemTypes = null;
+      for (int i = 0; i < items.size(); i++) {
+         Item checkItem = items.get(i);
+         int x = checkItem.getX() - left;
+         int y = checkItem.getY() - top;
+         if (x < 0 || y < 0 || x >= cols || y >= rows) {
+            continue;
+         }
+         if (itemTypes == null) {
+            itemTypes = new int[cols * rows];
+         }
+         if (itemTypes[y * cols + x] == 0) {
+            itemTypes[y * cols + x] = checkItem.getTypeCode() + 1;
          }
       }
-      return null;
+      return itemTypes;
    }
 
    /**
@@ -409,50 +976,108 @@ public class Room {
     * @return (boolean) true if player exists at (j, i), false otherwise
     */
    private boolean playerCheck(int i, int j) {
-      double xPlayer = 0;
-      double yPlayer = 0;
+      int xPlayer = 0;
+      int yPlayer = 0;
 
       if (isPlayerInRoom()) {
-         xPlayer = (getPlayer().getXyLocation()).getX();
-         yPlayer = (getPlayer().getXyLocation()).getY();
+         xPlayer = getPlayer().getX();
+         yPlayer = getPlayer().getY();
       }
       if (j == xPlayer && i == yPlayer) {
          return true;
       }
-      return false;
+      return hasVisitorAt(j, i);
    }
 
    /**
-    * Builds a string to display the room with walls, items, doors, floor, and player.
+    * Builds a string to display the room with walls, monsters, items, doors, floor, and player.
     * @return (String) room
     */
    public String displayRoom() {
-      displayRoom = "";
-
-      for (int i = 0; i < getHeight(); i++) {
-         for (int j = 0; j < getWidth(); j++) {
-            if ((i == 0 || i == (getHeight() - 1)) || (j == 0 || j == (getWidth() - 1))) {
-               if (doorCheck(i, j)) {
-                  displayRoom += symbols.get("DOOR");
-               } else {
-                  if (i == 0 || i == (getHeight() - 1)) {
-                     displayRoom += symbols.get("NS_WALL");
-                  } else if (j == 0 || j == (getWidth() - 1)) {
-                     displayRoom += symbols.get("EW_WALL");
-                  }
-               }
+      StringBuilder roomBuilder = new StringBuilder((getWidth() + 1) * getHeight());
+      displayRoom(roomBuilder);
+      return roomBuilder.toString();
+   }
+
+   /**
+    * Appends the room with walls, items, doors, floor, and player to a (reusable) buffer.
+    * @param roomBuilder (StringBuilder) buffer the room is appended to
+    */
+   public void displayRoom(StringBuilder roomBuilder) {
+      displayRoom(roomBuilder, 0, 0, getWidth(), getHeight());
+   }
+
+   /**
+    * Appends a window of the room to a (reusable) buffer, so the cost depends on the size of the window and not on
+    * the size of the room. Parts of the window outside the room are left out.
+    * @param roomBuilder (StringBuilder) buffer the window is appended to
+    * @param left (int) x-value of the window's first column
+    * @param top (int) y-value of the window's first row
+    * @param cols (int) width of the window
+    * @param rows (int) height of the window
+    */
+   public void displayRoom(StringBuilder roomBuilder, int left, int top, int cols, int rows) {
+      HashMap<String, Character> frameSymbols = symbols; /*Read once so a reload cannot mix symbol sets in a frame*/
+      TileStore roomTiles = getTiles();
+      if (sightRadius > 0) {
+         showVisibleTiles();
+      }
+      int right = Math.min(getWidth(), left + cols);
+      int bottom = Math.min(getHeight(), top + rows);
+      int[] itemTypes = itemTypesIn(left, top, cols, rows); /*Built once per frame from the room's own items*/
+      for (int i = Math.max(0, top); i < bottom; i++) {
+         for (int j = Math.max(0, left); j < right; j++) {
+            int tile = roomTiles.get(j, i);
+            int terrain = tile & TileStore.TERRAIN_MASK;
+            if (sightRadius > 0 && !visible.get(i * getWidth() + j)) {
+               appendUnseen(roomBuilder, frameSymbols, tile);
+            } else if (terrain != TileStore.FLOOR && terrain != TileStore.STAIRS) {
+               appendSymbol(roomBuilder, frameSymbols, TileStore.getSymbolName(terrain));
+            } else if (monsters != null && monsters.isOccupied(j, i) && frameSymbols.containsKey("MONSTER")) {
+               appendSymbol(roomBuilder, frameSymbols, "MONSTER");
+            } else if (itemTypes != null && itemTypes[(i - top) * cols + j - left] != 0) {
+               int type = itemTypes[(i - top) * cols + j - left] - 1;
+               appendSymbol(roomBuilder, frameSymbols, EntityStore.getTypeSymbolName(type));
+            } else if (playerCheck(i, j)) {
+               appendSymbol(roomBuilder, frameSymbols, "PLAYER");
+            } else if (terrain == TileStore.STAIRS && frameSymbols.containsKey("STAIRS")) {
+               appendSymbol(roomBuilder, frameSymbols, "STAIRS");
             } else {
-               if (itemCheck(i, j)) {
-                  displayRoom += symbols.get(itemType(i, j));
-               } else if (playerCheck(i, j)) {
-                  displayRoom += symbols.get("PLAYER");
-               } else {
-                  displayRoom += symbols.get("FLOOR");
-               }
+               appendSymbol(roomBuilder, frameSymbols, "FLOOR");
             }
          }
-         displayRoom += "\n";
+         roomBuilder.append('\n');
+      }
+   }
+
+   /**
+    * Appends a tile the player cannot see: its terrain if it was explored (items and the player are not shown), blank
+    * otherwise.
+    * @param roomBuilder (StringBuilder) buffer the tile is appended to
+    * @param frameSymbols (HashMap<String, Character>) symbols used for the whole display
+    * @param tile (int) tile byte from the tile store
+    */
+   private void appendUnseen(StringBuilder roomBuilder, HashMap<String, Character> frameSymbols, int tile) {
+      int terrain = tile & TileStore.TERRAIN_MASK;
+      if ((tile & TileStore.EXPLORED) == 0) {
+         roomBuilder.append(' ');
+      } else if (terrain == TileStore.STAIRS && !frameSymbols.containsKey("STAIRS")) {
+         appendSymbol(roomBuilder, frameSymbols, "FLOOR");
+      } else {
+         appendSymbol(roomBuilder, frameSymbols, TileStore.getSymbolName(terrain));
+      }
+   }
+
+   /**
+    * Appends the display character of a symbol (appending the char directly avoids boxing it into a String).
+    * @param roomBuilder (StringBuilder) buffer the symbol is appended to
+    * @param frameSymbols (HashMap<String, Character>) symbols used for the whole display
+    * @param symbolName (String) name of the symbol (i.e. "FLOOR")
+    */
+   private void appendSymbol(StringBuilder roomBuilder, HashMap<String, Character> frameSymbols, String symbolName) {
+      Character symbol = frameSymbols.get(symbolName);
+      if (symbol != null) {
+         roomBuilder.append(symbol.charValue());
       }
-      return displayRoom;
    }
 }
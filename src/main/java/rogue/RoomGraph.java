@@ -0,0 +1,204 @@
+package rogue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/*Compact (CSR) adjacency of the dungeon: rooms are nodes indexed 0..n-1 and usable doors are directed edges*/
+public class RoomGraph {
+
+    public static final String[] DIRECTIONS = {"N", "S", "E", "W"};
+    private static final String[] OPPOSITES = {"S", "N", "W", "E"};
+
+    private Room[] rooms;
+    private HashMap<Integer, Integer> indexById = new HashMap<>();
+
+    /*Edges leaving room i are edgeTargets[edgeStart[i]] .. edgeTargets[edgeStart[i + 1] - 1]*/
+    private int[] edgeStart;
+    private int[] edgeTargets;
+    private byte[] edgeDirections;
+
+    /*Edges entering room i, used to search backwards from a destination*/
+    private int[] reverseStart;
+    private int[] reverseSources;
+
+    /**
+     * Constructor that builds the adjacency arrays from the doors of each room. A door is an edge only if it leads to
+     * a room that has a door on the opposite wall to enter through.
+     * @param roomList (List<Room>) all rooms of the dungeon
+     */
+    public RoomGraph(List<Room> roomList) {
+        rooms = roomList.toArray(new Room[0]);
+        for (int i = 0; i < rooms.length; i++) {
+            indexById.put(rooms[i].getId(), i);
+        }
+        edgeStart = new int[rooms.length + 1];
+        for (int i = 0; i < rooms.length; i++) {
+            edgeStart[i + 1] = edgeStart[i];
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                if (findTarget(i, dir) >= 0) {
+                    edgeStart[i + 1]++;
+                }
+            }
+        }
+        edgeTargets = new int[edgeStart[rooms.length]];
+        edgeDirections = new byte[edgeTargets.length];
+        for (int i = 0; i < rooms.length; i++) {
+            int edge = edgeStart[i];
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                int target = findTarget(i, dir);
+                if (target >= 0) {
+                    edgeTargets[edge] = target;
+                    edgeDirections[edge] = (byte) dir;
+                    edge++;
+                }
+            }
+        }
+        buildReverseEdges();
+    }
+
+    /**
+     * Finds the room a door leads to, if the player could actually walk through it.
+     * @param index (int) index of the room the door is in
+     * @param dir (int) index of the door's wall in DIRECTIONS
+     * @return (int) index of the connected room, or -1 if the door is missing or cannot be walked through
+     */
+    private int findTarget(int index, int dir) {
+        Door door = rooms[index].getDoor(DIRECTIONS[dir]);
+        if (door == null) {
+            return -1;
+        }
+        Room other = door.getOtherRoom(rooms[index]);
+        Integer target = indexById.get((other != null) ? other.getId() : door.getConnectedId());
+        if (target == null || rooms[target].getDoor(OPPOSITES[dir]) == null) {
+            return -1;
+        }
+        return target;
+    }
+
+    /**
+     * Builds the reversed adjacency arrays from the forward ones.
+     */
+    private void buildReverseEdges() {
+        reverseStart = new int[rooms.length + 1];
+        for (int target : edgeTargets) {
+            reverseStart[target + 1]++;
+        }
+        for (int i = 0; i < rooms.length; i++) {
+            reverseStart[i + 1] += reverseStart[i];
+        }
+        reverseSources = new int[edgeTargets.length];
+        int[] fill = new int[rooms.length];
+        for (int source = 0; source < rooms.length; source++) {
+            for (int edge = edgeStart[source]; edge < edgeStart[source + 1]; edge++) {
+                int target = edgeTargets[edge];
+                reverseSources[reverseStart[target] + fill[target]] = source;
+                fill[target]++;
+            }
+        }
+    }
+
+    /**
+     * Accessor method to access the number of rooms in the graph.
+     * @return (int) number of rooms
+     */
+    public int getRoomCount() {
+        return rooms.length;
+    }
+
+    /**
+     * Accessor method to access the index of a room from its id.
+     * @param roomId (int) room's id
+     * @return (int) room's index, or -1 if no room has that id
+     */
+    public int getIndex(int roomId) {
+        Integer index = indexById.get(roomId);
+        return (index == null) ? -1 : index;
+    }
+
+    /**
+     * Accessor method to access the room at an index.
+     * @param index (int) room's index
+     * @return (Room) room
+     */
+    public Room getRoom(int index) {
+        return rooms[index];
+    }
+
+    /**
+     * Accessor method to access the first edge leaving a room (edges of a room run up to getEdgeEnd).
+     * @param index (int) room's index
+     * @return (int) index of the room's first edge
+     */
+    public int getEdgeStart(int index) {
+        return edgeStart[index];
+    }
+
+    /**
+     * Accessor method to access the end (exclusive) of the edges leaving a room.
+     * @param index (int) room's index
+     * @return (int) index after the room's last edge
+     */
+    public int getEdgeEnd(int index) {
+        return edgeStart[index + 1];
+    }
+
+    /**
+     * Accessor method to access the room an edge leads to.
+     * @param edge (int) edge index
+     * @return (int) index of the room the edge leads to
+     */
+    public int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    /**
+     * Accessor method to access the wall direction of the door an edge goes through.
+     * @param edge (int) edge index
+     * @return (String) wall direction of the door (i.e. "N", "S", "E", or "W")
+     */
+    public String getEdgeDirection(int edge) {
+        return DIRECTIONS[edgeDirections[edge]];
+    }
+
+    /**
+     * Accessor method to access the wall direction a door on the given wall is entered through in the next room.
+     * @param direction (String) wall direction of the door being left through
+     * @return (String) opposite wall direction
+     */
+    public static String getOppositeDirection(String direction) {
+        for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+            if (DIRECTIONS[dir].equals(direction)) {
+                return OPPOSITES[dir];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Computes the number of doors needed to reach a room from every room (breadth first search over the reversed
+     * edges).
+     * @param target (int) index of the destination room
+     * @return (int[]) distance from each room to the destination, -1 where it cannot be reached
+     */
+    public int[] distancesTo(int target) {
+        int[] distance = new int[rooms.length];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[rooms.length];
+        int head = 0;
+        int tail = 0;
+        distance[target] = 0;
+        queue[tail++] = target;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int edge = reverseStart[current]; edge < reverseStart[current + 1]; edge++) {
+                int source = reverseSources[edge];
+                if (distance[source] < 0) {
+                    distance[source] = distance[current] + 1;
+                    queue[tail++] = source;
+                }
+            }
+        }
+        return distance;
+    }
+}
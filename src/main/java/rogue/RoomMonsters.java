@@ -0,0 +1,389 @@
+package rogue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/*The monsters of one room, kept in parallel arrays (id, handle, hit points, most hit points, name) with a bit per
+occupied tile, so a room with thousands of monsters is a handful of arrays and updating them all in one pass does not
+allocate. Each monster's location and room live in the level's EntityStore, under its handle. Monster moves are
+worked out from a hash of the session seed, the turn and the monster's id rather than from shared random numbers, so
+rooms can be updated in any order (or at the same time) and a game always plays out the same way*/
+public final class RoomMonsters {
+
+    public static final int CHASE_DISTANCE = 8; /*Monsters closer than this (along x plus along y) chase the player*/
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int[] STEP_X = {0, 0, 1, -1};
+    private static final int[] STEP_Y = {-1, 1, 0, 0};
+    private static final int DIRECTION_MASK = 3;
+    private static final long TURN_STEP = 0x9E3779B97F4A7C15L;
+    private static final long ID_STEP = 0xC2B2AE3D27D4EB4FL;
+    private static final long MIX_1 = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_2 = 0x94D049BB133111EBL;
+    private static final int SHIFT_1 = 30;
+    private static final int SHIFT_2 = 27;
+    private static final int SHIFT_3 = 31;
+
+    private final EntityStore store;
+    private final int roomId;
+    private int[] ids = new int[0];
+    private int[] handles = new int[0];
+    private int[] hitPoints = new int[0];
+    private int[] maxHitPoints = new int[0];
+    private String[] names = new String[0];
+    private int size = 0;
+
+    /*Occupied tiles are bits at index y * width + x, once the size of the room is known*/
+    private BitSet occupied = new BitSet();
+    private int width = 0;
+    private int height = 0;
+
+    /**
+     * Constructor that takes the store the monsters' locations are kept in.
+     * @param entities (EntityStore) store of the level the room belongs to
+     * @param room (int) id of the room
+     */
+    public RoomMonsters(EntityStore entities, int room) {
+        store = entities;
+        roomId = room;
+    }
+
+    /**
+     * Accessor method to access the number of monsters.
+     * @return (int) number of monsters
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a monster (monsters outside the walls are dropped once the room's size is known).
+     * @param id (int) monster's id, unique within the dungeon
+     * @param x (int) x-value of the monster
+     * @param y (int) y-value of the monster
+     * @param name (String) monster's name (i.e. "rat")
+     * @param hp (int) monster's hit points
+     */
+    public void add(int id, int x, int y, String name, int hp) {
+        add(id, x, y, name, hp, hp);
+    }
+
+    /**
+     * Adds a monster that may be wounded (i.e. from a saved game).
+     * @param id (int) monster's id, unique within the dungeon
+     * @param x (int) x-value of the monster
+     * @param y (int) y-value of the monster
+     * @param name (String) monster's name (i.e. "rat")
+     * @param hp (int) monster's hit points
+     * @param maxHp (int) hit points the monster regenerates up to
+     */
+    public void add(int id, int x, int y, String name, int hp, int maxHp) {
+        if (size == ids.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            handles = Arrays.copyOf(handles, capacity);
+            hitPoints = Arrays.copyOf(hitPoints, capacity);
+            maxHitPoints = Arrays.copyOf(maxHitPoints, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        ids[size] = id;
+        handles[size] = store.create(EntityStore.KIND_MONSTER);
+        store.setRoomId(handles[size], roomId);
+        store.setLocation(handles[size], x, y);
+        hitPoints[size] = hp;
+        maxHitPoints[size] = maxHp;
+        names[size] = name;
+        size++;
+        if (width > 0) {
+            occupied.set(y * width + x);
+        }
+    }
+
+    /**
+     * Removes every monster.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            store.release(handles[i]);
+        }
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+        occupied.clear();
+    }
+
+    /**
+     * Fits the monsters to the size of their room, dropping any outside its walls or on a tile already taken.
+     * @param roomWidth (int) width of the room
+     * @param roomHeight (int) height of the room
+     */
+    public void fitTo(int roomWidth, int roomHeight) {
+        width = roomWidth;
+        height = roomHeight;
+        occupied.clear();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int x = store.getX(handles[i]);
+            int y = store.getY(handles[i]);
+            if (x > 0 && y > 0 && x < width - 1 && y < height - 1 && !occupied.get(y * width + x)) {
+                occupied.set(y * width + x);
+                moveEntry(i, kept++);
+            } else {
+                store.release(handles[i]);
+            }
+        }
+        Arrays.fill(names, kept, size, null);
+        size = kept;
+    }
+
+    /**
+     * Returns true if a monster stands on a tile.
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @return (boolean) true if the tile is taken by a monster, false otherwise
+     */
+    public boolean isOccupied(int x, int y) {
+        return width > 0 && x >= 0 && y >= 0 && x < width && y < height && occupied.get(y * width + x);
+    }
+
+    /**
+     * Finds the monster standing on a tile.
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @return (int) index of the monster, or -1 if there is none
+     */
+    public int find(int x, int y) {
+        if (!isOccupied(x, y)) {
+            return -1; /*Most tiles are answered by the bit alone*/
+        }
+        int tile = PackedPoint.pack(x, y);
+        for (int i = 0; i < size; i++) {
+            if (store.getLocation(handles[i]) == tile) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds a monster by its id.
+     * @param id (int) monster's id
+     * @return (int) index of the monster, or -1 if it is not in the room
+     */
+    public int findById(int id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Accessor method to access a monster's id.
+     * @param index (int) index of the monster
+     * @return (int) monster's id
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Accessor method to access a monster's x-value.
+     * @param index (int) index of the monster
+     * @return (int) x-value
+     */
+    public int getX(int index) {
+        return store.getX(handles[index]);
+    }
+
+    /**
+     * Accessor method to access a monster's y-value.
+     * @param index (int) index of the monster
+     * @return (int) y-value
+     */
+    public int getY(int index) {
+        return store.getY(handles[index]);
+    }
+
+    /**
+     * Accessor method to access a monster's hit points.
+     * @param index (int) index of the monster
+     * @return (int) hit points
+     */
+    public int getHitPoints(int index) {
+        return hitPoints[index];
+    }
+
+    /**
+     * Accessor method to access the hit points a monster regenerates up to.
+     * @param index (int) index of the monster
+     * @return (int) most hit points
+     */
+    public int getMaxHitPoints(int index) {
+        return maxHitPoints[index];
+    }
+
+    /**
+     * Gives hit points back to a monster, up to its most hit points.
+     * @param index (int) index of the monster
+     * @param amount (int) hit points given back
+     */
+    public void heal(int index, int amount) {
+        hitPoints[index] = Math.min(maxHitPoints[index], hitPoints[index] + amount);
+    }
+
+    /**
+     * Accessor method to access a monster's name.
+     * @param index (int) index of the monster
+     * @return (String) name
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Takes hit points from a monster, removing it when none are left (the last monster takes its index).
+     * @param index (int) index of the monster
+     * @param amount (int) hit points taken
+     * @return (boolean) true if the monster was killed, false otherwise
+     */
+    public boolean damage(int index, int amount) {
+        hitPoints[index] -= amount;
+        if (hitPoints[index] > 0) {
+            return false;
+        }
+        if (width > 0) {
+            occupied.clear(store.getY(handles[index]) * width + store.getX(handles[index]));
+        }
+        store.release(handles[index]);
+        size--;
+        moveEntry(size, index);
+        names[size] = null;
+        return true;
+    }
+
+    /**
+     * Moves every monster one step: towards the player if they are in the room and close, otherwise wandering at
+     * random half of the time. Monsters only step onto free floor (not doors, stairs, obstacles, other monsters or the
+     * player).
+     * @param roomTiles (TileStore) tiles of the room
+     * @param playerTile (int) player's location packed with PackedPoint, or Room.NO_TILE if they are not in the room
+     * @param seed (long) seed of the session's random numbers
+     * @param turn (long) turn being played
+     * @return (boolean) true if any monster moved, false otherwise
+     */
+    public boolean update(TileStore roomTiles, int playerTile, long seed, long turn) {
+        return update(roomTiles, playerTile, null, seed, turn);
+    }
+
+    /**
+     * Moves every monster one step like update, also keeping them off the tiles of the players of a shared dungeon.
+     * @param roomTiles (TileStore) tiles of the room
+     * @param playerTile (int) location of the player the monsters chase packed with PackedPoint, or Room.NO_TILE
+     * @param sharedRoom (Room) room whose visitors the monsters do not step onto, null outside a shared dungeon
+     * @param seed (long) seed of the session's random numbers
+     * @param turn (long) turn being played
+     * @return (boolean) true if any monster moved, false otherwise
+     */
+    public boolean update(TileStore roomTiles, int playerTile, Room sharedRoom, long seed, long turn) {
+        boolean hasPlayer = playerTile != Room.NO_TILE;
+        int playerX = PackedPoint.getX(playerTile);
+        int playerY = PackedPoint.getY(playerTile);
+        boolean moved = false;
+        for (int i = 0; i < size; i++) {
+            int x = store.getX(handles[i]);
+            int y = store.getY(handles[i]);
+            int distanceX = playerX - x;
+            int distanceY = playerY - y;
+            int next;
+            if (hasPlayer && Math.abs(distanceX) + Math.abs(distanceY) < CHASE_DISTANCE) {
+                next = chaseStep(roomTiles, playerTile, sharedRoom, PackedPoint.pack(x, y));
+            } else {
+                long random = mix(seed + turn * TURN_STEP + ids[i] * ID_STEP);
+                int direction = (int) (random >>> 1) & DIRECTION_MASK;
+                boolean wanders = (random & 1) == 0;
+                next = (wanders && canEnter(roomTiles, playerTile, sharedRoom, x + STEP_X[direction],
+                        y + STEP_Y[direction]))
+                        ? PackedPoint.pack(x + STEP_X[direction], y + STEP_Y[direction]) : Room.NO_TILE;
+            }
+            if (next != Room.NO_TILE) {
+                occupied.clear(y * width + x);
+                occupied.set(PackedPoint.getY(next) * width + PackedPoint.getX(next));
+                store.setLocation(handles[i], next);
+                moved = true;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Works out a step towards the player, along the axis they are furthest away on first, then along the other.
+     * @param roomTiles (TileStore) tiles of the room
+     * @param playerTile (int) player's location packed with PackedPoint
+     * @param sharedRoom (Room) room whose visitors the monsters do not step onto, or null
+     * @param monsterTile (int) monster's location packed with PackedPoint
+     * @return (int) tile to step onto packed with PackedPoint, or Room.NO_TILE if the monster stays
+     */
+    private int chaseStep(TileStore roomTiles, int playerTile, Room sharedRoom, int monsterTile) {
+        int x = PackedPoint.getX(monsterTile);
+        int y = PackedPoint.getY(monsterTile);
+        int distanceX = PackedPoint.getX(playerTile) - x;
+        int distanceY = PackedPoint.getY(playerTile) - y;
+        int stepX = Integer.signum(distanceX);
+        int stepY = Integer.signum(distanceY);
+        boolean alongX = Math.abs(distanceX) >= Math.abs(distanceY);
+        int firstX = alongX ? x + stepX : x;
+        int firstY = alongX ? y : y + stepY;
+        int secondX = alongX ? x : x + stepX;
+        int secondY = alongX ? y + stepY : y;
+        if ((firstX != x || firstY != y) && canEnter(roomTiles, playerTile, sharedRoom, firstX, firstY)) {
+            return PackedPoint.pack(firstX, firstY);
+        }
+        if ((secondX != x || secondY != y) && canEnter(roomTiles, playerTile, sharedRoom, secondX, secondY)) {
+            return PackedPoint.pack(secondX, secondY);
+        }
+        return Room.NO_TILE;
+    }
+
+    /**
+     * Returns true if a monster can step onto a tile.
+     * @param roomTiles (TileStore) tiles of the room
+     * @param playerTile (int) player's location packed with PackedPoint, or Room.NO_TILE
+     * @param sharedRoom (Room) room whose visitors the monsters do not step onto, or null
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @return (boolean) true if the tile is free floor, false otherwise
+     */
+    private boolean canEnter(TileStore roomTiles, int playerTile, Room sharedRoom, int x, int y) {
+        if (!roomTiles.contains(x, y) || PackedPoint.pack(x, y) == playerTile || occupied.get(y * width + x)) {
+            return false;
+        }
+        if (sharedRoom != null && sharedRoom.hasVisitorAt(x, y)) {
+            return false;
+        }
+        return (roomTiles.get(x, y) & (TileStore.TERRAIN_MASK | TileStore.OBSTACLE)) == TileStore.FLOOR;
+    }
+
+    /**
+     * Copies a monster from one index to another.
+     * @param from (int) index copied from
+     * @param to (int) index copied to
+     */
+    private void moveEntry(int from, int to) {
+        ids[to] = ids[from];
+        handles[to] = handles[from];
+        hitPoints[to] = hitPoints[from];
+        maxHitPoints[to] = maxHitPoints[from];
+        names[to] = names[from];
+    }
+
+    /**
+     * Scrambles the bits of a value (the SplitMix64 finalizer), giving well spread random bits for nearby inputs.
+     * @param value (long) value to scramble
+     * @return (long) scrambled value
+     */
+    private static long mix(long value) {
+        long z = (value ^ (value >>> SHIFT_1)) * MIX_1;
+        z = (z ^ (z >>> SHIFT_2)) * MIX_2;
+        return z ^ (z >>> SHIFT_3);
+    }
+}
@@ -0,0 +1,553 @@
+package rogue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/*The state of a running game as a delta from its dungeon file: the level and room the player is in and where, which
+items are gone from the rooms, what the player carries, which tiles they have explored and where the monsters are.
+A world's state also holds the same delta for every other level the player has visited, and each carried item is
+saved as its level and id (item ids are only unique within a level). Encoded as a small binary record of variable
+length integers. A state only holds copies the game no longer changes, so it is encoded on the thread that writes it*/
+public class SaveState {
+
+    private static final int MAGIC = 0x52475356; /*"RGSV"*/
+    private static final int VERSION = 1;
+    private static final int MONSTER_FIELDS = 4; /*id, x, y and hit points of each monster*/
+    private static final int SEVEN_BITS = 0x7F;
+    private static final int CONTINUE_BIT = 0x80;
+    private static final int BITS_PER_BYTE = 7;
+
+    private int level;
+    private int roomId;
+    private int xPos;
+    private int yPos;
+    private int[] removedItemIds;
+    private int[] inventoryIds;
+    private int[] exploredRoomIds = new int[0];
+    private BitSet[] exploredTiles = new BitSet[0];
+    private long turn = 0;
+    private int[] monsterRoomIds = new int[0];
+    private int[][] monsters = new int[0][];
+    private int[] inventoryLevels; /*Level each carried item was found on, null if all are from this level*/
+    private int[] visitedLevels = new int[0];
+    private SaveState[] visitedStates = new SaveState[0];
+
+    /**
+     * Constructor that takes every part of the state.
+     * @param currentRoomId (int) id of the room the player is in
+     * @param x (int) player's x-value
+     * @param y (int) player's y-value
+     * @param removedIds (int[]) ids of the items no longer in the rooms they were loaded into
+     * @param inventory (int[]) ids of the items the player carries, in pick up order
+     */
+    public SaveState(int currentRoomId, int x, int y, int[] removedIds, int[] inventory) {
+        this(0, currentRoomId, x, y, removedIds, inventory);
+    }
+
+    /**
+     * Constructor that takes every part of the state, including the level the player is on.
+     * @param currentLevel (int) index of the level the player is on
+     * @param currentRoomId (int) id of the room the player is in
+     * @param x (int) player's x-value
+     * @param y (int) player's y-value
+     * @param removedIds (int[]) ids of the items no longer in the rooms they were loaded into
+     * @param inventory (int[]) ids of the items the player carries, in pick up order
+     */
+    public SaveState(int currentLevel, int currentRoomId, int x, int y, int[] removedIds, int[] inventory) {
+        level = currentLevel;
+        roomId = currentRoomId;
+        xPos = x;
+        yPos = y;
+        removedItemIds = removedIds;
+        inventoryIds = inventory;
+    }
+
+    /**
+     * Accessor method to access the level the player is on.
+     * @return (int) level index
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns a copy of the state on another level (a level's game does not know which level it is).
+     * @param newLevel (int) index of the level
+     * @return (SaveState) the same state on the given level
+     */
+    public SaveState withLevel(int newLevel) {
+        SaveState copy = copy();
+        copy.level = newLevel;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the state with the explored tiles of rooms.
+     * @param roomIds (int[]) ids of the rooms with explored tiles
+     * @param tiles (BitSet[]) explored tiles of each room (Room.getSavedExplored, not changed afterwards)
+     * @return (SaveState) the same state with the explored tiles
+     */
+    public SaveState withExplored(int[] roomIds, BitSet[] tiles) {
+        SaveState copy = copy();
+        copy.exploredRoomIds = roomIds;
+        copy.exploredTiles = tiles;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the state with the turn count and the monsters of rooms.
+     * @param turnCount (long) number of turns played
+     * @param roomIds (int[]) ids of the rooms with monsters (including rooms whose monsters were all killed)
+     * @param roomMonsters (int[][]) monsters of each room as id, x, y and hit points, one after another
+     * @return (SaveState) the same state with the monsters
+     */
+    public SaveState withMonsters(long turnCount, int[] roomIds, int[][] roomMonsters) {
+        SaveState copy = copy();
+        copy.turn = turnCount;
+        copy.monsterRoomIds = roomIds;
+        copy.monsters = roomMonsters;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the state with the level each carried item was found on.
+     * @param levels (int[]) level of each item in getInventoryIds
+     * @return (SaveState) the same state with the items' levels
+     */
+    public SaveState withInventoryLevels(int[] levels) {
+        SaveState copy = copy();
+        copy.inventoryLevels = levels;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the state with the states of the other levels the player has visited.
+     * @param levels (int[]) indexes of the levels
+     * @param states (SaveState[]) state of each level (only its items taken, explored tiles and monsters are kept)
+     * @return (SaveState) the same state with the visited levels
+     */
+    public SaveState withVisitedLevels(int[] levels, SaveState[] states) {
+        SaveState copy = copy();
+        copy.visitedLevels = levels;
+        copy.visitedStates = states;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of every part of the state.
+     * @return (SaveState) copy (sharing the arrays, which are not changed)
+     */
+    private SaveState copy() {
+        SaveState copy = new SaveState(level, roomId, xPos, yPos, removedItemIds, inventoryIds);
+        copy.exploredRoomIds = exploredRoomIds;
+        copy.exploredTiles = exploredTiles;
+        copy.turn = turn;
+        copy.monsterRoomIds = monsterRoomIds;
+        copy.monsters = monsters;
+        copy.inventoryLevels = inventoryLevels;
+        copy.visitedLevels = visitedLevels;
+        copy.visitedStates = visitedStates;
+        return copy;
+    }
+
+    /**
+     * Accessor method to access the level a carried item was found on.
+     * @param index (int) index of the item in getInventoryIds
+     * @return (int) level index (the player's level for saves from before items kept their level)
+     */
+    public int getInventoryLevel(int index) {
+        return (inventoryLevels == null) ? level : inventoryLevels[index];
+    }
+
+    /**
+     * Accessor method to access the other levels the player has visited.
+     * @return (int[]) level indexes
+     */
+    public int[] getVisitedLevels() {
+        return visitedLevels;
+    }
+
+    /**
+     * Accessor method to access the state of each level in getVisitedLevels.
+     * @return (SaveState[]) states of the levels
+     */
+    public SaveState[] getVisitedStates() {
+        return visitedStates;
+    }
+
+    /**
+     * Accessor method to access the number of turns played.
+     * @return (long) turn count
+     */
+    public long getTurn() {
+        return turn;
+    }
+
+    /**
+     * Accessor method to access the ids of the rooms with monsters.
+     * @return (int[]) room ids
+     */
+    public int[] getMonsterRoomIds() {
+        return monsterRoomIds;
+    }
+
+    /**
+     * Accessor method to access the monsters of each room in getMonsterRoomIds.
+     * @return (int[][]) id, x, y and hit points of each monster, one after another
+     */
+    public int[][] getMonsters() {
+        return monsters;
+    }
+
+    /**
+     * Accessor method to access the ids of the rooms with explored tiles.
+     * @return (int[]) room ids
+     */
+    public int[] getExploredRoomIds() {
+        return exploredRoomIds;
+    }
+
+    /**
+     * Accessor method to access the explored tiles of each room in getExploredRoomIds.
+     * @return (BitSet[]) explored tiles (bit y * width + x); must not be changed
+     */
+    public BitSet[] getExploredTiles() {
+        return exploredTiles;
+    }
+
+    /**
+     * Accessor method to access the id of the room the player is in.
+     * @return (int) room id
+     */
+    public int getRoomId() {
+        return roomId;
+    }
+
+    /**
+     * Accessor method to access the player's x-value.
+     * @return (int) x-value
+     */
+    public int getX() {
+        return xPos;
+    }
+
+    /**
+     * Accessor method to access the player's y-value.
+     * @return (int) y-value
+     */
+    public int getY() {
+        return yPos;
+    }
+
+    /**
+     * Accessor method to access the ids of the items no longer in their rooms.
+     * @return (int[]) item ids
+     */
+    public int[] getRemovedItemIds() {
+        return removedItemIds;
+    }
+
+    /**
+     * Accessor method to access the ids of the items the player carries.
+     * @return (int[]) item ids in pick up order
+     */
+    public int[] getInventoryIds() {
+        return inventoryIds;
+    }
+
+    /**
+     * Writes the state as a binary record.
+     * @param out (OutputStream) destination (not closed)
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        writeVarInt(data, level);
+        writeVarInt(data, zigZag(roomId));
+        writeVarInt(data, zigZag(xPos));
+        writeVarInt(data, zigZag(yPos));
+        writeRemovedIds(data);
+        writeIds(data, inventoryIds);
+        writeExplored(data);
+        writeMonsters(data);
+        for (int i = 0; i < inventoryIds.length; i++) {
+            writeVarInt(data, getInventoryLevel(i));
+        }
+        writeVarInt(data, visitedLevels.length);
+        for (int i = 0; i < visitedLevels.length; i++) {
+            writeVarInt(data, visitedLevels[i]);
+            visitedStates[i].writeRemovedIds(data);
+            visitedStates[i].writeExplored(data);
+            visitedStates[i].writeMonsters(data);
+        }
+        data.flush();
+    }
+
+    /**
+     * Writes the ids of the items taken from the rooms.
+     * @param data (DataOutputStream) destination
+     * @throws IOException if writing fails
+     */
+    private void writeRemovedIds(DataOutputStream data) throws IOException {
+        int[] sortedRemoved = removedItemIds.clone();
+        Arrays.sort(sortedRemoved); /*Sorted so each id is stored as a small gap from the one before*/
+        writeIds(data, sortedRemoved);
+    }
+
+    /**
+     * Writes the explored tiles of each room.
+     * @param data (DataOutputStream) destination
+     * @throws IOException if writing fails
+     */
+    private void writeExplored(DataOutputStream data) throws IOException {
+        writeVarInt(data, exploredRoomIds.length);
+        for (int i = 0; i < exploredRoomIds.length; i++) {
+            byte[] tiles = exploredTiles[i].toByteArray();
+            writeVarInt(data, zigZag(exploredRoomIds[i]));
+            writeVarInt(data, tiles.length);
+            data.write(tiles);
+        }
+    }
+
+    /**
+     * Writes the turn count and the monsters of each room.
+     * @param data (DataOutputStream) destination
+     * @throws IOException if writing fails
+     */
+    private void writeMonsters(DataOutputStream data) throws IOException {
+        writeVarLong(data, turn);
+        writeVarInt(data, monsterRoomIds.length);
+        for (int i = 0; i < monsterRoomIds.length; i++) {
+            writeVarInt(data, zigZag(monsterRoomIds[i]));
+            writeVarInt(data, monsters[i].length / MONSTER_FIELDS);
+            for (int value : monsters[i]) {
+                writeVarInt(data, zigZag(value));
+            }
+        }
+    }
+
+    /**
+     * Reads a state written by writeTo.
+     * @param in (InputStream) source (not closed)
+     * @return (SaveState) the state
+     * @throws IOException if reading fails or the data is not a save state
+     */
+    public static SaveState readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a Rogue save file");
+        }
+        int version = data.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported Rogue save file version " + version);
+        }
+        int currentLevel = readVarInt(data);
+        int currentRoomId = unZigZag(readVarInt(data));
+        int x = unZigZag(readVarInt(data));
+        int y = unZigZag(readVarInt(data));
+        int[] removedIds = readIds(data);
+        int[] inventory = readIds(data);
+        SaveState state = readMonsters(data, readExplored(data, new SaveState(currentLevel, currentRoomId, x, y,
+                removedIds, inventory)));
+        int[] levels = new int[inventory.length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = readVarInt(data);
+        }
+        int[] visited = new int[readVarInt(data)];
+        SaveState[] states = new SaveState[visited.length];
+        for (int i = 0; i < visited.length; i++) {
+            visited[i] = readVarInt(data);
+            states[i] = readMonsters(data, readExplored(data, new SaveState(visited[i], 0, 0, 0, readIds(data),
+                    new int[0])));
+        }
+        return state.withInventoryLevels(levels).withVisitedLevels(visited, states);
+    }
+
+    /**
+     * Reads the explored tiles written by writeExplored.
+     * @param data (DataInputStream) source
+     * @param state (SaveState) state read so far
+     * @return (SaveState) the state with the explored tiles
+     * @throws IOException if reading fails
+     */
+    private static SaveState readExplored(DataInputStream data, SaveState state) throws IOException {
+        int[] roomIds = new int[readVarInt(data)];
+        BitSet[] tiles = new BitSet[roomIds.length];
+        for (int i = 0; i < roomIds.length; i++) {
+            roomIds[i] = unZigZag(readVarInt(data));
+            byte[] bytes = new byte[readVarInt(data)];
+            data.readFully(bytes);
+            tiles[i] = BitSet.valueOf(bytes);
+        }
+        return state.withExplored(roomIds, tiles);
+    }
+
+    /**
+     * Reads the turn count and monsters written by writeMonsters.
+     * @param data (DataInputStream) source
+     * @param state (SaveState) state read so far
+     * @return (SaveState) the state with the monsters
+     * @throws IOException if reading fails
+     */
+    private static SaveState readMonsters(DataInputStream data, SaveState state) throws IOException {
+        long turnCount = readVarLong(data);
+        int[] roomIds = new int[readVarInt(data)];
+        int[][] roomMonsters = new int[roomIds.length][];
+        for (int i = 0; i < roomIds.length; i++) {
+            roomIds[i] = unZigZag(readVarInt(data));
+            roomMonsters[i] = new int[readVarInt(data) * MONSTER_FIELDS];
+            for (int j = 0; j < roomMonsters[i].length; j++) {
+                roomMonsters[i][j] = unZigZag(readVarInt(data));
+            }
+        }
+        return state.withMonsters(turnCount, roomIds, roomMonsters);
+    }
+
+    /**
+     * Writes the state to a file.
+     * @param filename (String) name of the file
+     * @throws IOException if writing fails
+     */
+    public void write(String filename) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename))) {
+            writeTo(out);
+        }
+    }
+
+    /**
+     * Reads a state from a file.
+     * @param filename (String) name of the file
+     * @return (SaveState) the state
+     * @throws IOException if reading fails or the file is not a save state
+     */
+    public static SaveState read(String filename) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filename))) {
+            return readFrom(in);
+        }
+    }
+
+    /**
+     * Writes a list of ids as a count followed by the zig-zag encoded gap from the previous id.
+     * @param data (DataOutputStream) destination
+     * @param ids (int[]) ids
+     * @throws IOException if writing fails
+     */
+    private static void writeIds(DataOutputStream data, int[] ids) throws IOException {
+        writeVarInt(data, ids.length);
+        int previous = 0;
+        for (int id : ids) {
+            writeVarInt(data, zigZag(id - previous));
+            previous = id;
+        }
+    }
+
+    /**
+     * Reads a list of ids written by writeIds.
+     * @param data (DataInputStream) source
+     * @return (int[]) ids
+     * @throws IOException if reading fails
+     */
+    private static int[] readIds(DataInputStream data) throws IOException {
+        int[] ids = new int[readVarInt(data)];
+        int previous = 0;
+        for (int i = 0; i < ids.length; i++) {
+            previous += unZigZag(readVarInt(data));
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    /**
+     * Writes an unsigned int 7 bits at a time, lowest bits first.
+     * @param data (DataOutputStream) destination
+     * @param value (int) value
+     * @throws IOException if writing fails
+     */
+    private static void writeVarInt(DataOutputStream data, int value) throws IOException {
+        while ((value & ~SEVEN_BITS) != 0) {
+            data.writeByte((value & SEVEN_BITS) | CONTINUE_BIT);
+            value >>>= BITS_PER_BYTE;
+        }
+        data.writeByte(value);
+    }
+
+    /**
+     * Reads an unsigned int written by writeVarInt.
+     * @param data (DataInputStream) source
+     * @return (int) value
+     * @throws IOException if reading fails
+     */
+    private static int readVarInt(DataInputStream data) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += BITS_PER_BYTE) {
+            int next = data.readUnsignedByte();
+            value |= (next & SEVEN_BITS) << shift;
+            if ((next & CONTINUE_BIT) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("Malformed variable length integer");
+    }
+
+    /**
+     * Writes an unsigned long 7 bits at a time, lowest bits first.
+     * @param data (DataOutputStream) destination
+     * @param value (long) value
+     * @throws IOException if writing fails
+     */
+    private static void writeVarLong(DataOutputStream data, long value) throws IOException {
+        while ((value & ~SEVEN_BITS) != 0) {
+            data.writeByte((int) (value & SEVEN_BITS) | CONTINUE_BIT);
+            value >>>= BITS_PER_BYTE;
+        }
+        data.writeByte((int) value);
+    }
+
+    /**
+     * Reads an unsigned long written by writeVarLong.
+     * @param data (DataInputStream) source
+     * @return (long) value
+     * @throws IOException if reading fails
+     */
+    private static long readVarLong(DataInputStream data) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += BITS_PER_BYTE) {
+            int next = data.readUnsignedByte();
+            value |= (long) (next & SEVEN_BITS) << shift;
+            if ((next & CONTINUE_BIT) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("Malformed variable length integer");
+    }
+
+    /**
+     * Maps signed ints to unsigned ones so small negative values stay small.
+     * @param value (int) signed value
+     * @return (int) zig-zag encoded value
+     */
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> (Integer.SIZE - 1));
+    }
+
+    /**
+     * Reverses zigZag.
+     * @param value (int) zig-zag encoded value
+     * @return (int) signed value
+     */
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
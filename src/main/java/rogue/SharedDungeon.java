@@ -0,0 +1,254 @@
+package rogue;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*Several players moving at the same time through one dungeon. Each room is guarded by one of STRIPES locks, picked
+from its id, and a move holds only the locks of the rooms it touches: one for a step inside a room, two for a step
+through a door. The two are always taken in stripe order, so players crossing a door in opposite directions cannot
+deadlock, and moves in rooms on different stripes never wait for each other. Every move that takes a turn also gives
+the monsters of the player's room their turn (under the same lock), so monsters only move in rooms that have players.
+Turns are counted across all players, and wounded monsters do not regenerate here. A player is moved by one thread at
+a time (i.e. the thread serving their connection)*/
+public class SharedDungeon {
+
+    private static final int STRIPES = 256; /*Power of two*/
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final ArrayList<Room> rooms;
+    private final Room startRoom;
+    private final long seed;
+    private final AtomicLong turns = new AtomicLong();
+
+    /**
+     * Constructor that shares a loaded dungeon. The dungeon's own player is taken out of it, the dungeon is played
+     * through this class afterwards.
+     * @param dungeon (Rogue) loaded dungeon
+     */
+    public SharedDungeon(Rogue dungeon) {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        rooms = dungeon.getRooms();
+        startRoom = dungeon.getCurrentRoom();
+        startRoom.setIsPlayerInRoom(false);
+        seed = dungeon.getSeed();
+    }
+
+    /**
+     * Accessor method to access the rooms of the dungeon.
+     * @return (ArrayList<Room>) rooms
+     */
+    public ArrayList<Room> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Places a player on the first free tile of the starting room.
+     * @param player (Player) player joining the dungeon
+     * @return (boolean) true if the player was placed, false if the starting room has no free tile
+     */
+    public boolean join(Player player) {
+        ReentrantLock lock = lockFor(startRoom);
+        lock.lock();
+        try {
+            for (int y = 1; y < startRoom.getHeight() - 1; y++) {
+                for (int x = 1; x < startRoom.getWidth() - 1; x++) {
+                    if (isFree(startRoom, x, y) && !startRoom.itemCheck(y, x)) {
+                        player.setLocation(x, y);
+                        player.setCurrentRoom(startRoom);
+                        startRoom.addVisitor(player);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a player out of the dungeon.
+     * @param player (Player) player leaving the dungeon
+     */
+    public void leave(Player player) {
+        Room currRoom = player.getCurrentRoom();
+        if (currRoom == null) {
+            return;
+        }
+        ReentrantLock lock = lockFor(currRoom);
+        lock.lock();
+        try {
+            currRoom.removeVisitor(player);
+            player.setCurrentRoom(null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves a player one step, picking up the items on the tile they step onto, going through the door they step
+     * onto or attacking the monster on it. Walls and other players block the step. The monsters of the room then
+     * take their turn.
+     * @param player (Player) player making the move (in the dungeon)
+     * @param input (char) Rogue.UP, Rogue.DOWN, Rogue.LEFT or Rogue.RIGHT
+     * @return (int) MoveResult code (MOVED, BLOCKED, PICKED_UP, CHANGED_ROOM, ATTACKED, or NO_OP for any other input)
+     */
+    public int move(Player player, char input) {
+        int x = player.getX();
+        int y = player.getY();
+        if (input == Rogue.UP) {
+            y--;
+        } else if (input == Rogue.DOWN) {
+            y++;
+        } else if (input == Rogue.RIGHT) {
+            x++;
+        } else if (input == Rogue.LEFT) {
+            x--;
+        } else {
+            return MoveResult.NO_OP;
+        }
+        Room currRoom = player.getCurrentRoom();
+        String entryDirection;
+        ReentrantLock lock = lockFor(currRoom);
+        lock.lock();
+        try {
+            if (!currRoom.getTiles().isPassable(x, y) || currRoom.hasVisitorAt(x, y)) {
+                return MoveResult.BLOCKED;
+            }
+            int monster = currRoom.getMonsters().find(x, y);
+            if (monster >= 0) {
+                currRoom.getMonsters().damage(monster, Rogue.PLAYER_DAMAGE);
+                playMonsters(currRoom, player);
+                return MoveResult.ATTACKED;
+            }
+            if (!currRoom.doorCheck(y, x)) {
+                int carried = player.getInventory().size();
+                currRoom.takeItemsAt(x, y, player, null); /*One pass over the room's own items*/
+                boolean pickUp = player.getInventory().size() > carried;
+                player.setLocation(x, y);
+                playMonsters(currRoom, player);
+                return pickUp ? MoveResult.PICKED_UP : MoveResult.MOVED;
+            }
+            entryDirection = getEntryDirection(currRoom, x, y);
+        } finally {
+            lock.unlock();
+        }
+        return enterDoor(player, currRoom, entryDirection);
+    }
+
+    /**
+     * Appends the room a player is in to a buffer, with every player in it.
+     * @param player (Player) player whose room is displayed
+     * @param roomBuilder (StringBuilder) buffer the room is appended to
+     */
+    public void render(Player player, StringBuilder roomBuilder) {
+        Room currRoom = player.getCurrentRoom();
+        ReentrantLock lock = lockFor(currRoom);
+        lock.lock();
+        try {
+            currRoom.displayRoom(roomBuilder);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves a player through a door into the connected room, holding the locks of both rooms (taken in stripe
+     * order), then plays the monsters of that room. Doors do not change while the dungeon is shared, so the
+     * connected room found without the locks held is still the right one.
+     * @param player (Player) player making the move
+     * @param currRoom (Room) room the player is leaving
+     * @param entryDirection (String) wall of the connected room the player enters through
+     * @return (int) MoveResult.CHANGED_ROOM if the player entered the connected room, MoveResult.BLOCKED otherwise
+     */
+    private int enterDoor(Player player, Room currRoom, String entryDirection) {
+        Door door = currRoom.getDoor(RoomGraph.getOppositeDirection(entryDirection));
+        Room nextRoom = (door == null) ? null : door.getOtherRoom(currRoom);
+        if (nextRoom == null) {
+            return MoveResult.BLOCKED;
+        }
+        int currStripe = stripeOf(currRoom);
+        int nextStripe = stripeOf(nextRoom);
+        ReentrantLock first = locks[Math.min(currStripe, nextStripe)];
+        ReentrantLock second = locks[Math.max(currStripe, nextStripe)];
+        first.lock();
+        second.lock(); /*Reentrant, so two rooms on the same stripe take the one lock twice*/
+        try {
+            int entryTile = nextRoom.getEntryTile(entryDirection);
+            if (entryTile == Room.NO_TILE || !isFree(nextRoom, PackedPoint.getX(entryTile),
+                    PackedPoint.getY(entryTile))) {
+                return MoveResult.BLOCKED;
+            }
+            currRoom.removeVisitor(player);
+            player.setLocation(PackedPoint.getX(entryTile), PackedPoint.getY(entryTile));
+            player.setCurrentRoom(nextRoom);
+            nextRoom.addVisitor(player);
+            playMonsters(nextRoom, player);
+            return MoveResult.CHANGED_ROOM;
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+    }
+
+    /**
+     * Gives the monsters of a room their turn, chasing the player who moved and keeping off every player's tile (the
+     * room's lock must be held).
+     * @param currRoom (Room) room the player is in
+     * @param player (Player) player who took the turn
+     */
+    private void playMonsters(Room currRoom, Player player) {
+        currRoom.getMonsters().update(currRoom.getTiles(), player.getLocation(), currRoom, seed,
+                turns.incrementAndGet());
+    }
+
+    /**
+     * Checks that no monster or player stands on a tile (the room's lock must be held).
+     * @param currRoom (Room) room of the tile
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @return (boolean) true if the tile is free, false otherwise
+     */
+    private static boolean isFree(Room currRoom, int x, int y) {
+        return !currRoom.getMonsters().isOccupied(x, y) && !currRoom.hasVisitorAt(x, y);
+    }
+
+    /**
+     * Returns the wall of the connected room a player stepping onto a door enters through (the opposite wall).
+     * @param currRoom (Room) room of the door
+     * @param x (int) x-value of the door
+     * @param y (int) y-value of the door
+     * @return (String) "N", "S", "E" or "W"
+     */
+    private static String getEntryDirection(Room currRoom, int x, int y) {
+        if (x == 0) {
+            return "E";
+        } else if (x == currRoom.getWidth() - 1) {
+            return "W";
+        } else if (y == 0) {
+            return "S";
+        }
+        return "N";
+    }
+
+    /**
+     * Returns the stripe a room belongs to (locks are always taken in stripe order).
+     * @param currRoom (Room) room
+     * @return (int) index of the room's lock
+     */
+    private static int stripeOf(Room currRoom) {
+        return currRoom.getId() & (STRIPES - 1);
+    }
+
+    /**
+     * Returns the lock of the stripe a room belongs to.
+     * @param currRoom (Room) room
+     * @return (ReentrantLock) lock guarding the room
+     */
+    private ReentrantLock lockFor(Room currRoom) {
+        return locks[stripeOf(currRoom)];
+    }
+}
@@ -0,0 +1,440 @@
+package rogue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*Serves a shared dungeon to remote terminal clients (telnet, or anything that sends keystrokes over TCP). A few
+selector threads run every connection with non-blocking sockets: each connection belongs to one selector thread,
+which reads its keystrokes, moves its player and writes its frames, so a player is only ever moved by one thread.
+Frames are sent as the changes from the client's previous frame (see AnsiFrameEncoder). A connection has at most one
+frame being written; while it is, the client is only marked as owing a frame, which is encoded from the newest state
+once the socket has room, so a slow client skips stale frames instead of making the server buffer them. Frames are
+refreshed every FRAME_MILLIS, so players see each other move*/
+public class TelnetServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 2323;
+    private static final int DEFAULT_THREADS = 2;
+    private static final long FRAME_MILLIS = 100;
+    private static final int READ_BUFFER_SIZE = 512;
+    private static final int BYTE_MASK = 0xFF; /*Bytes are fed to the parser as 0 to 255, so the IAC byte is 255*/
+    private static final int SEND_BUFFER_SIZE = 16 * 1024; /*Fixed, so the kernel holds a few frames and not megabytes*/
+    private static final int SCREEN_COLS = 80;
+    private static final int SCREEN_ROWS = 24;
+    private static final int ROOM_ROW = 2; /*Rows above the room: the message and a blank row*/
+    private static final String GOODBYE = "\r\nGoodbye\r\n";
+    private static final String FULL = "The dungeon is full\r\n";
+
+    /*Telnet options asked for, so clients send each key as it is typed without echoing it*/
+    private static final int ECHO = 1;
+    private static final int SUPPRESS_GO_AHEAD = 3;
+    private static final byte[] NEGOTIATION = {(byte) KeystrokeParser.IAC, (byte) KeystrokeParser.WILL, (byte) ECHO,
+        (byte) KeystrokeParser.IAC, (byte) KeystrokeParser.WILL, (byte) SUPPRESS_GO_AHEAD};
+
+    private static final int ARG_PORT = 1;
+    private static final int ARG_THREADS = 2;
+
+    private final SharedDungeon dungeon;
+    private final ServerSocketChannel serverChannel;
+    private final Selector[] selectors;
+    private final ArrayList<ConcurrentLinkedQueue<SocketChannel>> accepted = new ArrayList<>();
+    private final Thread[] threads;
+    private final AtomicInteger nextSelector = new AtomicInteger();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger droppedFrames = new AtomicInteger();
+    private final AtomicInteger playerNumber = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /*A client: its socket, player, keystroke parser and frames*/
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final Player player;
+        private final KeystrokeParser keys = new KeystrokeParser();
+        private String message = "Welcome to the shared dungeon";
+        private boolean outdated = true;
+        private final StringBuilder frame = new StringBuilder();
+        private final AnsiFrameEncoder encoder = new AnsiFrameEncoder(SCREEN_COLS, SCREEN_ROWS);
+        private ByteBuffer writing; /*Bytes partly written, null if none*/
+        private boolean frameOwed = false; /*A frame is due once the bytes being written are done*/
+        private boolean closing = false;
+
+        /**
+         * Constructor that takes the client's socket and player.
+         * @param clientChannel (SocketChannel) client's socket
+         * @param clientPlayer (Player) client's player
+         */
+        private Connection(SocketChannel clientChannel, Player clientPlayer) {
+            channel = clientChannel;
+            player = clientPlayer;
+            encoder.setScrollTop(ROOM_ROW);
+        }
+    }
+
+    /**
+     * Constructor that starts serving a dungeon.
+     * @param sharedDungeon (SharedDungeon) dungeon the clients play in
+     * @param port (int) port to listen on (0 picks a free port, see getPort)
+     * @param threadCount (int) number of selector threads
+     * @throws IOException if the port cannot be listened on
+     */
+    public TelnetServer(SharedDungeon sharedDungeon, int port, int threadCount) throws IOException {
+        dungeon = sharedDungeon;
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        selectors = new Selector[Math.max(1, threadCount)];
+        threads = new Thread[selectors.length];
+        for (int i = 0; i < selectors.length; i++) {
+            selectors[i] = Selector.open();
+            accepted.add(new ConcurrentLinkedQueue<>());
+        }
+        serverChannel.register(selectors[0], SelectionKey.OP_ACCEPT); /*The first thread also accepts*/
+        for (int i = 0; i < selectors.length; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> selectLoop(index), "rogue-telnet-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * Accessor method to access the port the server listens on.
+     * @return (int) port
+     * @throws IOException if the server's socket is closed
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Accessor method to access the number of clients connected.
+     * @return (int) number of connections
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Accessor method to access the number of frames skipped because a client was not reading fast enough.
+     * @return (int) number of dropped frames
+     */
+    public int getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * Stops serving: every connection is closed and the selector threads end.
+     * @throws IOException if the server's socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        for (Selector selector : selectors) {
+            selector.wakeup();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        serverChannel.close();
+    }
+
+    /**
+     * Runs one selector thread until the server is closed.
+     * @param index (int) index of the thread's selector
+     */
+    private void selectLoop(int index) {
+        Selector selector = selectors[index];
+        ByteBuffer input = ByteBuffer.allocate(READ_BUFFER_SIZE); /*Reused for every read of the thread*/
+        long lastRefresh = System.currentTimeMillis();
+        try {
+            while (running) {
+                selector.select(FRAME_MILLIS);
+                registerAccepted(selector, accepted.get(index));
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handleKey(key, input);
+                }
+                long now = System.currentTimeMillis();
+                boolean refresh = now - lastRefresh >= FRAME_MILLIS;
+                if (refresh) {
+                    lastRefresh = now;
+                }
+                for (SelectionKey key : selector.keys()) {
+                    if (key.isValid() && key.attachment() != null) {
+                        sendFrame(key, refresh);
+                    }
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() != null) {
+                    disconnect(key);
+                }
+            }
+            selector.close();
+        } catch (IOException | ClosedSelectorException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Handles a key the selector found ready.
+     * @param key (SelectionKey) ready key
+     * @param input (ByteBuffer) buffer to read into
+     */
+    private void handleKey(SelectionKey key, ByteBuffer input) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                acceptAll();
+                return;
+            }
+            if (key.isReadable()) {
+                readInput(key, input);
+            }
+            if (key.isValid() && key.isWritable()) {
+                writeOutput(key);
+            }
+        } catch (IOException e) {
+            disconnect(key); /*The client went away*/
+        }
+    }
+
+    /**
+     * Accepts every waiting client, handing them to the selector threads in turn.
+     * @throws IOException if a client cannot be accepted
+     */
+    private void acceptAll() throws IOException {
+        SocketChannel client = serverChannel.accept();
+        while (client != null) {
+            client.configureBlocking(false);
+            client.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER_SIZE);
+            client.setOption(StandardSocketOptions.TCP_NODELAY, true); /*Frames are small and should not wait*/
+            int index = Math.floorMod(nextSelector.getAndIncrement(), selectors.length);
+            accepted.get(index).add(client);
+            selectors[index].wakeup();
+            client = serverChannel.accept();
+        }
+    }
+
+    /**
+     * Registers the clients handed to a selector thread, each with a player in the dungeon.
+     * @param selector (Selector) thread's selector
+     * @param queue (ConcurrentLinkedQueue<SocketChannel>) clients handed to the thread
+     * @throws IOException if a client cannot be registered
+     */
+    private void registerAccepted(Selector selector, ConcurrentLinkedQueue<SocketChannel> queue) throws IOException {
+        SocketChannel client = queue.poll();
+        while (client != null) {
+            Player player = new Player("Player " + playerNumber.incrementAndGet());
+            if (!dungeon.join(player)) {
+                client.write(ByteBuffer.wrap(FULL.getBytes(StandardCharsets.UTF_8)));
+                client.close();
+            } else {
+                Connection connection = new Connection(client, player);
+                connection.writing = ByteBuffer.wrap(NEGOTIATION);
+                client.register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE, connection);
+                connectionCount.incrementAndGet();
+            }
+            client = queue.poll();
+        }
+    }
+
+    /**
+     * Reads what a client sent and plays the keystrokes in it.
+     * @param key (SelectionKey) client's key
+     * @param input (ByteBuffer) buffer to read into
+     * @throws IOException if the client's socket cannot be read
+     */
+    private void readInput(SelectionKey key, ByteBuffer input) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        input.clear();
+        int read = connection.channel.read(input);
+        if (read < 0) {
+            disconnect(key);
+            return;
+        }
+        for (int i = 0; i < read && !connection.closing; i++) {
+            char keystroke = connection.keys.feed(input.get(i) & BYTE_MASK);
+            if (keystroke != 0) {
+                playKey(connection, keystroke);
+            }
+        }
+        if (connection.closing) {
+            connection.frameOwed = false;
+            connection.writing = ByteBuffer.wrap(GOODBYE.getBytes(StandardCharsets.UTF_8));
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Plays a keystroke for a client: a move, a request for information or quitting.
+     * @param connection (Connection) client
+     * @param keystroke (char) keystroke
+     */
+    private void playKey(Connection connection, char keystroke) {
+        Player player = connection.player;
+        connection.outdated = true;
+        if (keystroke == Rogue.QUIT) {
+            connection.closing = true;
+        } else if (keystroke == Rogue.INVENTORY) {
+            Inventory inventory = player.getIndexedInventory();
+            connection.message = (inventory.size() == 0) ? "You do not have anything in your inventory"
+                    : "Inventory (" + inventory.getTypeSummary() + "): " + inventory.getSummary();
+        } else if (keystroke == Rogue.ROOMID) {
+            connection.message = "You are in Room " + player.getCurrentRoom().getId();
+        } else {
+            int result = dungeon.move(player, keystroke);
+            if (result == MoveResult.BLOCKED) {
+                connection.message = Rogue.BLOCKED_MESSAGE;
+            } else if (result == MoveResult.PICKED_UP) {
+                List<Item> items = player.getInventory();
+                connection.message = "You picked up " + items.get(items.size() - 1).getName() + "!";
+            } else if (result == MoveResult.CHANGED_ROOM) {
+                connection.message = "You have entered room " + player.getCurrentRoom().getId();
+            } else if (result == MoveResult.ATTACKED) {
+                connection.message = "You attack the monster in your way";
+            } else {
+                connection.message = "";
+            }
+        }
+    }
+
+    /**
+     * Sends a client's frame if it changed. While earlier bytes are still being written, the frame is only owed, and
+     * the newest one is encoded when the socket takes more.
+     * @param key (SelectionKey) client's key
+     * @param refresh (boolean) true to rebuild the frame even if the client did nothing (other players may have
+     * moved)
+     */
+    private void sendFrame(SelectionKey key, boolean refresh) {
+        Connection connection = (Connection) key.attachment();
+        if (connection.closing || !(refresh || connection.outdated)) {
+            return;
+        }
+        connection.outdated = false;
+        if (connection.writing != null) {
+            if (connection.frameOwed) {
+                droppedFrames.incrementAndGet(); /*The owed frame is never sent, the next one replaces it*/
+            }
+            connection.frameOwed = true;
+            return;
+        }
+        connection.frameOwed = true;
+        try {
+            writeOutput(key);
+        } catch (IOException e) {
+            disconnect(key);
+        }
+    }
+
+    /**
+     * Encodes a client's frame as the changes from the frame sent before it.
+     * @param connection (Connection) client
+     * @return (ByteBuffer) bytes to send (none if nothing changed), reused by the client's next frame
+     */
+    private ByteBuffer encodeFrame(Connection connection) {
+        StringBuilder frame = connection.frame;
+        frame.setLength(0);
+        frame.append(connection.message).append("\n\n");
+        dungeon.render(connection.player, frame);
+        return connection.encoder.encode(frame);
+    }
+
+    /**
+     * Writes as much of a client's bytes as the socket takes without blocking, encoding the owed frame when the
+     * bytes before it are done.
+     * @param key (SelectionKey) client's key
+     * @throws IOException if the client's socket cannot be written
+     */
+    private void writeOutput(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        while (true) {
+            if (connection.writing == null || !connection.writing.hasRemaining()) {
+                if (!connection.frameOwed) {
+                    break;
+                }
+                connection.frameOwed = false;
+                connection.writing = encodeFrame(connection);
+            }
+            connection.channel.write(connection.writing);
+            if (connection.writing.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE); /*Finished when the socket has room*/
+                return;
+            }
+        }
+        connection.writing = null;
+        if (connection.closing) {
+            disconnect(key);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Closes a client's connection and takes their player out of the dungeon.
+     * @param key (SelectionKey) client's key
+     */
+    private void disconnect(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        key.attach(null);
+        key.cancel();
+        if (connection == null) {
+            return;
+        }
+        dungeon.leave(connection.player);
+        connectionCount.decrementAndGet();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Serves the first level of a dungeon until the process is stopped.
+     * @param args command line parameters: configuration file, then optionally the port and the number of threads
+     * @throws IOException if the port cannot be listened on
+     * @throws InvalidDungeonException if the dungeon cannot be loaded
+     */
+    public static void main(String[] args) throws IOException, InvalidDungeonException {
+        if (args.length < 1) {
+            System.out.println("Usage: TelnetServer <configuration file> [port] [threads]");
+            return;
+        }
+        int port = (args.length > ARG_PORT) ? Integer.parseInt(args[ARG_PORT]) : DEFAULT_PORT;
+        int threadCount = (args.length > ARG_THREADS) ? Integer.parseInt(args[ARG_THREADS]) : DEFAULT_THREADS;
+        World world = new World(args[0], new Random().nextLong());
+        TelnetServer server = new TelnetServer(new SharedDungeon(world.getCurrentLevel()), port, threadCount);
+        System.out.println("Serving " + args[0] + " on port " + server.getPort() + " with " + threadCount
+                + " selector threads");
+        while (true) {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                server.close();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package rogue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*Per-tile state of a room held outside the heap, one byte per tile in row order: the low bits are the terrain and the
+high bits are flags (explored, obstacle, opaque). Reading or writing a tile does not allocate, so it can be used by the
+move path and by rendering alike, and rooms of 10,000 x 10,000 tiles take 100 MB of direct or mapped memory instead
+of an object per tile*/
+public final class TileStore {
+
+    public static final int FLOOR = 0;
+    public static final int NS_WALL = 1;
+    public static final int EW_WALL = 2;
+    public static final int DOOR = 3;
+    public static final int STAIRS = 4;
+    public static final int TERRAIN_MASK = 0x0F;
+
+    public static final int EXPLORED = 0x10;
+    public static final int OBSTACLE = 0x20;
+    public static final int OPAQUE = 0x40;
+    public static final int FLAG_MASK = 0xF0;
+
+    private static final String[] SYMBOL_NAMES = {"FLOOR", "NS_WALL", "EW_WALL", "DOOR", "STAIRS"};
+    private static final int BYTE_MASK = 0xFF;
+
+    private final ByteBuffer tiles;
+    private final int width;
+    private final int height;
+    private long opacityVersion = 0;
+
+    /**
+     * Constructor that wraps a buffer of width * height tiles.
+     * @param buffer (ByteBuffer) tile bytes
+     * @param tilesWide (int) width in tiles
+     * @param tilesHigh (int) height in tiles
+     */
+    private TileStore(ByteBuffer buffer, int tilesWide, int tilesHigh) {
+        tiles = buffer;
+        width = tilesWide;
+        height = tilesHigh;
+    }
+
+    /**
+     * Creates a store in direct (off-heap) memory, with every tile floor and no flags.
+     * @param tilesWide (int) width in tiles
+     * @param tilesHigh (int) height in tiles
+     * @return (TileStore) the store
+     */
+    public static TileStore allocate(int tilesWide, int tilesHigh) {
+        return new TileStore(ByteBuffer.allocateDirect(checkedSize(tilesWide, tilesHigh)), tilesWide, tilesHigh);
+    }
+
+    /**
+     * Creates a store mapped onto a file, which is created (with every tile floor) or grown if needed. Tiles written
+     * to the store are kept in the file, so flags such as EXPLORED outlive the game.
+     * @param filename (String) name of the file
+     * @param tilesWide (int) width in tiles
+     * @param tilesHigh (int) height in tiles
+     * @return (TileStore) the store
+     * @throws IOException if the file cannot be mapped
+     */
+    public static TileStore map(String filename, int tilesWide, int tilesHigh) throws IOException {
+        int size = checkedSize(tilesWide, tilesHigh);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            /*The mapping stays valid after the channel is closed*/
+            return new TileStore(channel.map(FileChannel.MapMode.READ_WRITE, 0, size), tilesWide, tilesHigh);
+        }
+    }
+
+    /**
+     * Returns the number of bytes a store of the given size takes.
+     * @param tilesWide (int) width in tiles
+     * @param tilesHigh (int) height in tiles
+     * @return (int) number of bytes
+     */
+    private static int checkedSize(int tilesWide, int tilesHigh) {
+        long size = (long) tilesWide * tilesHigh;
+        if (tilesWide < 0 || tilesHigh < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cannot store " + tilesWide + " x " + tilesHigh + " tiles");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Accessor method to access the width of the store.
+     * @return (int) width in tiles
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Accessor method to access the height of the store.
+     * @return (int) height in tiles
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns true if a location is inside the store.
+     * @param x (int) x-value of the location
+     * @param y (int) y-value of the location
+     * @return (boolean) true if the location has a tile, false otherwise
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Accessor method to access the byte of a tile (terrain and flags).
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @return (int) tile byte (0 to 255)
+     */
+    public int get(int x, int y) {
+        return tiles.get(y * width + x) & BYTE_MASK;
+    }
+
+    /**
+     * Mutator method to set the byte of a tile (terrain and flags).
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @param tile (int) tile byte (0 to 255)
+     */
+    public void set(int x, int y, int tile) {
+        int index = y * width + x;
+        int old = tiles.get(index) & BYTE_MASK;
+        tiles.put(index, (byte) tile);
+        if (isOpaqueTile(old) != isOpaqueTile(tile)) {
+            opacityVersion++; /*Tells cached fields of view they are out of date*/
+        }
+    }
+
+    /**
+     * Returns true if a tile blocks sight: a wall, or any tile with the OPAQUE flag.
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @return (boolean) true if the tile cannot be seen through, false otherwise
+     */
+    public boolean isOpaque(int x, int y) {
+        return isOpaqueTile(get(x, y));
+    }
+
+    /**
+     * Returns true if a tile byte blocks sight.
+     * @param tile (int) tile byte
+     * @return (boolean) true if the tile cannot be seen through, false otherwise
+     */
+    private static boolean isOpaqueTile(int tile) {
+        int terrain = tile & TERRAIN_MASK;
+        return terrain == NS_WALL || terrain == EW_WALL || (tile & OPAQUE) != 0;
+    }
+
+    /**
+     * Accessor method to access a count that changes whenever a tile starts or stops blocking sight.
+     * @return (long) opacity version
+     */
+    public long getOpacityVersion() {
+        return opacityVersion;
+    }
+
+    /**
+     * Accessor method to access the terrain of a tile.
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @return (int) terrain (i.e. FLOOR or DOOR)
+     */
+    public int getTerrain(int x, int y) {
+        return get(x, y) & TERRAIN_MASK;
+    }
+
+    /**
+     * Mutator method to set the terrain of a tile, keeping its flags.
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @param terrain (int) terrain (i.e. FLOOR or DOOR)
+     */
+    public void setTerrain(int x, int y, int terrain) {
+        set(x, y, (get(x, y) & FLAG_MASK) | (terrain & TERRAIN_MASK));
+    }
+
+    /**
+     * Returns true if a tile has a flag.
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @param flag (int) flag (i.e. EXPLORED or OBSTACLE)
+     * @return (boolean) true if the flag is set, false otherwise
+     */
+    public boolean hasFlag(int x, int y, int flag) {
+        return (get(x, y) & flag) != 0;
+    }
+
+    /**
+     * Mutator method to set a flag on a tile.
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @param flag (int) flag (i.e. EXPLORED or OBSTACLE)
+     */
+    public void setFlag(int x, int y, int flag) {
+        set(x, y, get(x, y) | flag);
+    }
+
+    /**
+     * Mutator method to clear a flag on a tile.
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @param flag (int) flag (i.e. EXPLORED or OBSTACLE)
+     */
+    public void clearFlag(int x, int y, int flag) {
+        set(x, y, get(x, y) & ~flag);
+    }
+
+    /**
+     * Returns true if the player can step onto a location: a floor, door or stairs tile without an obstacle.
+     * @param x (int) x-value of the location
+     * @param y (int) y-value of the location
+     * @return (boolean) true if the location can be stepped onto, false otherwise (including outside the store)
+     */
+    public boolean isPassable(int x, int y) {
+        if (!contains(x, y)) {
+            return false;
+        }
+        int tile = get(x, y);
+        int terrain = tile & TERRAIN_MASK;
+        return (terrain == FLOOR || terrain == DOOR || terrain == STAIRS) && (tile & OBSTACLE) == 0;
+    }
+
+    /**
+     * Accessor method to access the name of the symbol a terrain is displayed with.
+     * @param terrain (int) terrain (i.e. FLOOR or DOOR)
+     * @return (String) symbol name (i.e. "FLOOR" or "DOOR")
+     */
+    public static String getSymbolName(int terrain) {
+        return SYMBOL_NAMES[terrain];
+    }
+}
@@ -0,0 +1,297 @@
+package rogue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*Runs game events a number of turns from now (regeneration, respawns, delayed effects). Events wait in a
+hierarchical timing wheel: four wheels of 256 slots, each slot a turn, 256 turns, 65,536 turns and 16,777,216 turns
+wide. Scheduling and cancelling link or unlink an event in one slot, and a turn fires the events of one slot of the
+first wheel, moving the events of an outer slot down a wheel every 256 turns. Events are kept in parallel arrays
+(linked through their indexes), so millions can be pending without an object each, and a handle carries a
+generation so a stale handle cannot cancel a newer event*/
+public final class TurnScheduler {
+
+    /*Something that happens when an event is due; the three values are whatever it was scheduled with*/
+    public interface Handler {
+        /**
+         * Runs an event that is due.
+         * @param a (int) first value the event was scheduled with
+         * @param b (int) second value the event was scheduled with
+         * @param c (int) third value the event was scheduled with
+         */
+        void fire(int a, int b, int c);
+    }
+
+    public static final long NO_EVENT = -1L;
+
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int WHEELS = 4;
+    private static final int NONE = -1;
+    private static final int FIRING = -2; /*Slot of events taken out of a slot to be fired this turn*/
+    private static final int CANCELLED = -1; /*Kind of an event cancelled while it was being fired*/
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INDEX_BITS = 32;
+    private static final long INDEX_MASK = 0xFFFFFFFFL;
+
+    private final ArrayList<Handler> handlers = new ArrayList<>();
+    private final int[] heads = new int[WHEELS * SLOTS];
+    private long turn;
+    private int size = 0;
+
+    private long[] due = new long[INITIAL_CAPACITY];
+    private int[] kinds = new int[INITIAL_CAPACITY];
+    private int[] valuesA = new int[INITIAL_CAPACITY];
+    private int[] valuesB = new int[INITIAL_CAPACITY];
+    private int[] valuesC = new int[INITIAL_CAPACITY];
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int[] previous = new int[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private int used = 0; /*Indexes below this have been handed out*/
+    private int freeHead = NONE; /*Released indexes, linked through next*/
+
+    /**
+     * Default constructor, starting at turn 0.
+     */
+    public TurnScheduler() {
+        this(0);
+    }
+
+    /**
+     * Constructor that starts at a turn.
+     * @param startTurn (long) current turn
+     */
+    public TurnScheduler(long startTurn) {
+        turn = startTurn;
+        Arrays.fill(heads, NONE);
+    }
+
+    /**
+     * Registers something that events can be scheduled for.
+     * @param handler (Handler) what happens when such an event is due
+     * @return (int) kind to schedule the events with
+     */
+    public int addHandler(Handler handler) {
+        handlers.add(handler);
+        return handlers.size() - 1;
+    }
+
+    /**
+     * Accessor method to access the current turn.
+     * @return (long) turn
+     */
+    public long getTurn() {
+        return turn;
+    }
+
+    /**
+     * Accessor method to access the number of pending events.
+     * @return (int) number of events
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Drops every pending event and starts again at a turn (i.e. when a saved game is restored).
+     * @param startTurn (long) current turn
+     */
+    public void reset(long startTurn) {
+        Arrays.fill(heads, NONE);
+        for (int event = 0; event < used; event++) {
+            generations[event]++; /*Handles from before the reset no longer match*/
+        }
+        used = 0;
+        freeHead = NONE;
+        size = 0;
+        turn = startTurn;
+    }
+
+    /**
+     * Schedules an event.
+     * @param delay (long) number of turns from now (at least 1)
+     * @param kind (int) kind from addHandler
+     * @param a (int) first value passed to the handler
+     * @param b (int) second value passed to the handler
+     * @param c (int) third value passed to the handler
+     * @return (long) handle to cancel the event with
+     */
+    public long schedule(long delay, int kind, int a, int b, int c) {
+        if (delay < 1 || kind < 0 || kind >= handlers.size()) {
+            throw new IllegalArgumentException("Cannot schedule an event of kind " + kind + " in " + delay
+                    + " turns");
+        }
+        int event = allocate();
+        due[event] = turn + delay;
+        kinds[event] = kind;
+        valuesA[event] = a;
+        valuesB[event] = b;
+        valuesC[event] = c;
+        insert(event);
+        size++;
+        return ((long) generations[event] << INDEX_BITS) | event;
+    }
+
+    /**
+     * Cancels a pending event.
+     * @param handle (long) handle from schedule
+     * @return (boolean) true if the event was pending, false if it already fired or was cancelled
+     */
+    public boolean cancel(long handle) {
+        int event = (int) (handle & INDEX_MASK);
+        if (handle == NO_EVENT || event >= used || generations[event] != (int) (handle >>> INDEX_BITS)
+                || kinds[event] == CANCELLED) {
+            return false;
+        }
+        size--;
+        if (slots[event] == FIRING) {
+            kinds[event] = CANCELLED; /*Released when the firing loop reaches it*/
+        } else {
+            unlink(event);
+            release(event);
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the next call to advance may fire events (something is in the next turn's slot, or an outer
+     * wheel moves down on that turn).
+     * @return (boolean) true if events may be due next turn, false if the next turn fires nothing
+     */
+    public boolean hasEventsDue() {
+        long nextTurn = turn + 1;
+        return heads[(int) nextTurn & SLOT_MASK] != NONE || (nextTurn & SLOT_MASK) == 0;
+    }
+
+    /**
+     * Moves on one turn, firing every event due on it (in one batch from one slot).
+     * @return (int) number of events fired
+     */
+    public int advance() {
+        turn++;
+        for (int wheel = WHEELS - 1; wheel > 0; wheel--) {
+            if ((turn & ((1L << (SLOT_BITS * wheel)) - 1)) == 0) {
+                cascade(wheel, (int) (turn >>> (SLOT_BITS * wheel)) & SLOT_MASK);
+            }
+        }
+        int slot = (int) turn & SLOT_MASK;
+        int event = heads[slot];
+        if (event == NONE) {
+            return 0;
+        }
+        heads[slot] = NONE;
+        for (int e = event; e != NONE; e = next[e]) {
+            slots[e] = FIRING;
+        }
+        int fired = 0;
+        while (event != NONE) {
+            int following = next[event];
+            int kind = kinds[event];
+            if (kind == CANCELLED) {
+                release(event);
+            } else if (due[event] != turn) {
+                insert(event); /*A far event that shares the slot*/
+            } else {
+                int a = valuesA[event];
+                int b = valuesB[event];
+                int c = valuesC[event];
+                release(event); /*Before firing, so the handler can schedule into the freed index*/
+                size--;
+                fired++;
+                handlers.get(kind).fire(a, b, c);
+            }
+            event = following;
+        }
+        return fired;
+    }
+
+    /**
+     * Moves the events of a slot of an outer wheel to the wheels nearer now.
+     * @param wheel (int) wheel of the slot
+     * @param slot (int) slot within the wheel
+     */
+    private void cascade(int wheel, int slot) {
+        int head = wheel * SLOTS + slot;
+        int event = heads[head];
+        heads[head] = NONE;
+        while (event != NONE) {
+            int following = next[event];
+            insert(event);
+            event = following;
+        }
+    }
+
+    /**
+     * Links an event into the slot its due turn falls in.
+     * @param event (int) index of the event
+     */
+    private void insert(int event) {
+        long delta = due[event] - turn;
+        int wheel = 0;
+        while (wheel < WHEELS - 1 && delta >= (1L << (SLOT_BITS * (wheel + 1)))) {
+            wheel++;
+        }
+        int head = wheel * SLOTS + ((int) (due[event] >>> (SLOT_BITS * wheel)) & SLOT_MASK);
+        slots[event] = head;
+        previous[event] = NONE;
+        next[event] = heads[head];
+        if (heads[head] != NONE) {
+            previous[heads[head]] = event;
+        }
+        heads[head] = event;
+    }
+
+    /**
+     * Unlinks an event from its slot.
+     * @param event (int) index of the event
+     */
+    private void unlink(int event) {
+        if (previous[event] != NONE) {
+            next[previous[event]] = next[event];
+        } else {
+            heads[slots[event]] = next[event];
+        }
+        if (next[event] != NONE) {
+            previous[next[event]] = previous[event];
+        }
+    }
+
+    /**
+     * Hands out an unused event index, growing the arrays if needed.
+     * @return (int) index of the event
+     */
+    private int allocate() {
+        if (freeHead != NONE) {
+            int event = freeHead;
+            freeHead = next[event];
+            return event;
+        }
+        if (used == due.length) {
+            int capacity = due.length * 2;
+            due = Arrays.copyOf(due, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            valuesA = Arrays.copyOf(valuesA, capacity);
+            valuesB = Arrays.copyOf(valuesB, capacity);
+            valuesC = Arrays.copyOf(valuesC, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+        }
+        return used++;
+    }
+
+    /**
+     * Returns an event index to the free list, so handles to it no longer match.
+     * @param event (int) index of the event
+     */
+    private void release(int event) {
+        generations[event]++;
+        kinds[event] = CANCELLED;
+        slots[event] = NONE;
+        next[event] = freeHead;
+        freeHead = event;
+    }
+}
@@ -0,0 +1,98 @@
+package rogue;
+
+/*A camera over a room: the window of the room that fits on the screen. The window follows the player, scrolling
+once they come within a margin of its edge, and only the window is rendered, so a frame costs the same however large
+the room is*/
+public class Viewport {
+
+    private static final int MARGIN_DIVISOR = 4; /*Scroll when the player is within a quarter of the window of an edge*/
+
+    private int cols;
+    private int rows;
+    private int left = 0;
+    private int top = 0;
+
+    /**
+     * Constructor that sets the size of the window.
+     * @param width (int) number of columns shown
+     * @param height (int) number of rows shown
+     */
+    public Viewport(int width, int height) {
+        cols = width;
+        rows = height;
+    }
+
+    /**
+     * Moves the window so the player is inside it and away from its edges (or to the room's top left corner if the
+     * whole room fits).
+     * @param room (Room) room being shown
+     * @param x (int) player's x-value
+     * @param y (int) player's y-value
+     */
+    public void follow(Room room, int x, int y) {
+        left = scroll(left, x, cols, room.getWidth());
+        top = scroll(top, y, rows, room.getHeight());
+    }
+
+    /**
+     * Works out the new start of the window along one axis.
+     * @param start (int) current start of the window
+     * @param position (int) player's position along the axis
+     * @param size (int) size of the window along the axis
+     * @param roomSize (int) size of the room along the axis
+     * @return (int) new start of the window
+     */
+    private static int scroll(int start, int position, int size, int roomSize) {
+        if (roomSize <= size) {
+            return 0;
+        }
+        int margin = size / MARGIN_DIVISOR;
+        if (position < start + margin) {
+            start = position - margin;
+        } else if (position >= start + size - margin) {
+            start = position - size + margin + 1;
+        }
+        return Math.max(0, Math.min(start, roomSize - size));
+    }
+
+    /**
+     * Appends the window of a room to a (reusable) buffer.
+     * @param room (Room) room being shown
+     * @param roomBuilder (StringBuilder) buffer the window is appended to
+     */
+    public void render(Room room, StringBuilder roomBuilder) {
+        room.displayRoom(roomBuilder, left, top, cols, rows);
+    }
+
+    /**
+     * Accessor method to access the x-value of the window's first column.
+     * @return (int) first column
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * Accessor method to access the y-value of the window's first row.
+     * @return (int) first row
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Accessor method to access the number of columns shown.
+     * @return (int) width of the window
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Accessor method to access the number of rows shown.
+     * @return (int) height of the window
+     */
+    public int getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,585 @@
+package rogue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*A world of levels, each a dungeon file of its own, joined by stairs. Levels are loaded when first entered (or in the
+background when the player nears stairs to them) and kept in a least recently used cache with a memory budget (which
+levels loaded in the background count against too), so a deep world never needs every level in memory. The state of
+each level is captured when the player leaves it, so an unloaded level comes back with its items taken, tiles explored
+and monsters where they were, and a save holds every visited level*/
+public class World implements AutoCloseable {
+
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+    private static final int PRELOAD_DISTANCE = 5;
+    private static final long LEVEL_SEED_STEP = 0x9E3779B97F4A7C15L;
+    /*Rough sizes for the memory budget: a byte per tile plus the objects around each room and item*/
+    private static final long ROOM_BYTES = 512;
+    private static final long ITEM_BYTES = 128;
+    private static final long MONSTER_BYTES = 32;
+    /*The level cache is kept in access order, so its first entry is the least recently used level*/
+    private static final int INITIAL_LEVELS = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final boolean ACCESS_ORDER = true;
+
+    /*Both are read by the background loader and replaced (never changed) by reloads of the configuration*/
+    private volatile List<String> levelFiles;
+    private volatile HashMap<String, Character> symbols;
+    private long seed;
+    private long memoryBudget;
+    private LinkedHashMap<Integer, Rogue> levels = new LinkedHashMap<>(INITIAL_LEVELS, LOAD_FACTOR, ACCESS_ORDER);
+    private HashMap<Integer, Long> levelBytes = new HashMap<>();
+    private long cachedBytes = 0;
+    private AtomicLong preloadedBytes = new AtomicLong(); /*Levels loaded in the background but not yet entered*/
+    private HashMap<Integer, SaveState> leftLevels = new HashMap<>(); /*Every visited level but the current one*/
+    private WeakHashMap<EntityStore, Integer> storeLevels = new WeakHashMap<>(); /*Level each loaded store is of*/
+    private HashMap<Integer, Future<Rogue>> preloading = new HashMap<>();
+    private ExecutorService preloader = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "rogue-level-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Player player = new Player();
+    private Viewport viewport;
+    private int sightRadius = 0;
+    private EventBus events;
+    private Rogue current;
+    private int currentLevel = 0;
+    private String message = "";
+    private ConcurrentLinkedQueue<Runnable> pendingUpdates = new ConcurrentLinkedQueue<>();
+    private String notice; /*Message from a background task, shown after the next input*/
+
+    /**
+     * Constructor that loads the first level of the world named by a configuration file.
+     * @param configurationFile (String) file naming the rooms file of each level and the symbols file
+     * @param worldSeed (long) seed of the session's random numbers (each level's seed is worked out from it)
+     * @throws InvalidDungeonException if the configuration or the first level cannot be used
+     */
+    public World(String configurationFile, long worldSeed) throws InvalidDungeonException {
+        this(configurationFile, worldSeed, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * Constructor that loads the first level of the world named by a configuration file.
+     * @param configurationFile (String) file naming the rooms file of each level and the symbols file
+     * @param worldSeed (long) seed of the session's random numbers (each level's seed is worked out from it)
+     * @param budget (long) estimated bytes of loaded levels to keep before unloading the least recently used ones
+     * @throws InvalidDungeonException if the configuration or the first level cannot be used
+     */
+    public World(String configurationFile, long worldSeed, long budget) throws InvalidDungeonException {
+        seed = worldSeed;
+        memoryBudget = budget;
+        /*The symbols are read on the loader thread while this one reads the first level's rooms file*/
+        CompletableFuture<HashMap<String, Character>> symbolsRead = CompletableFuture.supplyAsync(() -> {
+            Map<String, String> locations = RogueParser.readFileLocations(configurationFile);
+            return (locations == null) ? null : RogueParser.readSymbols(locations.get(RogueParser.SYMBOLS_KEY));
+        }, preloader);
+        levelFiles = RogueParser.readLevelLocations(configurationFile);
+        if (levelFiles == null || levelFiles.isEmpty()) {
+            throw new InvalidDungeonException("World cannot be loaded from " + configurationFile);
+        }
+        RogueParser firstParser = new RogueParser(levelFiles.get(0), symbolsRead);
+        symbols = symbolsRead.join();
+        if (symbols == null) {
+            throw new InvalidDungeonException("World cannot be loaded from " + configurationFile);
+        }
+        current = loadLevel(0, firstParser);
+        cacheLevel(0, current);
+        current.setPlayer(player);
+    }
+
+    /**
+     * Evaluates the player's input on the current level (like Rogue.tryMove), moving the player to another level
+     * when they take stairs.
+     * @param input (char) player's input
+     * @return (int) MoveResult code
+     */
+    public int tryMove(char input) {
+        applyPendingUpdates();
+        int result = current.tryMove(input);
+        message = current.getMessage();
+        if (notice != null) {
+            message = notice;
+            notice = null;
+        }
+        if (result == MoveResult.CHANGED_LEVEL) {
+            try {
+                enterLevel(current.getStairLevel());
+            } catch (InvalidDungeonException e) {
+                message = "The stairs lead nowhere";
+            }
+        } else if (MoveResult.isMove(result)) {
+            preloadNearbyLevel();
+        }
+        return result;
+    }
+
+    /**
+     * Queues a change to the world (such as reloaded levels or symbols) to be applied before the next input is
+     * handled. Can be called from any thread, the change itself always runs on the thread playing the game.
+     * @param update (Runnable) change to apply
+     */
+    public void submitUpdate(Runnable update) {
+        pendingUpdates.add(update);
+    }
+
+    /**
+     * Shows a message (i.e. a problem found by a background task) on the message line after the next input, in place
+     * of that input's narration. Can be called from any thread.
+     * @param text (String) message to show
+     */
+    public void postMessage(String text) {
+        submitUpdate(() -> notice = text);
+    }
+
+    /**
+     * Applies the queued changes (tryMove does this before each input).
+     */
+    private void applyPendingUpdates() {
+        Runnable update = pendingUpdates.poll();
+        while (update != null) {
+            update.run();
+            update = pendingUpdates.poll();
+        }
+    }
+
+    /**
+     * Replaces the symbols of every loaded level and of the levels loaded from now on. Must run on the thread playing
+     * the game (see submitUpdate).
+     * @param newSymbols (HashMap<String, Character>) symbols (not changed after being passed in)
+     */
+    public void applySymbols(HashMap<String, Character> newSymbols) {
+        symbols = newSymbols;
+        for (Rogue level : levels.values()) {
+            level.applySymbols(newSymbols);
+        }
+    }
+
+    /**
+     * Replaces the rooms files levels are loaded from (i.e. after the configuration file changed). Must run on the
+     * thread playing the game (see submitUpdate).
+     * @param newLevelFiles (List<String>) rooms file of each level (not changed after being passed in)
+     */
+    public void applyLevelFiles(List<String> newLevelFiles) {
+        levelFiles = newLevelFiles;
+    }
+
+    /**
+     * Applies the reloaded rooms file of a level (see Rogue.applyRoomChanges) if the level is loaded. A level that is
+     * not loaded reads its file again when it is, so only a background load of the old file is dropped. Must run on
+     * the thread playing the game (see submitUpdate).
+     * @param level (int) index of the level
+     * @param reloaded (Rogue) game loaded from the changed rooms file, with the level's seed (see getLevelSeed)
+     */
+    public void applyLevelChanges(int level, Rogue reloaded) {
+        Rogue loaded = levels.get(level);
+        if (loaded != null) {
+            loaded.applyRoomChanges(reloaded);
+            return;
+        }
+        try {
+            takePreloadedLevel(level);
+        } catch (InvalidDungeonException e) {
+            return; /*The old file could not be used either*/
+        }
+    }
+
+    /**
+     * Accessor method to access the seed of a level's random numbers (worked out from the world's seed).
+     * @param level (int) index of the level
+     * @return (long) seed of the level
+     */
+    public long getLevelSeed(int level) {
+        return seed + level * LEVEL_SEED_STEP;
+    }
+
+    /**
+     * Accessor method to access the message narrating the last move.
+     * @return (String) message for the last move
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Accessor method to access the string of the next instance of the room the player is in.
+     * @return (String) updated room instance
+     */
+    public String getNextDisplay() {
+        return current.getNextDisplay();
+    }
+
+    /**
+     * Accessor method to access the game of the level the player is on.
+     * @return (Rogue) current level
+     */
+    public Rogue getCurrentLevel() {
+        return current;
+    }
+
+    /**
+     * Accessor method to access a loaded level.
+     * @param level (int) index of the level
+     * @return (Rogue) the level's game, or null if the level is not loaded
+     */
+    public Rogue getLoadedLevel(int level) {
+        return levels.get(level);
+    }
+
+    /**
+     * Accessor method to access the index of the level the player is on.
+     * @return (int) level index
+     */
+    public int getLevelNumber() {
+        return currentLevel;
+    }
+
+    /**
+     * Accessor method to access the number of levels in the world.
+     * @return (int) number of levels
+     */
+    public int getLevelCount() {
+        return levelFiles.size();
+    }
+
+    /**
+     * Accessor method to access the number of levels in memory.
+     * @return (int) number of loaded levels
+     */
+    public int getLoadedLevelCount() {
+        return levels.size();
+    }
+
+    /**
+     * Accessor method to access the estimated memory used by the loaded levels (including those loaded in the
+     * background).
+     * @return (long) estimated bytes
+     */
+    public long getLoadedBytes() {
+        return cachedBytes + preloadedBytes.get();
+    }
+
+    /**
+     * Accessor method to access the seed of the session's random numbers.
+     * @return (long) seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Mutator method to set up the player (who is carried from level to level).
+     * @param thePlayer (Player) current player
+     */
+    public void setPlayer(Player thePlayer) {
+        player = thePlayer;
+        current.setPlayer(player);
+    }
+
+    /**
+     * Mutator method to set the window of the room that is displayed, on every level.
+     * @param newViewport (Viewport) viewport that follows the player, or null to display whole rooms
+     */
+    public void setViewport(Viewport newViewport) {
+        viewport = newViewport;
+        current.setViewport(viewport);
+    }
+
+    /**
+     * Mutator method to set how far the player can see, on every level.
+     * @param radius (int) sight radius in tiles, 0 to show whole rooms
+     */
+    public void setSightRadius(int radius) {
+        sightRadius = radius;
+        current.setSightRadius(radius);
+    }
+
+    /**
+     * Mutator method to set the bus the events of every level's moves are published to.
+     * @param eventBus (EventBus) bus, or null to publish nothing
+     */
+    public void setEventBus(EventBus eventBus) {
+        events = eventBus;
+        current.setEventBus(events);
+    }
+
+    /**
+     * Returns true if getSaveState can capture the game without waiting for monsters moving in the background.
+     * @return (boolean) true if a save can be taken at once, false otherwise
+     */
+    public boolean isSaveReady() {
+        return current.isSaveReady();
+    }
+
+    /**
+     * Captures the state of the game: the level the player is on, every other level they have visited and the level
+     * each carried item was found on.
+     * @return (SaveState) state of the game
+     */
+    public SaveState getSaveState() {
+        List<Item> carried = player.getInventory();
+        int[] itemLevels = new int[carried.size()];
+        for (int i = 0; i < itemLevels.length; i++) {
+            Integer found = storeLevels.get(carried.get(i).getStore());
+            itemLevels[i] = (found == null) ? currentLevel : found;
+        }
+        int[] visited = new int[leftLevels.size()];
+        SaveState[] states = new SaveState[visited.length];
+        int i = 0;
+        for (Map.Entry<Integer, SaveState> entry : leftLevels.entrySet()) {
+            visited[i] = entry.getKey();
+            states[i++] = entry.getValue();
+        }
+        return current.getSaveState().withLevel(currentLevel).withInventoryLevels(itemLevels)
+                .withVisitedLevels(visited, states);
+    }
+
+    /**
+     * Applies a saved state to a freshly loaded world, loading the saved level and the levels of carried items (other
+     * visited levels get their state back when they are loaded).
+     * @param state (SaveState) state from getSaveState
+     * @throws InvalidDungeonException if the saved level or room does not exist in this world
+     */
+    public void restore(SaveState state) throws InvalidDungeonException {
+        for (int i = 0; i < state.getVisitedLevels().length; i++) {
+            int level = state.getVisitedLevels()[i];
+            if (level == state.getLevel()) {
+                continue;
+            }
+            leftLevels.put(level, state.getVisitedStates()[i]);
+            Rogue loaded = levels.get(level);
+            if (loaded != null) {
+                loaded.restoreLevel(state.getVisitedStates()[i]);
+            }
+        }
+        Rogue savedLevel = getLevel(state.getLevel());
+        ArrayList<Item> carried = new ArrayList<>();
+        for (int i = 0; i < state.getInventoryIds().length; i++) {
+            int level = state.getInventoryLevel(i);
+            Item carriedItem = (level == state.getLevel()) ? savedLevel.getItem(state.getInventoryIds()[i])
+                    : getLevel(level).getItem(state.getInventoryIds()[i]);
+            if (carriedItem != null) {
+                carried.add(carriedItem);
+            }
+        }
+        savedLevel.setPlayer(player);
+        savedLevel.setViewport(viewport);
+        savedLevel.setSightRadius(sightRadius);
+        savedLevel.setEventBus(events);
+        savedLevel.restore(state, carried);
+        current = savedLevel;
+        currentLevel = state.getLevel();
+        unloadOverBudget();
+    }
+
+    /**
+     * Stops the background loading of levels.
+     */
+    @Override
+    public void close() {
+        preloader.shutdownNow();
+    }
+
+    /**
+     * Moves the player to another level, onto the stairs leading back to the level they came from.
+     * @param level (int) index of the level
+     * @throws InvalidDungeonException if the level does not exist or cannot be used
+     */
+    private void enterLevel(int level) throws InvalidDungeonException {
+        Rogue next = getLevel(level);
+        leftLevels.put(currentLevel, current.getSaveState());
+        leftLevels.remove(level);
+        next.setPlayer(player);
+        next.setViewport(viewport);
+        next.setSightRadius(sightRadius);
+        next.setEventBus(events);
+        next.enterFromLevel(currentLevel);
+        current = next;
+        currentLevel = level;
+        unloadOverBudget();
+    }
+
+    /**
+     * Starts loading, in the background, the level of any stairs near the player. The loaded level counts against
+     * the memory budget from the moment it is loaded, and no load is started while the budget is used up.
+     */
+    private void preloadNearbyLevel() {
+        int level = current.getNearbyStairLevel(PRELOAD_DISTANCE);
+        if (level < 0 || level >= levelFiles.size() || levels.containsKey(level) || preloading.containsKey(level)) {
+            return;
+        }
+        unloadOverBudget();
+        if (cachedBytes + preloadedBytes.get() > memoryBudget) {
+            return;
+        }
+        preloading.put(level, preloader.submit(() -> {
+            Rogue loaded = loadLevel(level);
+            preloadedBytes.addAndGet(estimateBytes(loaded));
+            return loaded;
+        }));
+    }
+
+    /**
+     * Accessor method to access a level, from the cache, from a background load or by loading it now.
+     * @param level (int) index of the level
+     * @return (Rogue) the level's game
+     * @throws InvalidDungeonException if the level does not exist or cannot be used
+     */
+    private Rogue getLevel(int level) throws InvalidDungeonException {
+        Rogue cached = levels.get(level);
+        if (cached != null) {
+            return cached;
+        }
+        Rogue loaded = takePreloadedLevel(level);
+        if (loaded == null) {
+            loaded = loadLevel(level);
+        }
+        cacheLevel(level, loaded);
+        return loaded;
+    }
+
+    /**
+     * Adds a loaded level to the cache, giving it back the state it had when the player last left it.
+     * @param level (int) index of the level
+     * @param loaded (Rogue) the level's game
+     */
+    private void cacheLevel(int level, Rogue loaded) {
+        SaveState left = leftLevels.get(level);
+        if (left != null) {
+            loaded.restoreLevel(left);
+        }
+        storeLevels.put(loaded.getEntities(), level);
+        long bytes = estimateBytes(loaded);
+        levels.put(level, loaded);
+        levelBytes.put(level, bytes);
+        cachedBytes += bytes;
+    }
+
+    /**
+     * Waits for a background load of a level, if one was started.
+     * @param level (int) index of the level
+     * @return (Rogue) the level's game, or null if it was not being loaded
+     * @throws InvalidDungeonException if the level cannot be used
+     */
+    private Rogue takePreloadedLevel(int level) throws InvalidDungeonException {
+        Future<Rogue> pending = preloading.remove(level);
+        if (pending == null) {
+            return null;
+        }
+        try {
+            Rogue loaded = pending.get();
+            preloadedBytes.addAndGet(-estimateBytes(loaded)); /*Counted in the cache from now on*/
+            return loaded;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvalidDungeonException) {
+                throw (InvalidDungeonException) e.getCause();
+            }
+            throw new InvalidDungeonException("Level " + level + " cannot be loaded: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidDungeonException("Loading level " + level + " was interrupted");
+        }
+    }
+
+    /**
+     * Loads a level from its rooms file (safe to call from the background loader, it only reads shared fields that
+     * never change).
+     * @param level (int) index of the level
+     * @return (Rogue) the level's game
+     * @throws InvalidDungeonException if the level does not exist or cannot be used
+     */
+    private Rogue loadLevel(int level) throws InvalidDungeonException {
+        if (level < 0 || level >= levelFiles.size()) {
+            throw new InvalidDungeonException("There is no level " + level);
+        }
+        return loadLevel(level, new RogueParser(levelFiles.get(level), symbols));
+    }
+
+    /**
+     * Makes a level's game from its parsed rooms file.
+     * @param level (int) index of the level
+     * @param levelParser (RogueParser) parser of the level's rooms file
+     * @return (Rogue) the level's game
+     * @throws InvalidDungeonException if the rooms file could not be read or the level cannot be used
+     */
+    private Rogue loadLevel(int level, RogueParser levelParser) throws InvalidDungeonException {
+        if (!levelParser.isParsed()) {
+            throw new InvalidDungeonException("Level " + level + " cannot be read from " + levelFiles.get(level));
+        }
+        return Rogue.load(levelParser, getLevelSeed(level));
+    }
+
+    /**
+     * Unloads the least recently used levels (never the current one) until the loaded levels, including those loaded
+     * in the background, fit the memory budget, then drops finished background loads if that was not enough. Their
+     * state was captured when the player left them, so nothing is lost.
+     */
+    private void unloadOverBudget() {
+        Iterator<Map.Entry<Integer, Rogue>> eldest = levels.entrySet().iterator();
+        while (cachedBytes + preloadedBytes.get() > memoryBudget && eldest.hasNext()) {
+            Map.Entry<Integer, Rogue> entry = eldest.next();
+            if (entry.getValue() == current) {
+                continue;
+            }
+            cachedBytes -= levelBytes.remove(entry.getKey());
+            eldest.remove();
+        }
+        Iterator<Future<Rogue>> pending = preloading.values().iterator();
+        while (cachedBytes + preloadedBytes.get() > memoryBudget && pending.hasNext()) {
+            Future<Rogue> preload = pending.next();
+            if (!preload.isDone()) {
+                continue;
+            }
+            pending.remove();
+            Rogue dropped = finishedLoad(preload);
+            if (dropped != null) { /*A failed load was never counted*/
+                preloadedBytes.addAndGet(-estimateBytes(dropped));
+            }
+        }
+    }
+
+    /**
+     * Accessor method to access the level a finished background load made.
+     * @param preload (Future<Rogue>) finished load
+     * @return (Rogue) the level's game, or null if the load failed
+     */
+    private static Rogue finishedLoad(Future<Rogue> preload) {
+        try {
+            return preload.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Estimates the memory a level takes.
+     * @param level (Rogue) level's game
+     * @return (long) estimated bytes
+     */
+    private static long estimateBytes(Rogue level) {
+        long bytes = 0;
+        for (Room currRoom : level.getRooms()) {
+            bytes += ROOM_BYTES + (long) currRoom.getWidth() * currRoom.getHeight()
+                    + ITEM_BYTES * currRoom.getRoomItems().size();
+            if (currRoom.hasMonsters()) {
+                bytes += MONSTER_BYTES * currRoom.getMonsters().size();
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,140 @@
+package rogue;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/*The bytes of each frame, played onto a terminal that already shows the previous frames, leave it showing the new
+frame, whether the encoder moved the cursor, skipped or rewrote gaps, repeated runs or scrolled; and a step in a room
+costs a few bytes*/
+public class AnsiFrameEncoderTest {
+
+    private static final int COLS = 40;
+    private static final int ROWS = 12;
+    private static final int MAP_WIDTH = 30;
+    private static final int MAP_HEIGHT = 40;
+    private static final int MAX_STEP_BYTES = 32; /*Two cursor positions and two characters, with room to spare*/
+
+    /**
+     * The player walks around a room one step at a time; every frame decodes to the room with the player moved, and
+     * no step costs more than a few bytes.
+     */
+    @Test
+    public void stepsDecodeAndStayCheap() {
+        AnsiFrameEncoder encoder = new AnsiFrameEncoder(COLS, ROWS);
+        TerminalScreen screen = new TerminalScreen(COLS, ROWS);
+        int x = 1;
+        int y = 1;
+        assertPlays(encoder, screen, roomFrame(x, y, 0));
+        int[][] steps = {{1, 0}, {1, 0}, {0, 1}, {0, 1}, {1, 0}, {0, -1}, {-1, 0}, {-1, 0}, {0, 1}, {0, 1}};
+        for (int[] step : steps) {
+            x += step[0];
+            y += step[1];
+            int bytes = assertPlays(encoder, screen, roomFrame(x, y, 0));
+            assertTrue("Step to " + x + ", " + y + " cost " + bytes + " bytes", bytes <= MAX_STEP_BYTES);
+        }
+    }
+
+    /**
+     * The map scrolls under a fixed message line by shifts within and beyond what the encoder scrolls, and a scroll
+     * of one row costs far less than the frame.
+     */
+    @Test
+    public void scrollingDecodes() {
+        AnsiFrameEncoder encoder = new AnsiFrameEncoder(COLS, ROWS);
+        encoder.setScrollTop(1);
+        TerminalScreen screen = new TerminalScreen(COLS, ROWS);
+        int full = assertPlays(encoder, screen, roomFrame(2, 2, 0));
+        int[] tops = {1, 3, 2, 0, 3, 9, 5, 6};
+        for (int top : tops) {
+            int bytes = assertPlays(encoder, screen, roomFrame(2, 2, top));
+            if (top == 6) {
+                assertTrue("Scrolling one row cost " + bytes + " bytes", bytes < full / 2);
+            }
+        }
+    }
+
+    /**
+     * Frames with runs of one character, short and long gaps between changes, characters of two and three UTF-8
+     * bytes, rows longer than the screen and fewer rows than the screen decode to what was encoded, as does a frame
+     * written whole again after a reset.
+     */
+    @Test
+    public void runsGapsAndWideCharactersDecode() {
+        AnsiFrameEncoder encoder = new AnsiFrameEncoder(COLS, ROWS);
+        TerminalScreen screen = new TerminalScreen(COLS, ROWS);
+        String[] frames = {
+            "Welcome\n" + repeat('-', COLS) + "\n|" + repeat('.', MAP_WIDTH) + "|\néé a  b     c\n───",
+            "\n" + repeat('=', COLS / 2) + repeat('-', COLS / 2) + "\n|" + repeat('.', MAP_WIDTH) + "|\néx a  bx    c",
+            "Longer than the screen " + repeat('#', COLS) + "\n" + repeat('=', COLS) + "\n\nééé─éé!",
+            "\n\n\n\n\n\n\n\n\n\n\n\n\nPast the last row",
+            "",
+        };
+        for (String frame : frames) {
+            assertPlays(encoder, screen, frame);
+        }
+        encoder.reset();
+        assertPlays(encoder, screen, frames[0]);
+    }
+
+    /**
+     * Encodes a frame, plays its bytes onto the screen and checks the screen shows the frame.
+     * @param encoder (AnsiFrameEncoder) encoder holding the previous frames
+     * @param screen (TerminalScreen) screen showing the previous frames
+     * @param frame (String) new frame
+     * @return (int) number of bytes the frame cost
+     */
+    private static int assertPlays(AnsiFrameEncoder encoder, TerminalScreen screen, String frame) {
+        ByteBuffer out = encoder.encode(frame);
+        byte[] bytes = new byte[out.remaining()];
+        out.get(bytes);
+        screen.play(bytes, bytes.length);
+        assertTrue("Screen should show:\n" + frame, screen.shows(frame));
+        return bytes.length;
+    }
+
+    /**
+     * Makes a frame of a message line and the rows of a tall room from a given row on, each row with items on its own
+     * columns so that no two rows are alike.
+     * @param x (int) x-value of the player in the room
+     * @param y (int) y-value of the player in the room
+     * @param top (int) first row of the room shown
+     * @return (String) the frame
+     */
+    private static String roomFrame(int x, int y, int top) {
+        StringBuilder frame = new StringBuilder("You are in Room 1");
+        for (int row = top; row < top + ROWS - 1 && row < MAP_HEIGHT; row++) {
+            frame.append('\n');
+            if (row == 0 || row == MAP_HEIGHT - 1) {
+                frame.append(repeat('-', MAP_WIDTH));
+                continue;
+            }
+            char[] cells = repeat('.', MAP_WIDTH).toCharArray();
+            cells[0] = '|';
+            cells[MAP_WIDTH - 1] = '|';
+            cells[1 + (row * 7) % (MAP_WIDTH - 2)] = '!';
+            cells[1 + (row * 3) % (MAP_WIDTH - 2)] = '§';
+            if (row == y) {
+                cells[x] = '@';
+            }
+            frame.append(cells);
+        }
+        return frame.toString();
+    }
+
+    /**
+     * Makes a string of one character repeated.
+     * @param c (char) character
+     * @param count (int) number of times
+     * @return (String) the string
+     */
+    private static String repeat(char c, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(c);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,80 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.junit.Test;
+
+/*Keys typed in the terminal reach the game as Rogue's keys, Ctrl-C and Ctrl-D quit like the end of the input, and the
+frames written show the message above the room*/
+public class AnsiTerminalUITest {
+
+    /**
+     * Arrow keys, "WASD" and other letters become the game's keys, line endings are skipped and the end of the input
+     * quits.
+     * @throws UnsupportedEncodingException if UTF-8 is not supported
+     */
+    @Test
+    public void keysBecomeMoves() throws UnsupportedEncodingException {
+        AnsiTerminalUI ui = terminal("\u001b[A\u001b[B\u001b[C\u001bOD" + "wasd\r\n" + Rogue.EXPLORE);
+        char[] expected = {Rogue.UP, Rogue.DOWN, Rogue.RIGHT, Rogue.LEFT, Rogue.UP, Rogue.LEFT, Rogue.DOWN, Rogue.RIGHT,
+            Rogue.EXPLORE, Rogue.QUIT};
+        for (char key : expected) {
+            assertEquals(key, ui.getInput());
+        }
+    }
+
+    /**
+     * Ctrl-C and Ctrl-D quit the game (in raw mode they are bytes, not signals), and keys after them are still read.
+     * @throws UnsupportedEncodingException if UTF-8 is not supported
+     */
+    @Test
+    public void controlCAndControlDQuit() throws UnsupportedEncodingException {
+        AnsiTerminalUI ui = terminal("\u0003" + Rogue.INVENTORY + "\u0004\u0001");
+        assertEquals(Rogue.QUIT, ui.getInput());
+        assertEquals(Rogue.INVENTORY, ui.getInput());
+        assertEquals(Rogue.QUIT, ui.getInput());
+        assertEquals(Rogue.QUIT, ui.getInput()); /*Ctrl-A is skipped, then the input ends*/
+    }
+
+    /**
+     * Each frame played onto a terminal shows the message on the second row and the room from the fourth, and closing
+     * moves the cursor below the screen.
+     * @throws UnsupportedEncodingException if UTF-8 is not supported
+     */
+    @Test
+    public void framesShowTheMessageAndTheRoom() throws UnsupportedEncodingException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AnsiTerminalUI ui = new AnsiTerminalUI(new ByteArrayInputStream(new byte[0]), output);
+        TerminalScreen screen = new TerminalScreen(AnsiTerminalUI.COLS, AnsiTerminalUI.ROWS);
+        assertEquals(AnsiTerminalUI.COLS, ui.getColumns());
+        assertEquals(AnsiTerminalUI.ROWS - 3, ui.getRoomRows());
+
+        ui.draw("Welcome", "-----\n|@..|\n-----");
+        screen.play(output.toByteArray(), output.size());
+        assertTrue(screen.shows("\nWelcome\n\n-----\n|@..|\n-----"));
+
+        output.reset();
+        ui.draw("You moved", "-----\n|.@.|\n-----");
+        screen.play(output.toByteArray(), output.size());
+        assertTrue(screen.shows("\nYou moved\n\n-----\n|.@.|\n-----"));
+
+        output.reset();
+        ui.close();
+        assertEquals("\u001b[" + AnsiTerminalUI.ROWS + "H\r\n", output.toString("UTF-8"));
+    }
+
+    /**
+     * Makes a terminal UI that reads typed text.
+     * @param typed (String) what the player types
+     * @return (AnsiTerminalUI) the UI
+     * @throws UnsupportedEncodingException if UTF-8 is not supported
+     */
+    private static AnsiTerminalUI terminal(String typed) throws UnsupportedEncodingException {
+        return new AnsiTerminalUI(new ByteArrayInputStream(typed.getBytes("UTF-8")), new ByteArrayOutputStream());
+    }
+}
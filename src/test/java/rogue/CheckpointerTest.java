@@ -0,0 +1,108 @@
+package rogue;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/*Checkpoints reach the save file in the background, a failed write is kept for the game to report, and a world
+restored from the save file is the world that was saved, taken items included*/
+public class CheckpointerTest {
+
+    private static final int SIGHT_RADIUS = 3;
+
+    /**
+     * The state submitted last is the one in the save file once the checkpointer is closed, and no temporary file is
+     * left behind.
+     * @throws IOException if the save file cannot be read
+     */
+    @Test
+    public void newestStateIsWritten() throws IOException {
+        File saveFile = tempFile();
+        Checkpointer checkpointer = new Checkpointer(saveFile.getPath());
+        for (int x = 1; x <= 10; x++) {
+            checkpointer.submit(new SaveState(1, x, 2, new int[0], new int[0]));
+        }
+        checkpointer.close();
+        assertNull(checkpointer.getLastError());
+        assertEquals(10, SaveState.read(saveFile.getPath()).getX());
+        assertFalse(new File(saveFile.getPath() + ".tmp").exists());
+    }
+
+    /**
+     * A state that cannot be written leaves the error for the game to report instead of losing it.
+     */
+    @Test
+    public void failedWritesAreKept() {
+        File missing = new File(new File(System.getProperty("java.io.tmpdir"), "rogue-no-such-directory"), "save.bin");
+        Checkpointer checkpointer = new Checkpointer(missing.getPath());
+        checkpointer.submit(new SaveState(1, 1, 1, new int[0], new int[0]));
+        checkpointer.close();
+        assertNotNull(checkpointer.getLastError());
+        assertFalse(missing.exists());
+    }
+
+    /**
+     * A world that picked an item up and moved on is checkpointed, read back from the save file and restored into a
+     * freshly loaded world: the player is where they were with the item, and the item is gone from the room.
+     * @throws IOException if a file cannot be written or read
+     * @throws InvalidDungeonException if the world cannot be loaded
+     */
+    @Test
+    public void savedWorldIsRestored() throws IOException, InvalidDungeonException {
+        String configuration = TestDungeons.writeWorld(TestDungeons.TWO_ROOMS_WITH_LOOT);
+        File saveFile = tempFile();
+        SaveState saved;
+        try (World world = new World(configuration, 1L)) {
+            Checkpointer checkpointer = new Checkpointer(saveFile.getPath());
+            world.setPlayer(new Player("tester"));
+            world.setSightRadius(SIGHT_RADIUS);
+            assertEquals(MoveResult.PICKED_UP, world.tryMove(Rogue.RIGHT));
+            world.tryMove(Rogue.RIGHT);
+            world.tryMove(Rogue.DOWN);
+            saved = world.getSaveState();
+            checkpointer.submit(saved);
+            checkpointer.close();
+            assertNull(checkpointer.getLastError());
+        }
+
+        SaveState read = SaveState.read(saveFile.getPath());
+        assertArrayEquals(saved.getRemovedItemIds(), read.getRemovedItemIds());
+        try (World restored = new World(configuration, 1L)) {
+            Player player = new Player("tester");
+            restored.setPlayer(player);
+            restored.setSightRadius(SIGHT_RADIUS);
+            restored.restore(read);
+            Room first = restored.getCurrentLevel().getCurrentRoom();
+            assertEquals(1, first.getId());
+            assertEquals(3, player.getX());
+            assertEquals(2, player.getY());
+            assertEquals(1, player.getInventory().size());
+            assertEquals("Potion", player.getInventory().get(0).getName());
+            assertTrue("The potion is gone from the room", first.getRoomItems().isEmpty());
+            assertEquals(read.getExploredTiles()[0], restored.getCurrentLevel().getSaveState().getExploredTiles()[0]);
+
+            restored.tryMove(Rogue.UP);
+            assertEquals(MoveResult.MOVED, restored.tryMove(Rogue.LEFT)); /*Where the potion was*/
+            assertEquals(1, player.getInventory().size());
+        }
+    }
+
+    /**
+     * Makes a temporary file for a save.
+     * @return (File) the file (deleted when the tests end)
+     * @throws IOException if the file cannot be made
+     */
+    private static File tempFile() throws IOException {
+        File saveFile = File.createTempFile("rogue", ".save");
+        saveFile.deleteOnExit();
+        return saveFile;
+    }
+}
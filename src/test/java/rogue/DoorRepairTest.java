@@ -0,0 +1,128 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/*Broken doors are fixed while the rooms are verified*/
+public class DoorRepairTest {
+
+    /*Room 1's N door leads to a room that does not exist, its E door leads to room 2, which has no door back*/
+    private static final String BROKEN_DOORS = "{\"room\": ["
+            + "{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, \"doors\": ["
+            + "{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}, "
+            + "{\"dir\": \"N\", \"con_room\": 9, \"wall_pos\": 3}], \"loot\": []}, "
+            + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": 12, \"doors\": [], \"loot\": []}], "
+            + "\"items\": []}";
+
+    /*Room 1's E door leads to room 2, whose only door back is on its N wall rather than the W wall the player would
+    come in through*/
+    private static final String DOOR_BACK_ON_WRONG_WALL = "{\"room\": ["
+            + "{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}], \"loot\": []}, "
+            + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"N\", \"con_room\": 1, \"wall_pos\": 3}], \"loot\": []}], "
+            + "\"items\": []}";
+
+    /*Room 2 has no doors and its walls are too short for one*/
+    private static final String TINY_ROOM = "{\"room\": ["
+            + "{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, \"doors\": [], \"loot\": []}, "
+            + "{\"id\": 2, \"start\": false, \"height\": 2, \"width\": 2, \"doors\": [], \"loot\": []}], "
+            + "\"items\": []}";
+
+    /*Rooms 3 and 4 lead only to each other, through doors on all of their walls, so no new door can reach them*/
+    private static final String UNREACHABLE_ROOMS = "{\"room\": ["
+            + "{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}], \"loot\": []}, "
+            + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"W\", \"con_room\": 1, \"wall_pos\": 3}], \"loot\": []}, "
+            + "{\"id\": 3, \"start\": false, \"height\": 8, \"width\": 12, \"doors\": ["
+            + "{\"dir\": \"N\", \"con_room\": 4, \"wall_pos\": 3}, {\"dir\": \"S\", \"con_room\": 4, \"wall_pos\": 3}, "
+            + "{\"dir\": \"E\", \"con_room\": 4, \"wall_pos\": 3}, "
+            + "{\"dir\": \"W\", \"con_room\": 4, \"wall_pos\": 3}], \"loot\": []}, "
+            + "{\"id\": 4, \"start\": false, \"height\": 8, \"width\": 12, \"doors\": ["
+            + "{\"dir\": \"N\", \"con_room\": 3, \"wall_pos\": 3}, {\"dir\": \"S\", \"con_room\": 3, \"wall_pos\": 3}, "
+            + "{\"dir\": \"E\", \"con_room\": 3, \"wall_pos\": 3}, "
+            + "{\"dir\": \"W\", \"con_room\": 3, \"wall_pos\": 3}], \"loot\": []}], \"items\": []}";
+
+    /**
+     * A dangling door is removed and a one-way door gets a door back the player can walk through.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void danglingAndOneWayDoorsAreRepaired() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(BROKEN_DOORS);
+        Room first = game.getRooms().get(0);
+        Room second = game.getRooms().get(1);
+        assertNull("Dangling door removed", first.getDoor("N"));
+        Door doorBack = second.getDoor("W");
+        assertNotNull("Door back added", doorBack);
+        assertEquals(first, doorBack.getOtherRoom(second));
+        assertEquals(1, game.getConnectivity().getDanglingDoors().size());
+        assertEquals(1, game.getConnectivity().getReturnDoors().size());
+        game.setPlayer(new Player("tester"));
+        assertEquals(MoveResult.CHANGED_ROOM, game.tryMove(Rogue.EXPLORE));
+        assertEquals("You have entered room 2", game.getMessage());
+    }
+
+    /**
+     * A door whose room has a door back only on another wall is one-way: both rooms get the door on the opposite wall,
+     * and the player walks through room 1's E door into room 2.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void doorBackOnAnotherWallIsOneWay() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(DOOR_BACK_ON_WRONG_WALL);
+        Room first = game.getRooms().get(0);
+        Room second = game.getRooms().get(1);
+        assertEquals(2, game.getConnectivity().getOneWayDoors().size());
+        assertEquals(2, game.getConnectivity().getReturnDoors().size());
+        assertEquals(first, second.getDoor("W").getOtherRoom(second));
+        assertEquals(second, first.getDoor("S").getOtherRoom(first));
+        game.setPlayer(new Player("tester"));
+        game.tryMove(Rogue.DOWN);
+        game.tryMove(Rogue.DOWN); /*In line with the E door, at (1, 3)*/
+        int result = MoveResult.MOVED;
+        for (int x = 1; x < first.getWidth() - 1; x++) {
+            result = game.tryMove(Rogue.RIGHT);
+        }
+        assertEquals(MoveResult.CHANGED_ROOM, result);
+        assertEquals("You have entered room 2", game.getMessage());
+    }
+
+    /**
+     * A room whose walls are too short for a new door cannot be joined, which is reported as an invalid dungeon.
+     * @throws IOException if the rooms file cannot be written
+     */
+    @Test
+    public void shortWallsAreInvalidNotACrash() throws IOException {
+        try {
+            TestDungeons.load(TINY_ROOM);
+            fail("A room that cannot get a door was loaded");
+        } catch (InvalidDungeonException expected) {
+            assertNotNull(expected.getMessage());
+        }
+    }
+
+    /**
+     * Rooms that each have a door, but cannot be reached from the start and cannot be joined to it, are rejected.
+     * @throws IOException if the rooms file cannot be written
+     */
+    @Test
+    public void unreachableRoomsAreInvalid() throws IOException {
+        try {
+            TestDungeons.load(UNREACHABLE_ROOMS);
+            fail("A dungeon with rooms that cannot be reached was loaded");
+        } catch (InvalidDungeonException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("2 components"));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/*Generated dungeons depend on the seed only, and load as games*/
+public class DungeonGeneratorTest {
+
+    private static final int ROOMS = 30;
+    private static final long SEED = 42L;
+
+    /**
+     * The same seed gives the same dungeon, another seed a different one, and the dungeon loads.
+     * @throws IOException if a dungeon cannot be written
+     * @throws InvalidDungeonException if the dungeon cannot be loaded
+     */
+    @Test
+    public void sameSeedGivesSameDungeon() throws IOException, InvalidDungeonException {
+        String dungeon = generate(SEED);
+        assertEquals(dungeon, generate(SEED));
+        assertNotEquals(dungeon, generate(SEED + 1));
+        assertEquals(ROOMS, TestDungeons.load(dungeon).getRooms().size());
+    }
+
+    /**
+     * Densities that are negative, not a number or (for doors) not a chance are rejected.
+     */
+    @Test
+    public void badDensitiesAreRejected() {
+        DungeonGenerator generator = new DungeonGenerator(SEED, ROOMS);
+        double[] badDoors = {-0.1, Double.NaN, 1.5};
+        for (double density : badDoors) {
+            try {
+                generator.setDoorDensity(density);
+                fail("Door density " + density + " was accepted");
+            } catch (IllegalArgumentException expected) {
+                assertNotNull(expected.getMessage());
+            }
+        }
+        double[] badLoot = {-1, Double.NaN, Double.POSITIVE_INFINITY};
+        for (double density : badLoot) {
+            try {
+                generator.setLootDensity(density);
+                fail("Loot density " + density + " was accepted");
+            } catch (IllegalArgumentException expected) {
+                assertNotNull(expected.getMessage());
+            }
+        }
+        generator.setDoorDensity(1);
+        generator.setLootDensity(2.5);
+    }
+
+    /**
+     * Generates a dungeon.
+     * @param seed (long) seed of the dungeon
+     * @return (String) json of the dungeon
+     * @throws IOException if the dungeon cannot be written
+     */
+    private static String generate(long seed) throws IOException {
+        StringWriter out = new StringWriter();
+        new DungeonGenerator(seed, ROOMS).write(out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.Test;
+
+/*Each kind of broken dungeon gets a report line naming the check, the room and whether the game can still play it*/
+public class DungeonLinterTest {
+
+    /*Room 1's east door opens onto room 2, which has no door back, and its north door leads to a room that does not
+    exist*/
+    private static final String ONE_WAY_DOORS = "{\"room\": ["
+            + "{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}, "
+            + "{\"dir\": \"N\", \"con_room\": 9, \"wall_pos\": 4}], \"loot\": []}, "
+            + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [], \"loot\": []}], \"items\": []}";
+
+    /*TWO_ROOMS with a potion past room 1's east wall*/
+    private static final String ITEM_ON_WALL = "{\"room\": ["
+            + "{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}], "
+            + "\"loot\": [{\"id\": 1, \"x\": 20, \"y\": 2}]}, "
+            + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"W\", \"con_room\": 1, \"wall_pos\": 3}], \"loot\": []}], "
+            + "\"items\": [{\"id\": 1, \"name\": \"Potion\", \"type\": \"potion\", "
+            + "\"description\": \"you feel better\"}]}";
+
+    /*TWO_ROOMS and a room 3 without doors that nothing leads to*/
+    private static final String UNREACHABLE_ROOM = "{\"room\": ["
+            + "{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}], \"loot\": []}, "
+            + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"W\", \"con_room\": 1, \"wall_pos\": 3}], \"loot\": []}, "
+            + "{\"id\": 3, \"start\": false, \"height\": 8, \"width\": 12, \"doors\": [], \"loot\": []}], "
+            + "\"items\": []}";
+
+    /*TWO_ROOMS where neither room is the player's start*/
+    private static final String NO_START = TestDungeons.TWO_ROOMS.replace("\"start\": true", "\"start\": false");
+
+    /**
+     * A door without a door back and a door to a missing room are door warnings of the room they are in, and the room
+     * given the door back is not an error for having no doors.
+     * @throws IOException if the fixture cannot be written
+     * @throws ParseException if the report is not JSON
+     */
+    @Test
+    public void oneWayAndDanglingDoorsAreWarnings() throws IOException, ParseException {
+        JSONObject report = lint(ONE_WAY_DOORS);
+        assertEquals(Boolean.TRUE, report.get("valid"));
+        JSONObject oneWay = problem(report, "door", "no door back");
+        assertEquals(DungeonLinter.WARNING, oneWay.get("severity"));
+        assertEquals(1L, oneWay.get("room"));
+        JSONObject dangling = problem(report, "door", "does not exist");
+        assertEquals(DungeonLinter.WARNING, dangling.get("severity"));
+        assertEquals(1L, dangling.get("room"));
+        assertEquals(0L, report.get("errors"));
+    }
+
+    /**
+     * An item outside the walls is an item warning of its room, and the report counts the item.
+     * @throws IOException if the fixture cannot be written
+     * @throws ParseException if the report is not JSON
+     */
+    @Test
+    public void itemOffTheFloorIsAWarning() throws IOException, ParseException {
+        JSONObject report = lint(ITEM_ON_WALL);
+        assertEquals(Boolean.TRUE, report.get("valid"));
+        assertEquals(1L, report.get("items"));
+        assertEquals(1L, report.get("warnings"));
+        JSONObject item = problem(report, "item", "(20, 2)");
+        assertEquals(DungeonLinter.WARNING, item.get("severity"));
+        assertEquals(1L, item.get("room"));
+    }
+
+    /**
+     * A room nothing leads to is a connectivity warning (the game joins it), not a room error.
+     * @throws IOException if the fixture cannot be written
+     * @throws ParseException if the report is not JSON
+     */
+    @Test
+    public void unreachableRoomIsAWarning() throws IOException, ParseException {
+        JSONObject report = lint(UNREACHABLE_ROOM);
+        assertEquals(Boolean.TRUE, report.get("valid"));
+        assertEquals(3L, report.get("rooms"));
+        assertEquals(0L, report.get("errors"));
+        JSONObject unreachable = problem(report, "connectivity", "[3]");
+        assertEquals(DungeonLinter.WARNING, unreachable.get("severity"));
+        assertEquals(3L, unreachable.get("room"));
+    }
+
+    /**
+     * A dungeon without a start is an error outside any room, and lintAll counts the file as invalid while still
+     * reporting every file in order.
+     * @throws IOException if the fixtures cannot be written
+     * @throws ParseException if a report is not JSON
+     */
+    @Test
+    public void errorsMakeTheFileInvalid() throws IOException, ParseException {
+        String valid = TestDungeons.write(TestDungeons.TWO_ROOMS).getPath();
+        String invalid = TestDungeons.write(NO_START).getPath();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bytes, true, "UTF-8")) {
+            assertEquals(1, new DungeonLinter(TestDungeons.symbols()).lintAll(Arrays.asList(valid, invalid), 2, out));
+        }
+        String[] lines = bytes.toString("UTF-8").split("\\R");
+        assertEquals(2, lines.length);
+        JSONObject first = (JSONObject) new JSONParser().parse(lines[0]);
+        assertEquals(valid, first.get("file"));
+        assertEquals(Boolean.TRUE, first.get("valid"));
+        assertTrue(((JSONArray) first.get("problems")).isEmpty());
+
+        JSONObject second = (JSONObject) new JSONParser().parse(lines[1]);
+        assertEquals(invalid, second.get("file"));
+        assertEquals(Boolean.FALSE, second.get("valid"));
+        assertEquals(1L, second.get("errors"));
+        JSONObject noStart = problem(second, "start", "no room");
+        assertEquals(DungeonLinter.ERROR, noStart.get("severity"));
+        assertNull(noStart.get("room"));
+        assertFalse(noStart.containsKey("room"));
+    }
+
+    /**
+     * A file that is missing or is not JSON is a parse error whose message says why, and nothing is printed on
+     * standard output, where the reports go.
+     * @throws IOException if the fixture cannot be written
+     * @throws ParseException if a report is not JSON
+     */
+    @Test
+    public void unreadableFilesAreReportedNotPrinted() throws IOException, ParseException {
+        String missing = TestDungeons.write(TestDungeons.TWO_ROOMS).getPath() + ".missing";
+        String notJson = TestDungeons.write("{\"room\": [").getPath();
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        PrintStream standardOutput = System.out;
+        DungeonLinter linter = new DungeonLinter(TestDungeons.symbols());
+        DungeonLinter.Report missingReport;
+        DungeonLinter.Report notJsonReport;
+        try (PrintStream captured = new PrintStream(printed, true, "UTF-8")) {
+            System.setOut(captured);
+            missingReport = linter.lint(missing);
+            notJsonReport = linter.lint(notJson);
+        } finally {
+            System.setOut(standardOutput);
+        }
+        assertEquals("", printed.toString("UTF-8"));
+        JSONObject missingProblem = problem((JSONObject) new JSONParser().parse(missingReport.toJson()), "parse",
+                "Cannot find file named: " + missing);
+        assertEquals(DungeonLinter.ERROR, missingProblem.get("severity"));
+        problem((JSONObject) new JSONParser().parse(notJsonReport.toJson()), "parse", "Error parsing JSON file");
+    }
+
+    /**
+     * Lints one dungeon and reads its report back from JSON.
+     * @param rooms (String) contents of the rooms file
+     * @return (JSONObject) the report
+     * @throws IOException if the rooms file cannot be written
+     * @throws ParseException if the report is not JSON
+     */
+    private static JSONObject lint(String rooms) throws IOException, ParseException {
+        String roomsFile = TestDungeons.write(rooms).getPath();
+        DungeonLinter.Report report = new DungeonLinter(TestDungeons.symbols()).lint(roomsFile);
+        JSONObject json = (JSONObject) new JSONParser().parse(report.toJson());
+        assertEquals(roomsFile, json.get("file"));
+        return json;
+    }
+
+    /**
+     * Finds the problem a check reported with a message containing some text, failing if there is none.
+     * @param report (JSONObject) report
+     * @param check (String) check that found the problem
+     * @param text (String) text in the message
+     * @return (JSONObject) the problem
+     */
+    private static JSONObject problem(JSONObject report, String check, String text) {
+        for (Object entry : (JSONArray) report.get("problems")) {
+            JSONObject found = (JSONObject) entry;
+            if (check.equals(found.get("check")) && ((String) found.get("message")).contains(text)) {
+                return found;
+            }
+        }
+        fail("No " + check + " problem about \"" + text + "\" in " + report.toJSONString());
+        return null;
+    }
+}
@@ -0,0 +1,181 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+/*Edited level files reach the level they belong to, in a world configured with a "Levels" list, and an edited symbols
+file redraws the level with the new symbols*/
+public class DungeonWatcherTest {
+
+    private static final int WIDER = 20;
+    private static final long WAIT_SECONDS = 10;
+    /*A single room without doors, which cannot be played*/
+    private static final String NO_DOORS = "{\"room\": [{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [], \"loot\": []}], \"items\": []}";
+
+    /**
+     * The player takes the stairs to level 1, then both levels' files are edited: each level gets its own room 2
+     * widened, and an unusable file is reported on the message line instead of being applied.
+     * @throws IOException if a file cannot be written or watched
+     * @throws InvalidDungeonException if the world cannot be loaded
+     * @throws InterruptedException if the test is interrupted while waiting
+     */
+    @Test
+    public void editedLevelsAreSwapped() throws IOException, InvalidDungeonException, InterruptedException {
+        String configuration = TestDungeons.writeWorld(level(1, 12), level(0, 12));
+        List<String> levelFiles = RogueParser.readLevelLocations(configuration);
+        Semaphore updates = new Semaphore(0);
+        try (World world = watchedWorld(configuration, updates)) {
+            DungeonWatcher watcher = new DungeonWatcher(configuration, world);
+            try {
+                world.setPlayer(new Player("tester"));
+                assertEquals(MoveResult.CHANGED_LEVEL, world.tryMove(Rogue.RIGHT));
+
+                overwrite(levelFiles.get(0), level(1, WIDER));
+                awaitUpdates(world, updates, () -> secondWidth(world, 0) == WIDER);
+                assertEquals(WIDER, secondWidth(world, 0));
+                assertEquals(12, secondWidth(world, 1));
+                overwrite(levelFiles.get(1), level(0, WIDER));
+                awaitUpdates(world, updates, () -> secondWidth(world, 1) == WIDER);
+                assertEquals(WIDER, secondWidth(world, 1));
+
+                String notice = "Level 1 was not reloaded";
+                overwrite(levelFiles.get(1), NO_DOORS);
+                awaitUpdates(world, updates, () -> world.getMessage().startsWith(notice));
+                assertTrue(world.getMessage(), world.getMessage().startsWith(notice));
+                assertEquals(WIDER, secondWidth(world, 1));
+            } finally {
+                watcher.close();
+            }
+        }
+    }
+
+    /**
+     * The symbols file is edited while the game runs: the player is redrawn with the new symbol after the next input.
+     * @throws IOException if a file cannot be written or watched
+     * @throws InvalidDungeonException if the world cannot be loaded
+     * @throws InterruptedException if the test is interrupted while waiting
+     */
+    @Test
+    public void editedSymbolsAreRedrawn() throws IOException, InvalidDungeonException, InterruptedException {
+        String configuration = TestDungeons.writeWorld(TestDungeons.TWO_ROOMS);
+        String symbolsFile = RogueParser.readFileLocations(configuration).get(RogueParser.SYMBOLS_KEY);
+        overwrite(symbolsFile, symbols('@'));
+        Semaphore updates = new Semaphore(0);
+        try (World world = watchedWorld(configuration, updates)) {
+            DungeonWatcher watcher = new DungeonWatcher(configuration, world);
+            try {
+                world.setPlayer(new Player("tester"));
+                world.tryMove(Rogue.ROOMID);
+                assertTrue(world.getNextDisplay(), world.getNextDisplay().contains("@"));
+
+                overwrite(symbolsFile, symbols('&'));
+                awaitUpdates(world, updates, () -> world.getNextDisplay().contains("&"));
+                assertTrue(world.getNextDisplay(), world.getNextDisplay().contains("&"));
+                assertFalse(world.getNextDisplay().contains("@"));
+            } finally {
+                watcher.close();
+            }
+        }
+    }
+
+    /**
+     * Loads a world that releases a permit each time a change is queued for it, so a test can wait for the watcher
+     * without polling.
+     * @param configuration (String) name of the configuration file
+     * @param updates (Semaphore) semaphore to release
+     * @return (World) the world
+     * @throws InvalidDungeonException if the world cannot be loaded
+     */
+    private static World watchedWorld(String configuration, Semaphore updates) throws InvalidDungeonException {
+        return new World(configuration, 1L) {
+            @Override
+            public void submitUpdate(Runnable update) {
+                super.submitUpdate(update);
+                updates.release();
+            }
+        };
+    }
+
+    /**
+     * Waits for changes to be queued and applies them with an input that takes no turn, until a condition holds or
+     * no change comes in time (a save can reach the watcher as more than one change).
+     * @param world (World) world being watched
+     * @param updates (Semaphore) semaphore released for each queued change
+     * @param applied (BooleanSupplier) condition the changes should bring about
+     * @throws InterruptedException if the test is interrupted while waiting
+     */
+    private static void awaitUpdates(World world, Semaphore updates, BooleanSupplier applied)
+            throws InterruptedException {
+        while (updates.tryAcquire(WAIT_SECONDS, TimeUnit.SECONDS)) {
+            world.tryMove(Rogue.ROOMID); /*Changes are applied before an input is handled*/
+            if (applied.getAsBoolean()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Accessor method to access the width of room 2 of a loaded level.
+     * @param world (World) world
+     * @param level (int) index of the level
+     * @return (int) width
+     */
+    private static int secondWidth(World world, int level) {
+        return world.getLoadedLevel(level).getRooms().get(1).getWidth();
+    }
+
+    /**
+     * Makes a symbols file with the symbols of TestDungeons.symbols and a given player symbol.
+     * @param player (char) symbol of the player
+     * @return (String) contents of the symbols file
+     */
+    private static String symbols(char player) {
+        StringBuilder json = new StringBuilder("{\"symbols\": [");
+        for (Map.Entry<String, Character> entry : TestDungeons.symbols().entrySet()) {
+            char symbol = entry.getKey().equals("PLAYER") ? player : entry.getValue();
+            json.append("{\"name\": \"").append(entry.getKey()).append("\", \"symbol\": \"").append(symbol)
+                    .append("\"}, ");
+        }
+        json.setLength(json.length() - 2);
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Makes the rooms file of a level: two rooms as TestDungeons.TWO_ROOMS, with stairs at (2, 1) of room 1.
+     * @param stairLevel (int) level the stairs lead to
+     * @param secondWidth (int) width of room 2
+     * @return (String) contents of the rooms file
+     */
+    private static String level(int stairLevel, int secondWidth) {
+        return "{\"room\": [{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+                + "\"doors\": [{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}], \"loot\": [], "
+                + "\"stairs\": [{\"x\": 2, \"y\": 1, \"level\": " + stairLevel + "}]}, "
+                + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": " + secondWidth + ", "
+                + "\"doors\": [{\"dir\": \"W\", \"con_room\": 1, \"wall_pos\": 3}], \"loot\": []}], \"items\": []}";
+    }
+
+    /**
+     * Replaces the contents of a file.
+     * @param filename (String) name of the file
+     * @param contents (String) new contents
+     * @throws IOException if the file cannot be written
+     */
+    private static void overwrite(String filename, String contents) throws IOException {
+        try (Writer out = new FileWriter(filename)) {
+            out.write(contents);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/*A level's items, monsters and player share the level's store, and the player's slot follows them between levels*/
+public class EntityStoreTest {
+
+    /*TestDungeons.TWO_ROOMS with a rat in room 2*/
+    private static final String WITH_RAT = TestDungeons.TWO_ROOMS.replace("\"doors\": [{\"dir\": \"W\"",
+            "\"monsters\": [{\"x\": 5, \"y\": 5, \"name\": \"rat\"}], \"doors\": [{\"dir\": \"W\"");
+
+    /**
+     * Putting the player on another level moves their slot to that level's store and frees the old one.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void playerSlotMovesBetweenLevels() throws IOException, InvalidDungeonException {
+        Rogue first = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        Rogue second = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        Player player = new Player("tester");
+        first.setPlayer(player);
+        first.tryMove(Rogue.RIGHT);
+        int roomId = first.getCurrentRoom().getId();
+        assertEquals(1, first.getEntities().countInRoom(EntityStore.KIND_PLAYER, roomId));
+        second.setPlayer(player);
+        assertEquals(0, first.getEntities().countInRoom(EntityStore.KIND_PLAYER, roomId));
+        assertNotEquals(EntityStore.NO_ENTITY,
+                second.getEntities().findAt(EntityStore.KIND_PLAYER, roomId, player.getX(), player.getY()));
+    }
+
+    /**
+     * Monsters have slots in their level's store, which are released when they are killed or cleared.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void monstersLiveInTheLevelStore() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(WITH_RAT);
+        EntityStore store = game.getEntities();
+        assertEquals(1, store.countInRoom(EntityStore.KIND_MONSTER, 2));
+        assertNotEquals(EntityStore.NO_ENTITY, store.findAt(EntityStore.KIND_MONSTER, 2, 5, 5));
+        Room ratRoom = game.getRooms().get(1);
+        RoomMonsters rats = ratRoom.getMonsters();
+        assertEquals(5, rats.getX(0));
+        rats.clear();
+        assertEquals(0, store.countInRoom(EntityStore.KIND_MONSTER, 2));
+    }
+}
@@ -0,0 +1,129 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/*Consumers receive the published events in order, a consumer a whole ring behind makes events drop instead of making
+the producer wait, and closing lets every consumer finish the events already in the ring*/
+public class EventBusTest {
+
+    private static final int EVENTS = 20000;
+    private static final int SMALL_RING = 4;
+    private static final long WAIT_SECONDS = 10;
+
+    /**
+     * Two consumers waiting in different ways each receive every event that was published, in the order it was
+     * published, and every event is either published or counted as dropped.
+     */
+    @Test
+    public void consumersReceiveEventsInOrder() {
+        EventBus events = new EventBus(64);
+        ArrayList<Long> spinning = new ArrayList<>();
+        ArrayList<Long> parking = new ArrayList<>();
+        events.subscribe((event, endOfBatch) -> spinning.add(event.getTurn()), EventBus.YIELDING, "test-spinning");
+        events.subscribe((event, endOfBatch) -> parking.add(event.getTurn()), EventBus.PARKING, "test-parking");
+        ArrayList<Long> published = new ArrayList<>();
+        for (long turn = 0; turn < EVENTS; turn++) {
+            if (events.publish(GameEvent.MOVED, turn, 1, 1, 1, 0, "You moved")) {
+                published.add(turn);
+            }
+        }
+        events.close();
+        assertEquals(EVENTS, published.size() + events.getDropped());
+        assertEquals(published, spinning);
+        assertEquals(published, parking);
+    }
+
+    /**
+     * While a consumer is stuck on an event, the producer fills the rest of the ring and the next event is dropped
+     * without waiting; the consumer then receives the events that fit, with their fields, in order.
+     * @throws InterruptedException if the test is interrupted while waiting for the consumer
+     */
+    @Test
+    public void fullRingDropsEvents() throws InterruptedException {
+        EventBus events = new EventBus(SMALL_RING);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ArrayList<String> received = new ArrayList<>();
+        events.subscribe((event, endOfBatch) -> {
+            received.add(event.getTurn() + " " + GameEvent.getName(event.getType()) + " " + event.getRoomId() + " "
+                    + event.getX() + " " + event.getY() + " " + event.getValue() + " " + event.getMessage());
+            entered.countDown();
+            await(release);
+        }, EventBus.PARKING, "test-stuck");
+        assertTrue(events.publish(GameEvent.PICKED_UP, 0, 2, 3, 4, 7, "You picked up a potion"));
+        assertTrue(entered.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        for (int turn = 1; turn < SMALL_RING; turn++) {
+            assertTrue(events.publish(GameEvent.MOVED, turn, 2, turn, 4, 0, "You moved"));
+        }
+        assertFalse(events.publish(GameEvent.MOVED, SMALL_RING, 2, 0, 0, 0, "Dropped"));
+        assertEquals(1, events.getDropped());
+        release.countDown();
+        events.close();
+        assertEquals(SMALL_RING, received.size());
+        assertEquals("0 " + GameEvent.getName(GameEvent.PICKED_UP) + " 2 3 4 7 You picked up a potion",
+                received.get(0));
+        for (int turn = 1; turn < SMALL_RING; turn++) {
+            assertTrue(received.get(turn).startsWith(turn + " " + GameEvent.getName(GameEvent.MOVED)));
+        }
+    }
+
+    /**
+     * Events still in the ring when the bus is closed are all handled before close returns, the last one at the end
+     * of a batch, and the closed bus takes no new consumers.
+     * @throws InterruptedException if the test is interrupted while waiting for the consumer
+     */
+    @Test
+    public void closeDrainsTheRing() throws InterruptedException {
+        EventBus events = new EventBus(EventBus.DEFAULT_CAPACITY);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ArrayList<Long> received = new ArrayList<>();
+        boolean[] lastEndsBatch = new boolean[1];
+        events.subscribe((event, endOfBatch) -> {
+            received.add(event.getTurn());
+            lastEndsBatch[0] = endOfBatch;
+            entered.countDown();
+            await(release);
+        }, EventBus.PARKING, "test-draining");
+        int pending = EventBus.DEFAULT_CAPACITY / 2;
+        assertTrue(events.publish(GameEvent.MOVED, 0, 1, 1, 1, 0, "You moved"));
+        assertTrue(entered.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        for (long turn = 1; turn <= pending; turn++) {
+            assertTrue(events.publish(GameEvent.MOVED, turn, 1, 1, 1, 0, "You moved"));
+        }
+        release.countDown();
+        events.close();
+        assertEquals(pending + 1, received.size());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(i, (long) received.get(i));
+        }
+        assertTrue(lastEndsBatch[0]);
+        try {
+            events.subscribe((event, endOfBatch) -> { }, EventBus.BUSY_SPIN, "test-late");
+            fail("A closed bus should not take consumers");
+        } catch (IllegalStateException e) {
+            assertEquals(0, events.getDropped());
+        }
+    }
+
+    /**
+     * Waits for a latch in a handler, which cannot throw InterruptedException.
+     * @param latch (CountDownLatch) latch
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package rogue;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/*Opaque tiles cast shadows, and cached views are dropped when a tile starts or stops blocking sight*/
+public class FieldOfViewTest {
+
+    private static final int SIZE = 11;
+    private static final int RADIUS = 8;
+
+    /**
+     * A pillar in front of the viewer hides the tiles straight behind it but not the tiles beside it.
+     */
+    @Test
+    public void pillarHidesTilesBehindIt() {
+        TileStore tiles = TileStore.allocate(SIZE, SIZE);
+        tiles.setFlag(4, 5, TileStore.OPAQUE);
+        int[] seen = new FieldOfView().compute(tiles, 2, 5, RADIUS);
+        assertTrue(sees(seen, 4, 5));
+        assertFalse(sees(seen, 6, 5));
+        assertFalse(sees(seen, 9, 5));
+        assertTrue(sees(seen, 6, 2));
+        assertTrue(sees(seen, 3, 5));
+    }
+
+    /**
+     * A view is answered from the cache until a door is cut into the wall in front of the viewer, and again until
+     * the door is blocked, each change showing or hiding the tiles past the wall.
+     */
+    @Test
+    public void doorAndTileChangesDropTheCache() {
+        TileStore tiles = TileStore.allocate(SIZE, SIZE);
+        for (int y = 0; y < SIZE; y++) {
+            tiles.setTerrain(5, y, TileStore.EW_WALL);
+        }
+        FieldOfView view = new FieldOfView();
+        assertFalse(sees(view.compute(tiles, 2, 5, RADIUS), 7, 5));
+        assertFalse(sees(view.compute(tiles, 2, 5, RADIUS), 7, 5));
+        assertTrue(view.wasCached());
+
+        tiles.setTerrain(5, 5, TileStore.DOOR);
+        int[] seen = view.compute(tiles, 2, 5, RADIUS);
+        assertFalse(view.wasCached());
+        assertTrue(sees(seen, 7, 5));
+
+        tiles.setFlag(5, 5, TileStore.OPAQUE);
+        seen = view.compute(tiles, 2, 5, RADIUS);
+        assertFalse(view.wasCached());
+        assertFalse(sees(seen, 7, 5));
+
+        tiles.setFlag(5, 5, TileStore.EXPLORED); /*Does not change what blocks sight*/
+        view.compute(tiles, 2, 5, RADIUS);
+        assertTrue(view.wasCached());
+    }
+
+    /**
+     * Returns true if a tile is among the seen tiles.
+     * @param seen (int[]) seen tiles as indexes
+     * @param x (int) x-value of the tile
+     * @param y (int) y-value of the tile
+     * @return (boolean) true if the tile was seen, false otherwise
+     */
+    private static boolean sees(int[] seen, int x, int y) {
+        for (int index : seen) {
+            if (index == y * SIZE + x) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,50 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+/*Plain floor steps must not allocate: the thread's allocated-bytes counter is read around a run of steps back and
+forth across an empty room (after a warm-up, so the JIT and lazily built tiles are done). Threads left by other tests
+can make the JIT recompile the steps part way through a run, so a few runs are measured and one must be clean*/
+public class FloorStepAllocationTest {
+
+    private static final int WARM_UP_STEPS = 200000;
+    private static final int MEASURED_STEPS = 100000;
+    private static final int RUNS = 5;
+
+    /**
+     * Steps right and left between two floor tiles and checks that no bytes were allocated in at least one run.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void floorStepsDoNotAllocate() throws IOException, InvalidDungeonException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        char[] steps = {Rogue.RIGHT, Rogue.LEFT};
+        for (int i = 0; i < WARM_UP_STEPS; i++) {
+            game.tryMove(steps[i & 1]);
+        }
+        assertEquals("Steps are floor steps", MoveResult.MOVED, game.tryMove(steps[0]));
+        assertEquals("Steps are floor steps", MoveResult.MOVED, game.tryMove(steps[1]));
+        long thread = Thread.currentThread().getId();
+        long allocated = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS && allocated > 0; run++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < MEASURED_STEPS; i++) {
+                game.tryMove(steps[i & 1]);
+            }
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(thread) - before);
+        }
+        assertEquals("Bytes allocated by " + MEASURED_STEPS + " floor steps", 0L, allocated);
+    }
+}
@@ -0,0 +1,151 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.Test;
+
+/*A game played through a scripted GameUI draws the welcome, each move and the outro, plays the keys on the world
+and gives the UI back once the player quits; the world loads on another thread or right away, and a dungeon that
+cannot be played fails the loading instead of ending the program*/
+public class GameTest {
+
+    private static final int[] PROCESSORS = {1, 4};
+
+    /**
+     * The player picks the potion up, steps on and quits: every key is drawn after the welcome, the outro is drawn
+     * last and the UI is closed once.
+     * @throws IOException if the world cannot be written
+     * @throws InvalidDungeonException if the world cannot be loaded
+     */
+    @Test
+    public void playRunsUntilQuit() throws IOException, InvalidDungeonException {
+        World world = new World(TestDungeons.writeWorld(TestDungeons.TWO_ROOMS_WITH_LOOT), 1L);
+        ScriptedUI ui = new ScriptedUI(Rogue.RIGHT, Rogue.RIGHT, Rogue.DOWN, Rogue.QUIT);
+        Game.play(ui, CompletableFuture.completedFuture(world), new String[0]);
+
+        assertEquals(0, ui.keys.length - ui.next);
+        assertEquals(ui.keys.length + 2, ui.messages.size());
+        assertEquals("Welcome to my Rogue game", ui.messages.get(0));
+        assertTrue(ui.messages.get(1).startsWith("You picked up"));
+        assertEquals(world.getCurrentLevel().gameOutro(), ui.messages.get(ui.messages.size() - 1));
+        assertNotEquals("The move is drawn", ui.rooms.get(0), ui.rooms.get(1));
+        assertEquals(1, ui.closed);
+
+        Player player = world.getCurrentLevel().getPlayer();
+        assertEquals(3, player.getX());
+        assertEquals(2, player.getY());
+        assertEquals("Potion", player.getInventory().get(0).getName());
+    }
+
+    /**
+     * A valid world loads whether there is a processor to spare or not.
+     * @throws IOException if the world cannot be written
+     */
+    @Test
+    public void worldLoadsInBackground() throws IOException {
+        String configuration = TestDungeons.writeWorld(TestDungeons.TWO_ROOMS);
+        for (int processors : PROCESSORS) {
+            try (World world = Game.loadInBackground(configuration, processors).join()) {
+                assertEquals(0, world.getLevelNumber());
+                assertEquals(1, world.getCurrentLevel().getCurrentRoom().getId());
+            }
+        }
+    }
+
+    /**
+     * A world that cannot be played completes the loading with the reason, on the loading thread or not.
+     */
+    @Test
+    public void invalidWorldFailsTheLoading() {
+        String missing = new File(System.getProperty("java.io.tmpdir"), "rogue-no-such-configuration.json").getPath();
+        for (int processors : PROCESSORS) {
+            CompletableFuture<World> loading = Game.loadInBackground(missing, processors);
+            try {
+                loading.join();
+                fail("A missing configuration should not load");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof InvalidDungeonException);
+                assertTrue(e.getCause().getMessage().contains(missing));
+            }
+            assertTrue(loading.isCompletedExceptionally());
+        }
+    }
+
+    /**
+     * "--startup-time" reports the time to the first frame once the game is over.
+     * @throws IOException if the world cannot be written
+     * @throws InvalidDungeonException if the world cannot be loaded
+     */
+    @Test
+    public void startupTimeIsReported() throws IOException, InvalidDungeonException {
+        World world = new World(TestDungeons.writeWorld(TestDungeons.TWO_ROOMS), 1L);
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        PrintStream standardError = System.err;
+        try (PrintStream captured = new PrintStream(errors, true, "UTF-8")) {
+            System.setErr(captured);
+            Game.play(new ScriptedUI(Rogue.QUIT), CompletableFuture.completedFuture(world), new String[] {
+                "--startup-time"});
+        } finally {
+            System.setErr(standardError);
+        }
+        assertTrue(errors.toString("UTF-8"), errors.toString("UTF-8").matches("(?s).*First frame after \\d+ ms\\R"));
+    }
+
+    /*A GameUI that types scripted keys and keeps what it was asked to draw*/
+    private static final class ScriptedUI implements GameUI {
+
+        private static final int COLS = 40;
+        private static final int ROWS = 20;
+
+        private final char[] keys;
+        private final ArrayList<String> messages = new ArrayList<>();
+        private final ArrayList<String> rooms = new ArrayList<>();
+        private int next = 0;
+        private int closed = 0;
+
+        /**
+         * Constructor that takes the keys to type.
+         * @param script (char...) keys, the last of which should be Rogue.QUIT
+         */
+        ScriptedUI(char... script) {
+            keys = script;
+        }
+
+        @Override
+        public void draw(String message, String room) {
+            messages.add(message);
+            rooms.add(room);
+        }
+
+        @Override
+        public char getInput() {
+            return (next < keys.length) ? keys[next++] : Rogue.QUIT;
+        }
+
+        @Override
+        public int getColumns() {
+            return COLS;
+        }
+
+        @Override
+        public int getRoomRows() {
+            return ROWS;
+        }
+
+        @Override
+        public void close() {
+            closed++;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package rogue;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/*The heap a loaded game keeps per room and per item stays within a budget, measured with HeapFootprint on generated
+dungeons (the budgets leave about a quarter of headroom over 427 bytes per room and 140 bytes per item)*/
+public class HeapFootprintTest {
+
+    private static final int ROOMS = 20000;
+    private static final long ROOM_BUDGET = 512;
+    private static final long ITEM_BUDGET = 192;
+
+    /**
+     * Loads a generated dungeon without loot and one with loot and checks the bytes kept per room and per item.
+     * @throws IOException if the generated dungeons cannot be written
+     * @throws InvalidDungeonException if the generated dungeons cannot be loaded
+     */
+    @Test
+    public void roomsAndItemsStayWithinBudget() throws IOException, InvalidDungeonException {
+        File bare = HeapFootprint.generate(ROOMS, 0.0);
+        File furnished = HeapFootprint.generate(ROOMS, HeapFootprint.LOOT_PER_ROOM);
+        int[] bareCounts = new int[2];
+        long bareBytes = HeapFootprint.measure(bare.getPath(), bareCounts);
+        int[] furnishedCounts = new int[2];
+        long furnishedBytes = HeapFootprint.measure(furnished.getPath(), furnishedCounts);
+
+        long roomBytes = bareBytes / bareCounts[0];
+        assertTrue("Bytes per room: " + roomBytes, roomBytes <= ROOM_BUDGET);
+        int items = furnishedCounts[1] - bareCounts[1];
+        assertTrue("Generated dungeon has loot", items > 0);
+        long itemBytes = (furnishedBytes - bareBytes) / items;
+        assertTrue("Bytes per item: " + itemBytes, itemBytes <= ITEM_BUDGET);
+    }
+}
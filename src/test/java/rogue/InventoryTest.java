@@ -0,0 +1,131 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/*Paging and counting of the player's inventory*/
+public class InventoryTest {
+
+    private final EntityStore store = new EntityStore(1);
+
+    /**
+     * Pages hold as many names as fit in the width, and an overlong name gets a page of its own.
+     */
+    @Test
+    public void pagesFitTheWidth() {
+        Inventory inventory = new Inventory();
+        inventory.add(item(1, "Mango", "food"));
+        inventory.add(item(2, "Health Potion", "potion"));
+        inventory.add(item(3, "Mana Potion", "potion"));
+        inventory.add(item(4, "A Scroll Of Remarkably Long Names", "scroll"));
+        inventory.add(item(5, "Pie", "food"));
+        assertEquals("2 food, 2 potion, 1 scroll", inventory.getTypeSummary());
+        assertEquals(4, inventory.getPageCount("Mango, Health Potion".length()));
+        assertEquals(0, inventory.getPageStart(0));
+        assertEquals(2, inventory.getPageStart(1));
+        assertEquals(3, inventory.getPageStart(2));
+        assertEquals(4, inventory.getPageStart(3));
+        assertEquals("Mango, Health Potion", inventory.getNames(inventory.getPageStart(0), inventory.getPageEnd(0)));
+        assertEquals("Pie", inventory.getNames(inventory.getPageStart(3), inventory.getPageEnd(3)));
+        assertEquals(1, new Inventory().getPageCount(1));
+    }
+
+    /**
+     * Adding and removing items keeps the pages and the type summary the same as laying them out from the start.
+     */
+    @Test
+    public void pagesFollowChanges() {
+        int width = "Mango, Health Potion".length();
+        Inventory inventory = new Inventory();
+        inventory.add(item(1, "Mango", "food"));
+        inventory.getPageCount(width);
+        inventory.add(item(2, "Health Potion", "potion"));
+        inventory.add(item(3, "Pie", "food"));
+        assertEquals("2 food, 1 potion", inventory.getTypeSummary());
+        assertEquals(2, inventory.getPageCount(width));
+        assertEquals("Pie", inventory.getNames(inventory.getPageStart(1), inventory.getPageEnd(1)));
+        inventory.remove(store, 2); /*Pie now fits on the first page*/
+        assertEquals("2 food", inventory.getTypeSummary());
+        assertEquals(1, inventory.getPageCount(width));
+        assertEquals("Mango, Pie", inventory.getNames(inventory.getPageStart(0), inventory.getPageEnd(0)));
+    }
+
+    /**
+     * Removing an item from a later page lays the pages after the first one out again from what the first page takes
+     * up, so no page grows past the width.
+     */
+    @Test
+    public void removingKeepsPagesWithinTheWidth() {
+        int width = 10;
+        Inventory inventory = new Inventory();
+        inventory.add(item(1, "aaaaaaaa", "food"));
+        inventory.add(item(2, "bbb", "food"));
+        inventory.add(item(3, "cccccccc", "food"));
+        inventory.add(item(4, "d", "food"));
+        assertEquals(4, inventory.getPageCount(width));
+        inventory.remove(store, 3);
+        assertEquals(2, inventory.getPageCount(width));
+        assertEquals("aaaaaaaa", inventory.getNames(inventory.getPageStart(0), inventory.getPageEnd(0)));
+        assertEquals("bbb, d", inventory.getNames(inventory.getPageStart(1), inventory.getPageEnd(1)));
+    }
+
+    /**
+     * Items with the same id found on different levels are both kept.
+     */
+    @Test
+    public void idsAreKeptPerLevel() {
+        EntityStore otherLevel = new EntityStore(1);
+        Inventory inventory = new Inventory();
+        Item potion = item(1, "Health Potion", "potion");
+        Item mango = new Item(otherLevel);
+        mango.setId(1);
+        mango.setName("Mango");
+        mango.setType("food");
+        inventory.add(potion);
+        inventory.add(mango);
+        assertEquals(2, inventory.size());
+        assertSame(potion, inventory.getItem(store, 1));
+        assertSame(mango, inventory.getItem(otherLevel, 1));
+        assertSame(mango, inventory.remove(otherLevel, 1));
+        assertTrue(inventory.contains(store, 1));
+        assertFalse(inventory.contains(otherLevel, 1));
+    }
+
+    /**
+     * The item list handed out cannot be changed behind the inventory's index and counts.
+     */
+    @Test
+    public void itemsAreReadOnly() {
+        Inventory inventory = new Inventory();
+        inventory.add(item(1, "Mango", "food"));
+        try {
+            inventory.getItems().clear();
+            fail("The inventory's items were cleared through its view");
+        } catch (UnsupportedOperationException expected) {
+            assertEquals(1, inventory.size());
+        }
+        inventory.remove(store, 1);
+        assertEquals(0, inventory.getItems().size());
+        assertEquals(0, inventory.getTypeCount("food"));
+    }
+
+    /**
+     * Makes an item.
+     * @param id (int) item's id
+     * @param name (String) item's name
+     * @param type (String) item's type
+     * @return (Item) item
+     */
+    private Item item(int id, String name, String type) {
+        Item made = new Item(store);
+        made.setId(id);
+        made.setName(name);
+        made.setType(type);
+        return made;
+    }
+}
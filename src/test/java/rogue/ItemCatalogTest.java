@@ -0,0 +1,105 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/*Items defined alike share one definition, each description is stored once, and changing one item's definition
+leaves the shared one alone*/
+public class ItemCatalogTest {
+
+    /**
+     * Definitions with the same name, type and description are one object, and any difference makes another.
+     */
+    @Test
+    public void sameDefinitionsAreShared() {
+        ItemCatalog catalog = new ItemCatalog();
+        ItemDefinition potion = catalog.define("Potion", "potion", "you feel better");
+        assertSame(potion, catalog.define("Potion", "potion", "you feel better"));
+        assertNotSame(potion, catalog.define("Potion", "potion", "you feel worse"));
+        assertNotSame(potion, catalog.define("Elixir", "potion", "you feel better"));
+        assertNotSame(potion, catalog.define("Potion", "food", "you feel better"));
+        assertSame(catalog.define("Rock", "small", null), catalog.define("Rock", "small", ""));
+        assertEquals(5, catalog.size());
+        assertEquals("you feel better", potion.getDescription());
+        assertEquals("", catalog.define("Rock", "small", null).getDescription());
+    }
+
+    /**
+     * Equal descriptions are stored once whichever definitions they belong to, while every distinct description (of
+     * enough of them that the table of hashes grows, some with characters of several UTF-8 bytes) reads back as it
+     * was given.
+     */
+    @Test
+    public void equalDescriptionsAreStoredOnce() {
+        ItemCatalog catalog = new ItemCatalog();
+        int count = 100;
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < count; i++) {
+                catalog.define("Item " + round, "potion", description(i));
+            }
+        }
+        assertEquals(count, catalog.getDescriptionCount());
+        assertEquals(2 * count, catalog.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(description(i), catalog.define("Item 0", "potion", description(i)).getDescription());
+        }
+        assertEquals(count, catalog.getDescriptionCount());
+    }
+
+    /**
+     * withName, withType and withDescription (and the item setters built on them) give a new definition and leave the
+     * shared definition, and the other items holding it, as they were.
+     */
+    @Test
+    public void changesLeaveTheSharedDefinition() {
+        ItemCatalog catalog = new ItemCatalog();
+        ItemDefinition shared = catalog.define("Potion", "potion", "you feel better");
+        ItemDefinition renamed = shared.withName("Elixir");
+        ItemDefinition retyped = shared.withType("food");
+        ItemDefinition redescribed = shared.withDescription("you feel worse");
+        assertEquals("Elixir", renamed.getName());
+        assertEquals("food", retyped.getType());
+        assertEquals("you feel worse", redescribed.getDescription());
+        assertEquals("you feel better", renamed.getDescription());
+        assertNotEquals(shared, redescribed);
+        assertSharedUnchanged(shared);
+        assertSame(shared, catalog.define("Potion", "potion", "you feel better"));
+
+        EntityStore store = new EntityStore();
+        Item first = new Item(store);
+        Item second = new Item(store);
+        first.setDefinition(shared);
+        second.setDefinition(shared);
+        first.setName("Elixir");
+        first.setType("food");
+        first.setDescription("you feel worse");
+        assertEquals("Elixir", first.getName());
+        assertEquals("food", first.getType());
+        assertEquals("you feel worse", first.getDescription());
+        assertSame(shared, second.getDefinition());
+        assertSharedUnchanged(shared);
+    }
+
+    /**
+     * Checks the shared potion definition still has its name, type and description.
+     * @param shared (ItemDefinition) definition
+     */
+    private static void assertSharedUnchanged(ItemDefinition shared) {
+        assertEquals("Potion", shared.getName());
+        assertEquals("potion", shared.getType());
+        assertEquals("you feel better", shared.getDescription());
+    }
+
+    /**
+     * Makes a distinct description.
+     * @param i (int) number of the description
+     * @return (String) description
+     */
+    private static String description(int i) {
+        return (i % 2 == 0) ? "a plain potion " + i : "une potion épicée ─ " + i;
+    }
+}
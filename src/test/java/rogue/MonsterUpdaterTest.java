@@ -0,0 +1,89 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+/*A batch of distant rooms split across the pool moves every monster exactly as updating the rooms one after another
+with the same seed does*/
+public class MonsterUpdaterTest {
+
+    private static final int ROOMS = 8;
+    private static final int SIZE = 30;
+    private static final int MONSTERS_PER_ROOM = 150; /*Enough monsters in all that the batch goes to the pool*/
+    private static final long SEED = 42L;
+
+    /**
+     * Plays turns up to the first batch on one copy of the rooms and updates the rooms of another copy in turn, then
+     * compares where every monster ended up.
+     */
+    @Test
+    public void pooledBatchMatchesSequentialUpdates() {
+        ArrayList<Room> pooled = makeRooms();
+        ArrayList<Room> sequential = makeRooms();
+        MonsterUpdater updater = new MonsterUpdater(pooled);
+        for (int turn = 0; turn < MonsterUpdater.DISTANT_PERIOD; turn++) {
+            updater.advance(pooled.get(0), Room.NO_TILE, SEED);
+        }
+        updater.finishBatch();
+        for (int i = 1; i < sequential.size(); i++) {
+            Room currRoom = sequential.get(i);
+            currRoom.getMonsters().update(currRoom.getTiles(), Room.NO_TILE, SEED, MonsterUpdater.DISTANT_PERIOD);
+        }
+
+        int moved = 0;
+        for (int i = 1; i < ROOMS; i++) {
+            RoomMonsters expected = sequential.get(i).getMonsters();
+            RoomMonsters actual = pooled.get(i).getMonsters();
+            assertEquals(expected.size(), actual.size());
+            for (int m = 0; m < expected.size(); m++) {
+                assertEquals("Monster " + expected.getId(m), expected.getX(m), actual.getX(m));
+                assertEquals("Monster " + expected.getId(m), expected.getY(m), actual.getY(m));
+                moved += (actual.getX(m) != startX(m) || actual.getY(m) != startY(m)) ? 1 : 0;
+            }
+        }
+        assertNotEquals("Some monsters wandered", 0, moved);
+    }
+
+    /**
+     * Makes a room the player stands in, without monsters, followed by rooms whose monsters stand on every other tile.
+     * @return (ArrayList<Room>) the rooms
+     */
+    private static ArrayList<Room> makeRooms() {
+        ArrayList<Room> rooms = new ArrayList<>();
+        EntityStore entities = new EntityStore();
+        for (int i = 0; i < ROOMS; i++) {
+            Room currRoom = new Room();
+            currRoom.setId(i + 1);
+            currRoom.setWidth(SIZE);
+            currRoom.setHeight(SIZE);
+            currRoom.setEntities(entities);
+            for (int m = 0; i > 0 && m < MONSTERS_PER_ROOM; m++) {
+                currRoom.getMonsters().add(i * MONSTERS_PER_ROOM + m, startX(m), startY(m), "rat", 1);
+            }
+            rooms.add(currRoom);
+        }
+        return rooms;
+    }
+
+    /**
+     * Returns the x-value a monster starts on (every other floor tile of every other row).
+     * @param m (int) index of the monster in its room
+     * @return (int) x-value
+     */
+    private static int startX(int m) {
+        return 1 + 2 * (m % ((SIZE - 2) / 2));
+    }
+
+    /**
+     * Returns the y-value a monster starts on.
+     * @param m (int) index of the monster in its room
+     * @return (int) y-value
+     */
+    private static int startY(int m) {
+        return 1 + 2 * (m / ((SIZE - 2) / 2));
+    }
+}
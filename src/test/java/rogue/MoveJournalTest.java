@@ -0,0 +1,44 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/*Inputs reach the journal file when its buffer is flushed: in the background at the flush interval, or on close*/
+public class MoveJournalTest {
+
+    private static final long FLUSH_MILLIS = 20;
+    private static final long WAIT_MILLIS = 5000;
+    private static final long POLL_MILLIS = 5;
+
+    /**
+     * Appending does not write, the background flush and closing do.
+     * @throws IOException if the journal cannot be written
+     * @throws InterruptedException if the test is interrupted while waiting
+     */
+    @Test
+    public void inputsAreWrittenOnTheIntervalAndOnClose() throws IOException, InterruptedException {
+        File file = File.createTempFile("moves", ".journal");
+        file.deleteOnExit();
+        try (MoveJournal journal = new MoveJournal(file.getPath(), 1L, FLUSH_MILLIS)) {
+            journal.append(Rogue.RIGHT);
+            journal.append(Rogue.DOWN);
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            while (file.length() < MoveJournal.HEADER_SIZE + 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(POLL_MILLIS);
+            }
+            assertEquals("Flushed in the background", MoveJournal.HEADER_SIZE + 2, file.length());
+            journal.append(Rogue.LEFT);
+        }
+        assertEquals("Flushed on close", MoveJournal.HEADER_SIZE + 3, file.length());
+
+        try (MoveJournal journal = new MoveJournal(file.getPath(), 1L)) {
+            journal.append(Rogue.UP);
+            assertEquals("Only the header is written until a flush", MoveJournal.HEADER_SIZE, file.length());
+        }
+        assertEquals(MoveJournal.HEADER_SIZE + 1, file.length());
+    }
+}
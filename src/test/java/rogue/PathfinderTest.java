@@ -0,0 +1,73 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/*Tile routes and the explore command*/
+public class PathfinderTest {
+
+    /**
+     * Searches reusing the scratch space give the same routes as the first search, in rooms of either size.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void repeatedSearchesFindShortestRoutes() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        Pathfinder pathfinder = game.getPathfinder();
+        Room room = game.getRooms().get(0);
+        for (int i = 0; i < 3; i++) {
+            int[] path = pathfinder.findTilePath(room, PackedPoint.pack(1, 1), PackedPoint.pack(10, 6));
+            assertNotNull(path);
+            assertEquals("Tiles on a 9 + 5 step route", 15, path.length);
+            char[] moves = pathfinder.findMoves(room, 1, 1, 2, 1);
+            assertNotNull(moves);
+            assertEquals(1, moves.length);
+            assertEquals(Rogue.RIGHT, moves[0]);
+        }
+    }
+
+    /**
+     * Removing or adding a door drops the cached routes without the pathfinder being told by its caller.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void doorChangesDropCachedRoutes() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        Pathfinder pathfinder = game.getPathfinder();
+        Room first = game.getRooms().get(0);
+        Room second = game.getRooms().get(1);
+        assertEquals(1, pathfinder.getDistance(1, 2));
+        Door removed = first.getDoor("E");
+        first.setDoor("E", null);
+        assertEquals("Route through a removed door", -1, pathfinder.getDistance(1, 2));
+        assertNull(pathfinder.findRoomPath(1, 2));
+        first.setDoor("E", new Door(first, removed.getWallPosition(), second));
+        assertEquals(1, pathfinder.getDistance(1, 2));
+        second.clearDoors();
+        assertEquals("Route into a room without doors", -1, pathfinder.getDistance(1, 2));
+    }
+
+    /**
+     * EXPLORE walks to the room the player has not been in, then reports there is nowhere left.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void exploreTravelsToRoomsNotEntered() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        game.setPlayer(new Player("tester"));
+        long turn = game.getScheduler().getTurn();
+        assertEquals(MoveResult.CHANGED_ROOM, game.tryMove(Rogue.EXPLORE));
+        assertEquals("You have entered room 2", game.getMessage());
+        assertEquals("One turn per step", turn + 12, game.getScheduler().getTurn());
+        assertEquals(MoveResult.INFO, game.tryMove(Rogue.EXPLORE));
+        assertEquals("There is nowhere left to explore", game.getMessage());
+    }
+}
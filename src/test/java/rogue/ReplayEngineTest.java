@@ -0,0 +1,112 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/*Replaying a journal with its seed rebuilds the session exactly: the level, room and position of the player, what
+they carry and where every monster is*/
+public class ReplayEngineTest {
+
+    private static final long SEED = 1234L;
+    private static final long SCRIPT_SEED = 7L;
+    private static final int INPUTS = 150;
+    private static final int SIGHT_RADIUS = 8;
+    private static final int ROOM_ROWS = 20;
+    private static final char[] KEYS = {Rogue.UP, Rogue.DOWN, Rogue.LEFT, Rogue.RIGHT, Rogue.RIGHT, Rogue.DOWN,
+        Rogue.EXPLORE, Rogue.INVENTORY};
+
+    /*Room 1 has a potion right of the player, a scroll placed on the player (moved to a random tile when loaded)
+    and stairs to level 1; room 2 has monsters that wander, chase and are hit*/
+    private static final String LEVEL_0 = "{\"room\": ["
+            + "{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}], "
+            + "\"loot\": [{\"id\": 1, \"x\": 2, \"y\": 1}, {\"id\": 2, \"x\": 1, \"y\": 1}], "
+            + "\"stairs\": [{\"x\": 8, \"y\": 6, \"level\": 1}]}, "
+            + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"W\", \"con_room\": 1, \"wall_pos\": 3}], \"loot\": [], "
+            + "\"monsters\": [{\"x\": 5, \"y\": 2, \"name\": \"rat\", \"hp\": 40}, "
+            + "{\"x\": 8, \"y\": 5, \"name\": \"rat\", \"hp\": 40}, "
+            + "{\"x\": 3, \"y\": 6, \"name\": \"bat\", \"hp\": 40}]}], "
+            + "\"items\": [{\"id\": 1, \"name\": \"Health Potion\", \"type\": \"potion\"}, "
+            + "{\"id\": 2, \"name\": \"Scroll of Light\", \"type\": \"scroll\"}]}";
+
+    /*Two rooms without stairs back, so the player arrives on a random tile*/
+    private static final String LEVEL_1 = TestDungeons.TWO_ROOMS;
+
+    /**
+     * Plays scripted inputs on a world set up as Game sets it up, journalling each, then replays the journal and
+     * compares the two worlds.
+     * @throws IOException if a file cannot be written or the journal cannot be replayed
+     * @throws InvalidDungeonException if the world cannot be loaded
+     */
+    @Test
+    public void replayReproducesTheSession() throws IOException, InvalidDungeonException {
+        String configuration = TestDungeons.writeWorld(LEVEL_0, LEVEL_1);
+        File journalFile = File.createTempFile("moves", ".journal");
+        journalFile.deleteOnExit();
+        String played;
+        String start;
+        try (World world = new World(configuration, SEED);
+                MoveJournal journal = new MoveJournal(journalFile.getPath(), SEED)) {
+            world.setPlayer(new Player("tester"));
+            world.setViewport(new Viewport(AnsiTerminalUI.COLS, ROOM_ROWS));
+            world.setSightRadius(SIGHT_RADIUS);
+            start = describe(world);
+            Random script = new Random(SCRIPT_SEED);
+            for (int i = 0; i < INPUTS; i++) {
+                char input = (i == 0) ? Rogue.RIGHT : KEYS[script.nextInt(KEYS.length)]; /*Picks the potion up*/
+                world.tryMove(input);
+                journal.append(input);
+            }
+            played = describe(world);
+        }
+        assertNotEquals("The session changed the world", start, played);
+
+        ReplayEngine engine = new ReplayEngine();
+        try (World replayed = engine.replay(configuration, journalFile.getPath())) {
+            assertEquals(INPUTS, engine.getMovesReplayed());
+            assertEquals(played, describe(replayed));
+        }
+    }
+
+    /**
+     * A file that is not a journal is refused.
+     * @throws IOException if the file cannot be written
+     */
+    @Test(expected = IOException.class)
+    public void otherFilesAreRefused() throws IOException {
+        new ReplayEngine().replay(TestDungeons.writeWorld(LEVEL_0), TestDungeons.write(LEVEL_0).getPath());
+    }
+
+    /**
+     * Describes what replay must reproduce: the level, the player's room and position, the carried items and every
+     * monster of the level with its hit points.
+     * @param world (World) world
+     * @return (String) description
+     */
+    private static String describe(World world) {
+        Rogue level = world.getCurrentLevel();
+        Player player = level.getPlayer();
+        StringBuilder text = new StringBuilder("level ").append(world.getLevelNumber())
+                .append(", room ").append(level.getCurrentRoom().getId())
+                .append(" at ").append(player.getX()).append(", ").append(player.getY()).append(", carrying");
+        for (Item carried : player.getInventory()) {
+            text.append(' ').append(carried.getName());
+        }
+        for (Room currRoom : level.getRooms()) {
+            RoomMonsters monsters = currRoom.getMonsters();
+            for (int m = 0; m < monsters.size(); m++) {
+                text.append("\n").append(monsters.getName(m)).append(' ').append(monsters.getId(m)).append(" in room ")
+                        .append(currRoom.getId()).append(" at ").append(monsters.getX(m)).append(", ")
+                        .append(monsters.getY(m)).append(" with ").append(monsters.getHitPoints(m)).append(" hp");
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/*Save states are cheap to take and survive being written and read back*/
+public class SaveStateTest {
+
+    private static final int SIGHT_RADIUS = 3;
+
+    /**
+     * A room's explored tiles are only copied again for a save after more of them are explored.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void unchangedRoomsAreNotCopiedAgain() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        game.setPlayer(new Player("tester"));
+        game.setSightRadius(SIGHT_RADIUS);
+        assertEquals(MoveResult.MOVED, game.tryMove(Rogue.RIGHT));
+        SaveState first = game.getSaveState();
+        assertFalse(MoveResult.changesGame(game.tryMove(Rogue.ROOMID)));
+        SaveState second = game.getSaveState();
+        assertSame(first.getExploredTiles()[0], second.getExploredTiles()[0]);
+        assertTrue(MoveResult.changesGame(game.tryMove(Rogue.RIGHT)));
+        SaveState third = game.getSaveState();
+        assertNotSame(first.getExploredTiles()[0], third.getExploredTiles()[0]);
+        assertTrue(third.getExploredTiles()[0].cardinality() > first.getExploredTiles()[0].cardinality());
+    }
+
+    /**
+     * A state read back from its encoding has the same parts.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void stateSurvivesEncoding() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        game.setPlayer(new Player("tester"));
+        game.setSightRadius(SIGHT_RADIUS);
+        game.tryMove(Rogue.RIGHT);
+        game.tryMove(Rogue.DOWN);
+        SaveState state = game.getSaveState();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        state.writeTo(out);
+        SaveState read = SaveState.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(state.getRoomId(), read.getRoomId());
+        assertEquals(state.getX(), read.getX());
+        assertEquals(state.getY(), read.getY());
+        assertEquals(state.getTurn(), read.getTurn());
+        assertEquals(state.getExploredTiles()[0], read.getExploredTiles()[0]);
+    }
+}
@@ -0,0 +1,272 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+/*Players of a shared dungeon attack the monsters in their way, the monsters of their room take a turn after each of
+their moves, and players on several threads move, cross doors and pick items up without getting in each other's way*/
+public class SharedDungeonTest {
+
+    private static final long TIMEOUT_SECONDS = 30;
+    private static final int STEPS = 20000;
+    private static final int CROSSINGS = 200;
+    private static final int RACES = 200;
+
+    /**
+     * Loads TestDungeons.TWO_ROOMS with one monster in the starting room.
+     * @param monster (String) json of the monster
+     * @return (SharedDungeon) the shared dungeon
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    private static SharedDungeon share(String monster) throws IOException, InvalidDungeonException {
+        return new SharedDungeon(TestDungeons.load(TestDungeons.TWO_ROOMS.replaceFirst("\"doors\"",
+                "\"monsters\": [" + monster + "], \"doors\"")));
+    }
+
+    /**
+     * Stepping onto a monster attacks it until it is killed.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void playersAttackMonsters() throws IOException, InvalidDungeonException {
+        SharedDungeon dungeon = share("{\"x\": 2, \"y\": 1, \"name\": \"rat\", \"hp\": 2}");
+        Player player = new Player("tester");
+        assertTrue(dungeon.join(player));
+        RoomMonsters rats = player.getCurrentRoom().getMonsters();
+        assertEquals(MoveResult.ATTACKED, dungeon.move(player, Rogue.RIGHT));
+        assertEquals(1, rats.getHitPoints(0));
+        assertEquals(MoveResult.ATTACKED, dungeon.move(player, Rogue.RIGHT));
+        assertEquals(0, rats.size());
+        assertEquals(MoveResult.MOVED, dungeon.move(player, Rogue.RIGHT));
+    }
+
+    /**
+     * A monster close to a player chases them after each of their moves.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void monstersChasePlayers() throws IOException, InvalidDungeonException {
+        SharedDungeon dungeon = share("{\"x\": 5, \"y\": 3, \"name\": \"rat\"}");
+        Player chased = new Player("chased");
+        assertTrue(dungeon.join(chased));
+        RoomMonsters rats = chased.getCurrentRoom().getMonsters();
+        assertEquals(MoveResult.MOVED, dungeon.move(chased, Rogue.DOWN));
+        assertEquals(4, rats.getX(0));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(MoveResult.MOVED, dungeon.move(chased, Rogue.DOWN));
+        }
+        /*Started 6 tiles away, the rat steps after the player and ends up diagonal to them*/
+        assertEquals(2, Math.abs(rats.getX(0) - chased.getX()) + Math.abs(rats.getY(0) - chased.getY()));
+    }
+
+    /**
+     * A monster chasing one player goes around another player standing in its way.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void monstersKeepOffOtherPlayers() throws IOException, InvalidDungeonException {
+        SharedDungeon dungeon = share("{\"x\": 3, \"y\": 1, \"name\": \"rat\"}");
+        Player chased = new Player("chased");
+        Player other = new Player("other");
+        assertTrue(dungeon.join(chased));
+        assertTrue(dungeon.join(other));
+        assertEquals(2, other.getX()); /*Between the rat and the chased player*/
+        RoomMonsters rats = chased.getCurrentRoom().getMonsters();
+        assertEquals(MoveResult.MOVED, dungeon.move(chased, Rogue.DOWN));
+        assertEquals(3, rats.getX(0));
+        assertEquals(2, rats.getY(0));
+    }
+
+    /**
+     * Two players walking back and forth in different rooms at the same time make every step they are given.
+     * @throws Exception if the dungeon cannot be loaded or a thread fails or hangs
+     */
+    @Test
+    public void playersInDifferentRoomsMoveConcurrently() throws Exception {
+        SharedDungeon dungeon = new SharedDungeon(TestDungeons.load(TestDungeons.TWO_ROOMS));
+        Player first = new Player("first");
+        Player second = new Player("second");
+        assertTrue(dungeon.join(first));
+        assertTrue(dungeon.join(second));
+        crossDoor(dungeon, second, Rogue.UP);
+        Room secondRoom = second.getCurrentRoom();
+        assertTrue(secondRoom != first.getCurrentRoom());
+        int firstX = first.getX();
+        int secondX = second.getX();
+
+        CyclicBarrier start = new CyclicBarrier(2);
+        Callable<Integer> walkFirst = () -> walk(dungeon, first, Rogue.RIGHT, start);
+        Callable<Integer> walkSecond = () -> walk(dungeon, second, Rogue.LEFT, start);
+        int[] moved = runTogether(walkFirst, walkSecond);
+        assertEquals(STEPS, moved[0]);
+        assertEquals(STEPS, moved[1]);
+        assertEquals(firstX, first.getX());
+        assertEquals(secondX, second.getX());
+        assertEquals(secondRoom, second.getCurrentRoom());
+    }
+
+    /**
+     * Two players crossing the same door in opposite directions, over and over, both finish (the door's two rooms
+     * are locked in the same order whichever way a player goes).
+     * @throws Exception if the dungeon cannot be loaded or a thread fails or hangs
+     */
+    @Test
+    public void playersCrossingADoorDoNotDeadlock() throws Exception {
+        SharedDungeon dungeon = new SharedDungeon(TestDungeons.load(TestDungeons.TWO_ROOMS));
+        Player first = new Player("first");
+        Player second = new Player("second");
+        assertTrue(dungeon.join(first));
+        assertTrue(dungeon.join(second));
+        crossDoor(dungeon, second, Rogue.UP);
+
+        CyclicBarrier start = new CyclicBarrier(2);
+        Callable<Integer> crossFirst = () -> crossRepeatedly(dungeon, first, Rogue.DOWN, start);
+        Callable<Integer> crossSecond = () -> crossRepeatedly(dungeon, second, Rogue.UP, start);
+        int[] crossed = runTogether(crossFirst, crossSecond);
+        assertEquals(CROSSINGS, crossed[0]);
+        assertEquals(CROSSINGS, crossed[1]);
+    }
+
+    /**
+     * Two players stepping onto the same item at the same time: exactly one of them picks it up and the other is
+     * blocked by them.
+     * @throws Exception if the dungeon cannot be loaded or a thread fails or hangs
+     */
+    @Test
+    public void onlyOnePlayerPicksAnItemUp() throws Exception {
+        for (int race = 0; race < RACES; race++) {
+            SharedDungeon dungeon = new SharedDungeon(TestDungeons.load(TestDungeons.TWO_ROOMS_WITH_LOOT));
+            Player left = new Player("left");
+            Player right = new Player("right");
+            assertTrue(dungeon.join(left));
+            assertTrue(dungeon.join(right));
+            assertEquals(3, right.getX()); /*The item is at (2, 1), between the two players*/
+            CyclicBarrier start = new CyclicBarrier(2);
+            int[] results = runTogether(() -> {
+                start.await();
+                return dungeon.move(left, Rogue.RIGHT);
+            }, () -> {
+                start.await();
+                return dungeon.move(right, Rogue.LEFT);
+            });
+            assertEquals(MoveResult.PICKED_UP + MoveResult.BLOCKED, results[0] + results[1]);
+            assertTrue(results[0] == MoveResult.PICKED_UP || results[1] == MoveResult.PICKED_UP);
+            assertEquals(1, left.getInventory().size() + right.getInventory().size());
+            assertTrue(dungeon.getRooms().get(0).getRoomItems().isEmpty());
+        }
+    }
+
+    /**
+     * Steps a player one way and back again, counting the steps that moved them.
+     * @param dungeon (SharedDungeon) dungeon the player is in
+     * @param player (Player) player to move
+     * @param firstStep (char) step taken first (the next step goes back)
+     * @param start (CyclicBarrier) barrier the threads start together on
+     * @return (int) number of MOVED results
+     * @throws Exception if the barrier is broken
+     */
+    private static int walk(SharedDungeon dungeon, Player player, char firstStep, CyclicBarrier start)
+            throws Exception {
+        char back = (firstStep == Rogue.RIGHT) ? Rogue.LEFT : Rogue.RIGHT;
+        start.await();
+        int moved = 0;
+        for (int i = 0; i < STEPS; i++) {
+            if (dungeon.move(player, (i % 2 == 0) ? firstStep : back) == MoveResult.MOVED) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Takes a player through the door of their room CROSSINGS times, then takes them out of the dungeon so they do
+     * not stand in the way of the other player's remaining crossings.
+     * @param dungeon (SharedDungeon) dungeon the player is in
+     * @param player (Player) player to move
+     * @param aside (char) step the player takes to get around the other player
+     * @param start (CyclicBarrier) barrier the threads start together on
+     * @return (int) number of times the player changed room
+     * @throws Exception if the barrier is broken
+     */
+    private static int crossRepeatedly(SharedDungeon dungeon, Player player, char aside, CyclicBarrier start)
+            throws Exception {
+        start.await();
+        int crossed = 0;
+        for (int i = 0; i < CROSSINGS; i++) {
+            crossed += crossDoor(dungeon, player, aside) ? 1 : 0;
+        }
+        dungeon.leave(player);
+        return crossed;
+    }
+
+    /**
+     * Walks a player to the only door of their room and through it, stepping aside and on when the other player is
+     * in the way (the two players step aside in opposite directions, so they get past each other).
+     * @param dungeon (SharedDungeon) dungeon the player is in
+     * @param player (Player) player to move
+     * @param aside (char) step the player takes to get around the other player
+     * @return (boolean) true if the player changed room, false if they did not get through in STEPS moves
+     */
+    private static boolean crossDoor(SharedDungeon dungeon, Player player, char aside) {
+        Room currRoom = player.getCurrentRoom();
+        String direction = currRoom.getDoors().keySet().iterator().next();
+        int door = currRoom.getDoorTile(direction);
+        boolean sideWall = direction.equals("E") || direction.equals("W"); /*Line up with the door first*/
+        for (int i = 0; i < STEPS; i++) {
+            int dx = PackedPoint.getX(door) - player.getX();
+            int dy = PackedPoint.getY(door) - player.getY();
+            char step;
+            if (dy != 0 && (sideWall || dx == 0)) {
+                step = (dy > 0) ? Rogue.DOWN : Rogue.UP;
+            } else {
+                step = (dx > 0) ? Rogue.RIGHT : Rogue.LEFT;
+            }
+            int result = dungeon.move(player, step);
+            if (result == MoveResult.CHANGED_ROOM) {
+                return true;
+            } else if (result == MoveResult.BLOCKED && dungeon.move(player, aside) == MoveResult.MOVED
+                    && dungeon.move(player, step) == MoveResult.CHANGED_ROOM) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs two tasks on threads of their own and waits for both, failing if they do not finish in time.
+     * @param firstTask (Callable<Integer>) first task
+     * @param secondTask (Callable<Integer>) second task
+     * @return (int[]) results of the two tasks
+     * @throws InterruptedException if the test is interrupted while waiting
+     * @throws ExecutionException if a task threw
+     * @throws TimeoutException if a task did not finish (i.e. the players deadlocked)
+     */
+    private static int[] runTogether(Callable<Integer> firstTask, Callable<Integer> secondTask)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = threads.submit(firstTask);
+            Future<Integer> second = threads.submit(secondTask);
+            return new int[] {first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), second.get(TIMEOUT_SECONDS,
+                    TimeUnit.SECONDS)};
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package rogue;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+/*Clients connected over loopback get their frames back for the keys they send, and a client that stops reading has
+frames skipped without holding up anyone else*/
+public class TelnetServerTest {
+
+    private static final int COLS = 80;
+    private static final int ROWS = 24;
+    private static final int ROOM_ROW = 2;
+    private static final long WAIT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 50;
+    private static final int SMALL_BUFFER = 1024;
+
+    /**
+     * A client is shown the welcome message and the room, then the results of the keys it sends.
+     * @throws IOException if the dungeon cannot be loaded or the socket fails
+     * @throws InvalidDungeonException if the dungeon cannot be loaded
+     */
+    @Test
+    public void scriptedKeysGetFramesBack() throws IOException, InvalidDungeonException {
+        SharedDungeon dungeon = new SharedDungeon(TestDungeons.load(TestDungeons.TWO_ROOMS, TestDungeons.symbols()));
+        try (TelnetServer server = new TelnetServer(dungeon, 0, 2);
+                Socket client = connect(server, 0)) {
+            Received frames = new Received(client);
+            frames.await(screen -> screen.getRow(0).equals("Welcome to the shared dungeon")
+                    && screen.getRow(ROOM_ROW).equals("------------")
+                    && screen.getRow(ROOM_ROW + 1).equals("|@.........|"));
+            send(client, "k");
+            frames.await(screen -> screen.getRow(0).isEmpty()
+                    && screen.getRow(ROOM_ROW + 1).equals("|.@........|"));
+            send(client, "\u001b[Br"); /*The down arrow, then the room id*/
+            frames.await(screen -> screen.getRow(0).equals("You are in Room 1")
+                    && screen.getRow(ROOM_ROW + 2).equals("|.@........|"));
+        }
+    }
+
+    /**
+     * A client flooding the server with keys while never reading owes frames that are skipped, and another client's
+     * keys are still answered meanwhile. Once the slow client reads, it is shown the newest frame.
+     * @throws IOException if the dungeon cannot be loaded or a socket fails
+     * @throws InvalidDungeonException if the dungeon cannot be loaded
+     * @throws InterruptedException if the test is interrupted while flooding
+     */
+    @Test
+    public void slowReadersAreThrottled() throws IOException, InvalidDungeonException, InterruptedException {
+        SharedDungeon dungeon = new SharedDungeon(TestDungeons.load(TestDungeons.TWO_ROOMS, TestDungeons.symbols()));
+        try (TelnetServer server = new TelnetServer(dungeon, 0, 2);
+                Socket slow = connect(server, SMALL_BUFFER);
+                Socket fast = connect(server, 0)) {
+            Received fastFrames = new Received(fast);
+            fastFrames.await(screen -> screen.getRow(0).startsWith("Welcome"));
+            OutputStream slowOut = slow.getOutputStream();
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            for (int i = 0; server.getDroppedFrames() == 0 && System.currentTimeMillis() < deadline; i++) {
+                slowOut.write((i % 2 == 0) ? 'r' : 'i'); /*Each key changes the message line*/
+                slowOut.flush();
+                Thread.sleep(1); /*Keys read one at a time, so each is a frame*/
+            }
+            slowOut.write('i');
+            slowOut.flush();
+            assertTrue("Frames were skipped", server.getDroppedFrames() > 0);
+
+            send(fast, "i");
+            fastFrames.await(screen -> screen.getRow(0).startsWith("You do not have anything"));
+            new Received(slow).await(screen -> screen.getRow(0).startsWith("You do not have anything"));
+        }
+    }
+
+    /**
+     * Connects a client to the server over loopback.
+     * @param server (TelnetServer) server
+     * @param receiveBuffer (int) size of the client's receive buffer, 0 for the default
+     * @return (Socket) connected socket
+     * @throws IOException if the socket cannot connect
+     */
+    private static Socket connect(TelnetServer server, int receiveBuffer) throws IOException {
+        Socket client = new Socket();
+        if (receiveBuffer > 0) {
+            client.setReceiveBufferSize(receiveBuffer);
+        }
+        client.setTcpNoDelay(true);
+        client.setSoTimeout(READ_TIMEOUT_MILLIS);
+        client.connect(new InetSocketAddress("127.0.0.1", server.getPort()));
+        return client;
+    }
+
+    /**
+     * Sends keys to the server.
+     * @param client (Socket) client's socket
+     * @param keys (String) keys to send
+     * @throws IOException if the socket cannot be written
+     */
+    private static void send(Socket client, String keys) throws IOException {
+        client.getOutputStream().write(keys.getBytes(StandardCharsets.UTF_8));
+        client.getOutputStream().flush();
+    }
+
+    /*Everything a client received so far, played onto a screen*/
+    private static final class Received {
+
+        private final InputStream in;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final byte[] chunk = new byte[4096];
+
+        /**
+         * Constructor that reads from a client's socket.
+         * @param client (Socket) client's socket
+         * @throws IOException if the socket cannot be read
+         */
+        private Received(Socket client) throws IOException {
+            in = client.getInputStream();
+        }
+
+        /**
+         * Reads until the screen passes a check (the bytes are played from the start each time, so a sequence split
+         * between reads is played once it is whole), failing if it does not in time.
+         * @param check (Predicate<TerminalScreen>) what the screen should show
+         * @throws IOException if the socket cannot be read
+         */
+        private void await(Predicate<TerminalScreen> check) throws IOException {
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            TerminalScreen screen = new TerminalScreen(COLS, ROWS);
+            while (System.currentTimeMillis() < deadline) {
+                try {
+                    int read = in.read(chunk);
+                    if (read < 0) {
+                        break;
+                    }
+                    bytes.write(chunk, 0, read);
+                } catch (SocketTimeoutException e) {
+                    screen = new TerminalScreen(COLS, ROWS);
+                    screen.play(bytes.toByteArray(), bytes.size());
+                    if (check.test(screen)) {
+                        return;
+                    }
+                }
+            }
+            fail("Screen did not show what was expected, row 0: " + screen.getRow(0));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package rogue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*A terminal for the tests: plays the bytes AnsiFrameEncoder and TelnetServer send (telnet commands, CUP, CUF, REP, ED,
+the scroll region with SU and SD, line feeds and UTF-8 characters) onto a grid, so a test can compare what a client
+would show with the frame that was encoded*/
+final class TerminalScreen {
+
+    private static final int ESC = 27;
+    private static final int IAC = KeystrokeParser.IAC;
+    private static final int TELNET_COMMAND_BYTES = 3;
+    private static final int BYTE_MASK = 0xFF;
+
+    private final int cols;
+    private final int rows;
+    private final char[] cells;
+    private int row = 0;
+    private int col = 0;
+    private int regionTop = 0;
+    private int regionBottom;
+    private char last = ' ';
+
+    /**
+     * Constructor that makes a blank screen.
+     * @param screenCols (int) columns of the screen
+     * @param screenRows (int) rows of the screen
+     */
+    TerminalScreen(int screenCols, int screenRows) {
+        cols = screenCols;
+        rows = screenRows;
+        cells = new char[cols * rows];
+        Arrays.fill(cells, ' ');
+        regionBottom = rows - 1;
+    }
+
+    /**
+     * Plays bytes onto the screen, stopping at a sequence or character cut off by the end of the bytes.
+     * @param bytes (byte[]) bytes received
+     * @param length (int) number of bytes to play
+     */
+    void play(byte[] bytes, int length) {
+        int i = 0;
+        while (i < length) {
+            int value = bytes[i] & BYTE_MASK;
+            if (value == IAC) {
+                i += TELNET_COMMAND_BYTES;
+            } else if (value == ESC) {
+                i = playSequence(bytes, i + 2, length);
+            } else if (value == '\r') {
+                col = 0;
+                i++;
+            } else if (value == '\n') {
+                row = Math.min(rows - 1, row + 1);
+                i++;
+            } else {
+                int size = (value < 0x80) ? 1 : (value < 0xE0) ? 2 : 3;
+                if (i + size > length) {
+                    return;
+                }
+                write(new String(bytes, i, size, StandardCharsets.UTF_8).charAt(0));
+                i += size;
+            }
+        }
+    }
+
+    /**
+     * Plays a control sequence (ESC [ parameters final).
+     * @param bytes (byte[]) bytes received
+     * @param start (int) index of the first byte after ESC [
+     * @param length (int) number of bytes received
+     * @return (int) index of the byte after the sequence
+     */
+    private int playSequence(byte[] bytes, int start, int length) {
+        int[] parameters = new int[2];
+        int count = 0;
+        int i = start;
+        while (i < length && (Character.isDigit(bytes[i]) || bytes[i] == ';')) {
+            if (bytes[i] == ';') {
+                count++;
+            } else {
+                parameters[count] = parameters[count] * 10 + bytes[i] - '0';
+            }
+            i++;
+        }
+        if (i >= length) {
+            return length; /*Cut off*/
+        }
+        boolean given = i > start;
+        int first = Math.max(1, parameters[0]);
+        switch (bytes[i]) {
+            case 'H':
+                row = first - 1;
+                col = Math.max(1, parameters[1]) - 1;
+                break;
+            case 'J':
+                Arrays.fill(cells, ' ');
+                break;
+            case 'C':
+                col += first;
+                break;
+            case 'b':
+                for (int n = 0; n < first; n++) {
+                    write(last);
+                }
+                break;
+            case 'r':
+                regionTop = given ? first - 1 : 0;
+                regionBottom = given ? parameters[1] - 1 : rows - 1;
+                row = 0;
+                col = 0;
+                break;
+            case 'S':
+                scroll(first);
+                break;
+            case 'T':
+                scroll(-first);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected sequence ending in " + (char) bytes[i]);
+        }
+        return i + 1;
+    }
+
+    /**
+     * Moves the rows of the scroll region up (or down), blanking the rows that come in.
+     * @param shift (int) rows moved up (negative for down)
+     */
+    private void scroll(int shift) {
+        int height = regionBottom - regionTop + 1;
+        char[] region = Arrays.copyOfRange(cells, regionTop * cols, (regionBottom + 1) * cols);
+        Arrays.fill(cells, regionTop * cols, (regionBottom + 1) * cols, ' ');
+        for (int i = 0; i < height; i++) {
+            int from = i + shift;
+            if (from >= 0 && from < height) {
+                System.arraycopy(region, from * cols, cells, (regionTop + i) * cols, cols);
+            }
+        }
+    }
+
+    /**
+     * Writes a character at the cursor and moves the cursor right (characters past the last column are dropped).
+     * @param c (char) character
+     */
+    private void write(char c) {
+        if (col < cols) {
+            cells[row * cols + col] = c;
+        }
+        col++;
+        last = c;
+    }
+
+    /**
+     * Returns true if the screen shows a frame, cut to the screen the way AnsiFrameEncoder cuts it.
+     * @param frame (CharSequence) rows of the frame separated by '\n'
+     * @return (boolean) true if every row matches, false otherwise
+     */
+    boolean shows(CharSequence frame) {
+        String[] lines = frame.toString().split("\n", -1);
+        for (int i = 0; i < rows; i++) {
+            String line = (i < lines.length) ? lines[i] : "";
+            int end = Math.min(cols, line.length());
+            while (end > 0 && line.charAt(end - 1) == ' ') {
+                end--;
+            }
+            if (!getRow(i).equals(line.substring(0, end))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Accessor method to access a row of the screen, without its trailing spaces.
+     * @param index (int) row
+     * @return (String) text of the row
+     */
+    String getRow(int index) {
+        int end = cols;
+        while (end > 0 && cells[index * cols + end - 1] == ' ') {
+            end--;
+        }
+        return new String(cells, index * cols, end);
+    }
+}
@@ -0,0 +1,102 @@
+package rogue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+
+/*Small dungeons the tests load from temporary files*/
+final class TestDungeons {
+
+    /*Two rooms joined by one door each way, no loot or monsters, the player starts at (1, 1) in room 1*/
+    static final String TWO_ROOMS = "{\"room\": ["
+            + "{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}], \"loot\": []}, "
+            + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"W\", \"con_room\": 1, \"wall_pos\": 3}], \"loot\": []}], \"items\": []}";
+
+    /*TWO_ROOMS with a potion (item 1) next to the player at (2, 1) in room 1*/
+    static final String TWO_ROOMS_WITH_LOOT = "{\"room\": ["
+            + "{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}], "
+            + "\"loot\": [{\"id\": 1, \"x\": 2, \"y\": 1}]}, "
+            + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": 12, "
+            + "\"doors\": [{\"dir\": \"W\", \"con_room\": 1, \"wall_pos\": 3}], \"loot\": []}], "
+            + "\"items\": [{\"id\": 1, \"name\": \"Potion\", \"type\": \"potion\", "
+            + "\"description\": \"you feel better\"}]}";
+
+    /**
+     * Private constructor, this class only loads dungeons.
+     */
+    private TestDungeons() {
+    }
+
+    /**
+     * Loads a game from the json of a rooms file (without symbols).
+     * @param rooms (String) contents of the rooms file
+     * @return (Rogue) the loaded game
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    static Rogue load(String rooms) throws IOException, InvalidDungeonException {
+        return Rogue.load(new RogueParser(write(rooms).getPath(), new HashMap<String, Character>()), 1L);
+    }
+
+    /**
+     * Loads a game from the json of a rooms file, displayed with the given symbols.
+     * @param rooms (String) contents of the rooms file
+     * @param symbols (HashMap<String, Character>) display character of each symbol name
+     * @return (Rogue) the loaded game
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    static Rogue load(String rooms, HashMap<String, Character> symbols) throws IOException, InvalidDungeonException {
+        return Rogue.load(new RogueParser(write(rooms).getPath(), symbols), 1L);
+    }
+
+    /**
+     * Makes the symbols of symbols-map.json that the rendering tests look for.
+     * @return (HashMap<String, Character>) display character of each symbol name
+     */
+    static HashMap<String, Character> symbols() {
+        HashMap<String, Character> symbols = new HashMap<>();
+        symbols.put("FLOOR", '.');
+        symbols.put("NS_WALL", '-');
+        symbols.put("EW_WALL", '|');
+        symbols.put("DOOR", '+');
+        symbols.put("PLAYER", '@');
+        symbols.put("POTION", '!');
+        return symbols;
+    }
+
+    /**
+     * Writes a world configuration of levels (without symbols).
+     * @param levels (String...) contents of the rooms file of each level
+     * @return (String) name of the configuration file
+     * @throws IOException if a file cannot be written
+     */
+    static String writeWorld(String... levels) throws IOException {
+        StringBuilder configuration = new StringBuilder("{\"Symbols\": \"");
+        configuration.append(write("{\"symbols\": []}").getPath()).append("\", \"Levels\": [");
+        for (int i = 0; i < levels.length; i++) {
+            configuration.append((i == 0) ? "\"" : ", \"").append(write(levels[i]).getPath()).append('"');
+        }
+        return write(configuration.append("]}").toString()).getPath();
+    }
+
+    /**
+     * Writes the json of a rooms file to a temporary file.
+     * @param rooms (String) contents of the rooms file
+     * @return (File) the rooms file (deleted when the tests end)
+     * @throws IOException if the file cannot be written
+     */
+    static File write(String rooms) throws IOException {
+        File roomsFile = File.createTempFile("rooms", ".json");
+        roomsFile.deleteOnExit();
+        try (Writer out = new FileWriter(roomsFile)) {
+            out.write(rooms);
+        }
+        return roomsFile;
+    }
+}
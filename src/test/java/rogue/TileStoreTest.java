@@ -0,0 +1,93 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/*Tiles keep their terrain and flags apart, stores mapped onto a file keep their flags, and rooms are drawn from their
+tiles*/
+public class TileStoreTest {
+
+    /**
+     * Setting the terrain keeps the flags and setting a flag keeps the terrain, and only changes to what blocks sight
+     * change the opacity version.
+     */
+    @Test
+    public void terrainAndFlagsAreKeptApart() {
+        TileStore tiles = TileStore.allocate(4, 3);
+        assertEquals(TileStore.FLOOR, tiles.get(3, 2));
+        tiles.setFlag(1, 1, TileStore.EXPLORED);
+        tiles.setTerrain(1, 1, TileStore.DOOR);
+        assertEquals(TileStore.DOOR, tiles.getTerrain(1, 1));
+        assertTrue(tiles.hasFlag(1, 1, TileStore.EXPLORED));
+        tiles.clearFlag(1, 1, TileStore.EXPLORED);
+        assertEquals(TileStore.DOOR, tiles.get(1, 1));
+
+        long version = tiles.getOpacityVersion();
+        tiles.setFlag(2, 1, TileStore.OBSTACLE);
+        assertEquals(version, tiles.getOpacityVersion());
+        assertFalse(tiles.isPassable(2, 1));
+        assertFalse(tiles.isPassable(4, 1));
+        tiles.setTerrain(2, 2, TileStore.NS_WALL);
+        assertTrue(tiles.isOpaque(2, 2));
+        assertNotEquals(version, tiles.getOpacityVersion());
+    }
+
+    /**
+     * Flags written to a store mapped onto a file are there when the file is mapped again.
+     * @throws IOException if the file cannot be mapped
+     */
+    @Test
+    public void mappedTilesOutliveTheStore() throws IOException {
+        File file = File.createTempFile("tiles", ".bin");
+        file.deleteOnExit();
+        TileStore.map(file.getPath(), 5, 5).setFlag(3, 4, TileStore.EXPLORED);
+        TileStore again = TileStore.map(file.getPath(), 5, 5);
+        assertTrue(again.hasFlag(3, 4, TileStore.EXPLORED));
+        assertFalse(again.hasFlag(4, 3, TileStore.EXPLORED));
+    }
+
+    /**
+     * A room is drawn from its tiles: walls, the door, the item and the player, and a tile changed in the store is
+     * drawn as its new terrain.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void roomsAreDrawnFromTheirTiles() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS_WITH_LOOT, TestDungeons.symbols());
+        game.setPlayer(new Player("tester"));
+        Room room = game.getRooms().get(0);
+        String[] lines = room.displayRoom().split("\n");
+        assertEquals(8, lines.length);
+        assertEquals("------------", lines[0]);
+        assertEquals("|@!........|", lines[1]);
+        assertEquals("|..........+", lines[3]);
+
+        room.getTiles().setTerrain(5, 3, TileStore.EW_WALL);
+        assertEquals("|....|.....+", room.displayRoom().split("\n")[3]);
+    }
+
+    /**
+     * A room given a store mapped onto a file gets its terrain written into the store and keeps the store's flags.
+     * @throws IOException if the rooms file cannot be written or the store cannot be mapped
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void roomsKeepTheFlagsOfAGivenStore() throws IOException, InvalidDungeonException {
+        Room room = TestDungeons.load(TestDungeons.TWO_ROOMS).getRooms().get(1);
+        File file = File.createTempFile("tiles", ".bin");
+        file.deleteOnExit();
+        TileStore mapped = TileStore.map(file.getPath(), room.getWidth(), room.getHeight());
+        mapped.setFlag(4, 4, TileStore.EXPLORED);
+        room.setTileStore(mapped);
+        assertEquals(TileStore.DOOR, room.getTiles().getTerrain(0, 3));
+        assertTrue(room.getTiles().hasFlag(4, 4, TileStore.EXPLORED));
+    }
+}
@@ -0,0 +1,89 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/*Inputs that are not moves take no turn, and each outcome of a move has its own result code*/
+public class TryMoveTest {
+
+    /**
+     * Quitting and unknown keys are NO_OP: the player stays and the turn does not advance.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void nonMovementInputTakesNoTurn() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        game.setPlayer(new Player("tester"));
+        long turn = game.getScheduler().getTurn();
+        assertEquals(MoveResult.NO_OP, game.tryMove(Rogue.QUIT));
+        assertEquals(MoveResult.NO_OP, game.tryMove('z'));
+        assertEquals(MoveResult.INFO, game.tryMove(Rogue.ROOMID));
+        assertEquals("Turns taken", turn, game.getScheduler().getTurn());
+        assertEquals(MoveResult.MOVED, game.tryMove(Rogue.RIGHT));
+        assertEquals("Turns taken", turn + 1, game.getScheduler().getTurn());
+    }
+
+    /**
+     * Walking into a wall is BLOCKED and takes no turn; makeMove still throws for it.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void wallIsBlocked() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        game.setPlayer(new Player("tester"));
+        long turn = game.getScheduler().getTurn();
+        assertEquals(MoveResult.BLOCKED, game.tryMove(Rogue.UP));
+        assertEquals(Rogue.BLOCKED_MESSAGE, game.getMessage());
+        assertEquals("Turns taken", turn, game.getScheduler().getTurn());
+        assertEquals(1, game.getPlayer().getX());
+        assertEquals(1, game.getPlayer().getY());
+        try {
+            game.makeMove(Rogue.LEFT);
+            fail("makeMove did not throw for a move into the wall");
+        } catch (InvalidMoveException expected) {
+            assertEquals(1, game.getPlayer().getX());
+        }
+    }
+
+    /**
+     * Stepping onto an item is PICKED_UP and puts the item in the inventory.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void itemIsPickedUp() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS_WITH_LOOT);
+        game.setPlayer(new Player("tester"));
+        assertEquals(MoveResult.PICKED_UP, game.tryMove(Rogue.RIGHT));
+        assertEquals("You picked up Potion!", game.getMessage());
+        assertEquals(1, game.getPlayer().getInventory().size());
+        assertEquals(0, game.getCurrentRoom().getRoomItems().size());
+    }
+
+    /**
+     * Walking through a door is CHANGED_ROOM and places the player inside the room behind it, next to its wall with
+     * the door (the game places a player entering through a west door by the east wall).
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void doorChangesRoom() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(TestDungeons.TWO_ROOMS);
+        game.setPlayer(new Player("tester"));
+        assertEquals(MoveResult.MOVED, game.tryMove(Rogue.DOWN));
+        assertEquals(MoveResult.MOVED, game.tryMove(Rogue.DOWN));
+        for (int x = 2; x < 11; x++) {
+            assertEquals(MoveResult.MOVED, game.tryMove(Rogue.RIGHT));
+        }
+        assertEquals(MoveResult.CHANGED_ROOM, game.tryMove(Rogue.RIGHT));
+        assertEquals(2, game.getCurrentRoom().getId());
+        assertEquals(10, game.getPlayer().getX());
+        assertEquals(3, game.getPlayer().getY());
+    }
+}
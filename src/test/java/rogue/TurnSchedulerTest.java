@@ -0,0 +1,98 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+/*Events fire on the turn they are due across the wheels, and cancelled events or stale handles do not fire or cancel
+anything*/
+public class TurnSchedulerTest {
+
+    private static final long START = 5; /*Not on a wheel boundary, so cascades happen part way through a delay*/
+    private static final long[] DELAYS = {1, 255, 256, 257, 300, 65535, 65536, 65537, 70000};
+
+    /**
+     * Events due after 256 and after 65,536 turns (and either side of them) fire once each, on the turn they are due.
+     */
+    @Test
+    public void eventsFireOnTheirTurn() {
+        TurnScheduler scheduler = new TurnScheduler(START);
+        ArrayList<Long> firedOn = new ArrayList<>();
+        ArrayList<Integer> firedDelays = new ArrayList<>();
+        int kind = scheduler.addHandler((a, b, c) -> {
+            firedOn.add(scheduler.getTurn());
+            firedDelays.add(a);
+        });
+        for (long delay : DELAYS) {
+            scheduler.schedule(delay, kind, (int) delay, 0, 0);
+        }
+        assertEquals(DELAYS.length, scheduler.size());
+        long last = DELAYS[DELAYS.length - 1];
+        for (long i = 0; i < last + 256; i++) {
+            scheduler.advance();
+        }
+        assertEquals(DELAYS.length, firedOn.size());
+        for (int i = 0; i < DELAYS.length; i++) {
+            assertEquals(DELAYS[i], (long) firedDelays.get(i));
+            assertEquals("Delay " + DELAYS[i], START + DELAYS[i], (long) firedOn.get(i));
+        }
+        assertEquals(0, scheduler.size());
+    }
+
+    /**
+     * A cancelled event does not fire and cannot be cancelled again, while the events around it still fire.
+     */
+    @Test
+    public void cancelledEventsDoNotFire() {
+        TurnScheduler scheduler = new TurnScheduler(START);
+        ArrayList<Integer> fired = new ArrayList<>();
+        int kind = scheduler.addHandler((a, b, c) -> fired.add(a));
+        scheduler.schedule(256, kind, 1, 0, 0);
+        long cancelled = scheduler.schedule(256, kind, 2, 0, 0);
+        long far = scheduler.schedule(65536, kind, 3, 0, 0);
+        assertTrue(scheduler.cancel(cancelled));
+        assertFalse(scheduler.cancel(cancelled));
+        assertEquals(2, scheduler.size());
+        for (int i = 0; i < 256; i++) {
+            scheduler.advance();
+        }
+        assertTrue(scheduler.cancel(far));
+        for (int i = 0; i < 65536; i++) {
+            scheduler.advance();
+        }
+        assertEquals(1, fired.size());
+        assertEquals(1, (int) fired.get(0));
+        assertEquals(0, scheduler.size());
+    }
+
+    /**
+     * A handle of an event that fired, or of one dropped by a reset, does not cancel the newer event given the same
+     * index.
+     */
+    @Test
+    public void staleHandlesAreIgnored() {
+        TurnScheduler scheduler = new TurnScheduler();
+        ArrayList<Integer> fired = new ArrayList<>();
+        int kind = scheduler.addHandler((a, b, c) -> fired.add(a));
+        long old = scheduler.schedule(1, kind, 1, 0, 0);
+        scheduler.advance();
+        scheduler.schedule(1, kind, 2, 0, 0); /*Takes the index the fired event released*/
+        assertFalse(scheduler.cancel(old));
+        assertFalse(scheduler.cancel(TurnScheduler.NO_EVENT));
+
+        long beforeReset = scheduler.schedule(2, kind, 3, 0, 0);
+        scheduler.reset(scheduler.getTurn());
+        scheduler.schedule(1, kind, 4, 0, 0);
+        scheduler.schedule(2, kind, 5, 0, 0);
+        assertFalse(scheduler.cancel(beforeReset));
+        scheduler.advance();
+        scheduler.advance();
+        assertEquals(3, fired.size());
+        assertEquals(4, (int) fired.get(1));
+        assertEquals(5, (int) fired.get(2));
+    }
+}
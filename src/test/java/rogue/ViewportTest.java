@@ -0,0 +1,102 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/*A viewport draws only its window of a room, and the window follows the player without leaving the room*/
+public class ViewportTest {
+
+    /*TestDungeons.TWO_ROOMS with room 1 made 40 x 30 tiles*/
+    private static final String LARGE_ROOM = TestDungeons.TWO_ROOMS.replaceFirst("\"height\": 8, \"width\": 12",
+            "\"height\": 30, \"width\": 40");
+    private static final int COLS = 10;
+    private static final int ROWS = 6;
+
+    /**
+     * A window smaller than the room is drawn as exactly its columns and rows, from the room's top left corner.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void windowIsClipped() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(LARGE_ROOM, TestDungeons.symbols());
+        game.setPlayer(new Player("tester"));
+        Viewport viewport = new Viewport(COLS, ROWS);
+        viewport.follow(game.getCurrentRoom(), game.getPlayer().getX(), game.getPlayer().getY());
+        String[] lines = render(viewport, game.getCurrentRoom());
+        assertEquals(ROWS, lines.length);
+        assertEquals("----------", lines[0]);
+        assertEquals("|@........", lines[1]);
+        assertEquals("|.........", lines[ROWS - 1]);
+    }
+
+    /**
+     * Walking right and down scrolls the window once the player comes within a quarter of the window of its edge,
+     * and the player is always drawn inside it.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void windowScrollsWithThePlayer() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(LARGE_ROOM, TestDungeons.symbols());
+        game.setPlayer(new Player("tester"));
+        Viewport viewport = new Viewport(COLS, ROWS);
+        Player player = game.getPlayer();
+        for (int step = 0; step < 20; step++) {
+            game.tryMove(Rogue.RIGHT);
+            game.tryMove(Rogue.DOWN);
+            viewport.follow(game.getCurrentRoom(), player.getX(), player.getY());
+            int column = player.getX() - viewport.getLeft();
+            int row = player.getY() - viewport.getTop();
+            assertTrue("Column " + column, column >= COLS / 4 && column < COLS - COLS / 4);
+            assertTrue("Row " + row, row >= ROWS / 4 && row < ROWS - ROWS / 4);
+            assertEquals('@', render(viewport, game.getCurrentRoom())[row].charAt(column));
+        }
+        assertEquals(21, player.getX());
+        assertEquals(21, player.getY());
+    }
+
+    /**
+     * The window stops at the room's far walls, and a room smaller than the window is drawn whole from its corner.
+     * @throws IOException if the rooms file cannot be written
+     * @throws InvalidDungeonException if the rooms cannot be loaded
+     */
+    @Test
+    public void windowStaysInTheRoom() throws IOException, InvalidDungeonException {
+        Rogue game = TestDungeons.load(LARGE_ROOM, TestDungeons.symbols());
+        Room large = game.getRooms().get(0);
+        Viewport viewport = new Viewport(COLS, ROWS);
+        viewport.follow(large, 39, 29);
+        assertEquals(30, viewport.getLeft());
+        assertEquals(24, viewport.getTop());
+        String[] lines = render(viewport, large);
+        assertEquals("---------", lines[ROWS - 1].substring(0, COLS - 1));
+        assertEquals('|', lines[0].charAt(COLS - 1));
+
+        Room small = game.getRooms().get(1);
+        viewport = new Viewport(COLS * 2, ROWS * 2);
+        viewport.follow(small, 10, 6);
+        assertEquals(0, viewport.getLeft());
+        assertEquals(0, viewport.getTop());
+        lines = render(viewport, small);
+        assertEquals(small.getHeight(), lines.length);
+        assertEquals("+", lines[3].substring(0, 1));
+        assertEquals(small.getWidth(), lines[3].length());
+    }
+
+    /**
+     * Draws the window of a room.
+     * @param viewport (Viewport) viewport to draw through
+     * @param room (Room) room being shown
+     * @return (String[]) rows of the window
+     */
+    private static String[] render(Viewport viewport, Room room) {
+        StringBuilder window = new StringBuilder();
+        viewport.render(room, window);
+        return window.toString().split("\n");
+    }
+}
@@ -0,0 +1,127 @@
+package rogue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+/*A world's save holds every visited level, and items keep the level they were found on (ids repeat across levels)*/
+public class WorldSaveTest {
+
+    private static final int SIGHT_RADIUS = 3;
+
+    /*Two rooms (as TestDungeons.TWO_ROOMS) with item 1 right of the player and stairs right of it in room 1: a potion
+    on level 0, a scroll on level 1 (where the player arrives on the stairs, left of the scroll)*/
+    private static final String LEVEL_0 = level("{\"id\": 1, \"x\": 2, \"y\": 1}", 1,
+            "{\"id\": 1, \"name\": \"Health Potion\", \"type\": \"potion\"}");
+    private static final String LEVEL_1 = level("{\"id\": 1, \"x\": 4, \"y\": 1}", 0,
+            "{\"id\": 1, \"name\": \"Scroll of Light\", \"type\": \"scroll\"}");
+
+    /**
+     * Picks up item 1 on both levels, saves on level 1 and checks the restored world has both items, the taken potion
+     * stays gone from level 0 and level 0's explored tiles are kept.
+     * @throws IOException if a file cannot be written
+     * @throws InvalidDungeonException if the world cannot be loaded
+     */
+    @Test
+    public void everyVisitedLevelIsRestored() throws IOException, InvalidDungeonException {
+        String configuration = TestDungeons.writeWorld(LEVEL_0, LEVEL_1);
+        SaveState state;
+        BitSet exploredOnLevel0;
+        try (World world = new World(configuration, 1L)) {
+            world.setPlayer(new Player("tester"));
+            world.setSightRadius(SIGHT_RADIUS);
+            world.tryMove(Rogue.RIGHT);
+            exploredOnLevel0 = world.getCurrentLevel().getSaveState().getExploredTiles()[0];
+            assertEquals(MoveResult.CHANGED_LEVEL, world.tryMove(Rogue.RIGHT));
+            world.tryMove(Rogue.RIGHT);
+            assertEquals(2, world.getCurrentLevel().getPlayer().getInventory().size());
+            state = encodeAndRead(world.getSaveState());
+        }
+        assertEquals(1, state.getLevel());
+        assertEquals(0, state.getInventoryLevel(0));
+        assertEquals(1, state.getInventoryLevel(1));
+
+        try (World restored = new World(configuration, 1L, 1L)) {
+            Player player = new Player("tester");
+            restored.setPlayer(player);
+            restored.setSightRadius(SIGHT_RADIUS);
+            restored.restore(state);
+            assertEquals("Health Potion", player.getInventory().get(0).getName());
+            assertEquals("Scroll of Light", player.getInventory().get(1).getName());
+            assertEquals(MoveResult.CHANGED_LEVEL, restored.tryMove(Rogue.LEFT));
+            assertEquals(0, restored.getLevelNumber());
+            SaveState level0 = restored.getCurrentLevel().getSaveState();
+            assertEquals(1, level0.getRemovedItemIds().length);
+            assertTrue(contains(level0.getExploredTiles()[0], exploredOnLevel0));
+            assertEquals(2, player.getInventory().size());
+        }
+    }
+
+    /**
+     * Levels unloaded to keep within the memory budget come back as the player left them.
+     * @throws IOException if a file cannot be written
+     * @throws InvalidDungeonException if the world cannot be loaded
+     */
+    @Test
+    public void unloadedLevelsKeepTheirState() throws IOException, InvalidDungeonException {
+        try (World world = new World(TestDungeons.writeWorld(LEVEL_0, LEVEL_1), 1L, 1L)) {
+            world.setPlayer(new Player("tester"));
+            world.setSightRadius(SIGHT_RADIUS);
+            world.tryMove(Rogue.RIGHT);
+            SaveState left = world.getCurrentLevel().getSaveState();
+            world.tryMove(Rogue.RIGHT);
+            assertEquals(1, world.getLoadedLevelCount());
+            world.tryMove(Rogue.RIGHT);
+            assertEquals(MoveResult.CHANGED_LEVEL, world.tryMove(Rogue.LEFT));
+            SaveState back = world.getCurrentLevel().getSaveState();
+            assertEquals(left.getRemovedItemIds().length, back.getRemovedItemIds().length);
+            assertTrue(contains(back.getExploredTiles()[0], left.getExploredTiles()[0]));
+        }
+    }
+
+    /**
+     * Makes the rooms file of a level.
+     * @param loot (String) json of the loot of room 1
+     * @param stairLevel (int) level the stairs at (3, 1) of room 1 lead to
+     * @param item (String) json of the level's item
+     * @return (String) contents of the rooms file
+     */
+    private static String level(String loot, int stairLevel, String item) {
+        return "{\"room\": [{\"id\": 1, \"start\": true, \"height\": 8, \"width\": 12, "
+                + "\"doors\": [{\"dir\": \"E\", \"con_room\": 2, \"wall_pos\": 3}], \"loot\": [" + loot + "], "
+                + "\"stairs\": [{\"x\": 3, \"y\": 1, \"level\": " + stairLevel + "}]}, "
+                + "{\"id\": 2, \"start\": false, \"height\": 8, \"width\": 12, "
+                + "\"doors\": [{\"dir\": \"W\", \"con_room\": 1, \"wall_pos\": 3}], \"loot\": []}], "
+                + "\"items\": [" + item + "]}";
+    }
+
+    /**
+     * Returns true if every tile explored in one set is explored in another.
+     * @param explored (BitSet) explored tiles
+     * @param earlier (BitSet) tiles explored earlier
+     * @return (boolean) true if explored holds every tile of earlier, false otherwise
+     */
+    private static boolean contains(BitSet explored, BitSet earlier) {
+        BitSet missing = (BitSet) earlier.clone();
+        missing.andNot(explored);
+        return missing.isEmpty();
+    }
+
+    /**
+     * Writes a state and reads it back.
+     * @param state (SaveState) state
+     * @return (SaveState) the state read back
+     * @throws IOException if encoding fails
+     */
+    private static SaveState encodeAndRead(SaveState state) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        state.writeTo(out);
+        return SaveState.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
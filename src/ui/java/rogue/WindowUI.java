@@ -12,10 +12,11 @@ import java.awt.Container;
 import javax.swing.WindowConstants;
 import java.awt.BorderLayout;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /*Handling NotEnoughDoorsException is not entirely working/complete --> complete this for A3*/
 
-public class WindowUI extends JFrame {
+public class WindowUI extends JFrame implements GameUI {
 
     private SwingTerminal terminal;
     private TerminalScreen screen;
@@ -27,6 +28,7 @@ public class WindowUI extends JFrame {
     private final char startCol = 0;
     private final char msgRow = 1;
     private final char roomRow = 3;
+    private static final int ROOM_ROWS = ROWS - 3; /*Rows below the message (the room starts at roomRow)*/
 
     /**
      *Constructor that sets up terminal and other essentials in order for the game to run smoothly.
@@ -95,6 +97,7 @@ public class WindowUI extends JFrame {
      *@param message the message to be displayed at the top of the room
      *@param room the room map to be drawn
      **/
+    @Override
     public void draw(String message, String room) {
         try {
             setMessage(message);
@@ -110,6 +113,7 @@ public class WindowUI extends JFrame {
      *keys to the equivalent movement keys in rogue.
      *@return the ascii value of the key pressed by the user
      **/
+    @Override
     public char getInput() {
         KeyStroke keyStroke = null;
         char returnChar = ' ';
@@ -146,72 +150,41 @@ public class WindowUI extends JFrame {
     }
 
     /**
-     *Updates the next instance of the terminal output.
-     *The update can either be a new message or a new message with a new instance of the room
-     *@param theGameUI (WindowUI) passing access to terminal manipulation
-     *@param theGame (Rogue) passing access to the rogue object created in the main method
-     *@param userInput (char) to determine the next output/instance of the game
+     *Accessor method to access the number of columns a room can be displayed in.
+     *@return the columns of the screen
      **/
-    public static void updateGame(WindowUI theGameUI, Rogue theGame, char userInput) {
-        String message = "";
-        String roomInstance = ""; /*If a custom character is inputted ('i', 'r'), the roomInstance stays the same, this
-        variable will hold on to the last instance of the room*/
-        /*Ask the game if the user can move there*/
-        if (userInput != 'i' || userInput != 'r') { /*custom input characters that display information instead of a
-            new instance of the room*/
-            try {
-                message = theGame.makeMove(userInput);
-                roomInstance = theGame.getNextDisplay();
-                theGameUI.draw(message, roomInstance);
-            } catch (InvalidMoveException badMove) {
-                message = "You cannot make that move";
-                theGameUI.setMessage(message);
-                theGameUI.draw(message, theGame.getNextDisplay());
-            }
-        /*The player requests additional information*/
-        } else if (userInput == 'i' || userInput == 'r') {
-            try {
-                message = theGame.makeMove(userInput);
-                theGameUI.draw(message, roomInstance);
-            } catch (InvalidMoveException noFunctionality) {
-                message = "";
-            }
-        }
+    @Override
+    public int getColumns() {
+        return COLS;
     }
 
     /**
-     *The controller method for making the game logic work.
-     *@param args command line parameters
+     *Accessor method to access the number of rows a room can be displayed in (below the message).
+     *@return the rows below the message
      **/
-    public static void main(String[] args) {
+    @Override
+    public int getRoomRows() {
+        return ROOM_ROWS;
+    }
 
-        String configurationFileLocation = "fileLocations.json";
+    /**
+     *Leaves the window open on the last screen (closing the window ends the program).
+     **/
+    @Override
+    public void close() {
+    }
 
-        /*Parse the json files*/
-        RogueParser parser = new RogueParser(configurationFileLocation);
+    /**
+     *Plays the game in a Swing window.
+     *@param args command line parameters
+     **/
+    public static void main(String[] args) {
 
+        /*The world loads while the GUI is made*/
+        CompletableFuture<World> loading = Game.loadInBackground();
         /*Allocate memory for the GUI*/
         WindowUI theGameUI = new WindowUI();
-
-        /*Allocate memory for the game and set it up*/
-        Rogue theGame = new Rogue(parser);
-
-        /*Set up the initial game display*/
-        Player thePlayer = new Player("Samantha");
-        theGame.setPlayer(thePlayer);
-
-        String message = "Welcome to my Rogue game";
-        theGameUI.draw(message, theGame.getNextDisplay());
         theGameUI.setVisible(true);
-
-        char userInput = 'h'; /*Arbitrary start input*/
-        while (userInput != 'q') {
-            /*Get input from the user*/
-            userInput = theGameUI.getInput();
-            message = "";
-            updateGame(theGameUI, theGame, userInput);
-        }
-        message = theGame.gameOutro();
-        theGameUI.draw(message, theGame.getNextDisplay());
+        Game.play(theGameUI, loading, args);
     }
 }